@@ -0,0 +1,62 @@
+package org.jzy3d.io.vtk;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The data arrays that a reader should load from a file, e.g. the single property that will be
+ * colored, to avoid decoding and allocating all the other arrays of files holding many of them.
+ *
+ * Points and cells are always loaded. The plan applies to point and cell data arrays, and to
+ * result arrays of exodus files, by name : an array is loaded if its name is in the plan, whatever
+ * the kind of data it holds.
+ *
+ * @author Martin Pernollet
+ */
+public class LoadPlan {
+  /** A plan loading all arrays, which is the default behaviour of readers. */
+  public static final LoadPlan ALL = new LoadPlan();
+
+  /** A plan loading only points and cells. */
+  public static final LoadPlan GEOMETRY = new LoadPlan(Collections.emptySet());
+
+  /** Names of the arrays to load, or null to load all arrays. */
+  protected Set<String> arrays;
+
+  protected LoadPlan() {
+    this.arrays = null;
+  }
+
+  public LoadPlan(String... arrays) {
+    this(Arrays.asList(arrays));
+  }
+
+  public LoadPlan(Collection<String> arrays) {
+    if (arrays == null)
+      throw new IllegalArgumentException("Array names should not be null, use LoadPlan.ALL");
+    this.arrays = Collections.unmodifiableSet(new LinkedHashSet<>(arrays));
+  }
+
+  /** Return true if the array with the given name should be loaded. */
+  public boolean isNeeded(String name) {
+    return arrays == null || arrays.contains(name);
+  }
+
+  /** Return true if all arrays should be loaded. */
+  public boolean isAll() {
+    return arrays == null;
+  }
+
+  /** Return the names of the arrays to load, or null if all arrays should be loaded. */
+  public Set<String> getArrays() {
+    return arrays;
+  }
+
+  @Override
+  public String toString() {
+    return isAll() ? "LoadPlan[all]" : "LoadPlan" + arrays;
+  }
+}
@@ -26,6 +26,7 @@ public class AbstractVTKDrawableBuilder implements IDrawableBuilder{
   
   protected IColorMap colormap = new ColorMapRainbow();
   protected Color color = null;
+  protected int colorLookupResolution = ColorLookupTable.DEFAULT_RESOLUTION;
   
   protected Color wireColor = null;
   protected boolean wireDisplayed = false;
@@ -92,6 +93,22 @@ public class AbstractVTKDrawableBuilder implements IDrawableBuilder{
     }
   }
 
+  /**
+   * Return a lookup table giving the colors of {@link #getValueColor(float)} for the current
+   * property range, sampled with {@link #getColorLookupResolution()} colors.
+   */
+  protected ColorLookupTable newColorLookupTable() {
+    if(colormap!=null) {
+      return new ColorLookupTable(colormap, propertyRange, colorLookupResolution);
+    }
+    else if(this.color!=null){
+      return new ColorLookupTable(this.color);
+    }
+    else {
+      return new ColorLookupTable(Color.GRAY);
+    }
+  }
+
 
 
   //////////////////////////////////////////////
@@ -160,6 +177,15 @@ public class AbstractVTKDrawableBuilder implements IDrawableBuilder{
     this.reflectLight = reflectLight;
   }
 
+  public int getColorLookupResolution() {
+    return colorLookupResolution;
+  }
+
+  /** Set the number of colors sampled from the colormap to colorize a property. */
+  public void setColorLookupResolution(int colorLookupResolution) {
+    this.colorLookupResolution = colorLookupResolution;
+  }
+
   public vtkDataSet getVTKDataset() {
     return dataset;
   }
@@ -0,0 +1,237 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import org.jzy3d.colors.Color;
+import org.jzy3d.colors.colormaps.IColorMap;
+import org.jzy3d.maths.Range;
+
+/**
+ * A table of RGBA colors sampled from an {@link IColorMap} at regular intervals of a value range.
+ *
+ * Colorizing a property with this table does not call the colormap nor allocate a {@link Color}
+ * per value : each value is converted to the index of the closest sample and the sample channels
+ * are copied to the output color array. Values out of range are clamped to the first or last
+ * sample, and NaN values get the first sample.
+ *
+ * Large properties are colorized in chunks on the common {@link java.util.concurrent.ForkJoinPool}.
+ *
+ * The alpha channel of the table can be replaced by a ramp to make it a transfer function for
+ * volumes.
+ *
+ * @author Martin Pernollet
+ */
+public class ColorLookupTable {
+  public static final int DEFAULT_RESOLUTION = 4096;
+
+  /** Number of values above which {@link #colorize(float[], float[], int)} runs in parallel. */
+  public static int PARALLEL_THRESHOLD = 1 << 16;
+
+  protected static final int RGBA = 4;
+
+  protected float[] rgba;
+  protected int resolution;
+  protected float min;
+  protected float scale;
+
+  /**
+   * Sample the colormap with the given number of colors, the first color being the color of the
+   * range min and the last one the color of the range max.
+   */
+  public ColorLookupTable(IColorMap colormap, Range range, int resolution) {
+    if (resolution < 1)
+      throw new IllegalArgumentException("Resolution should be at least 1, not " + resolution);
+
+    double rangeMin = range.getMin();
+    double rangeMax = range.getMax();
+
+    this.resolution = resolution;
+    this.rgba = new float[resolution * RGBA];
+    this.min = (float) rangeMin;
+    this.scale = rangeMax > rangeMin ? (float) ((resolution - 1) / (rangeMax - rangeMin)) : 0;
+
+    for (int i = 0; i < resolution; i++) {
+      double value = resolution > 1 ? rangeMin + (rangeMax - rangeMin) * i / (resolution - 1)
+          : rangeMin;
+      set(i, colormap.getColor(0, 0, value, rangeMin, rangeMax));
+    }
+  }
+
+  /** A table giving the same color to all values. */
+  public ColorLookupTable(Color color) {
+    this.resolution = 1;
+    this.rgba = new float[RGBA];
+    this.min = 0;
+    this.scale = 0;
+    set(0, color);
+  }
+
+  protected void set(int i, Color color) {
+    rgba[i * RGBA] = color.r;
+    rgba[i * RGBA + 1] = color.g;
+    rgba[i * RGBA + 2] = color.b;
+    rgba[i * RGBA + 3] = color.a;
+  }
+
+  /** Replace the alpha channel of all colors of the table. */
+  public void setAlpha(float alpha) {
+    for (int i = 0; i < resolution; i++) {
+      rgba[i * RGBA + 3] = alpha;
+    }
+  }
+
+  /**
+   * Replace the alpha channel of the table by a linear ramp from the alpha of the range min to the
+   * alpha of the range max.
+   */
+  public void setAlphaRamp(float minAlpha, float maxAlpha) {
+    setAlphaRamp(new float[] {0, 1}, new float[] {minAlpha, maxAlpha});
+  }
+
+  /**
+   * Replace the alpha channel of the table by a piecewise linear ramp.
+   *
+   * @param positions ascending positions in the range, 0 being the range min and 1 the range max.
+   *        Alpha is constant before the first position and after the last one.
+   * @param alphas the alpha at each position
+   */
+  public void setAlphaRamp(float[] positions, float[] alphas) {
+    if (positions.length == 0 || positions.length != alphas.length)
+      throw new IllegalArgumentException("Expect as many alphas as positions, got "
+          + alphas.length + " alphas for " + positions.length + " positions");
+    for (int k = 1; k < positions.length; k++) {
+      if (positions[k] < positions[k - 1])
+        throw new IllegalArgumentException("Positions should be ascending");
+    }
+
+    int k = 0;
+    for (int i = 0; i < resolution; i++) {
+      float position = resolution > 1 ? (float) i / (resolution - 1) : 0;
+
+      while (k < positions.length && positions[k] < position) {
+        k++;
+      }
+
+      float alpha;
+      if (k == 0)
+        alpha = alphas[0];
+      else if (k == positions.length)
+        alpha = alphas[k - 1];
+      else {
+        float width = positions[k] - positions[k - 1];
+        float ratio = width > 0 ? (position - positions[k - 1]) / width : 1;
+        alpha = alphas[k - 1] + ratio * (alphas[k] - alphas[k - 1]);
+      }
+      rgba[i * RGBA + 3] = alpha;
+    }
+  }
+
+  /** Return the index of the sample used to color the value. */
+  public int index(float value) {
+    float x = (value - min) * scale + 0.5f;
+    int k = x > 0 ? (int) x : 0; // also for NaN
+    return k < resolution ? k : resolution - 1;
+  }
+
+  /** Return the color of the value, allocating a new {@link Color}. */
+  public Color getColor(float value) {
+    int k = index(value) * RGBA;
+    return new Color(rgba[k], rgba[k + 1], rgba[k + 2], rgba[k + 3]);
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // COLORIZE
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Write the color of each value in the output array, with 3 (RGB) or 4 (RGBA) channels per
+   * value, in parallel if there are more than {@link #PARALLEL_THRESHOLD} values.
+   *
+   * @return the output array
+   */
+  public float[] colorize(float[] values, float[] colors, int channels) {
+    if (channels != 3 && channels != RGBA)
+      throw new IllegalArgumentException("Expect 3 or 4 color channels, not " + channels);
+    if (colors.length < values.length * channels)
+      throw new IllegalArgumentException("Color array can hold " + colors.length / channels
+          + " colors, need " + values.length);
+
+    if (values.length >= PARALLEL_THRESHOLD)
+      ParallelChunks.forEachChunk(values.length,
+          (from, to) -> colorize(values, colors, channels, from, to));
+    else
+      colorize(values, colors, channels, 0, values.length);
+    return colors;
+  }
+
+  /** Write the colors of the values between from (included) and to (excluded). */
+  public void colorize(float[] values, float[] colors, int channels, int from, int to) {
+    if (channels == RGBA) {
+      for (int i = from; i < to; i++) {
+        int k = index(values[i]) * RGBA;
+        int c = i * RGBA;
+        colors[c] = rgba[k];
+        colors[c + 1] = rgba[k + 1];
+        colors[c + 2] = rgba[k + 2];
+        colors[c + 3] = rgba[k + 3];
+      }
+    } else {
+      for (int i = from; i < to; i++) {
+        int k = index(values[i]) * RGBA;
+        int c = i * 3;
+        colors[c] = rgba[k];
+        colors[c + 1] = rgba[k + 1];
+        colors[c + 2] = rgba[k + 2];
+      }
+    }
+  }
+
+  /**
+   * Write the RGBA float color of each value in the output buffer, starting at index 0 of the
+   * buffer and without moving its position, in parallel if there are more than
+   * {@link #PARALLEL_THRESHOLD} values.
+   *
+   * @return the output buffer
+   */
+  public FloatBuffer colorize(float[] values, FloatBuffer colors) {
+    if (colors.capacity() < values.length * RGBA)
+      throw new IllegalArgumentException("Color buffer can hold " + colors.capacity() / RGBA
+          + " colors, need " + values.length);
+
+    if (values.length >= PARALLEL_THRESHOLD)
+      ParallelChunks.forEachChunk(values.length,
+          (from, to) -> colorize(values, colors, from, to));
+    else
+      colorize(values, colors, 0, values.length);
+    return colors;
+  }
+
+  /** Write the RGBA float colors of the values between from (included) and to (excluded). */
+  public void colorize(float[] values, FloatBuffer colors, int from, int to) {
+    for (int i = from; i < to; i++) {
+      int k = index(values[i]) * RGBA;
+      int c = i * RGBA;
+      colors.put(c, rgba[k]);
+      colors.put(c + 1, rgba[k + 1]);
+      colors.put(c + 2, rgba[k + 2]);
+      colors.put(c + 3, rgba[k + 3]);
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // GET
+  //
+  ///////////////////////////////////////////////
+
+  public int getResolution() {
+    return resolution;
+  }
+
+  /** Return a copy of the table, 4 floats per color. */
+  public float[] getRGBA() {
+    return Arrays.copyOf(rgba, rgba.length);
+  }
+}
@@ -0,0 +1,76 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fast non cryptographic 64 bit hash, consuming 8 bytes at a time with a multiply and rotate
+ * step and ending with the avalanche of MurmurHash3.
+ *
+ * It is meant to fingerprint large arrays, e.g. to detect that a cached conversion of a file is
+ * stale. It is not suitable against malicious collisions.
+ *
+ * @author Martin Pernollet
+ */
+public class Hash64 {
+  public static final long SEED = 0x9E3779B97F4A7C15L;
+
+  protected static final long PRIME_1 = 0x87C37B91114253D5L;
+  protected static final long PRIME_2 = 0x4CF5AD432745937FL;
+
+  /** Return the hash of the remaining bytes of a buffer, which position is left untouched. */
+  public static long hash(ByteBuffer bytes) {
+    return avalanche(update(SEED, bytes));
+  }
+
+  /**
+   * Mix the remaining bytes of a buffer to a running hash, which position is left untouched.
+   * Consecutive buffers give the same result as a single one if all but the last have a length
+   * that is a multiple of 8.
+   */
+  public static long update(long hash, ByteBuffer bytes) {
+    ByteBuffer b = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+    while (b.remaining() >= Long.BYTES) {
+      hash = mix(hash, b.getLong());
+    }
+
+    if (b.hasRemaining()) {
+      long tail = 0;
+      for (int shift = 0; b.hasRemaining(); shift += Byte.SIZE) {
+        tail |= (b.get() & 0xFFL) << shift;
+      }
+      hash = mix(hash, tail);
+    }
+    return hash;
+  }
+
+  /** Mix the values of an array between <code>from</code> and <code>to</code> to a running hash. */
+  public static long update(long hash, int[] values, int from, int to) {
+    int i = from;
+
+    for (; i + 1 < to; i += 2) {
+      hash = mix(hash, ((long) values[i] << 32) | (values[i + 1] & 0xFFFFFFFFL));
+    }
+    if (i < to) {
+      hash = mix(hash, values[i] & 0xFFFFFFFFL);
+    }
+    return mix(hash, to - from);
+  }
+
+  /** Mix a value to a running hash. */
+  public static long mix(long hash, long value) {
+    hash ^= Long.rotateLeft(value * PRIME_1, 31) * PRIME_2;
+    return Long.rotateLeft(hash, 27) * 5 + 0x52DCE729;
+  }
+
+  /** Finalize a running hash so that each input bit affects all output bits. */
+  public static long avalanche(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,59 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Helpers to process arrays in parallel chunks, shared by the builders and indices of this package.
+ *
+ * @author Martin Pernollet
+ */
+public class ParallelChunks {
+  public interface Chunk {
+    void process(int from, int to);
+  }
+
+  /**
+   * Split [0;size[ in chunks processed concurrently on the common {@link ForkJoinPool}. Runtime
+   * exceptions thrown by a chunk are thrown again in the calling thread.
+   */
+  public static void forEachChunk(int size, Chunk chunk) {
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    int chunks = Math.max(1, Math.min(size, pool.getParallelism() * 4));
+
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int c = 0; c < chunks; c++) {
+      int from = (int) ((long) size * c / chunks);
+      int to = (int) ((long) size * (c + 1) / chunks);
+      tasks.add(() -> {
+        chunk.process(from, to);
+        return null;
+      });
+    }
+
+    try {
+      for (Future<Void> future : pool.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while processing chunks", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      else
+        throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** Replace each value by the sum of itself and all previous values. */
+  public static void prefixSum(int[] values) {
+    for (int i = 1; i < values.length; i++) {
+      values[i] += values[i - 1];
+    }
+  }
+}
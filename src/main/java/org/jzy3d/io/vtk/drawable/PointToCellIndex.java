@@ -0,0 +1,203 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Give the cells that use each point of a dataset.
+ *
+ * The index is stored in compressed sparse row layout : the cells of point <code>p</code> are
+ * stored in {@link #getCellIds()} between {@link #getStart(int)} and {@link #getStop(int)}, in
+ * ascending order. The index is built from the <code>offsets</code> and <code>connectivity</code>
+ * arrays of a <code>vtkCellArray</code> in two passes : the first one counts the valence of each
+ * point, the second one fills the cell ids after a prefix sum of the valences. Only two int arrays
+ * are allocated, hence no boxing of point and cell ids.
+ *
+ * The parallel build splits cells in chunks processed on the common {@link ForkJoinPool}, counting
+ * valences and reserving slots with atomic counters.
+ *
+ * @author Martin Pernollet
+ */
+public class PointToCellIndex {
+  /** Connectivity size above which {@link #build(int, int[], int[], int)} runs in parallel. */
+  public static int PARALLEL_THRESHOLD = 1 << 16;
+
+  protected int numberOfPoints;
+  protected int[] start;
+  protected int[] cellIds;
+
+  protected PointToCellIndex(int numberOfPoints, int[] start, int[] cellIds) {
+    this.numberOfPoints = numberOfPoints;
+    this.start = start;
+    this.cellIds = cellIds;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // BUILD
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Build the index of the given cells, in parallel if the connectivity is larger than
+   * {@link #PARALLEL_THRESHOLD}.
+   *
+   * @param numberOfPoints number of points of the dataset
+   * @param offsets offsets of the cells in the <code>vtkCellArray</code> convention (n+1 values
+   *        starting at 0)
+   * @param connectivity point ids of the cells
+   * @param numberOfCells number of cells to index, starting from the first one
+   */
+  public static PointToCellIndex build(int numberOfPoints, int[] offsets, int[] connectivity,
+      int numberOfCells) {
+    if (offsets[Math.min(numberOfCells, offsets.length - 1)] >= PARALLEL_THRESHOLD)
+      return buildParallel(numberOfPoints, offsets, connectivity, numberOfCells);
+    else
+      return buildSequential(numberOfPoints, offsets, connectivity, numberOfCells);
+  }
+
+  public static PointToCellIndex buildSequential(int numberOfPoints, int[] offsets,
+      int[] connectivity, int numberOfCells) {
+    numberOfCells = check(numberOfPoints, offsets, connectivity, numberOfCells);
+
+    // Count valence of each point, shifted by one to get starts after prefix sum
+    int[] start = new int[numberOfPoints + 1];
+
+    for (int i = 0; i < offsets[numberOfCells]; i++) {
+      start[checkPoint(connectivity[i], numberOfPoints) + 1]++;
+    }
+
+    ParallelChunks.prefixSum(start);
+
+    // Fill cell ids
+    int[] cursor = Arrays.copyOf(start, numberOfPoints);
+    int[] cellIds = new int[start[numberOfPoints]];
+
+    for (int cellId = 0; cellId < numberOfCells; cellId++) {
+      for (int i = offsets[cellId]; i < offsets[cellId + 1]; i++) {
+        cellIds[cursor[connectivity[i]]++] = cellId;
+      }
+    }
+
+    return new PointToCellIndex(numberOfPoints, start, cellIds);
+  }
+
+  public static PointToCellIndex buildParallel(int numberOfPoints, int[] offsets,
+      int[] connectivity, int numberOfCells) {
+    int n = check(numberOfPoints, offsets, connectivity, numberOfCells);
+
+    // Count valence of each point
+    AtomicIntegerArray valence = new AtomicIntegerArray(numberOfPoints);
+
+    ParallelChunks.forEachChunk(n, (from, to) -> {
+      for (int i = offsets[from]; i < offsets[to]; i++) {
+        valence.incrementAndGet(checkPoint(connectivity[i], numberOfPoints));
+      }
+    });
+
+    int[] start = new int[numberOfPoints + 1];
+    for (int p = 0; p < numberOfPoints; p++) {
+      start[p + 1] = valence.get(p);
+    }
+
+    ParallelChunks.prefixSum(start);
+
+    // Fill cell ids, reusing valence counters as cursors
+    int[] cellIds = new int[start[numberOfPoints]];
+
+    ParallelChunks.forEachChunk(n, (from, to) -> {
+      for (int cellId = from; cellId < to; cellId++) {
+        for (int i = offsets[cellId]; i < offsets[cellId + 1]; i++) {
+          int p = connectivity[i];
+          cellIds[start[p] + valence.decrementAndGet(p)] = cellId;
+        }
+      }
+    });
+
+    // Chunks may have filled a point in any order, sort to get the same index than sequential
+    ParallelChunks.forEachChunk(numberOfPoints, (from, to) -> {
+      for (int p = from; p < to; p++) {
+        if (start[p + 1] - start[p] > 1)
+          Arrays.sort(cellIds, start[p], start[p + 1]);
+      }
+    });
+
+    return new PointToCellIndex(numberOfPoints, start, cellIds);
+  }
+
+  protected static int check(int numberOfPoints, int[] offsets, int[] connectivity,
+      int numberOfCells) {
+    if (numberOfPoints < 0)
+      throw new IllegalArgumentException("Negative number of points : " + numberOfPoints);
+    if (offsets.length == 0 || offsets[0] != 0)
+      throw new IllegalArgumentException("Offsets are expected to start with 0");
+
+    int n = Math.min(numberOfCells, offsets.length - 1);
+
+    if (offsets[n] > connectivity.length)
+      throw new IllegalArgumentException(
+          "Offsets refer to " + offsets[n] + " ids but connectivity has " + connectivity.length);
+    return n;
+  }
+
+  protected static int checkPoint(int pointId, int numberOfPoints) {
+    if (pointId < 0 || pointId >= numberOfPoints)
+      throw new IllegalArgumentException(
+          "Point id " + pointId + " out of dataset with " + numberOfPoints + " points");
+    return pointId;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // QUERIES
+  //
+  ///////////////////////////////////////////////
+
+  public int getNumberOfPoints() {
+    return numberOfPoints;
+  }
+
+  /** Return the number of cells using this point. */
+  public int getValence(int pointId) {
+    return start[pointId + 1] - start[pointId];
+  }
+
+  /** Return the ids of the cells using this point, in ascending order. */
+  public int[] getCells(int pointId) {
+    return Arrays.copyOfRange(cellIds, start[pointId], start[pointId + 1]);
+  }
+
+  /** Return the i-th cell using this point. */
+  public int getCell(int pointId, int i) {
+    return cellIds[start[pointId] + i];
+  }
+
+  /** Return the index in {@link #getCellIds()} of the first cell of this point. */
+  public int getStart(int pointId) {
+    return start[pointId];
+  }
+
+  /** Return the index in {@link #getCellIds()} after the last cell of this point. */
+  public int getStop(int pointId) {
+    return start[pointId + 1];
+  }
+
+  /**
+   * Return the cells of all points, to be read between {@link #getStart(int)} and
+   * {@link #getStop(int)} without allocation.
+   */
+  public int[] getCellIds() {
+    return cellIds;
+  }
+
+  /** Return the number of points used by more than one cell. */
+  public int getNumberOfSharedPoints() {
+    int nShared = 0;
+    for (int p = 0; p < numberOfPoints; p++) {
+      if (getValence(p) > 1)
+        nShared++;
+    }
+    return nShared;
+  }
+}
@@ -0,0 +1,64 @@
+package org.jzy3d.io.vtk.drawable;
+
+import org.jzy3d.plot3d.primitives.vbo.drawable.DrawableVBO2;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+
+/**
+ * A {@link RecolorableDrawableVBO2} made of a single element array where each geometry is followed
+ * by {@link DrawableVBO2#PRIMITIVE_RESTART_VALUE}.
+ *
+ * The element array is drawn with a single <code>glDrawElements</code> while
+ * <code>GL_PRIMITIVE_RESTART</code> is enabled, so that polygons of different sizes, e.g. the
+ * triangles and quads of a mixed mesh or the faces of multiple cells, are drawn with one call.
+ * Each geometry is drawn as a polygon, hence should be convex.
+ *
+ * @author Martin Pernollet
+ */
+public class PrimitiveRestartDrawableVBO2 extends RecolorableDrawableVBO2 {
+
+  /**
+   * @param points x,y,z coordinates of each vertex
+   * @param elements vertex indices of each geometry, each geometry being followed by
+   *        {@link DrawableVBO2#PRIMITIVE_RESTART_VALUE}
+   * @param pointsPerGeometry the number of indices of the largest geometry, including its restart
+   *        value
+   * @param colors color of each vertex
+   */
+  public PrimitiveRestartDrawableVBO2(float[] points, int[] elements, int pointsPerGeometry,
+      float[] colors) {
+    super(points, elements, pointsPerGeometry, colors);
+    this.geometryType = GL2.GL_POLYGON;
+  }
+
+  /**
+   * @param shortIndices if true, indices are uploaded as GL_UNSIGNED_SHORT and geometries are
+   *        separated by 0xFFFF, which requires at most {@link #MAX_SHORT_INDEXED_VERTICES}
+   *        vertices
+   */
+  public PrimitiveRestartDrawableVBO2(float[] points, int[] elements, int pointsPerGeometry,
+      float[] colors, boolean shortIndices) {
+    this(points, elements, pointsPerGeometry, colors);
+
+    if (shortIndices)
+      useShortIndices();
+  }
+
+  @Override
+  protected void drawElements(GL2 gl) {
+    gl.glEnable(GL2.GL_PRIMITIVE_RESTART);
+    gl.glPrimitiveRestartIndex(getRestartIndex());
+
+    super.drawElements(gl);
+
+    gl.glDisable(GL2.GL_PRIMITIVE_RESTART);
+  }
+
+  /**
+   * Return the index value separating two geometries in the element buffer, which is the largest
+   * value of the element type.
+   */
+  public int getRestartIndex() {
+    return elementType == GL.GL_UNSIGNED_SHORT ? 0xFFFF : DrawableVBO2.PRIMITIVE_RESTART_VALUE;
+  }
+}
@@ -0,0 +1,389 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import org.jzy3d.colors.Color;
+import org.jzy3d.maths.Normal.NormalMode;
+import org.jzy3d.painters.IPainter;
+import org.jzy3d.painters.NativeDesktopPainter;
+import org.jzy3d.plot3d.primitives.vbo.drawable.DrawableVBO2;
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.common.nio.PointerBuffer;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+
+/**
+ * A {@link DrawableVBO2} whose colors can change after it was mounted.
+ *
+ * This drawable mounts and draws its buffers itself and keeps the name of each GL buffer. Once the
+ * color buffer was rewritten, {@link #setColorsDirty()} makes the next {@link #draw(IPainter)},
+ * which runs on the GL thread, overwrite the mounted color buffer with
+ * <code>glBufferSubData</code>. Vertices, normals and elements are neither uploaded again nor
+ * given new buffer names.
+ *
+ * A drawable made of a subset of the points of a dataset, such as a chunk, keeps the dataset point
+ * of each of its vertices so that it can be recolored from a point property, see
+ * {@link #getPointIds()}.
+ *
+ * @author Martin Pernollet
+ */
+public class RecolorableDrawableVBO2 extends DrawableVBO2 {
+  /**
+   * Maximum number of vertices of a drawable with GL_UNSIGNED_SHORT indices, index 0xFFFF being
+   * kept as restart index.
+   */
+  public static final int MAX_SHORT_INDEXED_VERTICES = 0xFFFF;
+
+  protected volatile boolean colorsDirty = false;
+
+  // element layout given at construction, only one of them is set
+  protected int[] elementArray;
+  protected int[] elementStarts;
+  protected int[] elementLengths;
+  protected int[][] elementGeometries;
+
+  protected int geometryType;
+
+  // GL_UNSIGNED_INT, or GL_UNSIGNED_SHORT for drawables having few enough vertices
+  protected int elementType = GL.GL_UNSIGNED_INT;
+
+  // dataset point of each vertex, null if vertex i is dataset point i
+  protected int[] pointIds;
+
+  // names of the GL buffers, generated at first mount
+  protected int vertexBuffer;
+  protected int normalBuffer;
+  protected int colorBuffer;
+  protected int elementBuffer;
+  protected boolean mounted = false;
+
+  // number of indices and byte offset of each geometry of elementGeometries in the element buffer
+  protected IntBuffer geometryCounts;
+  protected PointerBuffer geometryOffsets;
+
+  public RecolorableDrawableVBO2(float[] points, int[] elements, int pointsPerGeometry,
+      float[] colors) {
+    super(points, elements, pointsPerGeometry, colors);
+    this.elementArray = elements;
+    this.geometryType = geometryType(pointsPerGeometry);
+  }
+
+  public RecolorableDrawableVBO2(float[] points, int[] elementsStarts, int[] elementsLength,
+      float[] colors) {
+    super(points, elementsStarts, elementsLength, colors);
+    this.elementStarts = elementsStarts;
+    this.elementLengths = elementsLength;
+    this.geometryType = GL2.GL_POLYGON;
+  }
+
+  public RecolorableDrawableVBO2(float[] points, int[][] elementsIndices, float[] colors,
+      NormalMode normalMode) {
+    super(points, elementsIndices, colors, normalMode);
+    this.elementGeometries = elementsIndices;
+    this.geometryType = GL2.GL_POLYGON;
+  }
+
+  public RecolorableDrawableVBO2(float[] points, int[][] elementsIndices, float[] colors,
+      float[] normals) {
+    super(points, elementsIndices, colors, normals);
+    this.elementGeometries = elementsIndices;
+    this.geometryType = GL2.GL_POLYGON;
+  }
+
+  /** Return the GL primitive drawing geometries made of the given number of points. */
+  public static int geometryType(int pointsPerGeometry) {
+    switch (pointsPerGeometry) {
+      case 1:
+        return GL.GL_POINTS;
+      case 2:
+        return GL.GL_LINES;
+      case 3:
+        return GL.GL_TRIANGLES;
+      case 4:
+        return GL2.GL_QUADS;
+      default:
+        return GL2.GL_POLYGON;
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // MOUNT
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Upload vertices, normals, colors and elements. Buffer names are generated at first mount and
+   * then reused, so mounting again replaces the content of the buffers without leaking names.
+   */
+  @Override
+  public void mount(IPainter painter) {
+    GL gl = getGL(painter);
+
+    if (!mounted) {
+      int[] names = new int[4];
+      gl.glGenBuffers(names.length, names, 0);
+
+      vertexBuffer = names[0];
+      normalBuffer = names[1];
+      colorBuffer = names[2];
+      elementBuffer = names[3];
+    }
+
+    upload(gl, GL.GL_ARRAY_BUFFER, vertexBuffer, getVertices(), Buffers.SIZEOF_FLOAT,
+        GL.GL_STATIC_DRAW);
+
+    if (getNormals() != null)
+      upload(gl, GL.GL_ARRAY_BUFFER, normalBuffer, getNormals(), Buffers.SIZEOF_FLOAT,
+          GL.GL_STATIC_DRAW);
+
+    // colors are the only buffer overwritten later
+    colorsDirty = false;
+    upload(gl, GL.GL_ARRAY_BUFFER, colorBuffer, getColors(), Buffers.SIZEOF_FLOAT,
+        GL.GL_DYNAMIC_DRAW);
+
+    if (elementArray != null || elementGeometries != null)
+      upload(gl, GL.GL_ELEMENT_ARRAY_BUFFER, elementBuffer, newElementBuffer(), getElementBytes(),
+          GL.GL_STATIC_DRAW);
+
+    mounted = true;
+  }
+
+  /**
+   * Return the element buffer to upload, with indices of the element type. Geometries of variable
+   * size are copied one after the other, and their offsets are kept to draw them with a single
+   * <code>glMultiDrawElements</code>.
+   */
+  protected Buffer newElementBuffer() {
+    if (elementArray != null)
+      return toElementBuffer(elementArray);
+
+    int[] elements = new int[getElementCount()];
+    int position = 0;
+
+    geometryCounts = Buffers.newDirectIntBuffer(elementGeometries.length);
+    geometryOffsets = PointerBuffer.allocateDirect(elementGeometries.length);
+
+    for (int[] geometry : elementGeometries) {
+      geometryCounts.put(geometry.length);
+      geometryOffsets.put((long) position * getElementBytes());
+
+      System.arraycopy(geometry, 0, elements, position, geometry.length);
+      position += geometry.length;
+    }
+
+    geometryCounts.rewind();
+    geometryOffsets.rewind();
+    return toElementBuffer(elements);
+  }
+
+  protected Buffer toElementBuffer(int[] elements) {
+    if (elementType == GL.GL_UNSIGNED_INT)
+      return Buffers.newDirectIntBuffer(elements);
+
+    // the int restart value 0xFFFFFFFF becomes the short restart value 0xFFFF
+    ShortBuffer buffer = Buffers.newDirectShortBuffer(elements.length);
+    for (int element : elements) {
+      buffer.put((short) element);
+    }
+    buffer.rewind();
+    return buffer;
+  }
+
+  protected void upload(GL gl, int target, int buffer, Buffer data, int bytesPerValue,
+      int usage) {
+    data.rewind();
+
+    gl.glBindBuffer(target, buffer);
+    gl.glBufferData(target, (long) data.capacity() * bytesPerValue, data, usage);
+    gl.glBindBuffer(target, 0);
+  }
+
+  @Override
+  public boolean hasMountedOnce() {
+    return mounted;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // DRAW
+  //
+  ///////////////////////////////////////////////
+
+  @Override
+  public void draw(IPainter painter) {
+    if (!mounted)
+      mount(painter);
+
+    GL2 gl = getGL(painter).getGL2();
+
+    if (colorsDirty)
+      updateColors(gl);
+
+    doTransform(painter);
+
+    gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vertexBuffer);
+    gl.glVertexPointer(3, GL.GL_FLOAT, 0, 0);
+    gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+
+    if (getNormals() != null) {
+      gl.glBindBuffer(GL.GL_ARRAY_BUFFER, normalBuffer);
+      gl.glNormalPointer(GL.GL_FLOAT, 0, 0);
+      gl.glEnableClientState(GL2.GL_NORMAL_ARRAY);
+    }
+
+    gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, elementBuffer);
+
+    if (isFaceDisplayed()) {
+      gl.glBindBuffer(GL.GL_ARRAY_BUFFER, colorBuffer);
+      gl.glColorPointer(getColorChannels(), GL.GL_FLOAT, 0, 0);
+      gl.glEnableClientState(GL2.GL_COLOR_ARRAY);
+
+      // push faces behind the wireframe
+      gl.glEnable(GL.GL_POLYGON_OFFSET_FILL);
+      gl.glPolygonOffset(1, 1);
+      drawGeometries(gl);
+      gl.glDisable(GL.GL_POLYGON_OFFSET_FILL);
+
+      gl.glDisableClientState(GL2.GL_COLOR_ARRAY);
+    }
+
+    if (isWireframeDisplayed()) {
+      Color color = getWireframeColor();
+      gl.glColor4f(color.r, color.g, color.b, color.a);
+      gl.glLineWidth(getWireframeWidth());
+
+      gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_LINE);
+      drawGeometries(gl);
+      gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_FILL);
+    }
+
+    gl.glDisableClientState(GL2.GL_NORMAL_ARRAY);
+    gl.glDisableClientState(GL2.GL_VERTEX_ARRAY);
+    gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 0);
+    gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+  }
+
+  /** Draw all geometries with a single call, according to the element layout. */
+  protected void drawGeometries(GL2 gl) {
+    if (elementArray != null)
+      drawElements(gl);
+    else if (elementGeometries != null)
+      gl.glMultiDrawElements(geometryType, geometryCounts, elementType, geometryOffsets,
+          elementGeometries.length);
+    else
+      gl.glMultiDrawArrays(geometryType, elementStarts, 0, elementLengths, 0,
+          elementStarts.length);
+  }
+
+  /** Draw the single element array. */
+  protected void drawElements(GL2 gl) {
+    gl.glDrawElements(geometryType, elementArray.length, elementType, 0);
+  }
+
+  /** Overwrite the mounted color buffer with the current colors. */
+  protected void updateColors(GL gl) {
+    // cleared first so that colors rewritten during the upload are uploaded again at next display
+    colorsDirty = false;
+
+    FloatBuffer colors = getColors();
+    colors.rewind();
+
+    gl.glBindBuffer(GL.GL_ARRAY_BUFFER, colorBuffer);
+    gl.glBufferSubData(GL.GL_ARRAY_BUFFER, 0, (long) colors.capacity() * Buffers.SIZEOF_FLOAT,
+        colors);
+    gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+  }
+
+  protected GL getGL(IPainter painter) {
+    return ((NativeDesktopPainter) painter).getGL();
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // COLORS
+  //
+  ///////////////////////////////////////////////
+
+  /** Request the color buffer to be uploaded again at next display. */
+  public void setColorsDirty() {
+    colorsDirty = true;
+  }
+
+  /** Return true if the colors changed since they were last uploaded. */
+  public boolean isColorsDirty() {
+    return colorsDirty;
+  }
+
+  /** Return the dataset point of each vertex, or null if vertex i is dataset point i. */
+  public int[] getPointIds() {
+    return pointIds;
+  }
+
+  public void setPointIds(int[] pointIds) {
+    this.pointIds = pointIds;
+  }
+
+  /** Return the GL primitive used to draw the geometries. */
+  public int getGeometryType() {
+    return geometryType;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // ELEMENTS
+  //
+  ///////////////////////////////////////////////
+
+  /** Return the type of the indices of the element buffer, GL_UNSIGNED_INT or GL_UNSIGNED_SHORT. */
+  public int getElementType() {
+    return elementType;
+  }
+
+  /** Return true if a drawable of the given number of vertices can have short indices. */
+  public static boolean fitsShortIndices(int vertices) {
+    return vertices <= MAX_SHORT_INDEXED_VERTICES;
+  }
+
+  /**
+   * Store indices as GL_UNSIGNED_SHORT.
+   *
+   * @throws IllegalArgumentException if the drawable has more than
+   *         {@link #MAX_SHORT_INDEXED_VERTICES} vertices.
+   */
+  protected void useShortIndices() {
+    int vertices = getVertices().capacity() / 3;
+
+    if (!fitsShortIndices(vertices))
+      throw new IllegalArgumentException("Short indices can not address " + vertices
+          + " vertices, at most " + MAX_SHORT_INDEXED_VERTICES);
+
+    elementType = GL.GL_UNSIGNED_SHORT;
+  }
+
+  /** Return the size in bytes of an index of the element buffer. */
+  public int getElementBytes() {
+    return elementType == GL.GL_UNSIGNED_SHORT ? Buffers.SIZEOF_SHORT : Buffers.SIZEOF_INT;
+  }
+
+  /** Return the number of indices of the element buffer, 0 if vertices are not indexed. */
+  public int getElementCount() {
+    if (elementArray != null)
+      return elementArray.length;
+
+    int count = 0;
+    if (elementGeometries != null) {
+      for (int[] geometry : elementGeometries) {
+        count += geometry.length;
+      }
+    }
+    return count;
+  }
+
+  /** Return the size in bytes of the element buffer. */
+  public long getElementBufferSize() {
+    return (long) getElementCount() * getElementBytes();
+  }
+}
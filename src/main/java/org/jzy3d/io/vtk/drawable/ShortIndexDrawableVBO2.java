@@ -0,0 +1,32 @@
+package org.jzy3d.io.vtk.drawable;
+
+import org.jzy3d.maths.Normal.NormalMode;
+
+/**
+ * A {@link RecolorableDrawableVBO2} whose element buffer holds GL_UNSIGNED_SHORT indices rather
+ * than GL_UNSIGNED_INT, which halves the size of the element buffer and the bandwidth used to read
+ * it. Only suitable for drawables of at most {@link #MAX_SHORT_INDEXED_VERTICES} vertices, such as
+ * chunks or small meshes.
+ *
+ * @author Martin Pernollet
+ */
+public class ShortIndexDrawableVBO2 extends RecolorableDrawableVBO2 {
+
+  public ShortIndexDrawableVBO2(float[] points, int[] elements, int pointsPerGeometry,
+      float[] colors) {
+    super(points, elements, pointsPerGeometry, colors);
+    useShortIndices();
+  }
+
+  public ShortIndexDrawableVBO2(float[] points, int[][] elementsIndices, float[] colors,
+      NormalMode normalMode) {
+    super(points, elementsIndices, colors, normalMode);
+    useShortIndices();
+  }
+
+  public ShortIndexDrawableVBO2(float[] points, int[][] elementsIndices, float[] colors,
+      float[] normals) {
+    super(points, elementsIndices, colors, normals);
+    useShortIndices();
+  }
+}
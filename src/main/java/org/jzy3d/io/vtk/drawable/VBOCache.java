@@ -0,0 +1,582 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.GeometryMode;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.VerticeMode;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.maths.Normal.NormalMode;
+import org.jzy3d.maths.Range;
+
+/**
+ * An on-disk cache of the arrays a {@link VTKDrawableVBOBuilder} converted from a VTK dataset, so
+ * that a later session can build the same drawable without parsing the source file nor traversing
+ * its cells again.
+ *
+ * The file is made of
+ * <ul>
+ * <li>a header of {@value #HEADER_SIZE} bytes giving a magic number, the format version, a hash of
+ * the source files and the builder settings the arrays were built with,
+ * <li>a table of {@value #ENTRY_SIZE} bytes per section giving its name, type, number of values
+ * and offset in the file, and the value range of properties,
+ * <li>the sections, each starting at a multiple of {@value #ALIGNMENT} bytes.
+ * </ul>
+ *
+ * All values are little endian, so that sections read with {@link #read(File)} are memory mapped
+ * views on the file rather than decoded copies. Sections are either float or int arrays : point
+ * coordinates, normals, element arrays, and one float array per point property.
+ *
+ * A cache is only valid for the source it was built from, which is checked by
+ * {@link #readIfValid(File, long)} against {@link #hashSources(List, long)}.
+ *
+ * @author Martin Pernollet
+ */
+public class VBOCache {
+  protected static Logger log = LogManager.getLogger(VBOCache.class);
+
+  /** "JZVC" as little endian bytes. */
+  public static final int MAGIC = 0x43565A4A;
+  public static final int VERSION = 1;
+
+  public static final int HEADER_SIZE = 64;
+  public static final int ENTRY_SIZE = 128;
+  public static final int NAME_SIZE = 80;
+  public static final int ALIGNMENT = 64;
+
+  /** Bytes hashed at the start, middle and end of each source file by default. */
+  public static final long DEFAULT_SAMPLE_SIZE = 1 << 20;
+
+  public static final String COORDINATES = "coordinates";
+  public static final String NORMALS = "normals";
+  public static final String ELEMENTS = "elements";
+  public static final String ELEMENTS_STARTS = "elementsStarts";
+  public static final String ELEMENTS_LENGTH = "elementsLength";
+  public static final String ELEMENTS_INDICES = "elementsIndices";
+  public static final String PROPERTY_PREFIX = "property:";
+
+  protected static final int PRIMITIVE_RESTART = 1;
+  protected static final int HIDDEN_FACES_REMOVED = 1 << 1;
+  protected static final int QUADS_TRIANGULATED = 1 << 2;
+  protected static final int NORMAL_PER_POINT = 1 << 3;
+
+  public enum Type {
+    FLOAT32, INT32
+  }
+
+  protected long sourceHash;
+
+  // settings of the builder that made the cached arrays
+  protected int expectedGeometry;
+  protected GeometryMode geometryMode;
+  protected VerticeMode verticeMode;
+  protected NormalMode normalMode;
+  protected int pointsPerGeometry;
+  protected int flags;
+  protected int numberOfPoints;
+  protected int numberOfCells;
+
+  protected Map<String, Section> sections = new LinkedHashMap<>();
+
+  public VBOCache(long sourceHash) {
+    this.sourceHash = sourceHash;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // SECTIONS
+  //
+  ///////////////////////////////////////////////
+
+  public void put(String name, float[] values, int components) {
+    ByteBuffer data = allocate(values.length * Float.BYTES);
+    data.asFloatBuffer().put(values);
+    put(new Section(name, Type.FLOAT32, components, values.length, data));
+  }
+
+  public void put(String name, int[] values, int components) {
+    ByteBuffer data = allocate(values.length * Integer.BYTES);
+    data.asIntBuffer().put(values);
+    put(new Section(name, Type.INT32, components, values.length, data));
+  }
+
+  /** Store a point property with the range used to colorize it. */
+  public void putProperty(String property, float[] values, Range range) {
+    put(PROPERTY_PREFIX + property, values, 1);
+    Section section = sections.get(PROPERTY_PREFIX + property);
+    section.min = range.getMin();
+    section.max = range.getMax();
+  }
+
+  protected void put(Section section) {
+    if (section.name.getBytes(StandardCharsets.UTF_8).length > NAME_SIZE)
+      throw new IllegalArgumentException(
+          "Section name should have at most " + NAME_SIZE + " bytes : " + section.name);
+    sections.put(section.name, section);
+  }
+
+  /** Return a section, or null if it is not cached. */
+  public Section getSection(String name) {
+    return sections.get(name);
+  }
+
+  /**
+   * Return the section of a point property.
+   *
+   * @throws IllegalArgumentException if the property is not cached.
+   */
+  public Section getProperty(String property) {
+    Section section = sections.get(PROPERTY_PREFIX + property);
+    if (section == null) {
+      throw new IllegalArgumentException("Property '" + property + "' not cached. Use one of : "
+          + String.join(" ", getPropertyNames()));
+    }
+    return section;
+  }
+
+  public String[] getPropertyNames() {
+    List<String> names = new ArrayList<>();
+    for (String name : sections.keySet()) {
+      if (name.startsWith(PROPERTY_PREFIX))
+        names.add(name.substring(PROPERTY_PREFIX.length()));
+    }
+    return names.toArray(new String[names.size()]);
+  }
+
+  public Map<String, Section> getSections() {
+    return sections;
+  }
+
+  /** A named array of the cache, which data is a little endian view on the file once read. */
+  public static class Section {
+    protected String name;
+    protected Type type;
+    protected int components;
+    protected int numberOfValues;
+    protected long offset = -1;
+    protected double min = Double.NaN;
+    protected double max = Double.NaN;
+    protected ByteBuffer data;
+
+    public Section(String name, Type type, int components, int numberOfValues, ByteBuffer data) {
+      this.name = name;
+      this.type = type;
+      this.components = components;
+      this.numberOfValues = numberOfValues;
+      this.data = data;
+    }
+
+    public float[] toFloatArray() {
+      float[] values = new float[numberOfValues];
+      toFloatBuffer().get(values);
+      return values;
+    }
+
+    public int[] toIntArray() {
+      int[] values = new int[numberOfValues];
+      toIntBuffer().get(values);
+      return values;
+    }
+
+    /** Return a view on the values, without copy. */
+    public FloatBuffer toFloatBuffer() {
+      if (!Type.FLOAT32.equals(type))
+        throw new IllegalArgumentException("Section " + name + " holds " + type + " values");
+      return data.duplicate().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    /** Return a view on the values, without copy. */
+    public IntBuffer toIntBuffer() {
+      if (!Type.INT32.equals(type))
+        throw new IllegalArgumentException("Section " + name + " holds " + type + " values");
+      return data.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /** Return the values grouped by tuples of {@link #getNumberOfComponents()} values. */
+    public int[][] toIntTuples() {
+      IntBuffer values = toIntBuffer();
+      int[][] tuples = new int[numberOfValues / components][components];
+      for (int[] tuple : tuples) {
+        values.get(tuple);
+      }
+      return tuples;
+    }
+
+    public long getSizeInBytes() {
+      return (long) numberOfValues * 4;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    public int getNumberOfComponents() {
+      return components;
+    }
+
+    public int getNumberOfValues() {
+      return numberOfValues;
+    }
+
+    /** Return the position of the section in the file, a multiple of {@link #ALIGNMENT}. */
+    public long getOffset() {
+      return offset;
+    }
+
+    public double getMin() {
+      return min;
+    }
+
+    public double getMax() {
+      return max;
+    }
+
+    public ByteBuffer getData() {
+      return data;
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // WRITE
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Write the cache to a temporary file moved to the given file once complete, so that a reader
+   * never sees a partially written cache.
+   */
+  public void write(File file) throws IOException {
+    File temp = new File(file.getPath() + ".tmp");
+
+    long offset = align(HEADER_SIZE + (long) sections.size() * ENTRY_SIZE);
+    for (Section section : sections.values()) {
+      section.offset = offset;
+      offset = align(offset + section.getSizeInBytes());
+    }
+
+    ByteBuffer header = allocate(HEADER_SIZE + sections.size() * ENTRY_SIZE);
+
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putLong(sourceHash);
+    header.putInt(sections.size());
+    header.putInt(expectedGeometry);
+    header.putInt(ordinal(geometryMode));
+    header.putInt(ordinal(verticeMode));
+    header.putInt(ordinal(normalMode));
+    header.putInt(pointsPerGeometry);
+    header.putInt(flags);
+    header.putInt(numberOfPoints);
+    header.putInt(numberOfCells);
+
+    int entry = HEADER_SIZE;
+
+    for (Section section : sections.values()) {
+      header.position(entry);
+      header.put(section.name.getBytes(StandardCharsets.UTF_8));
+      header.position(entry + NAME_SIZE);
+      header.putInt(section.type.ordinal());
+      header.putInt(section.components);
+      header.putLong(section.numberOfValues);
+      header.putLong(section.offset);
+      header.putDouble(section.min);
+      header.putDouble(section.max);
+
+      entry += ENTRY_SIZE;
+    }
+    header.position(0);
+
+    try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      writeFully(channel, header, 0);
+
+      for (Section section : sections.values()) {
+        ByteBuffer data = section.data.duplicate();
+        data.position(0);
+        writeFully(channel, data, section.offset);
+      }
+    }
+
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  protected static void writeFully(FileChannel channel, ByteBuffer data, long position)
+      throws IOException {
+    while (data.hasRemaining()) {
+      position += channel.write(data, position);
+    }
+  }
+
+  protected static ByteBuffer allocate(int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  protected static long align(long offset) {
+    return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+  }
+
+  protected static int ordinal(Enum<?> value) {
+    return value == null ? -1 : value.ordinal();
+  }
+
+  protected static <E extends Enum<E>> E valueOf(E[] values, int ordinal) throws IOException {
+    if (ordinal == -1)
+      return null;
+    if (ordinal < 0 || ordinal >= values.length)
+      throw new IOException("Invalid setting " + ordinal);
+    return values[ordinal];
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // READ
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Read a cache file, mapping each section in memory without copying nor decoding it.
+   *
+   * @throws IOException if the file is not a cache file of the current {@link #VERSION}.
+   */
+  public static VBOCache read(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+
+      if (size < HEADER_SIZE)
+        throw new IOException("Not a cache file : " + file);
+
+      ByteBuffer header =
+          channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+      if (header.getInt() != MAGIC)
+        throw new IOException("Not a cache file : " + file);
+
+      int version = header.getInt();
+      if (version != VERSION)
+        throw new IOException("Cache version " + version + " is not " + VERSION + " : " + file);
+
+      VBOCache cache = new VBOCache(header.getLong());
+      int numberOfSections = header.getInt();
+      cache.expectedGeometry = header.getInt();
+      cache.geometryMode = valueOf(GeometryMode.values(), header.getInt());
+      cache.verticeMode = valueOf(VerticeMode.values(), header.getInt());
+      cache.normalMode = valueOf(NormalMode.values(), header.getInt());
+      cache.pointsPerGeometry = header.getInt();
+      cache.flags = header.getInt();
+      cache.numberOfPoints = header.getInt();
+      cache.numberOfCells = header.getInt();
+
+      if (numberOfSections < 0 || HEADER_SIZE + (long) numberOfSections * ENTRY_SIZE > size)
+        throw new IOException("Truncated cache file : " + file);
+
+      ByteBuffer table = channel
+          .map(MapMode.READ_ONLY, HEADER_SIZE, (long) numberOfSections * ENTRY_SIZE)
+          .order(ByteOrder.LITTLE_ENDIAN);
+
+      for (int s = 0; s < numberOfSections; s++) {
+        int entry = s * ENTRY_SIZE;
+
+        byte[] nameBytes = new byte[NAME_SIZE];
+        table.position(entry);
+        table.get(nameBytes);
+        int length = 0;
+        while (length < NAME_SIZE && nameBytes[length] != 0)
+          length++;
+        String name = new String(nameBytes, 0, length, StandardCharsets.UTF_8);
+
+        Type type = valueOf(Type.values(), table.getInt());
+        int components = table.getInt();
+        long numberOfValues = table.getLong();
+        long offset = table.getLong();
+
+        if (type == null || numberOfValues < 0 || numberOfValues > Integer.MAX_VALUE / 4
+            || offset % ALIGNMENT != 0 || offset + numberOfValues * 4 > size)
+          throw new IOException("Invalid section " + name + " in " + file);
+
+        ByteBuffer data = channel.map(MapMode.READ_ONLY, offset, numberOfValues * 4)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+        Section section = new Section(name, type, components, (int) numberOfValues, data);
+        section.offset = offset;
+        section.min = table.getDouble();
+        section.max = table.getDouble();
+        cache.sections.put(name, section);
+      }
+      return cache;
+    }
+  }
+
+  /**
+   * Read a cache file if it exists, can be read, and was built from sources having the given hash.
+   *
+   * @return the cache, or null if it is missing, unreadable or stale.
+   */
+  public static VBOCache readIfValid(File file, long sourceHash) {
+    if (!file.exists())
+      return null;
+
+    try {
+      VBOCache cache = read(file);
+
+      if (cache.getSourceHash() != sourceHash) {
+        log.info("Ignore stale cache " + file);
+        return null;
+      }
+      return cache;
+    } catch (IOException e) {
+      log.warn("Ignore unreadable cache " + file + " : " + e.getMessage());
+      return null;
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // SOURCE HASH
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Return the files a dataset is read from : the file itself, and the pieces of a
+   * <code>.pvtu</code> file.
+   */
+  public static List<File> getSources(File file) throws IOException {
+    List<File> sources = new ArrayList<>();
+    sources.add(file);
+
+    if (file.getName().endsWith(".pvtu"))
+      sources.addAll(new PVTUReader().readSources(file));
+    return sources;
+  }
+
+  /**
+   * Hash the content of source files to detect that a cache is stale.
+   *
+   * Hashing the whole content of large files would cost more than a warm load, so only
+   * <code>sampleSize</code> bytes at the start, in the middle and at the end of each file are
+   * hashed, along with the size and modification date of the file. This detects any change made by
+   * rewriting a file.
+   *
+   * @param sampleSize the number of bytes hashed at each place, or 0 to hash whole files.
+   */
+  public static long hashSources(List<File> sources, long sampleSize) throws IOException {
+    long hash = Hash64.SEED;
+
+    for (File source : sources) {
+      try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+        long size = channel.size();
+        hash = Hash64.mix(hash, size);
+
+        if (sampleSize <= 0 || 3 * sampleSize >= size) {
+          hash = hashRegion(hash, channel, 0, size);
+        } else {
+          hash = Hash64.mix(hash, source.lastModified());
+          hash = hashRegion(hash, channel, 0, sampleSize);
+          hash = hashRegion(hash, channel, (size - sampleSize) / 2, sampleSize);
+          hash = hashRegion(hash, channel, size - sampleSize, sampleSize);
+        }
+      }
+    }
+    return Hash64.avalanche(hash);
+  }
+
+  /** Same as {@link #hashSources(List, long)} with the {@link #DEFAULT_SAMPLE_SIZE}. */
+  public static long hashSources(File file) throws IOException {
+    return hashSources(getSources(file), DEFAULT_SAMPLE_SIZE);
+  }
+
+  protected static long hashRegion(long hash, FileChannel channel, long position, long size)
+      throws IOException {
+    // map large files by blocks, which size is a multiple of 8 to hash them as a single buffer
+    long block = 1 << 26;
+
+    for (long start = position; start < position + size; start += block) {
+      long length = Math.min(block, position + size - start);
+      hash = Hash64.update(hash, channel.map(MapMode.READ_ONLY, start, length));
+    }
+    return hash;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // SETTINGS
+  //
+  ///////////////////////////////////////////////
+
+  public long getSourceHash() {
+    return sourceHash;
+  }
+
+  public int getExpectedGeometry() {
+    return expectedGeometry;
+  }
+
+  public GeometryMode getGeometryMode() {
+    return geometryMode;
+  }
+
+  public VerticeMode getVerticeMode() {
+    return verticeMode;
+  }
+
+  public NormalMode getNormalMode() {
+    return normalMode;
+  }
+
+  public int getPointsPerGeometry() {
+    return pointsPerGeometry;
+  }
+
+  public int getNumberOfPoints() {
+    return numberOfPoints;
+  }
+
+  public int getNumberOfCells() {
+    return numberOfCells;
+  }
+
+  protected void setFlag(int flag, boolean value) {
+    flags = value ? flags | flag : flags & ~flag;
+  }
+
+  public boolean isPrimitiveRestart() {
+    return (flags & PRIMITIVE_RESTART) != 0;
+  }
+
+  public boolean isHiddenFacesRemoved() {
+    return (flags & HIDDEN_FACES_REMOVED) != 0;
+  }
+
+  public boolean isQuadsTriangulated() {
+    return (flags & QUADS_TRIANGULATED) != 0;
+  }
+
+  public boolean isNormalPerPoint() {
+    return (flags & NORMAL_PER_POINT) != 0;
+  }
+}
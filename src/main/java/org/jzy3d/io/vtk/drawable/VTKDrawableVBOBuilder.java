@@ -1,15 +1,25 @@
 package org.jzy3d.io.vtk.drawable;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jzy3d.colors.Color;
 import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.GeometryMode;
 import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.VerticeMode;
+import org.jzy3d.io.vtk.drawable.filter.BoundarySurface;
+import org.jzy3d.io.vtk.drawable.filter.SurfaceCache;
+import org.jzy3d.io.vtk.drawable.filter.SurfaceFilterOnPointId;
+import org.jzy3d.io.vtk.xml.VTUDataArray;
+import org.jzy3d.io.vtk.xml.VTUDataset;
 import org.jzy3d.maths.Coord3d;
 import org.jzy3d.maths.Normal;
 import org.jzy3d.maths.Normal.NormalMode;
@@ -22,13 +32,13 @@ import org.jzy3d.plot3d.primitives.Scatter;
 import org.jzy3d.plot3d.primitives.vbo.drawable.DrawableVBO2;
 import org.jzy3d.plot3d.text.drawable.DrawableTextWrapper;
 import org.jzy3d.plot3d.text.renderers.jogl.JOGLTextRenderer2d;
-import com.google.common.collect.ArrayListMultimap;
 import vtk.VTKGeometry;
 import vtk.VTKReader;
 import vtk.VTKUtils;
 import vtk.vtkCellArrayIterator;
 import vtk.vtkDataArray;
 import vtk.vtkDataObject;
+import vtk.vtkDataSet;
 import vtk.vtkPointData;
 import vtk.vtkPoints;
 import vtk.vtkPolyData;
@@ -51,6 +61,10 @@ public class VTKDrawableVBOBuilder extends AbstractVTKDrawableBuilder implements
   protected float[] colors;
   protected boolean isNormalPerPoint = true;
 
+  // last property used for coloring, kept to recolor with another colormap
+  protected String coloringPropertyName;
+  protected float[] coloringProperty;
+
   public enum GeometryMode {
     SINGLE_GEOMETRY, MULTI_GEOMETRY
   }
@@ -58,19 +72,35 @@ public class VTKDrawableVBOBuilder extends AbstractVTKDrawableBuilder implements
     REPEATED, SHARED
   }
 
+  /**
+   * Defines how cells are read from VTK. {@link TraversalMode#ITERATOR} queries offsets,
+   * connectivity and cell types through JNI for each cell and point.
+   * {@link TraversalMode#BULK} copies these arrays once to Java and then only reads primitive
+   * arrays. {@link TraversalMode#PARALLEL} reads the same arrays and fills disjoint slices of the
+   * element arrays in chunks of cells on the common {@link java.util.concurrent.ForkJoinPool}, with
+   * the same result than {@link TraversalMode#BULK}.
+   */
+  public enum TraversalMode {
+    ITERATOR, BULK, PARALLEL
+  }
+
+  /** Number of cells processed by each task in {@link TraversalMode#PARALLEL}. */
+  public static int PARALLEL_CHUNK_CELLS = 1 << 14;
+
   protected GeometryMode geometryMode = GeometryMode.SINGLE_GEOMETRY;
   protected VerticeMode verticeMode = VerticeMode.REPEATED;
   protected int expectedGeometry = VTKGeometry.VTK_QUAD;
   protected NormalMode normalMode = NormalMode.REPEATED;
+  protected TraversalMode traversalMode = TraversalMode.BULK;
 
 
   // case of single element index, only suitable for triangle
   protected int[] elements;
   protected int singleElementCursor = 0;
 
-  // case of no index but multiple geometries, suitable for trangle and polygons with repeated,
-  // contiguous vertices, BUT NOT WORKING
-  protected boolean primitiveRestart = false; // WIP
+  // geometries of a single element index are separated by a restart value, which allows
+  // polygons of different sizes and multiple geometries to be drawn with a single call
+  protected boolean primitiveRestart = false;
 
   // case of multiple element index, suitable for triangle and polygons with REPEATED, CONTIGUOUS
   // vertices
@@ -91,8 +121,37 @@ public class VTKDrawableVBOBuilder extends AbstractVTKDrawableBuilder implements
   protected int colorChannels = 3;
   protected float alpha = 1;
 
-  // mapping point to cell, to check if they are shared or not
-  protected ArrayListMultimap<Integer, Integer> pointToCell;
+  // mapping point to cell, to check if they are shared or not, built on first use for the cells
+  // processed by the last makePolygons
+  protected PointToCellIndex pointToCell;
+  protected int pointToCellNumber;
+
+  // cell arrays copied once from VTK, used in TraversalMode.BULK
+  protected int[] offsets;
+  protected int[] connectivity;
+  protected int[] cellTypes;
+
+  // pure Java input, read by a VTUReader instead of VTK
+  protected VTUDataset grid;
+
+  // arrays converted in a previous session, read instead of traversing cells
+  protected VBOCache cache;
+
+  // points per geometry of the element arrays built by the last makePolygons
+  protected int pointsPerGeometry;
+
+  // hexahedron faces shared by two cells are not drawn if enabled
+  protected boolean hiddenFacesRemoved = false;
+  protected BoundarySurface surface;
+
+  // surfaces of previous datasets, reused if their topology is the same as this one
+  protected SurfaceCache surfaceCache;
+
+  // quads and hexahedron faces are emitted as two triangles if enabled
+  protected boolean quadsTriangulated = false;
+
+  // element buffers hold GL_UNSIGNED_SHORT indices if enabled and vertices are few enough
+  protected boolean shortIndices = true;
 
 
   // ************************** UNSTRUCTURED GRID CONSTRUCTORS ******************************* //
@@ -177,6 +236,63 @@ public class VTKDrawableVBOBuilder extends AbstractVTKDrawableBuilder implements
   }
 
 
+  // ************************** PURE JAVA CONSTRUCTORS ******************************* //
+
+  /**
+   * A {@link DrawableVBO2} builder reading a {@link VTUDataset} loaded by a
+   * {@link org.jzy3d.io.vtk.xml.VTUReader}, hence not requiring VTK natives.
+   *
+   * Cells are always traversed in {@link TraversalMode#BULK} mode. Cell arrays and properties are
+   * read from the arrays of the dataset, which may be views on a memory mapped file. Coordinates
+   * are copied once since {@link DrawableVBO2} expects a float array.
+   */
+  public VTKDrawableVBOBuilder(VTUDataset grid, GeometryMode geometryMode,
+      VerticeMode verticeMode, NormalMode normalMode, int vtkGeometry) {
+    super((vtkDataSet) null);
+
+    this.grid = grid;
+    this.coordinates = grid.getCoordinates();
+    this.normals = null;
+
+    this.geometryMode = geometryMode;
+    this.verticeMode = verticeMode;
+    this.normalMode = normalMode;
+    this.expectedGeometry = vtkGeometry;
+  }
+
+  public VTKDrawableVBOBuilder(VTUDataset grid, GeometryMode geometryMode,
+      VerticeMode verticeMode, int vtkGeometry) {
+    this(grid, geometryMode, verticeMode, NormalMode.REPEATED, vtkGeometry);
+  }
+
+  // ************************** CACHE CONSTRUCTORS ******************************* //
+
+  /**
+   * A {@link DrawableVBO2} builder reading the arrays written by {@link #writeCache(File, long)}
+   * in a previous session, hence neither parsing the source file nor traversing its cells.
+   *
+   * The builder takes the geometry, vertice and normal modes of the builder that wrote the cache.
+   * Cell arrays are not cached, so {@link #makePolygonChunks(String, int)} is not available.
+   */
+  public VTKDrawableVBOBuilder(VBOCache cache) {
+    super((vtkDataSet) null);
+
+    this.cache = cache;
+    this.coordinates = cache.getSection(VBOCache.COORDINATES).toFloatArray();
+
+    VBOCache.Section normalSection = cache.getSection(VBOCache.NORMALS);
+    this.normals = normalSection != null ? normalSection.toFloatArray() : null;
+    this.isNormalPerPoint = cache.isNormalPerPoint();
+
+    this.geometryMode = cache.getGeometryMode();
+    this.verticeMode = cache.getVerticeMode();
+    this.normalMode = cache.getNormalMode();
+    this.expectedGeometry = cache.getExpectedGeometry();
+    this.primitiveRestart = cache.isPrimitiveRestart();
+    this.hiddenFacesRemoved = cache.isHiddenFacesRemoved();
+    this.quadsTriangulated = cache.isQuadsTriangulated();
+  }
+
   // ************************** POLYGON DATA CONSTRUCTORS ******************************* //
 
   /**
@@ -339,23 +455,17 @@ public class VTKDrawableVBOBuilder extends AbstractVTKDrawableBuilder implements
     // ----------------------------------------------------
     // Get values for this property
 
-    vtkPointData pointData = dataset.GetPointData();
-
-    vtkDataArray propertyArray = pointData.GetArray(property);
-    if (propertyArray == null) {
-      throw new IllegalArgumentException("Property '" + property + "' not found. Use one of : "
-          + String.join(" ", VTKUtils.getArrayNames(pointData)));
-    }
-    
-    int numberOfTuples = (int) pointData.GetNumberOfTuples();
-    float[] coloringProperty = VTKUtils.toFloatArray(propertyArray, numberOfTuples);
-
-    propertyRange = new Range(propertyArray.GetFiniteRange()[0], propertyArray.GetFiniteRange()[1]);
+    float[] coloringProperty = loadColoringProperty(property);
 
-    colors = new float[numberOfTuples * colorChannels];
+    colors = new float[coloringProperty.length * colorChannels];
 
     log.info("Number of colors : " + 1f * colors.length / colorChannels);
 
+    colorize(coloringProperty);
+
+    // geometry arrays were built in a previous session
+    if (cache != null)
+      return makePolygonsFromCache();
 
     // ----------------------------------------------------
     // Build geometry arrays by iterating on cells
@@ -376,14 +486,12 @@ public class VTKDrawableVBOBuilder extends AbstractVTKDrawableBuilder implements
     }
 
     // primitive restart is an opengl mode where geometries are separated by a flag values
-    // it is not used but kept for later. reasons are discussed here :
+    // which let a single element array hold polygons of different sizes. Discussed here :
     // https://community.khronos.org/t/using-glprimitiverestartindex-to-declare-multiple-geometries-in-the-same-vbo/107810/9
     if (primitiveRestart)
       pointsPerGeometry++;
 
-    pointToCell = ArrayListMultimap.create();
-
-    int cellNumber = (int) cells.GetNumberOfCells();
+    int cellNumber = getNumberOfCells();
 
     if (debugMaxCell > 0) {
       cellNumber = debugMaxCell;
@@ -391,524 +499,1362 @@ public class VTKDrawableVBOBuilder extends AbstractVTKDrawableBuilder implements
       debugShrinkCoordinates(cellNumber);
     }
 
+    // identify hexahedron faces that are hidden by a neighbour cell
+    if (hiddenFacesRemoved && VTKGeometry.VTK_HEXAHEDRON == expectedGeometry) {
+      loadCellArrays();
+      surface = extractSurface(cellNumber);
+    } else {
+      surface = null;
+    }
+
+    if (quadsTriangulated && !GeometryMode.SINGLE_GEOMETRY.equals(geometryMode))
+      throw new IllegalArgumentException("Triangulated quads require SINGLE_GEOMETRY");
+
     // initialize arrays according to the expected geometry
     initializeElementArrays(pointsPerGeometry, cellNumber);
 
-    // Start iteration
-    vtkCellArrayIterator it = cells.NewIterator();
+    // Start iteration, unless the boundary faces of this topology are already known
+    if (surface != null && surfaceCache != null)
+      appendBoundaryFaces();
+    else
+      traverseCells(cellNumber, coloringProperty);
 
-    int k = 0;
+    // split quads in triangles once they are all known, whatever the traversal mode
+    if (quadsTriangulated && VTKGeometry.VTK_TRIANGLE != expectedGeometry) {
+      elements = triangulateQuads(elements, singleElementCursor);
+      singleElementCursor = elements.length;
+      pointsPerGeometry = 3;
+    }
 
-    for (it.GoToFirstCell(); !it.IsDoneWithTraversal(); it.GoToNextCell()) {
-      int cellId = (int) it.GetCurrentCellId();
-      int cellType = dataset.GetCellType(cellId);
-      int cellStartPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId);
-      int cellStopPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId + 1);
+    // Keep track of shared points, only indexed on demand as it costs a pass on all cells
+    pointToCell = null;
+    pointToCellNumber = cellNumber;
 
-      if (debug)
-        debugCurrentCell(cellId, cellType, cellStartPointId, cellStopPointId);
+    // ----------------------------------------------------
 
-      // Notify of the first geometry type in dataset
-      if (k == 0) {
-        log.info("First geometry is " + VTKGeometry.name(cellType));
-      }
+    if (log.isDebugEnabled() && VerticeMode.REPEATED.equals(verticeMode)) {
+      int nShared = checkNumberOfSharedPoints();
 
-      // Verify ALL geometry type at parsing
-      if (cellType != expectedGeometry) {
-        log.warn("Expect geometry " + VTKGeometry.name(expectedGeometry) + " but found "
-            + VTKGeometry.name(cellType));
+      if (nShared > 0) {
+        log.error("===================");
+        log.error("Found " + nShared + " shared points. Current vertice mode : " + verticeMode);
+        log.error("===================");
       }
+    }
 
-      if (VTKGeometry.VTK_QUAD == cellType || VTKGeometry.VTK_TRIANGLE == cellType) {
-        addPolygon(cellId, cellStartPointId, cellStopPointId, coloringProperty);
-      } else if (VTKGeometry.VTK_HEXAHEDRON == cellType) {
-        addHexahedronPolygons(cellId, cellStartPointId, cellStopPointId, coloringProperty);
-      } else {
-        log.error("Unsupported cell type " + cellType + " (" + VTKGeometry.name(cellType) + ")");
-      }
 
-      k++;
+    return newDrawable(pointsPerGeometry);
+  }
 
-      if (k == cellNumber) {
-        log.warn("REACHED " + k + " CELLS");
-        break;
-      }
+  /** Build the {@link DrawableVBO2} of the element arrays built for the current modes. */
+  protected DrawableVBO2 newDrawable(int pointsPerGeometry) {
+    this.pointsPerGeometry = pointsPerGeometry;
 
-    }
+    DrawableVBO2 drawable = null;
 
-    // ----------------------------------------------------
+    // geometries of any mode separated by restart values are drawn as a single element array,
+    // unless quads were triangulated which drops restart values
+    boolean restarted = primitiveRestart
+        && !(quadsTriangulated && VTKGeometry.VTK_TRIANGLE != expectedGeometry);
 
-    int nShared = checkNumberOfSharedPoints();
+    boolean shortIndices = useShortIndices(coordinates.length / dimensions);
 
-    if (nShared > 0 && VerticeMode.REPEATED.equals(verticeMode)) {
-      log.error("===================");
-      log.error("Found " + nShared + " shared points. Current vertice mode : " + verticeMode);
-      log.error("===================");
+    if (restarted) {
+      drawable = new PrimitiveRestartDrawableVBO2(coordinates, elements, pointsPerGeometry, colors,
+          shortIndices);
     }
 
-
-    // ----------------------------------------------------
-    // Build final VBO
-
-    DrawableVBO2 drawable = null;
-
-    if (VerticeMode.REPEATED.equals(verticeMode)) {
+    else if (VerticeMode.REPEATED.equals(verticeMode)) {
 
       if (GeometryMode.SINGLE_GEOMETRY.equals(geometryMode)) {
-        drawable = new DrawableVBO2(coordinates, elements, pointsPerGeometry, colors);
-      } else if (GeometryMode.MULTI_GEOMETRY.equals(geometryMode)) {
-        drawable = new DrawableVBO2(coordinates, elementsStarts, elementsLength, colors);
+        drawable = shortIndices
+            ? new ShortIndexDrawableVBO2(coordinates, elements, pointsPerGeometry, colors)
+            : new RecolorableDrawableVBO2(coordinates, elements, pointsPerGeometry, colors);
+      }
+      // not indexed
+      else if (GeometryMode.MULTI_GEOMETRY.equals(geometryMode)) {
+        drawable = new RecolorableDrawableVBO2(coordinates, elementsStarts, elementsLength, colors);
       }
     }
 
     else if (VerticeMode.SHARED.equals(verticeMode)) {
       // either normals are defined automatically according to a mode SHARED or REPEATED ...
       if (normalMode != null) {
-        drawable = new DrawableVBO2(coordinates, elementsIndices, colors, normalMode);
+        drawable = shortIndices
+            ? new ShortIndexDrawableVBO2(coordinates, elementsIndices, colors, normalMode)
+            : new RecolorableDrawableVBO2(coordinates, elementsIndices, colors, normalMode);
       }
       // ... either they were defined externally
       else if (normals != null) {
-        drawable = new DrawableVBO2(coordinates, elementsIndices, colors, normals);
+        drawable = shortIndices
+            ? new ShortIndexDrawableVBO2(coordinates, elementsIndices, colors, normals)
+            : new RecolorableDrawableVBO2(coordinates, elementsIndices, colors, normals);
       }
     }
-    drawable.setColorChannels(colorChannels);
-
-    drawable.setWireframeDisplayed(wireDisplayed);
-    drawable.setWireframeColor(wireColor);
-    drawable.setReflectLight(reflectLight);
+    applySettings(drawable);
     // polygon.setPolygonWireframeDepthTrick(false);
     // polygon.setPolygonOffsetFillEnable(false);
 
     return drawable;
   }
 
+  ///////////////////////////////////////////////
+  //
+  // CACHE
+  //
+  ///////////////////////////////////////////////
+
+  /** Build the drawable from the cached element arrays. */
+  protected DrawableVBO2 makePolygonsFromCache() {
+    VBOCache.Section elementsSection = cache.getSection(VBOCache.ELEMENTS);
+    VBOCache.Section startsSection = cache.getSection(VBOCache.ELEMENTS_STARTS);
+    VBOCache.Section lengthSection = cache.getSection(VBOCache.ELEMENTS_LENGTH);
+    VBOCache.Section indicesSection = cache.getSection(VBOCache.ELEMENTS_INDICES);
+
+    elements = elementsSection != null ? elementsSection.toIntArray() : null;
+    singleElementCursor = elements != null ? elements.length : 0;
+    elementsStarts = startsSection != null ? startsSection.toIntArray() : null;
+    elementsLength = lengthSection != null ? lengthSection.toIntArray() : null;
+    elementsIndices = indicesSection != null ? indicesSection.toIntTuples() : null;
+
+    return newDrawable(cache.getPointsPerGeometry());
+  }
+
   /**
-   * Initialize array sizes according to the selected type of geometry, repetition pattern, and
-   * input data size.
-   * 
-   * @param pointsPerGeometry
-   * @param cellNumber
+   * Return the arrays built by the last {@link #makePolygons(String)} along with all point
+   * properties and their range, to be written with {@link VBOCache#write(File)}.
+   *
+   * @param sourceHash the hash of the files the dataset was read from, see
+   *        {@link VBOCache#hashSources(File)}
+   * @throws IllegalStateException if no polygons were built yet.
    */
-  protected void initializeElementArrays(int pointsPerGeometry, int cellNumber) {
-    multiElementCursor = 0;
-    singleElementCursor = 0;
-
-    if (VTKGeometry.VTK_HEXAHEDRON == expectedGeometry) {
-      // an hexahedron will be drawn has a collection of 6 quads
-
-      if (GeometryMode.SINGLE_GEOMETRY.equals(geometryMode)) {
-        elements = new int[HEXAHEDRON_FACES * pointsPerGeometry * cellNumber];
+  public VBOCache toCache(long sourceHash) {
+    if (elements == null && elementsStarts == null && elementsIndices == null)
+      throw new IllegalStateException("No polygons were built yet, call makePolygons first");
+
+    VBOCache out = new VBOCache(sourceHash);
+
+    out.expectedGeometry = expectedGeometry;
+    out.geometryMode = geometryMode;
+    out.verticeMode = verticeMode;
+    out.normalMode = normalMode;
+    out.pointsPerGeometry = pointsPerGeometry;
+    out.numberOfPoints = getNumberOfPoints();
+    out.numberOfCells = getNumberOfCells();
+    out.setFlag(VBOCache.PRIMITIVE_RESTART, primitiveRestart);
+    out.setFlag(VBOCache.HIDDEN_FACES_REMOVED, hiddenFacesRemoved);
+    out.setFlag(VBOCache.QUADS_TRIANGULATED, quadsTriangulated);
+    out.setFlag(VBOCache.NORMAL_PER_POINT, isNormalPerPoint);
+
+    out.put(VBOCache.COORDINATES, coordinates, dimensions);
+    if (normals != null)
+      out.put(VBOCache.NORMALS, normals, dimensions);
+
+    if (elements != null)
+      out.put(VBOCache.ELEMENTS, elements, pointsPerGeometry);
+    if (elementsStarts != null)
+      out.put(VBOCache.ELEMENTS_STARTS, elementsStarts, 1);
+    if (elementsLength != null)
+      out.put(VBOCache.ELEMENTS_LENGTH, elementsLength, 1);
+    if (elementsIndices != null) {
+      int[] indices = new int[elementsIndices.length * pointsPerGeometry];
+      for (int i = 0; i < elementsIndices.length; i++) {
+        System.arraycopy(elementsIndices[i], 0, indices, i * pointsPerGeometry,
+            pointsPerGeometry);
       }
+      out.put(VBOCache.ELEMENTS_INDICES, indices, pointsPerGeometry);
+    }
 
-      else {
-        if (VerticeMode.REPEATED.equals(verticeMode)) {
-          elementsStarts = new int[HEXAHEDRON_FACES * cellNumber];
-          elementsLength = new int[HEXAHEDRON_FACES * cellNumber];
-        } else if (VerticeMode.SHARED.equals(verticeMode)) {
-          elementsIndices = new int[HEXAHEDRON_FACES * cellNumber][pointsPerGeometry];
-        }
+    // reading other properties should not change the range of the coloring property
+    Range range = propertyRange;
+
+    for (String property : getPropertyNames()) {
+      try {
+        float[] values = readColoringProperty(property);
+        out.putProperty(property, values, propertyRange);
+      } catch (IllegalArgumentException e) {
+        log.warn("Skip property " + property + " : " + e.getMessage());
       }
     }
+    propertyRange = range;
 
-    else if (VTKGeometry.VTK_QUAD == expectedGeometry
-        || VTKGeometry.VTK_TRIANGLE == expectedGeometry) {
+    return out;
+  }
 
-      if (GeometryMode.SINGLE_GEOMETRY.equals(geometryMode)) {
-        elements = new int[pointsPerGeometry * cellNumber];
-      }
+  /** Write the arrays built by the last {@link #makePolygons(String)} to a cache file. */
+  public void writeCache(File file, long sourceHash) throws IOException {
+    toCache(sourceHash).write(file);
+  }
 
-      else {
-        if (VerticeMode.REPEATED.equals(verticeMode)) {
-          elementsStarts = new int[pointsPerGeometry * cellNumber];
-          elementsLength = new int[pointsPerGeometry * cellNumber];
-        } else if (VerticeMode.SHARED.equals(verticeMode)) {
-          elementsIndices = new int[cellNumber][pointsPerGeometry];
-        }
-      }
+  public VBOCache getCache() {
+    return cache;
+  }
 
-    }
+  protected void applySettings(DrawableVBO2 drawable) {
+    drawable.setColorChannels(colorChannels);
 
-    else {
-      throw new IllegalArgumentException("Not expected " + VTKGeometry.name(expectedGeometry));
-    }
+    drawable.setWireframeDisplayed(wireDisplayed);
+    drawable.setWireframeColor(wireColor);
+    drawable.setReflectLight(reflectLight);
   }
 
+  ///////////////////////////////////////////////
+  //
+  // TRIANGULATION
+  //
+  ///////////////////////////////////////////////
 
-  public int checkNumberOfSharedPoints() {
-    int nShared = 0;
-    for (Integer pointId : pointToCell.keySet()) {
-      int sharedHexahedrons = pointToCell.get(pointId).size();
+  /** Points of the two triangles a quad is split into, keeping the winding of the quad. */
+  public static final int[] QUAD_TRIANGLES = {0, 1, 2, 0, 2, 3};
 
-      if (sharedHexahedrons > 1) {
-        nShared++;
-      }
-      // System.out.println(sharedHexahedrons +" shared");
+  /**
+   * Split the quads of a single element array into two triangles each, ignoring
+   * {@link DrawableVBO2#PRIMITIVE_RESTART_VALUE} that triangles do not need.
+   *
+   * @param quads the quad indices, 4 per quad, possibly followed by a restart value
+   * @param length number of values to read in the quad array
+   * @return an array of 6 indices per quad
+   */
+  public static int[] triangulateQuads(int[] quads, int length) {
+    int indices = 0;
+    for (int i = 0; i < length; i++) {
+      if (quads[i] != DrawableVBO2.PRIMITIVE_RESTART_VALUE)
+        indices++;
+    }
 
+    if (indices % QUAD_POINTS != 0)
+      throw new IllegalArgumentException(indices + " indices do not make quads");
+
+    int[] triangles = new int[indices / QUAD_POINTS * QUAD_TRIANGLES.length];
+    int[] quad = new int[QUAD_POINTS];
+    int k = 0;
+    int t = 0;
+
+    for (int i = 0; i < length; i++) {
+      if (quads[i] == DrawableVBO2.PRIMITIVE_RESTART_VALUE)
+        continue;
+
+      quad[k++] = quads[i];
+
+      if (k == QUAD_POINTS) {
+        for (int p : QUAD_TRIANGLES) {
+          triangles[t++] = quad[p];
+        }
+        k = 0;
+      }
     }
-    return nShared;
+    return triangles;
   }
 
-  //////////////////////////////////////////////
+  ///////////////////////////////////////////////
   //
-  // BUILDING TRIANGLES, QUADS, POLYGONS
+  // CHUNKS
   //
-  //////////////////////////////////////////////
+  ///////////////////////////////////////////////
 
   /**
-   * Load an polygon by feeding the <code>colors</code> and <code>geometries</code> internal arrays
-   * that are later used to build the VBO.
-   * 
-   * @param cellId id of the cell
-   * @param cellStartPointId starting cell
-   * @param cellStopPointId stoping cell
-   * @param coloringProperty array of properties in the VTK file that should be used for coloring
-   *        the faces of the hexahedron polygons
+   * Smallest chunk size, able to hold the faces of one hexahedron either as quads with primitive
+   * restart or as triangles.
    */
-  protected void addPolygon(int cellId, int cellStartPointId, int cellStopPointId,
-      float[] coloringProperty) {
+  public static final int MIN_CHUNK_SIZE = HEXAHEDRON_FACES * QUAD_TRIANGLES.length;
 
-    int datasetStartPointId = -1;
+  /**
+   * Same as {@link #makePolygonChunks(String, int, Consumer)} without notification of each chunk.
+   */
+  public List<DrawableVBO2> makePolygonChunks(String property, int maxChunkSize) {
+    return makePolygonChunks(property, maxChunkSize, null);
+  }
 
-    for (int i = cellStartPointId; i < cellStopPointId; i++) {
-      int datasetPointId = (int) cells.GetConnectivityArray().GetTuple1(i);
+  /**
+   * Build the dataset as several {@link DrawableVBO2}, each having at most
+   * <code>maxChunkSize</code> vertices and at most <code>maxChunkSize</code> indices, to stay
+   * below the buffer sizes that drivers accept.
+   *
+   * Cells are traversed in order and appended to the current chunk until it is full. Each chunk
+   * only holds the vertices its cells use, with indices remapped to these local vertices, so that
+   * no array has the size of the whole dataset except the input ones. Colors are computed per chunk
+   * with the color lookup table, and can be recolored with {@link #recolor(List, String)}.
+   *
+   * Chunks are indexed, hence require either {@link GeometryMode#SINGLE_GEOMETRY} or
+   * {@link VerticeMode#SHARED}.
+   *
+   * @param property the point property used for coloring
+   * @param maxChunkSize maximum number of vertices and indices of each chunk, at least
+   *        {@link #MIN_CHUNK_SIZE}
+   * @param onChunk if not null, receives each chunk as soon as it is built, e.g. to add it to a
+   *        chart so that the first part of the model appears before the whole dataset is processed
+   * @return all chunks, in cell order
+   */
+  public List<DrawableVBO2> makePolygonChunks(String property, int maxChunkSize,
+      Consumer<DrawableVBO2> onChunk) {
+    if (maxChunkSize < MIN_CHUNK_SIZE)
+      throw new IllegalArgumentException(
+          "Chunk size should be at least " + MIN_CHUNK_SIZE + ", not " + maxChunkSize);
 
+    if (GeometryMode.MULTI_GEOMETRY.equals(geometryMode)
+        && !VerticeMode.SHARED.equals(verticeMode) && !primitiveRestart)
+      throw new IllegalArgumentException("Chunks require indexed vertices : use SINGLE_GEOMETRY, "
+          + "VerticeMode.SHARED or primitive restart");
 
-      // Get coordinate
-      float value = coloringProperty[datasetPointId];
+    if (normalMode == null && normals != null && !isNormalPerPoint)
+      throw new IllegalArgumentException("Chunks require one normal per point");
 
-      // Get color
-      Color color = getValueColor(value);
+    if (quadsTriangulated && !GeometryMode.SINGLE_GEOMETRY.equals(geometryMode))
+      throw new IllegalArgumentException("Triangulated quads require SINGLE_GEOMETRY");
 
-      appendColor(datasetPointId, color);
+    int pointsPerGeometry;
 
-      // Append to a single geometry
-      if (GeometryMode.SINGLE_GEOMETRY.equals(geometryMode)) {
-        append(datasetPointId);
+    if (VTKGeometry.VTK_QUAD == expectedGeometry
+        || VTKGeometry.VTK_HEXAHEDRON == expectedGeometry) {
+      pointsPerGeometry = QUAD_POINTS;
+    } else if (VTKGeometry.VTK_TRIANGLE == expectedGeometry) {
+      pointsPerGeometry = 3;
+    } else {
+      throw new IllegalArgumentException("Unsupported geometry type : " + expectedGeometry + " "
+          + VTKGeometry.name(expectedGeometry));
+    }
 
-        if (debug) {
-          System.out.print(datasetPointId + " (" + coordinates[datasetPointId * 3 + 0] + ","
-              + coordinates[datasetPointId * 3 + 1] + "," + coordinates[datasetPointId * 3 + 2]
-              + ")");
-        }
-      }
+    float[] coloringProperty = loadColoringProperty(property);
 
-      // Prepare append to a multi-geometry
-      else if (GeometryMode.MULTI_GEOMETRY.equals(geometryMode)) {
-        if (VerticeMode.REPEATED.equals(verticeMode)) {
-          if (i == cellStartPointId) { // will store it later out of the loop
-            datasetStartPointId = datasetPointId;
-          }
-        } else if (VerticeMode.SHARED.equals(verticeMode)) {
-          elementsIndices[multiElementCursor][i - cellStartPointId] = datasetPointId;
+    ColorLookupTable lookup = newColorLookupTable();
+    if (colorChannels == 4)
+      lookup.setAlpha(alpha);
 
-        }
-      }
+    loadCellArrays();
 
-      // Keep track of shared points
-      pointToCell.put(datasetPointId, cellId);
+    int cellNumber = Math.min(debugMaxCell > 0 ? debugMaxCell : getNumberOfCells(),
+        cellTypes.length);
+
+    if (hiddenFacesRemoved && VTKGeometry.VTK_HEXAHEDRON == expectedGeometry) {
+      surface = extractSurface(cellNumber);
+    } else {
+      surface = null;
     }
 
-    // Append to multi-geometry
-    if (GeometryMode.MULTI_GEOMETRY.equals(geometryMode)) {
-      if (VerticeMode.REPEATED.equals(verticeMode)) {
-        elementsStarts[multiElementCursor] = datasetStartPointId;
-        elementsLength[multiElementCursor] = cellStopPointId - cellStartPointId;
+    List<DrawableVBO2> chunks = new ArrayList<>();
+    Chunk chunk = new Chunk(maxChunkSize, pointsPerGeometry, coloringProperty, lookup);
 
-        if (debug) {
-          System.out.print("start at : " + elementsStarts[multiElementCursor] + " with "
-              + elementsLength[multiElementCursor] + " points");
+    for (int cellId = 0; cellId < cellNumber; cellId++) {
+      int cellType = cellTypes[cellId];
+      int start = offsets[cellId];
+      int points = offsets[cellId + 1] - start;
+
+      if (VTKGeometry.VTK_HEXAHEDRON == cellType) {
+        if (points != HEXAHEDRON_POINTS) {
+          throw new IllegalArgumentException(
+              "Hexahedron supposed to have 8 points, not " + points);
         }
 
-        multiElementCursor++;
-      } else if (VerticeMode.SHARED.equals(verticeMode)) {
+        if (!chunk.canAppend(HEXAHEDRON_POINTS, HEXAHEDRON_FACES * QUAD_TRIANGLES.length))
+          flush(chunk, chunks, onChunk);
 
-        if (debug) {
-          System.out.print("has " + elementsIndices[multiElementCursor].length + " points : ");
-          for (int j = 0; j < elementsIndices[multiElementCursor].length; j++) {
-            System.out.print(elementsIndices[multiElementCursor][j] + " ");
-          }
+        for (int face = 0; face < HEXAHEDRON_FACES; face++) {
+          if (surface == null || surface.isBoundaryFace(cellId, face))
+            chunk.append(start, SurfaceFilterOnPointId.HEXAHEDRON_FACE_POINTS[face], QUAD_POINTS);
         }
+      } else if (VTKGeometry.VTK_QUAD == cellType || VTKGeometry.VTK_TRIANGLE == cellType) {
+        if (!chunk.canAppend(points, Math.max(points + 1, QUAD_TRIANGLES.length)))
+          flush(chunk, chunks, onChunk);
 
-        multiElementCursor++;
+        chunk.append(start, null, points);
+      } else {
+        log.error("Unsupported cell type " + cellType + " (" + VTKGeometry.name(cellType) + ")");
       }
     }
 
-    if (debug)
-      System.out.println();
-  }
+    flush(chunk, chunks, onChunk);
 
-  protected void append(int p1) {
-    elements[singleElementCursor++] = p1;
+    return chunks;
   }
 
+  protected void flush(Chunk chunk, List<DrawableVBO2> chunks, Consumer<DrawableVBO2> onChunk) {
+    if (chunk.isEmpty())
+      return;
 
-  //////////////////////////////////////////////
-  //
-  // BUILDING HEXAHDRONS
-  //
-  //////////////////////////////////////////////
+    DrawableVBO2 drawable = chunk.build();
+    chunk.reset();
+
+    chunks.add(drawable);
 
+    if (onChunk != null)
+      onChunk.accept(drawable);
+  }
 
   /**
-   * Load an hexahedron by feeding the <code>colors</code> and <code>geometries</code> internal
-   * arrays that are later used to build the VBO.
-   * 
-   * @param cellId id of the cell
-   * @param cellStartPointId starting cell
-   * @param cellStopPointId stoping cell
-   * @param coloringProperty array of properties in the VTK file that should be used for coloring
-   *        the faces of the hexahedron polygons
+   * Geometries of consecutive cells with indices local to the chunk. The dataset point of each
+   * local vertex is kept in <code>vertices</code>, and the local vertex of each dataset point in
+   * <code>localIds</code> which is reset after each chunk.
    */
-  protected void addHexahedronPolygons(int cellId, int cellStartPointId, int cellStopPointId,
-      float[] coloringProperty) {
+  protected class Chunk {
+    protected int maxSize;
+    protected int pointsPerGeometry;
+    protected float[] coloringProperty;
+    protected ColorLookupTable lookup;
+
+    protected int[] localIds;
+    protected int[] vertices;
+    protected int numberOfVertices;
+
+    protected int[] chunkElements;
+    protected List<int[]> chunkElementsIndices;
+    protected int numberOfIndices;
+
+    public Chunk(int maxSize, int pointsPerGeometry, float[] coloringProperty,
+        ColorLookupTable lookup) {
+      this.maxSize = maxSize;
+      this.pointsPerGeometry = pointsPerGeometry;
+      this.coloringProperty = coloringProperty;
+      this.lookup = lookup;
+
+      this.localIds = new int[getNumberOfPoints()];
+      Arrays.fill(localIds, -1);
+      this.vertices = new int[maxSize];
+
+      if (GeometryMode.SINGLE_GEOMETRY.equals(geometryMode) || primitiveRestart)
+        this.chunkElements = new int[maxSize];
+      else
+        this.chunkElementsIndices = new ArrayList<>();
+    }
 
-    // --------------------------------------
-    // Check consistency of input
-    if (cellStopPointId - cellStartPointId != HEXAHEDRON_POINTS) {
-      throw new IllegalArgumentException(
-          "Hexahedron supposed to have 8 points, not " + (cellStopPointId - cellStartPointId));
+    public boolean canAppend(int points, int indices) {
+      return numberOfVertices + points <= maxSize && numberOfIndices + indices <= maxSize;
     }
 
-    // --------------------------------------
-    // Prepare array to load points and normals
-    int[] hexaHedronPoints = new int[HEXAHEDRON_POINTS];
+    public boolean isEmpty() {
+      return numberOfIndices == 0;
+    }
 
-    // --------------------------------------
-    // Load coordinates, colors and normals
+    /**
+     * Append a geometry made of the points of a cell starting at the given connectivity index,
+     * either all points or those given by the face point indices.
+     */
+    public void append(int cellStart, int[] face, int points) {
+      if (chunkElements != null && quadsTriangulated && points == QUAD_POINTS) {
+        for (int k : QUAD_TRIANGLES) {
+          chunkElements[numberOfIndices++] = local(cellStart, face, k);
+        }
+      } else if (chunkElements != null) {
+        for (int k = 0; k < points; k++) {
+          chunkElements[numberOfIndices++] = local(cellStart, face, k);
+        }
+        if (primitiveRestart && !quadsTriangulated)
+          chunkElements[numberOfIndices++] = DrawableVBO2.PRIMITIVE_RESTART_VALUE;
+      } else {
+        int[] geometry = new int[points];
+        for (int k = 0; k < points; k++) {
+          geometry[k] = local(cellStart, face, k);
+        }
+        chunkElementsIndices.add(geometry);
+        numberOfIndices += points;
+      }
+    }
 
-    for (int i = cellStartPointId; i < cellStopPointId; i++) {
-      // Index in input cell and output hexahedron points
-      int datasetPointId = (int) cells.GetConnectivityArray().GetTuple1(i);
-      int hexahedPointId = i - cellStartPointId;
+    protected int local(int cellStart, int[] face, int k) {
+      int pointId = connectivity[cellStart + (face == null ? k : face[k])];
 
-      if (debug)
-        debugDatasetPointIdAndCoords(datasetPointId);
+      if (localIds[pointId] == -1) {
+        localIds[pointId] = numberOfVertices;
+        vertices[numberOfVertices++] = pointId;
+      }
+      return localIds[pointId];
+    }
 
-      // Get color
-      Color color = getValueColor(coloringProperty[datasetPointId]);
+    public DrawableVBO2 build() {
+      float[] chunkCoordinates = gather(coordinates, dimensions);
+      float[] chunkValues = gather(coloringProperty, 1);
+      float[] chunkColors =
+          lookup.colorize(chunkValues, new float[numberOfVertices * colorChannels], colorChannels);
+
+      RecolorableDrawableVBO2 drawable = null;
+      boolean shortIndices = useShortIndices(numberOfVertices);
+
+      if (chunkElements != null && primitiveRestart && !quadsTriangulated) {
+        drawable = new PrimitiveRestartDrawableVBO2(chunkCoordinates,
+            Arrays.copyOf(chunkElements, numberOfIndices), pointsPerGeometry + 1, chunkColors,
+            shortIndices);
+      } else if (chunkElements != null) {
+        int[] indices = Arrays.copyOf(chunkElements, numberOfIndices);
+        int geometrySize = quadsTriangulated ? 3 : pointsPerGeometry;
+
+        drawable = shortIndices
+            ? new ShortIndexDrawableVBO2(chunkCoordinates, indices, geometrySize, chunkColors)
+            : new RecolorableDrawableVBO2(chunkCoordinates, indices, geometrySize, chunkColors);
+      } else {
+        int[][] indices = chunkElementsIndices.toArray(new int[chunkElementsIndices.size()][]);
+
+        if (normalMode != null) {
+          drawable = shortIndices
+              ? new ShortIndexDrawableVBO2(chunkCoordinates, indices, chunkColors, normalMode)
+              : new RecolorableDrawableVBO2(chunkCoordinates, indices, chunkColors, normalMode);
+        } else if (normals != null) {
+          float[] chunkNormals = gather(normals, dimensions);
+          drawable = shortIndices
+              ? new ShortIndexDrawableVBO2(chunkCoordinates, indices, chunkColors, chunkNormals)
+              : new RecolorableDrawableVBO2(chunkCoordinates, indices, chunkColors, chunkNormals);
+        }
+      }
 
-      // Append to colors
-      appendColor(datasetPointId, color);
+      // keep the dataset point of each vertex to recolor the chunk
+      drawable.setPointIds(Arrays.copyOf(vertices, numberOfVertices));
 
-      hexaHedronPoints[hexahedPointId] = datasetPointId;
+      applySettings(drawable);
+      return drawable;
     }
 
-    /*
-     * colors[0] = 1; colors[1] = 0; colors[2] = 0; // R colors[3] = 0; colors[4] = 1; colors[5] =
-     * 0; // G colors[6] = 0; colors[7] = 0; colors[8] = 1; // B colors[9] = 1; colors[10] = 1;
-     * colors[11] = 1; // W
-     * 
-     * colors[12] = 1; colors[13] = 0; colors[14] = 1; // MAGENTA colors[15] = 0; colors[16] = 1;
-     * colors[17] = 1; // CYAN colors[18] = 1; colors[19] = 1; colors[20] = 0; // YELLOW colors[21]
-     * = 1; colors[22] = 1; colors[23] = 1;
-     */
+    /** Copy the values of the chunk vertices from a dataset array. */
+    protected float[] gather(float[] values, int components) {
+      return VTKDrawableVBOBuilder.gather(values, components, vertices, numberOfVertices);
+    }
 
-    if (debug)
-      System.out.println();
+    public void reset() {
+      for (int i = 0; i < numberOfVertices; i++) {
+        localIds[vertices[i]] = -1;
+      }
+      numberOfVertices = 0;
+      numberOfIndices = 0;
 
+      if (chunkElementsIndices != null)
+        chunkElementsIndices = new ArrayList<>();
+    }
+  }
 
-    // --------------------------------------
-    // Append hexahedron faces to polygon
+  /** Copy the values of the given points from a dataset array. */
+  protected static float[] gather(float[] values, int components, int[] pointIds, int points) {
+    float[] out = new float[points * components];
+    for (int i = 0; i < points; i++) {
+      System.arraycopy(values, pointIds[i] * components, out, i * components, components);
+    }
+    return out;
+  }
 
-    appendIndices(hexaHedronPoints, 2, 3, 7, 6); // north
-    appendIndices(hexaHedronPoints, 0, 1, 5, 4); // south
-    appendIndices(hexaHedronPoints, 4, 5, 6, 7); // left
-    appendIndices(hexaHedronPoints, 0, 1, 2, 3); // right
-    appendIndices(hexaHedronPoints, 0, 3, 7, 4); // near
-    appendIndices(hexaHedronPoints, 1, 2, 6, 5); // far
+  /**
+   * Initialize array sizes according to the selected type of geometry, repetition pattern, and
+   * input data size.
+   * 
+   * @param pointsPerGeometry
+   * @param cellNumber
+   */
+  protected void initializeElementArrays(int pointsPerGeometry, int cellNumber) {
+    multiElementCursor = 0;
+    singleElementCursor = 0;
 
-  }
+    if (primitiveRestart) {
+      elementsStarts = null;
+      elementsLength = null;
+      elementsIndices = null;
+    }
 
-  protected void appendColor(int datasetPointId, Color color) {
-    colors[datasetPointId * colorChannels + 0] = color.r;
-    colors[datasetPointId * colorChannels + 1] = color.g;
-    colors[datasetPointId * colorChannels + 2] = color.b;
+    if (VTKGeometry.VTK_HEXAHEDRON == expectedGeometry) {
+      // an hexahedron will be drawn has a collection of 6 quads, less if hidden faces are removed
+      int faces = surface != null ? surface.getNumberOfBoundaryFaces()
+          : HEXAHEDRON_FACES * cellNumber;
 
-    if (colorChannels == 4) {
-      colors[datasetPointId * colorChannels + 3] = alpha;
+      // pointsPerGeometry already counts the restart value following each face
+      if (GeometryMode.SINGLE_GEOMETRY.equals(geometryMode) || primitiveRestart) {
+        elements = new int[pointsPerGeometry * faces];
+      }
+
+      else {
+        if (VerticeMode.REPEATED.equals(verticeMode)) {
+          elementsStarts = new int[faces];
+          elementsLength = new int[faces];
+        } else if (VerticeMode.SHARED.equals(verticeMode)) {
+          elementsIndices = new int[faces][pointsPerGeometry];
+        }
+      }
     }
-  }
 
+    else if (VTKGeometry.VTK_QUAD == expectedGeometry
+        || VTKGeometry.VTK_TRIANGLE == expectedGeometry) {
 
-  protected void appendIndices(int[] hexahedronPoints, int p1, int p2, int p3, int p4) {
+      // cells may have different sizes, each one is followed by a restart value
+      if (primitiveRestart) {
+        int n = Math.min(cellNumber, getNumberOfCells());
+        elements = new int[getCellOffset(n) - getCellOffset(0) + n];
+      }
 
-    // Case of single indexed array
-    if (elements != null) {
-      elements[singleElementCursor++] = hexahedronPoints[p1];
-      elements[singleElementCursor++] = hexahedronPoints[p2];
-      elements[singleElementCursor++] = hexahedronPoints[p3];
-      elements[singleElementCursor++] = hexahedronPoints[p4];
+      else if (GeometryMode.SINGLE_GEOMETRY.equals(geometryMode)) {
+        elements = new int[pointsPerGeometry * cellNumber];
+      }
 
-      if (primitiveRestart)
-        elements[singleElementCursor++] = DrawableVBO2.PRIMITIVE_RESTART_VALUE;
-    }
+      else {
+        if (VerticeMode.REPEATED.equals(verticeMode)) {
+          elementsStarts = new int[pointsPerGeometry * cellNumber];
+          elementsLength = new int[pointsPerGeometry * cellNumber];
+        } else if (VerticeMode.SHARED.equals(verticeMode)) {
+          elementsIndices = new int[cellNumber][pointsPerGeometry];
+        }
+      }
 
-    // Case of multi indexed array
-    else if (elementsIndices != null) {
-      elementsIndices[multiElementCursor][0] = hexahedronPoints[p1];
-      elementsIndices[multiElementCursor][1] = hexahedronPoints[p2];
-      elementsIndices[multiElementCursor][2] = hexahedronPoints[p3];
-      elementsIndices[multiElementCursor][3] = hexahedronPoints[p4];
-      multiElementCursor++;
     }
 
-    // Cas of multi array without index, assuming all points are contiguous
-    else if (elementsStarts != null && elementsLength != null) {
-      elementsLength[multiElementCursor] = 4;
-      elementsStarts[multiElementCursor] = hexahedronPoints[p1];
-      multiElementCursor++;
+    else {
+      throw new IllegalArgumentException("Not expected " + VTKGeometry.name(expectedGeometry));
     }
   }
 
 
-
   /**
-   * Read the property based on its name and return a color array based on the colormap.
-   * 
-   * This will update the internal property range and colors array.
+   * Traverse the cells of the dataset, either with a VTK iterator or with Java copies of the cell
+   * arrays according to the current {@link TraversalMode}.
    * 
-   * @param property
-   * @return
+   * @param cellNumber maximum number of cells to process
+   * @param coloringProperty array of properties in the VTK file that should be used for coloring
    */
-  public float[] getPropertyColor(String property) {
+  protected void traverseCells(int cellNumber, float[] coloringProperty) {
+    if (isBulkTraversal()) {
+      loadCellArrays();
 
-    // ----------------------------------------------------
-    // Get values for this property
+      int n = Math.min(cellNumber, cellTypes.length);
 
-    vtkPointData pointData = dataset.GetPointData();
+      if (TraversalMode.PARALLEL.equals(traversalMode) && isParallelTraversable(n)) {
+        traverseCellsParallel(n);
+      } else {
+        for (int cellId = 0; cellId < n; cellId++) {
+          processCell(cellId, cellTypes[cellId], offsets[cellId], offsets[cellId + 1],
+              coloringProperty);
+        }
+      }
 
-    // Loosing precision here since convert double to float
-    vtkDataArray propertyArray = pointData.GetArray(property);
-    if (propertyArray == null) {
-      String[] a = VTKUtils.getArrayNames(pointData);
-      throw new IllegalArgumentException(
-          "Property '" + property + "' not found. Use one of : " + String.join(" ", a));
+      if (n < cellTypes.length) {
+        log.warn("REACHED " + n + " CELLS");
+      }
     }
-    int numberOfTuples = (int) pointData.GetNumberOfTuples();
-    float[] coloringProperty = VTKUtils.toFloatArray(propertyArray, numberOfTuples);
 
-    propertyRange = new Range(propertyArray.GetFiniteRange()[0], propertyArray.GetFiniteRange()[1]);
+    else {
+      vtkCellArrayIterator it = cells.NewIterator();
 
-    colors = new float[numberOfTuples * colorChannels];
+      int k = 0;
 
+      for (it.GoToFirstCell(); !it.IsDoneWithTraversal(); it.GoToNextCell()) {
+        int cellId = (int) it.GetCurrentCellId();
+        int cellType = dataset.GetCellType(cellId);
+        int cellStartPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId);
+        int cellStopPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId + 1);
 
-    // ----------------------------------------------------
-    // Build geometry arrays by iterating on cells
+        processCell(cellId, cellType, cellStartPointId, cellStopPointId, coloringProperty);
 
-    int cellNumber = (int) cells.GetNumberOfCells();
+        k++;
 
-    if (debugMaxCell > 0) {
-      cellNumber = debugMaxCell;
+        if (k == cellNumber) {
+          log.warn("REACHED " + k + " CELLS");
+          break;
+        }
+      }
+    }
+  }
 
-      debugShrinkCoordinates(cellNumber);
+  protected void processCell(int cellId, int cellType, int cellStartPointId, int cellStopPointId,
+      float[] coloringProperty) {
+    if (debug)
+      debugCurrentCell(cellId, cellType, cellStartPointId, cellStopPointId);
+
+    // Notify of the first geometry type in dataset
+    if (cellId == 0) {
+      log.info("First geometry is " + VTKGeometry.name(cellType));
     }
 
-    // Start iteration
-    vtkCellArrayIterator it = cells.NewIterator();
+    // Verify ALL geometry type at parsing
+    if (cellType != expectedGeometry) {
+      log.warn("Expect geometry " + VTKGeometry.name(expectedGeometry) + " but found "
+          + VTKGeometry.name(cellType));
+    }
 
-    int k = 0;
+    if (VTKGeometry.VTK_QUAD == cellType || VTKGeometry.VTK_TRIANGLE == cellType) {
+      addPolygon(cellId, cellStartPointId, cellStopPointId, coloringProperty);
+    } else if (VTKGeometry.VTK_HEXAHEDRON == cellType) {
+      addHexahedronPolygons(cellId, cellStartPointId, cellStopPointId, coloringProperty);
+    } else {
+      log.error("Unsupported cell type " + cellType + " (" + VTKGeometry.name(cellType) + ")");
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // PARALLEL TRAVERSAL
+  //
+  ///////////////////////////////////////////////
 
-    for (it.GoToFirstCell(); !it.IsDoneWithTraversal(); it.GoToNextCell()) {
-      int cellId = (int) it.GetCurrentCellId();
-      int cellType = dataset.GetCellType(cellId);
-      int cellStartPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId);
-      int cellStopPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId + 1);
+  /**
+   * Return true if the position of each cell in the element arrays can be computed before
+   * traversal, i.e. if all cells have the expected type.
+   */
+  protected boolean isParallelTraversable(int n) {
+    if (debug)
+      return false;
 
-      if (debug)
-        debugCurrentCell(cellId, cellType, cellStartPointId, cellStopPointId);
+    if (VTKGeometry.VTK_HEXAHEDRON != expectedGeometry && VTKGeometry.VTK_QUAD != expectedGeometry
+        && VTKGeometry.VTK_TRIANGLE != expectedGeometry)
+      return false;
 
-      // Notify of the first geometry type in dataset
-      if (k == 0) {
-        log.info("First geometry is " + VTKGeometry.name(cellType));
+    for (int cellId = 0; cellId < n; cellId++) {
+      if (cellTypes[cellId] != expectedGeometry) {
+        log.info("Found " + VTKGeometry.name(cellTypes[cellId]) + " while expecting "
+            + VTKGeometry.name(expectedGeometry) + ", will not traverse cells in parallel");
+        return false;
       }
+    }
+    return true;
+  }
 
-      // Verify ALL geometry type at parsing
-      if (cellType != expectedGeometry) {
-        log.warn("Expect geometry " + VTKGeometry.name(expectedGeometry) + " but found "
-            + VTKGeometry.name(cellType));
+  /**
+   * Fill the element arrays in chunks of {@link #PARALLEL_CHUNK_CELLS} cells. A first pass counts
+   * the geometries of each chunk so that each chunk then writes its own slice of the arrays.
+   */
+  protected void traverseCellsParallel(int n) {
+    if (n > 0) {
+      log.info("First geometry is " + VTKGeometry.name(cellTypes[0]));
+    }
+
+    int chunks = (n + PARALLEL_CHUNK_CELLS - 1) / PARALLEL_CHUNK_CELLS;
+
+    // Count geometries of each chunk, shifted by one to get chunk starts after prefix sum
+    int[] chunkGeometries = new int[chunks + 1];
+
+    ParallelChunks.forEachChunk(chunks, (from, to) -> {
+      for (int chunk = from; chunk < to; chunk++) {
+        chunkGeometries[chunk + 1] = countGeometries(chunk * PARALLEL_CHUNK_CELLS,
+            Math.min(n, (chunk + 1) * PARALLEL_CHUNK_CELLS));
       }
+    });
 
-      if (VTKGeometry.VTK_QUAD == cellType || VTKGeometry.VTK_TRIANGLE == cellType) {
-        addPolygonColors(cellId, cellStartPointId, cellStopPointId, coloringProperty);
-      } else if (VTKGeometry.VTK_HEXAHEDRON == cellType) {
-        addHexahedronColors(cellId, cellStartPointId, cellStopPointId, coloringProperty);
-      } else {
-        log.error("Unsupported cell type " + cellType + " (" + VTKGeometry.name(cellType) + ")");
+    ParallelChunks.prefixSum(chunkGeometries);
+
+    // Fill disjoint slices of the element arrays
+    ParallelChunks.forEachChunk(chunks, (from, to) -> {
+      for (int chunk = from; chunk < to; chunk++) {
+        fillGeometries(chunk * PARALLEL_CHUNK_CELLS,
+            Math.min(n, (chunk + 1) * PARALLEL_CHUNK_CELLS), chunkGeometries[chunk]);
       }
+    });
+
+    // Leave cursors as a sequential traversal would
+    int geometries = chunkGeometries[chunks];
+
+    if (VTKGeometry.VTK_HEXAHEDRON == expectedGeometry) {
+      if (elements != null)
+        singleElementCursor = geometries * getHexahedronFaceStride();
+      else
+        multiElementCursor = geometries;
+    } else {
+      if (elements != null)
+        singleElementCursor = geometries * getCellStride();
+      else
+        multiElementCursor = geometries;
+    }
+  }
+
+  /** Return the number of geometries (faces or polygons) appended for the given cells. */
+  protected int countGeometries(int fromCell, int toCell) {
+    if (VTKGeometry.VTK_HEXAHEDRON != expectedGeometry)
+      return toCell - fromCell;
 
-      k++;
+    if (surface == null)
+      return (toCell - fromCell) * HEXAHEDRON_FACES;
 
-      if (k == cellNumber) {
-        log.warn("REACHED " + k + " CELLS");
-        break;
+    int geometries = 0;
+    for (int cellId = fromCell; cellId < toCell; cellId++) {
+      for (int face = 0; face < HEXAHEDRON_FACES; face++) {
+        if (surface.isBoundaryFace(cellId, face))
+          geometries++;
       }
     }
+    return geometries;
+  }
 
-    return colors;
+  /**
+   * Write the geometries of the given cells in the element arrays, starting at the given geometry,
+   * the same way {@link #addHexahedronPolygons(int, int, int, float[])} and
+   * {@link #addPolygon(int, int, int, float[])} do.
+   */
+  protected void fillGeometries(int fromCell, int toCell, int firstGeometry) {
+    int geometry = firstGeometry;
+
+    if (VTKGeometry.VTK_HEXAHEDRON == expectedGeometry) {
+      int stride = getHexahedronFaceStride();
+
+      for (int cellId = fromCell; cellId < toCell; cellId++) {
+        int start = offsets[cellId];
+
+        if (offsets[cellId + 1] - start != HEXAHEDRON_POINTS) {
+          throw new IllegalArgumentException(
+              "Hexahedron supposed to have 8 points, not " + (offsets[cellId + 1] - start));
+        }
+
+        for (int face = 0; face < HEXAHEDRON_FACES; face++) {
+          if (surface != null && !surface.isBoundaryFace(cellId, face))
+            continue;
+
+          int[] points = SurfaceFilterOnPointId.HEXAHEDRON_FACE_POINTS[face];
+
+          if (elements != null) {
+            int e = geometry * stride;
+            for (int k = 0; k < QUAD_POINTS; k++) {
+              elements[e + k] = connectivity[start + points[k]];
+            }
+            if (primitiveRestart)
+              elements[e + QUAD_POINTS] = DrawableVBO2.PRIMITIVE_RESTART_VALUE;
+          } else if (elementsIndices != null) {
+            for (int k = 0; k < QUAD_POINTS; k++) {
+              elementsIndices[geometry][k] = connectivity[start + points[k]];
+            }
+          } else if (elementsStarts != null && elementsLength != null) {
+            elementsLength[geometry] = QUAD_POINTS;
+            elementsStarts[geometry] = connectivity[start + points[0]];
+          }
+          geometry++;
+        }
+      }
+    } else {
+      for (int cellId = fromCell; cellId < toCell; cellId++) {
+        int start = offsets[cellId];
+        int length = offsets[cellId + 1] - start;
+
+        if (elements != null) {
+          int e = geometry * getCellStride();
+          System.arraycopy(connectivity, start, elements, e, length);
+          if (primitiveRestart)
+            elements[e + length] = DrawableVBO2.PRIMITIVE_RESTART_VALUE;
+        } else if (VerticeMode.REPEATED.equals(verticeMode)) {
+          elementsStarts[geometry] = connectivity[start];
+          elementsLength[geometry] = length;
+        } else if (VerticeMode.SHARED.equals(verticeMode)) {
+          System.arraycopy(connectivity, start, elementsIndices[geometry], 0, length);
+        }
+        geometry++;
+      }
+    }
   }
 
+  /**
+   * Write the boundary faces of a cached {@link BoundarySurface} in the element arrays, the same
+   * way {@link #fillGeometries(int, int, int)} does, without visiting the cells.
+   */
+  protected void appendBoundaryFaces() {
+    int[] faces = surface.getBoundaryFaces();
+    int n = faces.length / QUAD_POINTS;
+
+    for (int geometry = 0; geometry < n; geometry++) {
+      int f = geometry * QUAD_POINTS;
+
+      if (elements != null) {
+        System.arraycopy(faces, f, elements, singleElementCursor, QUAD_POINTS);
+        singleElementCursor += QUAD_POINTS;
+
+        if (primitiveRestart)
+          elements[singleElementCursor++] = DrawableVBO2.PRIMITIVE_RESTART_VALUE;
+      } else if (elementsIndices != null) {
+        System.arraycopy(faces, f, elementsIndices[multiElementCursor++], 0, QUAD_POINTS);
+      } else if (elementsStarts != null && elementsLength != null) {
+        elementsLength[multiElementCursor] = QUAD_POINTS;
+        elementsStarts[multiElementCursor++] = faces[f];
+      }
+    }
+  }
+
+  /** Number of indices written in a single element array for each face of an hexahedron. */
+  protected int getHexahedronFaceStride() {
+    return primitiveRestart ? QUAD_POINTS + 1 : QUAD_POINTS;
+  }
+
+  /** Number of points of each cell when they are all quads or triangles. */
+  protected int getCellPoints() {
+    return VTKGeometry.VTK_QUAD == expectedGeometry ? QUAD_POINTS : 3;
+  }
+
+  /** Number of indices written in a single element array for each quad or triangle cell. */
+  protected int getCellStride() {
+    return primitiveRestart ? getCellPoints() + 1 : getCellPoints();
+  }
 
   /**
+   * Copy offsets, connectivity and cell types from VTK to Java arrays. This is done once since the
+   * geometry of the dataset does not change after the builder is created.
+   */
+  protected void loadCellArrays() {
+    if (connectivity == null && cache != null) {
+      throw new IllegalStateException("Cell arrays are not cached");
+    } else if (connectivity == null && grid != null) {
+      offsets = grid.getOffsets();
+      connectivity = grid.getConnectivity();
+      cellTypes = grid.getCellTypes();
+    } else if (connectivity == null) {
+      offsets = VTKUtils.toIntArray(cells.GetOffsetsArray());
+      connectivity = VTKUtils.toIntArray(cells.GetConnectivityArray());
+      cellTypes = VTKUtils.getCellTypes(dataset);
+    }
+  }
+
+  /** Return the dataset point id stored at the given index of the cell connectivity array. */
+  protected int getPointId(int connectivityIndex) {
+    if (isBulkTraversal()) {
+      return connectivity[connectivityIndex];
+    } else {
+      return (int) cells.GetConnectivityArray().GetTuple1(connectivityIndex);
+    }
+  }
+
+  /**
+   * Identify the hexahedron faces that are not hidden by a neighbour cell, or reuse those of a
+   * previous dataset with the same topology if a {@link SurfaceCache} is set.
+   */
+  protected BoundarySurface extractSurface(int cellNumber) {
+    if (surfaceCache != null) {
+      return surfaceCache.get(getNumberOfPoints(), offsets, connectivity, cellTypes, cellNumber);
+    } else {
+      SurfaceFilterOnPointId filter = new SurfaceFilterOnPointId(getNumberOfPoints(), offsets,
+          connectivity, cellTypes, cellNumber);
+      return new BoundarySurface(filter, getNumberOfPoints(), 0);
+    }
+  }
+
+  /** Return the index of the first point of a cell in the connectivity array. */
+  protected int getCellOffset(int cellId) {
+    if (isBulkTraversal()) {
+      loadCellArrays();
+      return offsets[cellId];
+    } else {
+      return (int) cells.GetOffsetsArray().GetTuple1(cellId);
+    }
+  }
+
+  /** Return true if cells are read from Java arrays, which is always the case for a VTU input. */
+  protected boolean isBulkTraversal() {
+    return grid != null || !TraversalMode.ITERATOR.equals(traversalMode);
+  }
+
+  protected int getNumberOfPoints() {
+    if (cache != null)
+      return cache.getNumberOfPoints();
+    else if (grid != null)
+      return grid.getNumberOfPoints();
+    else
+      return (int) dataset.GetNumberOfPoints();
+  }
+
+  protected int getNumberOfCells() {
+    if (cache != null)
+      return cache.getNumberOfCells();
+    else if (grid != null)
+      return grid.getNumberOfCells();
+    else
+      return (int) cells.GetNumberOfCells();
+  }
+
+  /**
+   * Read the values of a point property as float and update the property range.
+   *
+   * @throws IllegalArgumentException if the property does not exist.
+   */
+  protected float[] loadColoringProperty(String property) {
+    coloringProperty = readColoringProperty(property);
+    coloringPropertyName = property;
+    return coloringProperty;
+  }
+
+  protected float[] readColoringProperty(String property) {
+    if (cache != null) {
+      VBOCache.Section section = cache.getProperty(property);
+      propertyRange = new Range(section.getMin(), section.getMax());
+      return section.toFloatArray();
+    }
+
+    if (grid != null) {
+      VTUDataArray propertyArray = grid.getPointDataArray(property);
+      if (propertyArray.getNumberOfComponents() != 1) {
+        throw new IllegalArgumentException("Property '" + property + "' has "
+            + propertyArray.getNumberOfComponents() + " components, can only color with 1");
+      }
+      double[] range = propertyArray.getFiniteRange();
+      propertyRange = new Range(range[0], range[1]);
+      return propertyArray.toFloatArray();
+    }
+
+    vtkPointData pointData = dataset.GetPointData();
+
+    // Loosing precision here since convert double to float
+    vtkDataArray propertyArray = pointData.GetArray(property);
+    if (propertyArray == null) {
+      throw new IllegalArgumentException("Property '" + property + "' not found. Use one of : "
+          + String.join(" ", VTKUtils.getArrayNames(pointData)));
+    }
+
+    int numberOfTuples = (int) pointData.GetNumberOfTuples();
+    float[] coloringProperty = VTKUtils.toFloatArray(propertyArray, numberOfTuples);
+
+    propertyRange = new Range(propertyArray.GetFiniteRange()[0], propertyArray.GetFiniteRange()[1]);
+
+    return coloringProperty;
+  }
+
+  @Override
+  public String[] getPropertyNames() {
+    if (cache != null)
+      return cache.getPropertyNames();
+    else if (grid != null)
+      return grid.getPointDataNames();
+    else
+      return super.getPropertyNames();
+  }
+
+  public int checkNumberOfSharedPoints() {
+    return getPointToCell().getNumberOfSharedPoints();
+  }
+
+  /**
+   * Return the cells using each point, for the cells processed by the last
+   * {@link #makePolygons(String)}, or null if polygons were not made yet.
+   */
+  public PointToCellIndex getPointToCell() {
+    if (pointToCell == null && pointToCellNumber > 0) {
+      loadCellArrays();
+      pointToCell =
+          PointToCellIndex.build(getNumberOfPoints(), offsets, connectivity, pointToCellNumber);
+    }
+    return pointToCell;
+  }
+
+  //////////////////////////////////////////////
+  //
+  // BUILDING TRIANGLES, QUADS, POLYGONS
+  //
+  //////////////////////////////////////////////
+
+  /**
+   * Load an polygon by feeding the <code>colors</code> and <code>geometries</code> internal arrays
+   * that are later used to build the VBO.
+   * 
    * @param cellId id of the cell
    * @param cellStartPointId starting cell
    * @param cellStopPointId stoping cell
    * @param coloringProperty array of properties in the VTK file that should be used for coloring
    *        the faces of the hexahedron polygons
    */
-  protected void addPolygonColors(int cellId, int cellStartPointId, int cellStopPointId,
+  protected void addPolygon(int cellId, int cellStartPointId, int cellStopPointId,
       float[] coloringProperty) {
 
+    // Append to a single element array, whatever the geometry mode
+    if (primitiveRestart) {
+      for (int i = cellStartPointId; i < cellStopPointId; i++) {
+        append(getPointId(i));
+      }
+      append(DrawableVBO2.PRIMITIVE_RESTART_VALUE);
+      return;
+    }
+
+    int datasetStartPointId = -1;
+
     for (int i = cellStartPointId; i < cellStopPointId; i++) {
-      int datasetPointId = (int) cells.GetConnectivityArray().GetTuple1(i);
+      int datasetPointId = getPointId(i);
 
-      // Get color
-      Color color = getValueColor(coloringProperty[datasetPointId]);
+      // Append to a single geometry
+      if (GeometryMode.SINGLE_GEOMETRY.equals(geometryMode)) {
+        append(datasetPointId);
 
-      // Append to colors
-      appendColor(datasetPointId, color);
+        if (debug) {
+          System.out.print(datasetPointId + " (" + coordinates[datasetPointId * 3 + 0] + ","
+              + coordinates[datasetPointId * 3 + 1] + "," + coordinates[datasetPointId * 3 + 2]
+              + ")");
+        }
+      }
+
+      // Prepare append to a multi-geometry
+      else if (GeometryMode.MULTI_GEOMETRY.equals(geometryMode)) {
+        if (VerticeMode.REPEATED.equals(verticeMode)) {
+          if (i == cellStartPointId) { // will store it later out of the loop
+            datasetStartPointId = datasetPointId;
+          }
+        } else if (VerticeMode.SHARED.equals(verticeMode)) {
+          elementsIndices[multiElementCursor][i - cellStartPointId] = datasetPointId;
+
+        }
+      }
+    }
+
+    // Append to multi-geometry
+    if (GeometryMode.MULTI_GEOMETRY.equals(geometryMode)) {
+      if (VerticeMode.REPEATED.equals(verticeMode)) {
+        elementsStarts[multiElementCursor] = datasetStartPointId;
+        elementsLength[multiElementCursor] = cellStopPointId - cellStartPointId;
+
+        if (debug) {
+          System.out.print("start at : " + elementsStarts[multiElementCursor] + " with "
+              + elementsLength[multiElementCursor] + " points");
+        }
+
+        multiElementCursor++;
+      } else if (VerticeMode.SHARED.equals(verticeMode)) {
+
+        if (debug) {
+          System.out.print("has " + elementsIndices[multiElementCursor].length + " points : ");
+          for (int j = 0; j < elementsIndices[multiElementCursor].length; j++) {
+            System.out.print(elementsIndices[multiElementCursor][j] + " ");
+          }
+        }
+
+        multiElementCursor++;
+      }
     }
 
     if (debug)
       System.out.println();
   }
 
+  protected void append(int p1) {
+    elements[singleElementCursor++] = p1;
+  }
+
+
+  //////////////////////////////////////////////
+  //
+  // BUILDING HEXAHDRONS
+  //
+  //////////////////////////////////////////////
+
 
   /**
+   * Load an hexahedron by feeding the <code>colors</code> and <code>geometries</code> internal
+   * arrays that are later used to build the VBO.
+   * 
    * @param cellId id of the cell
    * @param cellStartPointId starting cell
    * @param cellStopPointId stoping cell
    * @param coloringProperty array of properties in the VTK file that should be used for coloring
    *        the faces of the hexahedron polygons
    */
-  protected void addHexahedronColors(int cellId, int cellStartPointId, int cellStopPointId,
+  protected void addHexahedronPolygons(int cellId, int cellStartPointId, int cellStopPointId,
       float[] coloringProperty) {
 
     // --------------------------------------
     // Check consistency of input
-
     if (cellStopPointId - cellStartPointId != HEXAHEDRON_POINTS) {
       throw new IllegalArgumentException(
           "Hexahedron supposed to have 8 points, not " + (cellStopPointId - cellStartPointId));
     }
 
     // --------------------------------------
-    // Load color
+    // Prepare array to load points and normals
+    int[] hexaHedronPoints = new int[HEXAHEDRON_POINTS];
+
+    // --------------------------------------
+    // Load point ids, colors being already computed by colorize
 
     for (int i = cellStartPointId; i < cellStopPointId; i++) {
       // Index in input cell and output hexahedron points
-      int datasetPointId = (int) cells.GetConnectivityArray().GetTuple1(i);
+      int datasetPointId = getPointId(i);
+      int hexahedPointId = i - cellStartPointId;
 
       if (debug)
         debugDatasetPointIdAndCoords(datasetPointId);
 
-      // Get color
-      Color color = getValueColor(coloringProperty[datasetPointId]);
-
-      appendColor(datasetPointId, color);
+      hexaHedronPoints[hexahedPointId] = datasetPointId;
     }
 
+    /*
+     * colors[0] = 1; colors[1] = 0; colors[2] = 0; // R colors[3] = 0; colors[4] = 1; colors[5] =
+     * 0; // G colors[6] = 0; colors[7] = 0; colors[8] = 1; // B colors[9] = 1; colors[10] = 1;
+     * colors[11] = 1; // W
+     * 
+     * colors[12] = 1; colors[13] = 0; colors[14] = 1; // MAGENTA colors[15] = 0; colors[16] = 1;
+     * colors[17] = 1; // CYAN colors[18] = 1; colors[19] = 1; colors[20] = 0; // YELLOW colors[21]
+     * = 1; colors[22] = 1; colors[23] = 1;
+     */
+
     if (debug)
       System.out.println();
+
+
+    // --------------------------------------
+    // Append hexahedron faces to polygon
+
+    appendFace(cellId, 0, hexaHedronPoints, 2, 3, 7, 6); // north
+    appendFace(cellId, 1, hexaHedronPoints, 0, 1, 5, 4); // south
+    appendFace(cellId, 2, hexaHedronPoints, 4, 5, 6, 7); // left
+    appendFace(cellId, 3, hexaHedronPoints, 0, 1, 2, 3); // right
+    appendFace(cellId, 4, hexaHedronPoints, 0, 3, 7, 4); // near
+    appendFace(cellId, 5, hexaHedronPoints, 1, 2, 6, 5); // far
+
+  }
+
+  /** Append the face of an hexahedron, unless it is hidden by a neighbour cell. */
+  protected void appendFace(int cellId, int face, int[] hexahedronPoints, int p1, int p2, int p3,
+      int p4) {
+    if (surface == null || surface.isBoundaryFace(cellId, face))
+      appendIndices(hexahedronPoints, p1, p2, p3, p4);
+  }
+
+  protected void appendIndices(int[] hexahedronPoints, int p1, int p2, int p3, int p4) {
+
+    // Case of single indexed array
+    if (elements != null) {
+      elements[singleElementCursor++] = hexahedronPoints[p1];
+      elements[singleElementCursor++] = hexahedronPoints[p2];
+      elements[singleElementCursor++] = hexahedronPoints[p3];
+      elements[singleElementCursor++] = hexahedronPoints[p4];
+
+      if (primitiveRestart)
+        elements[singleElementCursor++] = DrawableVBO2.PRIMITIVE_RESTART_VALUE;
+    }
+
+    // Case of multi indexed array
+    else if (elementsIndices != null) {
+      elementsIndices[multiElementCursor][0] = hexahedronPoints[p1];
+      elementsIndices[multiElementCursor][1] = hexahedronPoints[p2];
+      elementsIndices[multiElementCursor][2] = hexahedronPoints[p3];
+      elementsIndices[multiElementCursor][3] = hexahedronPoints[p4];
+      multiElementCursor++;
+    }
+
+    // Cas of multi array without index, assuming all points are contiguous
+    else if (elementsStarts != null && elementsLength != null) {
+      elementsLength[multiElementCursor] = 4;
+      elementsStarts[multiElementCursor] = hexahedronPoints[p1];
+      multiElementCursor++;
+    }
+  }
+
+
+
+  /**
+   * Read the property based on its name and return a color array based on the colormap.
+   * 
+   * This will update the internal property range and colors array.
+   * 
+   * @param property
+   * @return
+   */
+  public float[] getPropertyColor(String property) {
+    float[] coloringProperty = loadColoringProperty(property);
+
+    colors = new float[coloringProperty.length * colorChannels];
+
+    colorize(coloringProperty);
+
+    return colors;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // RECOLOR
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Compute the colors of a property without traversing cells nor rebuilding the geometry. The
+   * <code>colors</code> array is reused if it already has the appropriate size.
+   *
+   * @return the colors array
+   */
+  public float[] recolor(String property) {
+    float[] values = loadColoringProperty(property);
+
+    if (colors == null || colors.length != values.length * colorChannels)
+      colors = new float[values.length * colorChannels];
+
+    colorize(values);
+    return colors;
+  }
+
+  /**
+   * Update the color buffer of a drawable previously built by {@link #makePolygons(String)} with
+   * the colors of another property. Geometry and element buffers are left untouched, the existing
+   * color buffer is overwritten in place and uploaded to the GPU at next display if the drawable
+   * is a {@link RecolorableDrawableVBO2}, as built by this builder.
+   *
+   * @throws IllegalArgumentException if the drawable color buffer does not have one color per
+   *         point with the current number of color channels.
+   */
+  public void recolor(DrawableVBO2 drawable, String property) {
+    recolor(property);
+    updateColorBuffer(drawable);
+  }
+
+  /**
+   * Update the color buffer of a drawable with the last coloring property, for example after
+   * changing the colormap with {@link #setColormap(org.jzy3d.colors.colormaps.IColorMap)}.
+   */
+  public void recolor(DrawableVBO2 drawable) {
+    if (coloringProperty == null)
+      throw new IllegalArgumentException("No property was loaded yet, call makePolygons first");
+
+    colorize(coloringProperty);
+    updateColorBuffer(drawable);
+  }
+
+  /**
+   * Update the color buffer of chunks previously built by
+   * {@link #makePolygonChunks(String, int, Consumer)} with the colors of another property. Each
+   * chunk is colored from the values of its own points, so that no color array has the size of
+   * the whole dataset, and uploads its colors in place at next display.
+   *
+   * @throws IllegalArgumentException if a drawable does not know the dataset point of its vertices,
+   *         i.e. was not built as a chunk.
+   */
+  public void recolor(List<DrawableVBO2> chunks, String property) {
+    float[] values = loadColoringProperty(property);
+
+    ColorLookupTable lookup = newColorLookupTable();
+    if (colorChannels == 4)
+      lookup.setAlpha(alpha);
+
+    for (DrawableVBO2 chunk : chunks) {
+      int[] pointIds = chunk instanceof RecolorableDrawableVBO2
+          ? ((RecolorableDrawableVBO2) chunk).getPointIds()
+          : null;
+
+      if (pointIds == null)
+        throw new IllegalArgumentException(
+            "A " + chunk.getClass().getSimpleName() + " is not a chunk of makePolygonChunks");
+
+      float[] chunkValues = gather(values, 1, pointIds, pointIds.length);
+      float[] chunkColors =
+          lookup.colorize(chunkValues, new float[pointIds.length * colorChannels], colorChannels);
+
+      writeColors(chunk, chunkColors);
+    }
+  }
+
+  protected void updateColorBuffer(DrawableVBO2 drawable) {
+    writeColors(drawable, colors);
+  }
+
+  /** Overwrite the color buffer of a drawable, which uploads it at next display if it can. */
+  protected void writeColors(DrawableVBO2 drawable, float[] colors) {
+    FloatBuffer buffer = drawable.getColors();
+
+    if (buffer == null || buffer.capacity() != colors.length) {
+      throw new IllegalArgumentException("Drawable color buffer of "
+          + (buffer == null ? 0 : buffer.capacity()) + " values can not hold " + colors.length
+          + " values. Was it built with the same number of color channels?");
+    }
+
+    buffer.clear();
+    buffer.put(colors);
+    buffer.rewind();
+
+    if (drawable instanceof RecolorableDrawableVBO2)
+      ((RecolorableDrawableVBO2) drawable).setColorsDirty();
+    else
+      log.warn("Colors of a mounted " + drawable.getClass().getSimpleName()
+          + " are not uploaded again, build it with this builder to recolor it");
+  }
+
+  /** Return the name of the last property used for coloring. */
+  public String getColoringPropertyName() {
+    return coloringPropertyName;
+  }
+
+  /**
+   * Fill the <code>colors</code> array with the color of each point, using a
+   * {@link ColorLookupTable} of the current colormap and property range.
+   */
+  protected void colorize(float[] coloringProperty) {
+    ColorLookupTable lookup = newColorLookupTable();
+
+    if (colorChannels == 4)
+      lookup.setAlpha(alpha);
+
+    lookup.colorize(coloringProperty, colors, colorChannels);
   }
 
 
@@ -924,6 +1870,14 @@ public class VTKDrawableVBOBuilder extends AbstractVTKDrawableBuilder implements
     return coordinates;
   }
 
+  /**
+   * Return the single element array built by the last {@link #makePolygons(String)}, or null if
+   * geometries are not drawn from a single element array.
+   */
+  public int[] getElements() {
+    return elements;
+  }
+
   /** Return the points found in the input dataset in Jzy3D data model. */
   public List<Coord3d> getCoord3ds() {
     List<Coord3d> coords = new ArrayList<>();
@@ -1028,5 +1982,84 @@ public class VTKDrawableVBOBuilder extends AbstractVTKDrawableBuilder implements
     return colorChannels;
   }
 
+  public boolean isHiddenFacesRemoved() {
+    return hiddenFacesRemoved;
+  }
+
+  /**
+   * If true, hexahedron faces shared by two cells are not added to the VBO, which then only
+   * contains the surface of the dataset. See {@link SurfaceFilterOnPointId}.
+   */
+  public void setHiddenFacesRemoved(boolean hiddenFacesRemoved) {
+    this.hiddenFacesRemoved = hiddenFacesRemoved;
+  }
+
+  public SurfaceCache getSurfaceCache() {
+    return surfaceCache;
+  }
+
+  /**
+   * Share a surface cache between the builders of datasets having the same topology, e.g. the
+   * timesteps of a static mesh, so that hidden faces are only identified once. Default is null.
+   */
+  public void setSurfaceCache(SurfaceCache surfaceCache) {
+    this.surfaceCache = surfaceCache;
+  }
+
+  public boolean isQuadsTriangulated() {
+    return quadsTriangulated;
+  }
+
+  /**
+   * If true, quads and hexahedron faces are split into two triangles so that the VBO is drawn as
+   * GL_TRIANGLES, which is faster than quads on most drivers. Requires
+   * {@link GeometryMode#SINGLE_GEOMETRY}.
+   */
+  public void setQuadsTriangulated(boolean quadsTriangulated) {
+    this.quadsTriangulated = quadsTriangulated;
+  }
+
+  public boolean isShortIndices() {
+    return shortIndices;
+  }
+
+  /**
+   * If true, which is the default, drawables and chunks having at most
+   * {@link RecolorableDrawableVBO2#MAX_SHORT_INDEXED_VERTICES} vertices are built with a
+   * GL_UNSIGNED_SHORT element buffer, half the size of a GL_UNSIGNED_INT one. Larger drawables
+   * keep int indices.
+   */
+  public void setShortIndices(boolean shortIndices) {
+    this.shortIndices = shortIndices;
+  }
+
+  /** Return true if a drawable of the given number of vertices is built with short indices. */
+  protected boolean useShortIndices(int vertices) {
+    return shortIndices && RecolorableDrawableVBO2.fitsShortIndices(vertices);
+  }
+
+  public boolean isPrimitiveRestart() {
+    return primitiveRestart;
+  }
+
+  /**
+   * If true, each geometry of the element array is followed by
+   * {@link DrawableVBO2#PRIMITIVE_RESTART_VALUE}. Polygons of different sizes can then share a
+   * single element array, and {@link GeometryMode#MULTI_GEOMETRY} is built as a single element
+   * array drawn with one call rather than one draw per polygon. Drawables are built as
+   * {@link PrimitiveRestartDrawableVBO2}, which enables GL_PRIMITIVE_RESTART while drawing.
+   */
+  public void setPrimitiveRestart(boolean primitiveRestart) {
+    this.primitiveRestart = primitiveRestart;
+  }
+
+  public TraversalMode getTraversalMode() {
+    return traversalMode;
+  }
+
+  public void setTraversalMode(TraversalMode traversalMode) {
+    this.traversalMode = traversalMode;
+  }
+
 
 }
@@ -2,13 +2,15 @@ package org.jzy3d.io.vtk.drawable;
 
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.BitSet;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jzy3d.colors.Color;
 import org.jzy3d.colors.ColorMapper;
 import org.jzy3d.colors.colormaps.ColorMapRainbow;
 import org.jzy3d.maths.Array;
 import org.jzy3d.maths.BoundingBox3d;
+import org.jzy3d.maths.Range;
 import org.jzy3d.plot3d.primitives.volume.Texture3D;
 import org.jzy3d.plot3d.primitives.volume.Volume;
 import com.jogamp.common.nio.Buffers;
@@ -21,98 +23,180 @@ import vtk.vtkImageData;
 import vtk.vtkPointData;
 import vtk.vtkPoints;
 
+/**
+ * Build jzy3d volumes out of the point data of a {@link vtkImageData}.
+ *
+ * Scalars are copied from VTK with a single JNI transfer, then written to the direct buffer of
+ * the volume in one pass that converts them to float, keeps their first component and reorders
+ * axis according to the {@link AxisOrder}.
+ *
+ * Volumes are colored by baking scalars to float RGBA colors with a {@link ColorLookupTable}, in
+ * parallel and without allocating a {@link Color} per voxel. Scalars of the last property are
+ * cached so that a change of colormap or alpha ramp only requires a new
+ * {@link #bake(ColorLookupTable)}. Each volume is given its own color buffer.
+ *
+ * @author Martin Pernollet
+ */
 public class VTKVolumeBuilder {
+  protected static Logger log = LogManager.getLogger(VTKVolumeBuilder.class);
+
+  /** Order of voxels in the buffer of the volume. */
+  public enum AxisOrder {
+    /** X varies first, then Y, then Z, as VTK points and OpenGL 3D textures. */
+    X_FASTEST,
+    /** Z varies first, then Y, then X. */
+    Z_FASTEST
+  }
+
   protected vtkImageData dataset;
-  
+
+  protected AxisOrder axisOrder = AxisOrder.X_FASTEST;
+  protected boolean checkDuplicates = false;
+  protected ColorLookupTable colorTable;
+
+  // cache of the last property
+  protected String scalarsProperty;
+  protected float[] scalars;
+
+  // range of the scalars of the last build
+  protected float minValue;
+  protected float maxValue;
+
   public VTKVolumeBuilder(vtkImageData imageData) {
     this.dataset = imageData;
   }
   
   public Texture3D makeTexture3D(String property) {
-    vtkPointData pointData = dataset.GetPointData();
+    vtkDataArray propertyArray = getPropertyArray(property);
 
-    vtkDataArray propertyArray = pointData.GetArray(property);
-    if (propertyArray == null) {
-      throw new IllegalArgumentException("Property '" + property + "' not found. Use one of : "
-          + String.join(" ", VTKUtils.getArrayNames(pointData)));
-    }
+    int[] dims = dataset.GetDimensions();
+    int xx = dims[0];
+    int yy = dims[1];
+    int zz = dims[2];
 
+    int sizeofFloat = 4;
 
+    ByteBuffer buffer = GLBuffers.newDirectByteBuffer(xx * yy * zz * sizeofFloat);
 
-    int xx = dataset.GetDimensions()[0];
-    int yy = dataset.GetDimensions()[1];
-    int zz = dataset.GetDimensions()[2];
+    copyScalars(propertyArray, buffer.asFloatBuffer());
 
+    double min = propertyArray.GetFiniteRange()[0];
+    double max = propertyArray.GetFiniteRange()[1];
 
-    int sizeofFloat = 4;
+    log.debug("Actual : " + minValue + ", " + maxValue + " Range : " + min + ", " + max);
 
-    ByteBuffer buffer = GLBuffers.newDirectByteBuffer(xx * yy * zz * sizeofFloat);
+    ColorMapper colorMapper =
+        new ColorMapper(new ColorMapRainbow(), min, max, new Color(1, 1, 1, 1f));
 
-    Set<Long> cellId = new HashSet<>();
+    Texture3D volume =
+        new Texture3D(buffer, new int[] {xx, yy, zz}, colorMapper, new BoundingBox3d(dataset.GetBounds()));
 
-    float minV = Float.MAX_VALUE;
-    float maxV = -Float.MAX_VALUE;
+    return volume;
+  }
+  
+  /**
+   * Build a volume colored by a rainbow colormap over the finite range of the property, or by
+   * the color table of this builder if one was set.
+   */
+  public Volume makeVolume(String property) {
+    vtkDataArray propertyArray = getPropertyArray(property);
 
-    // X axis
-    for (int x = 0; x < xx; x++) {
+    double min = propertyArray.GetFiniteRange()[0];
+    double max = propertyArray.GetFiniteRange()[1];
 
-      // Y axis
-      for (int y = 0; y < yy; y++) {
+    log.debug("Range : " + min + ", " + max);
 
-        // Z axis
-        for (int z = 0; z < zz; z++) {
+    ColorLookupTable colors = colorTable;
+    if (colors == null)
+      colors = new ColorLookupTable(new ColorMapRainbow(), new Range(min, max),
+          ColorLookupTable.DEFAULT_RESOLUTION);
 
-          long id = dataset.GetScalarIndex(z, y, x);
+    return makeVolume(property, colors);
+  }
 
-          if (cellId.contains(id)) {
-            throw new RuntimeException(id + " already exists");
-          } else {
-            cellId.add(id);
-          }
+  /**
+   * Build a volume whose voxels are colored by a transfer function, the color table possibly
+   * having an alpha ramp. The volume owns a new color buffer, so that later builds or bakes do not
+   * change its colors.
+   */
+  public Volume makeVolume(String property, ColorLookupTable colors) {
+    getScalars(property);
 
-          // vtkCell cell = dataset.GetCell(id);
+    log.debug("Actual : " + minValue + ", " + maxValue);
 
-          float value = (float) propertyArray.GetTuple1(id);
+    int[] dims = dataset.GetDimensions();
+    FloatBuffer buffer = bake(colors);
 
-          // System.out.println("Cell " + x+","+ y+","+ z+" ("+ id + ") : " +
-          // VTKGeometry.name(dataset.GetCellType(id)) + ", " + property + " = " + value);
+    Volume volume = new Volume(buffer, new int[] {dims[0], dims[1], dims[2]},
+        new BoundingBox3d(dataset.GetBounds()));
 
-          buffer.putFloat(value);
+    return volume;
+  }
 
-          if (value < minV)
-            minV = value;
-          if (value > maxV)
-            maxV = value;
+  /**
+   * Return the scalars of the property, in the axis order of this builder. Scalars are read from
+   * VTK once and then cached until another property is read.
+   */
+  public float[] getScalars(String property) {
+    if (scalars == null || !property.equals(scalarsProperty)) {
+      vtkDataArray propertyArray = getPropertyArray(property);
 
-          /*
-           * vtkPoints points = cell.GetPoints();
-           * 
-           * double[][] coords = VTKUtils.toDoubleMatrix3(points); for (int p = 0; p <
-           * coords.length; p++) { Array.print("  Point " + j + " : ", coords[p]);
-           * //System.out.println(coords[j] + "\t" + coords[j+1]+ "\t" + coords[j+2]); }
-           */
-        }
-      }
-    }
+      int[] dims = dataset.GetDimensions();
+      float[] values = new float[dims[0] * dims[1] * dims[2]];
+      copyScalars(propertyArray, FloatBuffer.wrap(values));
 
-    System.out.println("Actual : " + minV + ", " + maxV);
-    
-    double min = propertyArray.GetFiniteRange()[0];
-    double max = propertyArray.GetFiniteRange()[1];
+      scalars = values;
+      scalarsProperty = property;
+    }
+    return scalars;
+  }
 
-    System.out.println("Range  : " + min + ", " + max);
-    
+  /** Forget the cached scalars, e.g. after the dataset changed. */
+  public void clearCache() {
+    scalars = null;
+    scalarsProperty = null;
+  }
 
-    ColorMapper colorMapper =
-        new ColorMapper(new ColorMapRainbow(), min, max, new Color(1, 1, 1, 1f));
+  ///////////////////////////////////////////////
+  //
+  // COLORS
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Bake the cached scalars to a new direct buffer of RGBA colors, e.g. to build a volume after a
+   * change of colormap or alpha ramp without reading scalars again.
+   *
+   * @return a buffer with 4 floats per voxel
+   */
+  public FloatBuffer bake(ColorLookupTable colors) {
+    checkScalars();
+    return bake(colors, Buffers.newDirectFloatBuffer(scalars.length * 4));
+  }
 
-    Texture3D volume =
-        new Texture3D(buffer, new int[] {xx, yy, zz}, colorMapper, new BoundingBox3d(dataset.GetBounds()));
+  /**
+   * Bake the cached scalars to an existing buffer of RGBA colors, e.g. one returned by a previous
+   * bake, to avoid allocating a new buffer. Every volume made of this buffer gets the new colors,
+   * hence the caller is responsible for not sharing it between volumes that should differ.
+   *
+   * @param colorBuffer a buffer with room for 4 floats per voxel
+   */
+  public FloatBuffer bake(ColorLookupTable colors, FloatBuffer colorBuffer) {
+    checkScalars();
+
+    if (colorBuffer.capacity() != scalars.length * 4)
+      throw new IllegalArgumentException("Expect a buffer of " + scalars.length * 4
+          + " floats for " + scalars.length + " voxels, got " + colorBuffer.capacity());
+
+    return colors.colorize(scalars, colorBuffer);
+  }
 
-    return volume;
+  protected void checkScalars() {
+    if (scalars == null)
+      throw new IllegalStateException("No scalars to bake, call makeVolume or getScalars first");
   }
-  
-  public Volume makeVolume(String property) {
+
+  protected vtkDataArray getPropertyArray(String property) {
     vtkPointData pointData = dataset.GetPointData();
 
     vtkDataArray propertyArray = pointData.GetArray(property);
@@ -120,88 +204,153 @@ public class VTKVolumeBuilder {
       throw new IllegalArgumentException("Property '" + property + "' not found. Use one of : "
           + String.join(" ", VTKUtils.getArrayNames(pointData)));
     }
+    return propertyArray;
+  }
 
+  ///////////////////////////////////////////////
+  //
+  // SCALARS
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Copy the first component of the property to the output buffer, in the axis order of this
+   * builder, and update the range of scalars.
+   */
+  protected void copyScalars(vtkDataArray propertyArray, FloatBuffer out) {
+    float[] values = VTKUtils.toFloatArray(propertyArray);
+    int components = propertyArray.GetNumberOfComponents();
+
+    float[] range =
+        copyScalars(values, components, dataset.GetDimensions(), axisOrder, out, checkDuplicates);
+
+    minValue = range[0];
+    maxValue = range[1];
+  }
 
+  /**
+   * Copy the first component of each point of a regular grid to the output buffer, from the VTK
+   * point order (X varying first) to the given axis order, starting at the current position of
+   * the output buffer.
+   *
+   * @param values the values of all components of each point, in VTK point order
+   * @param components the number of components per point
+   * @param dims the number of points for each dimensions
+   * @param axisOrder the order of points in the output buffer
+   * @param out the output buffer, with room for one value per point
+   * @param checkDuplicates if true, verify that each point is copied once
+   * @return the min and max values
+   */
+  public static float[] copyScalars(float[] values, int components, int[] dims,
+      AxisOrder axisOrder, FloatBuffer out, boolean checkDuplicates) {
+    int xx = dims[0];
+    int yy = dims[1];
+    int zz = dims[2];
+    int n = xx * yy * zz;
+
+    if (values.length < n * components)
+      throw new IllegalArgumentException(
+          "Expect " + n * components + " values for " + xx + "x" + yy + "x" + zz + " points with "
+              + components + " components, got " + values.length);
+    if (out.remaining() < n)
+      throw new IllegalArgumentException(
+          "Buffer can hold " + out.remaining() + " values, need " + n);
+
+    BitSet copied = checkDuplicates ? new BitSet(n) : null;
+    int start = out.position();
+
+    float min = Float.MAX_VALUE;
+    float max = -Float.MAX_VALUE;
+
+    if (axisOrder == AxisOrder.X_FASTEST && components == 1 && !checkDuplicates) {
+      // Straight copy, only compute the range
+      out.put(values, 0, n);
+
+      for (int i = 0; i < n; i++) {
+        float value = values[i];
+        if (value < min)
+          min = value;
+        if (value > max)
+          max = value;
+      }
+    } else {
+      // Point (x,y,z) is at x + xx * (y + yy * z) in VTK order
+      int step = axisOrder == AxisOrder.X_FASTEST ? 1 : xx * yy;
+      int lines = n / (axisOrder == AxisOrder.X_FASTEST ? xx : zz);
+      int length = n / lines;
+
+      for (int line = 0; line < lines; line++) {
+        // First point of the line : (0,y,z) with line = y + yy * z,
+        // or (x,y,0) with line = y + yy * x
+        int first = axisOrder == AxisOrder.X_FASTEST ? line * xx : line % yy * xx + line / yy;
+        int o = start + line * length;
+
+        for (int i = 0; i < length; i++) {
+          int id = first + i * step;
+
+          if (checkDuplicates) {
+            if (copied.get(id))
+              throw new RuntimeException(id + " already exists");
+            copied.set(id);
+          }
 
-    int xx = dataset.GetDimensions()[0];
-    int yy = dataset.GetDimensions()[1];
-    int zz = dataset.GetDimensions()[2];
-
-
-    int sizeofFloat = 4;
-
-    FloatBuffer buffer = Buffers.newDirectFloatBuffer(xx * yy * zz * 4);
-
-    Set<Long> cellId = new HashSet<>();
-    
-    
-    double min = propertyArray.GetFiniteRange()[0];
-    double max = propertyArray.GetFiniteRange()[1];
-
-    System.out.println("Range  : " + min + ", " + max);
-    
-
-    ColorMapper colorMapper =
-        new ColorMapper(new ColorMapRainbow(), min, max, new Color(1, 1, 1, 1f));
+          float value = values[id * components];
+          out.put(o + i, value);
 
+          if (value < min)
+            min = value;
+          if (value > max)
+            max = value;
+        }
+      }
+      out.position(start + n);
+    }
 
-    float minV = Float.MAX_VALUE;
-    float maxV = -Float.MAX_VALUE;
+    return new float[] {min, max};
+  }
 
-    // X axis
-    for (int x = 0; x < xx; x++) {
+  ///////////////////////////////////////////////
+  //
+  // SETTINGS
+  //
+  ///////////////////////////////////////////////
 
-      // Y axis
-      for (int y = 0; y < yy; y++) {
+  public AxisOrder getAxisOrder() {
+    return axisOrder;
+  }
 
-        // Z axis
-        for (int z = 0; z < zz; z++) {
+  public void setAxisOrder(AxisOrder axisOrder) {
+    if (axisOrder != this.axisOrder)
+      clearCache();
+    this.axisOrder = axisOrder;
+  }
 
-          long id = dataset.GetScalarIndex(z, y, x);
+  /** Return the color table used by {@link #makeVolume(String)}, or null for the default one. */
+  public ColorLookupTable getColorTable() {
+    return colorTable;
+  }
 
-          if (cellId.contains(id)) {
-            throw new RuntimeException(id + " already exists");
-          } else {
-            cellId.add(id);
-          }
+  public void setColorTable(ColorLookupTable colorTable) {
+    this.colorTable = colorTable;
+  }
 
-          // vtkCell cell = dataset.GetCell(id);
-
-          float value = (float) propertyArray.GetTuple1(id);
-          
-          Color c = colorMapper.getColor(value);
-
-          // System.out.println("Cell " + x+","+ y+","+ z+" ("+ id + ") : " +
-          // VTKGeometry.name(dataset.GetCellType(id)) + ", " + property + " = " + value);
-
-          /*buffer.putFloat(c.r);
-          buffer.putFloat(c.b);
-          buffer.putFloat(c.b);
-          buffer.putFloat(c.a);*/
-          
-          if (value < minV)
-            minV = value;
-          if (value > maxV)
-            maxV = value;
-
-          /*
-           * vtkPoints points = cell.GetPoints();
-           * 
-           * double[][] coords = VTKUtils.toDoubleMatrix3(points); for (int p = 0; p <
-           * coords.length; p++) { Array.print("  Point " + j + " : ", coords[p]);
-           * //System.out.println(coords[j] + "\t" + coords[j+1]+ "\t" + coords[j+2]); }
-           */
-        }
-      }
-    }
+  /** Return true if builds verify that each voxel is copied once, which is slower. */
+  public boolean isCheckDuplicates() {
+    return checkDuplicates;
+  }
 
-    System.out.println("Actual : " + minV + ", " + maxV);
-    
+  public void setCheckDuplicates(boolean checkDuplicates) {
+    this.checkDuplicates = checkDuplicates;
+  }
 
-    Volume volume =
-        new Volume(buffer, new int[] {xx, yy, zz}, new BoundingBox3d(dataset.GetBounds()));
+  /** Return the min scalar value of the last build. */
+  public float getMinValue() {
+    return minValue;
+  }
 
-    return volume;
+  /** Return the max scalar value of the last build. */
+  public float getMaxValue() {
+    return maxValue;
   }
 
   public static void iterateOverCells(vtkImageData dataset) {
@@ -0,0 +1,381 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jzy3d.io.vtk.xml.VTUDataArray;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+
+/**
+ * Merge duplicate points of a dataset without VTK natives, as
+ * {@link vtk.processing.VTKCommonPointsMerge} does with a <code>vtkCleanPolyData</code>. This is
+ * mainly required for datasets read from a PVTU file, where the points at the border of two
+ * pieces are duplicated.
+ *
+ * Points are registered in a hash grid of cells having the size of the tolerance. Each point is
+ * then merged with the point of smallest id found closer than the tolerance in the 27 neighbour
+ * grid cells, or in its own grid cell only if the tolerance is 0, where points must be exactly
+ * equal. Merges are transitive, and the first point of a group gives its coordinates and point
+ * data to the welded point. Welded points keep the order of the first point of their group, so
+ * that the result does not depend on threads.
+ *
+ * The search for duplicates and the remapping of the connectivity run in parallel on the common
+ * {@link java.util.concurrent.ForkJoinPool}.
+ *
+ * @author Martin Pernollet
+ */
+public class VertexWelder {
+  protected static Logger log = LogManager.getLogger(VertexWelder.class);
+
+  protected static final int DIMENSIONS = 3;
+  protected static final int EMPTY = -1;
+
+  protected float tolerance;
+
+  // result of the last weld
+  protected int[] remap;
+  protected int[] representatives;
+  protected float[] coordinates;
+
+  /** A welder merging points having exactly the same coordinates. */
+  public VertexWelder() {
+    this(0);
+  }
+
+  /** A welder merging points whose distance is lower or equal to the tolerance. */
+  public VertexWelder(float tolerance) {
+    if (!(tolerance >= 0))
+      throw new IllegalArgumentException("Tolerance should be positive, not " + tolerance);
+    this.tolerance = tolerance;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // WELD
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Identify duplicate points.
+   *
+   * @param coordinates x,y,z coordinates of each point
+   * @return the remap table giving the welded point id of each input point id
+   */
+  public int[] weld(float[] coordinates) {
+    if (coordinates.length % DIMENSIONS != 0)
+      throw new IllegalArgumentException(
+          "Expect 3 values per point, got " + coordinates.length + " values");
+
+    int n = coordinates.length / DIMENSIONS;
+
+    // Hash grid of points in CSR layout : points of a grid cell are in ascending order
+    long[] keys = new long[n];
+    ParallelChunks.forEachChunk(n, (from, to) -> {
+      for (int i = from; i < to; i++) {
+        keys[i] = key(coordinates, i);
+      }
+    });
+
+    Grid grid = new Grid(keys);
+
+    // Find the first point close to each point
+    int[] first = new int[n];
+    ParallelChunks.forEachChunk(n, (from, to) -> {
+      for (int i = from; i < to; i++) {
+        first[i] = findFirst(grid, coordinates, i);
+      }
+    });
+
+    // Make merges transitive, the first point of each group being smaller than its points
+    int numberOfWelded = 0;
+    int[] welded = new int[n];
+
+    for (int i = 0; i < n; i++) {
+      if (first[i] == i) {
+        welded[i] = numberOfWelded++;
+      } else {
+        first[i] = first[first[i]];
+        welded[i] = welded[first[i]];
+      }
+    }
+
+    this.remap = welded;
+    this.representatives = new int[numberOfWelded];
+    this.coordinates = new float[numberOfWelded * DIMENSIONS];
+
+    for (int i = 0; i < n; i++) {
+      if (first[i] == i) {
+        representatives[welded[i]] = i;
+        System.arraycopy(coordinates, i * DIMENSIONS, this.coordinates, welded[i] * DIMENSIONS,
+            DIMENSIONS);
+      }
+    }
+
+    log.info("Welded " + n + " points to " + numberOfWelded + " points");
+
+    return remap;
+  }
+
+  /**
+   * Weld the points of a dataset and return a new dataset with welded points, remapped
+   * connectivity and the point data of the first point of each group. Cell arrays and cell data
+   * are shared with the input dataset.
+   */
+  public VTUDataset weld(VTUDataset dataset) {
+    weld(dataset.getCoordinates());
+
+    VTUDataset out = new VTUDataset(getNumberOfPoints(), dataset.getNumberOfCells());
+
+    out.setPoints(gather(dataset.getPoints()));
+    out.setConnectivityArray(remap(dataset.getConnectivityArray()));
+    out.setOffsetsArray(dataset.getOffsetsArray());
+    out.setTypesArray(dataset.getTypesArray());
+
+    for (Map.Entry<String, VTUDataArray> array : dataset.getPointData().entrySet()) {
+      out.getPointData().put(array.getKey(), gather(array.getValue()));
+    }
+    out.getCellData().putAll(dataset.getCellData());
+
+    return out;
+  }
+
+  /** Return the connectivity with point ids replaced by welded point ids. */
+  public int[] remap(int[] connectivity) {
+    checkWelded();
+
+    int[] out = new int[connectivity.length];
+    ParallelChunks.forEachChunk(connectivity.length, (from, to) -> {
+      for (int i = from; i < to; i++) {
+        out[i] = remap[connectivity[i]];
+      }
+    });
+    return out;
+  }
+
+  /** Return a copy of a connectivity array with point ids replaced by welded point ids. */
+  public VTUDataArray remap(VTUDataArray connectivity) {
+    checkWelded();
+
+    VTUDataArray out = newArray(connectivity, connectivity.getNumberOfValues());
+    ParallelChunks.forEachChunk(connectivity.getNumberOfValues(), (from, to) -> {
+      for (int i = from; i < to; i++) {
+        out.setLong(i, remap[(int) connectivity.getLong(i)]);
+      }
+    });
+    return out;
+  }
+
+  /** Return the tuples of the first point of each welded point, keeping the type of the array. */
+  public VTUDataArray gather(VTUDataArray pointArray) {
+    checkWelded();
+
+    int components = pointArray.getNumberOfComponents();
+    VTUDataArray out = newArray(pointArray, representatives.length * components);
+
+    ParallelChunks.forEachChunk(representatives.length, (from, to) -> {
+      for (int i = from; i < to; i++) {
+        int source = representatives[i] * components;
+        for (int c = 0; c < components; c++) {
+          if (pointArray.getType().isFloatingPoint())
+            out.setValue(i * components + c, pointArray.getValue(source + c));
+          else
+            out.setLong(i * components + c, pointArray.getLong(source + c));
+        }
+      }
+    });
+    return out;
+  }
+
+  protected static VTUDataArray newArray(VTUDataArray model, int values) {
+    VTUDataArray array = new VTUDataArray(model.getName(), model.getType(),
+        model.getNumberOfComponents(), model.getFormat());
+    array.setData(
+        ByteBuffer.allocate(values * model.getType().size()).order(model.getByteOrder()));
+    return array;
+  }
+
+  protected void checkWelded() {
+    if (remap == null)
+      throw new IllegalStateException("Call weld(float[]) first");
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // HASH GRID
+  //
+  ///////////////////////////////////////////////
+
+  /** Return the key of the grid cell holding the point. */
+  protected long key(float[] coordinates, int point) {
+    int i = point * DIMENSIONS;
+
+    if (tolerance == 0) {
+      // + 0.0f turns -0 to 0, which are equal coordinates
+      return hash(Float.floatToIntBits(coordinates[i] + 0.0f),
+          Float.floatToIntBits(coordinates[i + 1] + 0.0f),
+          Float.floatToIntBits(coordinates[i + 2] + 0.0f));
+    } else {
+      return hash(cell(coordinates[i]), cell(coordinates[i + 1]), cell(coordinates[i + 2]));
+    }
+  }
+
+  protected int cell(float value) {
+    return (int) Math.floor(value / tolerance);
+  }
+
+  protected static long hash(int x, int y, int z) {
+    long h = x * 0x9E3779B97F4A7C15L;
+    h = (h ^ y) * 0xC2B2AE3D27D4EB4FL;
+    h = (h ^ z) * 0x165667B19E3779F9L;
+    return h ^ (h >>> 29);
+  }
+
+  /**
+   * Return the smallest point id closer than the tolerance to the given point, which is the point
+   * itself if no smaller point is found.
+   */
+  protected int findFirst(Grid grid, float[] coordinates, int point) {
+    int i = point * DIMENSIONS;
+    float x = coordinates[i];
+    float y = coordinates[i + 1];
+    float z = coordinates[i + 2];
+
+    if (tolerance == 0)
+      return grid.findFirst(key(coordinates, point), coordinates, point, x, y, z, 0);
+
+    int cx = cell(x);
+    int cy = cell(y);
+    int cz = cell(z);
+    float squaredTolerance = tolerance * tolerance;
+
+    int first = point;
+
+    for (int dx = -1; dx <= 1; dx++) {
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dz = -1; dz <= 1; dz++) {
+          int candidate = grid.findFirst(hash(cx + dx, cy + dy, cz + dz), coordinates, first, x,
+              y, z, squaredTolerance);
+          if (candidate < first)
+            first = candidate;
+        }
+      }
+    }
+    return first;
+  }
+
+  /**
+   * Points of each grid cell in ascending order. Grid cells are identified by a hash of their
+   * coordinates, so that two grid cells may have the same key : this only adds candidate points
+   * that are then rejected by their distance.
+   */
+  protected static class Grid {
+    protected long[] slotKeys;
+    protected int[] slotCell;
+    protected int mask;
+
+    protected int[] start;
+    protected int[] points;
+
+    public Grid(long[] keys) {
+      int n = keys.length;
+      int capacity = Integer.highestOneBit(Math.max(n, 1) * 2 + 1) * 2;
+
+      slotKeys = new long[capacity];
+      slotCell = new int[capacity];
+      mask = capacity - 1;
+      Arrays.fill(slotCell, EMPTY);
+
+      // Number the cells and count their points
+      int[] pointCell = new int[n];
+      int[] count = new int[n + 1];
+      int cells = 0;
+
+      for (int p = 0; p < n; p++) {
+        int slot = slot(keys[p]);
+        if (slotCell[slot] == EMPTY) {
+          slotKeys[slot] = keys[p];
+          slotCell[slot] = cells++;
+        }
+        pointCell[p] = slotCell[slot];
+        count[pointCell[p] + 1]++;
+      }
+
+      // Fill points of each cell in ascending order
+      start = Arrays.copyOf(count, cells + 1);
+      ParallelChunks.prefixSum(start);
+
+      int[] cursor = Arrays.copyOf(start, cells);
+      points = new int[n];
+
+      for (int p = 0; p < n; p++) {
+        points[cursor[pointCell[p]]++] = p;
+      }
+    }
+
+    /** Return the slot of the key, or the empty slot where it should be inserted. */
+    protected int slot(long key) {
+      int slot = (int) key & mask;
+      while (slotCell[slot] != EMPTY && slotKeys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    /**
+     * Return the smallest point of the cell that is smaller than <code>before</code> and closer to
+     * (x,y,z) than the squared tolerance, or <code>before</code> if there is none.
+     */
+    public int findFirst(long key, float[] coordinates, int before, float x, float y, float z,
+        float squaredTolerance) {
+      int cell = slotCell[slot(key)];
+      if (cell == EMPTY)
+        return before;
+
+      for (int k = start[cell]; k < start[cell + 1]; k++) {
+        int p = points[k];
+
+        if (p >= before)
+          break;
+
+        float dx = coordinates[p * DIMENSIONS] - x;
+        float dy = coordinates[p * DIMENSIONS + 1] - y;
+        float dz = coordinates[p * DIMENSIONS + 2] - z;
+
+        if (dx * dx + dy * dy + dz * dz <= squaredTolerance)
+          return p;
+      }
+      return before;
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // RESULTS
+  //
+  ///////////////////////////////////////////////
+
+  public float getTolerance() {
+    return tolerance;
+  }
+
+  /** Return the welded point id of each input point id. */
+  public int[] getRemap() {
+    return remap;
+  }
+
+  /** Return the input point id giving its coordinates and data to each welded point. */
+  public int[] getRepresentatives() {
+    return representatives;
+  }
+
+  /** Return the coordinates of the welded points. */
+  public float[] getCoordinates() {
+    return coordinates;
+  }
+
+  public int getNumberOfPoints() {
+    return representatives.length;
+  }
+}
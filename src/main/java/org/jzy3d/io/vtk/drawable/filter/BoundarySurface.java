@@ -0,0 +1,193 @@
+package org.jzy3d.io.vtk.drawable.filter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import org.jzy3d.io.vtk.drawable.IDrawableBuilder;
+
+/**
+ * The boundary faces of a hexahedron dataset as identified by {@link SurfaceFilterOnPointId}, so
+ * that they can be reused by any dataset having the same topology, e.g. each timestep of a static
+ * mesh. The point ids of the faces are copied out of the filter on first use, after which the
+ * surface does not refer to the arrays of the dataset anymore.
+ *
+ * Besides the boundary faces, the surface holds a remap of the points it uses to compact surface
+ * point ids, computed on first use. Point arrays of a dataset with the same topology can then be
+ * gathered for surface points only with {@link #gather(float[], int)}, and drawn with
+ * {@link #getLocalFaces()}.
+ *
+ * @author Martin Pernollet
+ */
+public class BoundarySurface {
+  protected static final int FACE_POINTS = IDrawableBuilder.QUAD_POINTS;
+
+  protected long topologyHash;
+  protected int numberOfPoints;
+  protected int numberOfCells;
+
+  // faces are numbered cellId * HEXAHEDRON_FACES + face
+  protected BitSet boundaryFaces;
+  protected int numberOfBoundaryFaces;
+
+  // point ids and cells of the boundary faces, computed on first use
+  protected SurfaceFilterOnPointId filter;
+  protected int[] faces;
+  protected int[] faceCells;
+
+  // point remap, computed on first use
+  protected int[] points;
+  protected int[] remap;
+  protected int[] localFaces;
+
+  /**
+   * @param filter a filter that processed the cells of a dataset
+   * @param numberOfPoints number of points of the dataset
+   * @param topologyHash hash of the cell arrays of the dataset, see
+   *        {@link SurfaceCache#hashTopology(int, int[], int[], int[], int)}
+   */
+  public BoundarySurface(SurfaceFilterOnPointId filter, int numberOfPoints, long topologyHash) {
+    this.topologyHash = topologyHash;
+    this.numberOfPoints = numberOfPoints;
+    this.numberOfCells = filter.numberOfCells;
+    this.boundaryFaces = filter.getBoundaryFaceSet();
+    this.numberOfBoundaryFaces = filter.getNumberOfBoundaryFaces();
+    this.filter = filter;
+  }
+
+  /** Return true if the given face of the given hexahedron is not shared with another cell. */
+  public boolean isBoundaryFace(int cellId, int face) {
+    return boundaryFaces.get(cellId * IDrawableBuilder.HEXAHEDRON_FACES + face);
+  }
+
+  public int getNumberOfBoundaryFaces() {
+    return numberOfBoundaryFaces;
+  }
+
+  /** Return the dataset point ids of the boundary faces, 4 per face. */
+  public int[] getBoundaryFaces() {
+    buildFaces();
+    return faces;
+  }
+
+  /** Return the cell of each boundary face, in the order of {@link #getBoundaryFaces()}. */
+  public int[] getBoundaryFaceCells() {
+    buildFaces();
+    return faceCells;
+  }
+
+  /**
+   * Copy the boundary faces out of the filter, which is then released with the cell arrays of the
+   * dataset it processed.
+   */
+  protected synchronized void buildFaces() {
+    if (faces != null)
+      return;
+
+    faceCells = filter.getBoundaryFaceCells();
+    faces = filter.getBoundaryFaces();
+    filter = null;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // POINT REMAP
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Number the points of the boundary faces in order of first use, which keeps the points of a
+   * face close to each other in the gathered arrays.
+   */
+  protected synchronized void buildRemap() {
+    if (remap != null)
+      return;
+
+    int[] remap = new int[numberOfPoints];
+    Arrays.fill(remap, -1);
+
+    int[] faces = getBoundaryFaces();
+    int[] points = new int[Math.min(numberOfPoints, faces.length)];
+    int[] localFaces = new int[faces.length];
+    int n = 0;
+
+    for (int i = 0; i < faces.length; i++) {
+      int pointId = faces[i];
+
+      if (remap[pointId] == -1) {
+        remap[pointId] = n;
+        points[n++] = pointId;
+      }
+      localFaces[i] = remap[pointId];
+    }
+
+    this.points = Arrays.copyOf(points, n);
+    this.localFaces = localFaces;
+    this.remap = remap;
+  }
+
+  /** Return the dataset point id of each surface point. */
+  public int[] getPoints() {
+    buildRemap();
+    return points;
+  }
+
+  /** Return the surface point id of each dataset point, -1 for points not on the surface. */
+  public int[] getRemap() {
+    buildRemap();
+    return remap;
+  }
+
+  /** Return the boundary faces with surface point ids, 4 per face. */
+  public int[] getLocalFaces() {
+    buildRemap();
+    return localFaces;
+  }
+
+  public int getNumberOfSurfacePoints() {
+    return getPoints().length;
+  }
+
+  /**
+   * Return the values of the surface points, e.g. a property or the coordinates of a timestep.
+   *
+   * @param values the values of all points of a dataset with the same topology
+   * @param components number of values per point
+   */
+  public float[] gather(float[] values, int components) {
+    int[] points = getPoints();
+
+    if (values.length != numberOfPoints * components)
+      throw new IllegalArgumentException("Expect " + numberOfPoints * components + " values for "
+          + numberOfPoints + " points, not " + values.length);
+
+    float[] gathered = new float[points.length * components];
+
+    if (components == 1) {
+      for (int i = 0; i < points.length; i++) {
+        gathered[i] = values[points[i]];
+      }
+    } else {
+      for (int i = 0; i < points.length; i++) {
+        System.arraycopy(values, points[i] * components, gathered, i * components, components);
+      }
+    }
+    return gathered;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // TOPOLOGY
+  //
+  ///////////////////////////////////////////////
+
+  public long getTopologyHash() {
+    return topologyHash;
+  }
+
+  public int getNumberOfPoints() {
+    return numberOfPoints;
+  }
+
+  public int getNumberOfCells() {
+    return numberOfCells;
+  }
+}
@@ -0,0 +1,149 @@
+package org.jzy3d.io.vtk.drawable.filter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jzy3d.io.vtk.drawable.Hash64;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+
+/**
+ * A cache of the {@link BoundarySurface}s of hexahedron datasets, keyed by a hash of their
+ * topology.
+ *
+ * The hidden faces of a static mesh are the same at each timestep. Each dataset given to the cache
+ * is fingerprinted with a fast non cryptographic hash of its offsets, connectivity and cell types,
+ * which costs a single pass on the cell arrays. If a surface was extracted for a dataset with the
+ * same hash, it is returned without running {@link SurfaceFilterOnPointId} again, and only point
+ * arrays need to be gathered with {@link BoundarySurface#gather(float[], int)}.
+ *
+ * The most recently used surfaces are kept, up to {@link #getMaxSurfaces()}.
+ *
+ * @author Martin Pernollet
+ */
+public class SurfaceCache {
+  protected static Logger log = LogManager.getLogger(SurfaceCache.class);
+
+  public static final int DEFAULT_MAX_SURFACES = 4;
+
+  protected int maxSurfaces;
+
+  /** Surfaces in access order, the eldest being the least recently used. */
+  protected LinkedHashMap<Long, BoundarySurface> surfaces = new LinkedHashMap<>(16, 0.75f, true);
+
+  protected int hits;
+  protected int misses;
+
+  public SurfaceCache() {
+    this(DEFAULT_MAX_SURFACES);
+  }
+
+  public SurfaceCache(int maxSurfaces) {
+    if (maxSurfaces < 1)
+      throw new IllegalArgumentException("Should keep at least one surface, not " + maxSurfaces);
+    this.maxSurfaces = maxSurfaces;
+  }
+
+  public BoundarySurface get(VTUDataset grid) {
+    return get(grid.getNumberOfPoints(), grid.getOffsets(), grid.getConnectivity(),
+        grid.getCellTypes(), grid.getNumberOfCells());
+  }
+
+  /**
+   * Return the boundary surface of a dataset, extracting it only if no dataset with the same
+   * topology was processed before.
+   *
+   * @param numberOfPoints number of points of the dataset
+   * @param offsets offsets of the cells in the <code>vtkCellArray</code> convention (n+1 values
+   *        starting at 0)
+   * @param connectivity point ids of the cells
+   * @param cellTypes {@link vtk.VTKGeometry} type of each cell
+   * @param numberOfCells number of cells to process, starting from the first one
+   */
+  public synchronized BoundarySurface get(int numberOfPoints, int[] offsets, int[] connectivity,
+      int[] cellTypes, int numberOfCells) {
+    numberOfCells = Math.min(numberOfCells, cellTypes.length);
+
+    long key = hashTopology(numberOfPoints, offsets, connectivity, cellTypes, numberOfCells);
+    BoundarySurface surface = surfaces.get(key);
+
+    if (surface != null && surface.getNumberOfPoints() == numberOfPoints
+        && surface.getNumberOfCells() == numberOfCells) {
+      hits++;
+      return surface;
+    }
+
+    misses++;
+
+    SurfaceFilterOnPointId filter = new SurfaceFilterOnPointId(numberOfPoints, offsets,
+        connectivity, cellTypes, numberOfCells);
+    surface = new BoundarySurface(filter, numberOfPoints, key);
+
+    // hits are built from the faces, and the cache should not keep the cell arrays of the dataset
+    surface.buildFaces();
+
+    surfaces.put(key, surface);
+    evict();
+
+    log.debug("Extracted surface of " + surface.getNumberOfBoundaryFaces() + " faces");
+    return surface;
+  }
+
+  protected void evict() {
+    Iterator<Long> eldest = surfaces.keySet().iterator();
+
+    while (surfaces.size() > maxSurfaces && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Return a 64 bit hash of the cells of a dataset : the number of points, the offsets and
+   * connectivity of the processed cells, and their types.
+   */
+  public static long hashTopology(int numberOfPoints, int[] offsets, int[] connectivity,
+      int[] cellTypes, int numberOfCells) {
+    long hash = Hash64.mix(Hash64.SEED, numberOfPoints);
+    hash = Hash64.update(hash, offsets, 0, numberOfCells + 1);
+    hash = Hash64.update(hash, connectivity, offsets[0], offsets[numberOfCells]);
+    hash = Hash64.update(hash, cellTypes, 0, numberOfCells);
+    return Hash64.avalanche(hash);
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // SETTINGS AND STATISTICS
+  //
+  ///////////////////////////////////////////////
+
+  public int getMaxSurfaces() {
+    return maxSurfaces;
+  }
+
+  public synchronized void setMaxSurfaces(int maxSurfaces) {
+    if (maxSurfaces < 1)
+      throw new IllegalArgumentException("Should keep at least one surface, not " + maxSurfaces);
+    this.maxSurfaces = maxSurfaces;
+    evict();
+  }
+
+  public synchronized int getNumberOfSurfaces() {
+    return surfaces.size();
+  }
+
+  /** Return the number of datasets which surface was already extracted. */
+  public synchronized int getHits() {
+    return hits;
+  }
+
+  /** Return the number of surfaces that were extracted. */
+  public synchronized int getMisses() {
+    return misses;
+  }
+
+  /** Forget all surfaces. */
+  public synchronized void clear() {
+    surfaces.clear();
+  }
+}
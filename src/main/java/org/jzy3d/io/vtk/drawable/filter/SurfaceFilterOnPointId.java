@@ -1,138 +1,347 @@
 package org.jzy3d.io.vtk.drawable.filter;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jzy3d.io.vtk.drawable.IDrawableBuilder;
-import com.google.common.collect.ArrayListMultimap;
+import org.jzy3d.io.vtk.drawable.PointToCellIndex;
+import org.jzy3d.io.vtk.xml.VTUDataset;
 import vtk.VTKGeometry;
+import vtk.VTKUtils;
 import vtk.vtkCellArray;
-import vtk.vtkCellArrayIterator;
 import vtk.vtkDataSet;
 
 /**
- * ==================
- * WIP ONLY
- * ==================
- * 
- * Process a {@link vtkCellArray} to identify all cells that have shared points.
- * 
- * @author Martin
+ * Process a {@link vtkCellArray} made of hexahedrons to identify the faces that are shared by two
+ * cells, hence hidden, and the faces that are on the boundary of the dataset.
  *
+ * Faces are identified by point ids rather than by coordinates. The 4 point ids of each face are
+ * sorted and hashed to a long key stored in an open addressing hash table made of primitive arrays.
+ * A face is a boundary face if no other face has the same sorted ids. This runs in linear time
+ * without allocating objects per face, as opposed to
+ * {@link org.jzy3d.maths.algorithms.decimator.SurfaceFilter} that compares sets of coordinates.
+ *
+ * Boundary faces are returned as an index buffer of 4 point ids per face, keeping the winding of
+ * the input cells, that {@link org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder} can use directly.
+ *
+ * @author Martin Pernollet
  */
 public class SurfaceFilterOnPointId {
   protected static Logger log = LogManager.getLogger(SurfaceFilterOnPointId.class);
 
+  /**
+   * Points of each face of an hexahedron, in the order used by
+   * {@link org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder} : north, south, left, right, near, far.
+   */
+  public static final int[][] HEXAHEDRON_FACE_POINTS = {{2, 3, 7, 6}, {0, 1, 5, 4},
+      {4, 5, 6, 7}, {0, 1, 2, 3}, {0, 3, 7, 4}, {1, 2, 6, 5}};
+
+  protected static final int FACE_POINTS = IDrawableBuilder.QUAD_POINTS;
+
   protected vtkDataSet dataset;
   protected vtkCellArray cells;
 
+  // points classified by the number of cells using them, computed on first use
   protected Set<Integer> keep;
   protected Set<Integer> drop;
 
-  protected ArrayListMultimap<Integer, Integer> pointToCell = ArrayListMultimap.create();
-  protected VTKCell[] parsedCells; 
-  
+  protected PointToCellIndex pointToCell;
+
+  // cell arrays copied once from VTK
+  protected int numberOfPoints;
+  protected int[] offsets;
+  protected int[] connectivity;
+  protected int[] cellTypes;
+  protected int numberOfCells;
+
+  // faces are numbered cellId * HEXAHEDRON_FACES + face
+  protected BitSet boundaryFaces;
+  protected int numberOfBoundaryFaces;
+
   public SurfaceFilterOnPointId(vtkDataSet dataset, vtkCellArray cells) {
+    this((int) dataset.GetNumberOfPoints(), VTKUtils.toIntArray(cells.GetOffsetsArray()),
+        VTKUtils.toIntArray(cells.GetConnectivityArray()), VTKUtils.getCellTypes(dataset),
+        (int) cells.GetNumberOfCells());
     this.dataset = dataset;
     this.cells = cells;
+  }
 
-    pointToCell = ArrayListMultimap.create();
-
-    vtkCellArrayIterator it = cells.NewIterator();
+  public SurfaceFilterOnPointId(VTUDataset grid) {
+    this(grid.getNumberOfPoints(), grid.getOffsets(), grid.getConnectivity(), grid.getCellTypes(),
+        grid.getNumberOfCells());
+  }
 
-    parsedCells = new VTKCell[(int) cells.GetNumberOfCells()]; 
-    int c = 0;
-    
-    for (it.GoToFirstCell(); !it.IsDoneWithTraversal(); it.GoToNextCell()) {
-      int cellId = (int) it.GetCurrentCellId();
-      int cellType = dataset.GetCellType(cellId);
-      int cellStartPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId);
-      int cellStopPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId + 1);
-      
-      //it.ge
+  /**
+   * @param numberOfPoints number of points of the dataset
+   * @param offsets offsets of the cells in the <code>vtkCellArray</code> convention (n+1 values
+   *        starting at 0)
+   * @param connectivity point ids of the cells
+   * @param cellTypes {@link VTKGeometry} type of each cell
+   * @param numberOfCells number of cells to process, starting from the first one
+   */
+  public SurfaceFilterOnPointId(int numberOfPoints, int[] offsets, int[] connectivity,
+      int[] cellTypes, int numberOfCells) {
+    this.numberOfPoints = numberOfPoints;
+    this.offsets = offsets;
+    this.connectivity = connectivity;
+    this.cellTypes = cellTypes;
+    this.numberOfCells = Math.min(numberOfCells, cellTypes.length);
 
-      if (VTKGeometry.VTK_HEXAHEDRON == cellType) {
-        parsedCells[c++] = addHexahedronPolygons(cellId, cellStartPointId, cellStopPointId);
-      }
-      else {
-        log.error("Unsupported cell type " + cellType);
+    for (int cellId = 0; cellId < this.numberOfCells; cellId++) {
+      if (VTKGeometry.VTK_HEXAHEDRON == cellTypes[cellId]) {
+        checkHexahedron(cellId);
+      } else {
+        log.error("Unsupported cell type " + cellTypes[cellId]);
       }
     }
-    
-    this.keep = new HashSet<>();
-    this.drop = new HashSet<>();
 
-    for(Integer pointId : pointToCell.keySet()) {
-      int sharedHexahedrons = pointToCell.get(pointId).size();
-      if(1<=sharedHexahedrons && sharedHexahedrons<=4) {
-        keep.add(pointId);
-        //if(sharedHexahedrons>1)
-        //System.out.println(sharedHexahedrons +" shared");
+    filterHiddenFaces();
+  }
+
+  protected void checkHexahedron(int cellId) {
+    int points = offsets[cellId + 1] - offsets[cellId];
+
+    if (points != IDrawableBuilder.HEXAHEDRON_POINTS) {
+      throw new IllegalArgumentException("Hexahedron supposed to have 8 points, not " + points);
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // FACE HASHING
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Count the occurrences of each face in an open addressing hash table and flag the faces that
+   * appear once as boundary faces.
+   *
+   * The table stores for each slot the long hash of the sorted point ids, the first face having
+   * these ids and the number of occurrences. Since 4 ids can not be packed without loss in a long,
+   * faces with the same hash are compared on their sorted ids before being counted together.
+   */
+  protected void filterHiddenFaces() {
+    int faces = numberOfCells * IDrawableBuilder.HEXAHEDRON_FACES;
+
+    // Sorted ids of each face
+    int[] sorted = new int[faces * FACE_POINTS];
+
+    // Hash table with a load factor below 0.5
+    int capacity = Integer.highestOneBit(Math.max(faces, 1) * 2 + 1) * 2;
+    int mask = capacity - 1;
+
+    long[] slotKeys = new long[capacity];
+    int[] slotFace = new int[capacity];
+    int[] slotCount = new int[capacity];
+    int[] faceSlot = new int[faces];
+
+    Arrays.fill(slotFace, -1);
+    Arrays.fill(faceSlot, -1);
+
+    for (int cellId = 0; cellId < numberOfCells; cellId++) {
+      if (VTKGeometry.VTK_HEXAHEDRON != cellTypes[cellId])
+        continue;
+
+      int start = offsets[cellId];
+
+      for (int f = 0; f < IDrawableBuilder.HEXAHEDRON_FACES; f++) {
+        int face = cellId * IDrawableBuilder.HEXAHEDRON_FACES + f;
+        int[] points = HEXAHEDRON_FACE_POINTS[f];
+
+        sort4(connectivity[start + points[0]], connectivity[start + points[1]],
+            connectivity[start + points[2]], connectivity[start + points[3]], sorted,
+            face * FACE_POINTS);
+
+        long key = hash(sorted, face * FACE_POINTS);
+        int slot = (int) key & mask;
+
+        while (true) {
+          if (slotFace[slot] == -1) {
+            slotKeys[slot] = key;
+            slotFace[slot] = face;
+            slotCount[slot] = 1;
+            break;
+          } else if (slotKeys[slot] == key && sameFace(sorted, slotFace[slot], face)) {
+            slotCount[slot]++;
+            break;
+          }
+          slot = (slot + 1) & mask;
+        }
+        faceSlot[face] = slot;
       }
-      else {
-        // a point inside 
-        drop.add(pointId);
+    }
+
+    boundaryFaces = new BitSet(faces);
+    numberOfBoundaryFaces = 0;
+
+    for (int face = 0; face < faces; face++) {
+      int slot = faceSlot[face];
+
+      if (slot < 0)
+        continue;
+
+      if (slotCount[slot] == 1) {
+        boundaryFaces.set(face);
+        numberOfBoundaryFaces++;
+      } else if (slotCount[slot] > 2 && slotFace[slot] == face) {
+        // Highlight when there are more than 2 (something was misunderstood)
+        log.warn("Face " + face + " is shared by " + slotCount[slot] + " cells");
       }
     }
   }
-  
-  public class VTKCell{
-    int id;
-    int[] points;
+
+  /** Write the 4 given values in ascending order in the output array, with a sorting network. */
+  protected static void sort4(int a, int b, int c, int d, int[] out, int offset) {
+    int t;
+    if (a > b) {
+      t = a;
+      a = b;
+      b = t;
+    }
+    if (c > d) {
+      t = c;
+      c = d;
+      d = t;
+    }
+    if (a > c) {
+      t = a;
+      a = c;
+      c = t;
+    }
+    if (b > d) {
+      t = b;
+      b = d;
+      d = t;
+    }
+    if (b > c) {
+      t = b;
+      b = c;
+      c = t;
+    }
+    out[offset] = a;
+    out[offset + 1] = b;
+    out[offset + 2] = c;
+    out[offset + 3] = d;
+  }
+
+  /** Mix the 4 sorted ids starting at the given offset into a 64 bit hash. */
+  protected static long hash(int[] sorted, int offset) {
+    long h = ((long) sorted[offset] << 32) ^ (sorted[offset + 1] & 0xFFFFFFFFL);
+    h = h * 0x9E3779B97F4A7C15L + (((long) sorted[offset + 2] << 32)
+        ^ (sorted[offset + 3] & 0xFFFFFFFFL));
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  protected static boolean sameFace(int[] sorted, int face1, int face2) {
+    int i1 = face1 * FACE_POINTS;
+    int i2 = face2 * FACE_POINTS;
+    return sorted[i1] == sorted[i2] && sorted[i1 + 1] == sorted[i2 + 1]
+        && sorted[i1 + 2] == sorted[i2 + 2] && sorted[i1 + 3] == sorted[i2 + 3];
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // RESULTS
+  //
+  ///////////////////////////////////////////////
+
+  /** Return true if the given face of the given hexahedron is not shared with another cell. */
+  public boolean isBoundaryFace(int cellId, int face) {
+    return boundaryFaces.get(cellId * IDrawableBuilder.HEXAHEDRON_FACES + face);
+  }
+
+  public int getNumberOfBoundaryFaces() {
+    return numberOfBoundaryFaces;
+  }
+
+  /** Return the boundary faces flags, indexed by <code>cellId * HEXAHEDRON_FACES + face</code>. */
+  public BitSet getBoundaryFaceSet() {
+    return boundaryFaces;
   }
-  
 
   /**
-   * Load an hexahedron.
-   * 
-   * @param cellId id of the cell
-   * @param cellStartPointId starting cell
-   * @param cellStopPointId stoping cell
+   * Return the point ids of the boundary faces, 4 per face, in the order of the input cells and
+   * with the winding of {@link #HEXAHEDRON_FACE_POINTS}.
    */
-  protected VTKCell addHexahedronPolygons(int cellId, int cellStartPointId, int cellStopPointId) {
+  public int[] getBoundaryFaces() {
+    int[] indices = new int[numberOfBoundaryFaces * FACE_POINTS];
+    int k = 0;
 
-    // --------------------------------------
-    // Check consistency of input
+    for (int face = boundaryFaces.nextSetBit(0); face >= 0;
+        face = boundaryFaces.nextSetBit(face + 1)) {
+      int start = offsets[face / IDrawableBuilder.HEXAHEDRON_FACES];
+      int[] points = HEXAHEDRON_FACE_POINTS[face % IDrawableBuilder.HEXAHEDRON_FACES];
 
-    if (cellStopPointId - cellStartPointId != IDrawableBuilder.HEXAHEDRON_POINTS) {
-      throw new IllegalArgumentException(
-          "Hexahedron supposed to have 8 points, not " + (cellStopPointId - cellStartPointId));
+      for (int p = 0; p < FACE_POINTS; p++) {
+        indices[k++] = connectivity[start + points[p]];
+      }
     }
+    return indices;
+  }
 
-    
-    VTKCell cell = new VTKCell();
-    cell.id = cellId;
-    cell.points = new int[IDrawableBuilder.HEXAHEDRON_POINTS];
-    
-    // --------------------------------------
-    // Load coordinates, colors and normals
+  /** Return the cell of each boundary face, in the order of {@link #getBoundaryFaces()}. */
+  public int[] getBoundaryFaceCells() {
+    int[] faceCells = new int[numberOfBoundaryFaces];
+    int k = 0;
 
-    for (int i = cellStartPointId; i < cellStopPointId; i++) {
-      // Index in input cell and output hexahedron points
-      int datasetPointId = (int) cells.GetConnectivityArray().GetTuple1(i);
-      int hexahedPointId = i - cellStartPointId;
+    for (int face = boundaryFaces.nextSetBit(0); face >= 0;
+        face = boundaryFaces.nextSetBit(face + 1)) {
+      faceCells[k++] = face / IDrawableBuilder.HEXAHEDRON_FACES;
+    }
+    return faceCells;
+  }
 
-      pointToCell.put(datasetPointId, cellId);
+  ///////////////////////////////////////////////
+  //
+  // POINT CLASSIFICATION
+  //
+  ///////////////////////////////////////////////
 
-      cell.points[hexahedPointId] = datasetPointId;
-      
-      // if (debug)
-      // System.out.print(datasetPointId + " ");
+  /** Classify points according to the number of hexahedrons using them. */
+  protected synchronized void classifyPoints() {
+    if (pointToCell != null)
+      return;
 
-      // Get coordinate
-      // float value = coloringProperty[datasetPointId];
-      // Coord3d coord = coordinates[datasetPointId];
+    PointToCellIndex pointToCell =
+        PointToCellIndex.build(numberOfPoints, offsets, connectivity, numberOfCells);
 
-      // Get color
-      // Color color = colormap.getColor(0, 0, value, propertyRange.getMin(),
-      // propertyRange.getMax());
-      // hexaHedronPoints[hexahedPointId] = new Point(coord, color);
-      // hexahedronNormals[hexahedPointId] = datasetPointId;
+    this.keep = new HashSet<>();
+    this.drop = new HashSet<>();
 
+    for (int pointId = 0; pointId < pointToCell.getNumberOfPoints(); pointId++) {
+      int sharedHexahedrons = pointToCell.getValence(pointId);
+      if (sharedHexahedrons == 0) {
+        continue; // point not used by any cell
+      } else if (1 <= sharedHexahedrons && sharedHexahedrons <= 4) {
+        keep.add(pointId);
+      } else {
+        // a point inside
+        drop.add(pointId);
+      }
     }
+    this.pointToCell = pointToCell;
+  }
+
+  public PointToCellIndex getPointToCell() {
+    classifyPoints();
+    return pointToCell;
+  }
 
-    return cell;
+  /** Return the points used by 1 to 4 hexahedrons, which may lie on the surface. */
+  public Set<Integer> getKeptPoints() {
+    classifyPoints();
+    return keep;
   }
 
+  /** Return the points used by more than 4 hexahedrons, which are inside the volume. */
+  public Set<Integer> getDroppedPoints() {
+    classifyPoints();
+    return drop;
+  }
 }
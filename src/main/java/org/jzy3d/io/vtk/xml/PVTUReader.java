@@ -0,0 +1,304 @@
+package org.jzy3d.io.vtk.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jzy3d.io.vtk.LoadPlan;
+import org.jzy3d.io.vtk.xml.VTUDataArray.Type;
+import org.jzy3d.io.vtk.xml.VTUReader.Tag;
+
+/**
+ * A pure Java reader for parallel VTK XML unstructured grid files (<code>.pvtu</code>).
+ *
+ * The pieces listed by the <code>&lt;Piece Source="..."/&gt;</code> elements are decoded
+ * concurrently by a {@link VTUReader} on the configured {@link ExecutorService}, then merged into
+ * a single {@link VTUDataset}. Point ids of each piece are rebased while merging, which is done
+ * concurrently as well, each piece being copied to its own slice of the merged arrays.
+ *
+ * Points shared by two pieces remain duplicated in the merged dataset.
+ *
+ * @author Martin Pernollet
+ */
+public class PVTUReader {
+  protected static Logger log = LogManager.getLogger(PVTUReader.class);
+
+  protected ExecutorService executor;
+  protected VTUReader pieceReader;
+
+  /** Read pieces on the common {@link ForkJoinPool}. */
+  public PVTUReader() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public PVTUReader(ExecutorService executor) {
+    this(executor, new VTUReader());
+  }
+
+  public PVTUReader(ExecutorService executor, VTUReader pieceReader) {
+    this.executor = executor;
+    this.pieceReader = pieceReader;
+  }
+
+  public VTUDataset read(String file) throws IOException {
+    return read(new File(file));
+  }
+
+  /** Read all pieces of a <code>.pvtu</code> file and merge them in a single dataset. */
+  public VTUDataset read(File file) throws IOException {
+    return merge(readPieces(readSources(file)));
+  }
+
+  /** Return the piece files referenced by a <code>.pvtu</code> file. */
+  public List<File> readSources(File file) throws IOException {
+    ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    File folder = file.getAbsoluteFile().getParentFile();
+
+    List<File> sources = new ArrayList<>();
+
+    int pos = 0;
+    while ((pos = VTUReader.indexOf(content, "<Piece", pos)) >= 0) {
+      Tag tag = VTUReader.readTag(content, pos);
+      String source = tag.get("Source", null);
+
+      if (source == null)
+        throw new IOException("Piece without Source in " + file);
+
+      File sourceFile = new File(source);
+      sources.add(sourceFile.isAbsolute() ? sourceFile : new File(folder, source));
+
+      pos = tag.end;
+    }
+    return sources;
+  }
+
+  /** Read the given <code>.vtu</code> files concurrently and return their pieces in order. */
+  public List<VTUDataset> readPieces(List<File> sources) throws IOException {
+    List<Callable<List<VTUDataset>>> tasks = new ArrayList<>();
+
+    for (File source : sources) {
+      tasks.add(() -> pieceReader.readPieces(source));
+    }
+
+    List<VTUDataset> pieces = new ArrayList<>();
+    for (List<VTUDataset> filePieces : invokeAll(tasks)) {
+      pieces.addAll(filePieces);
+    }
+    return pieces;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // MERGING
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Merge pieces in a single dataset. Connectivity is rebased according to the number of points of
+   * the previous pieces, and offsets according to the connectivity size of the previous pieces.
+   *
+   * Point and cell data arrays that are not available in all pieces are skipped.
+   */
+  public VTUDataset merge(List<VTUDataset> pieces) throws IOException {
+    if (pieces.isEmpty())
+      throw new IllegalArgumentException("No piece to merge");
+    if (pieces.size() == 1)
+      return pieces.get(0);
+
+    int n = pieces.size();
+
+    // Start of each piece in the merged arrays
+    int[] pointStart = new int[n + 1];
+    int[] cellStart = new int[n + 1];
+    int[] connectivityStart = new int[n + 1];
+
+    for (int i = 0; i < n; i++) {
+      VTUDataset piece = pieces.get(i);
+      pointStart[i + 1] = pointStart[i] + piece.getNumberOfPoints();
+      cellStart[i + 1] = cellStart[i] + piece.getNumberOfCells();
+      connectivityStart[i + 1] =
+          connectivityStart[i] + piece.getConnectivityArray().getNumberOfValues();
+    }
+
+    // Allocate merged arrays
+    VTUDataset merged = new VTUDataset(pointStart[n], cellStart[n]);
+
+    merged.setPoints(newMergedArray(pieces, VTUDataset::getPoints, null, pointStart[n]));
+    merged.setConnectivityArray(newMergedArray(pieces, VTUDataset::getConnectivityArray,
+        connectivityType(pieces), connectivityStart[n]));
+    merged.setOffsetsArray(newMergedArray(pieces, VTUDataset::getOffsetsArray,
+        connectivityType(pieces), cellStart[n]));
+    merged.setTypesArray(newMergedArray(pieces, VTUDataset::getTypesArray, null, cellStart[n]));
+
+    VTUDataset first = pieces.get(0);
+
+    for (String name : first.getPointDataNames()) {
+      if (isInAllPieces(pieces, name, true)) {
+        merged.getPointData().put(name, newMergedArray(pieces,
+            piece -> piece.getPointData().get(name), null, pointStart[n]));
+      }
+    }
+    for (String name : first.getCellDataNames()) {
+      if (isInAllPieces(pieces, name, false)) {
+        merged.getCellData().put(name, newMergedArray(pieces,
+            piece -> piece.getCellData().get(name), null, cellStart[n]));
+      }
+    }
+
+    // Copy each piece to its slice of the merged arrays
+    List<Callable<Void>> tasks = new ArrayList<>();
+
+    for (int i = 0; i < n; i++) {
+      VTUDataset piece = pieces.get(i);
+      int p = pointStart[i];
+      int c = cellStart[i];
+      int k = connectivityStart[i];
+
+      tasks.add(() -> {
+        copy(piece.getPoints(), merged.getPoints(), p * piece.getPoints().getNumberOfComponents(),
+            0);
+        copy(piece.getConnectivityArray(), merged.getConnectivityArray(), k, p);
+        copy(piece.getOffsetsArray(), merged.getOffsetsArray(), c, k);
+        copy(piece.getTypesArray(), merged.getTypesArray(), c, 0);
+
+        for (String name : merged.getPointDataNames()) {
+          VTUDataArray array = piece.getPointData().get(name);
+          copy(array, merged.getPointData().get(name), p * array.getNumberOfComponents(), 0);
+        }
+        for (String name : merged.getCellDataNames()) {
+          VTUDataArray array = piece.getCellData().get(name);
+          copy(array, merged.getCellData().get(name), c * array.getNumberOfComponents(), 0);
+        }
+        return null;
+      });
+    }
+
+    invokeAll(tasks);
+
+    return merged;
+  }
+
+  /** Use 64 bit ids if any piece does, 32 bit ids otherwise. */
+  protected Type connectivityType(List<VTUDataset> pieces) {
+    for (VTUDataset piece : pieces) {
+      if (piece.getConnectivityArray().getType().size() > 4)
+        return Type.Int64;
+    }
+    return Type.Int32;
+  }
+
+  protected boolean isInAllPieces(List<VTUDataset> pieces, String name, boolean pointData) {
+    for (VTUDataset piece : pieces) {
+      if (!(pointData ? piece.getPointData() : piece.getCellData()).containsKey(name)) {
+        log.warn("Skip " + name + " which is not available in all pieces");
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Allocate an array able to hold the given number of tuples of all pieces.
+   *
+   * @param type type of the merged array, or null to use the type of the first piece.
+   */
+  protected VTUDataArray newMergedArray(List<VTUDataset> pieces,
+      Function<VTUDataset, VTUDataArray> getter, Type type, int tuples) {
+    VTUDataArray model = getter.apply(pieces.get(0));
+
+    if (type == null) {
+      type = model.getType();
+
+      for (VTUDataset piece : pieces) {
+        if (!type.equals(getter.apply(piece).getType()))
+          throw new IllegalArgumentException(
+              "Array " + model.getName() + " does not have the same type in all pieces");
+      }
+    }
+
+    VTUDataArray array =
+        new VTUDataArray(model.getName(), type, model.getNumberOfComponents(), model.getFormat());
+    array.setData(pieceReader.allocate(tuples * model.getNumberOfComponents() * type.size(),
+        model.getByteOrder()));
+    return array;
+  }
+
+  /**
+   * Copy the values of a piece array to the merged array, starting at the given index and adding
+   * the given shift to each value.
+   */
+  protected void copy(VTUDataArray source, VTUDataArray target, int start, long shift) {
+    boolean sameLayout = source.getType().equals(target.getType())
+        && source.getByteOrder().equals(target.getByteOrder());
+
+    if (shift == 0 && sameLayout) {
+      ByteBuffer output = target.getData().duplicate();
+      output.position(start * target.getType().size());
+      output.put(source.getData().duplicate());
+    } else if (source.getType().isFloatingPoint()) {
+      int values = source.getNumberOfValues();
+      for (int i = 0; i < values; i++) {
+        target.setValue(start + i, source.getValue(i) + shift);
+      }
+    } else {
+      int values = source.getNumberOfValues();
+      for (int i = 0; i < values; i++) {
+        target.setLong(start + i, source.getLong(i) + shift);
+      }
+    }
+  }
+
+  protected <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+    List<T> results = new ArrayList<>();
+
+    try {
+      for (Future<T> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading pieces", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException)
+        throw (IOException) e.getCause();
+      else if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      else
+        throw new IOException(e.getCause());
+    }
+    return results;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // SETTINGS
+  //
+  ///////////////////////////////////////////////
+
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  public void setExecutor(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  public VTUReader getPieceReader() {
+    return pieceReader;
+  }
+
+  /** Set the point and cell data arrays to decode in each piece. */
+  public void setLoadPlan(LoadPlan loadPlan) {
+    pieceReader.setLoadPlan(loadPlan);
+  }
+}
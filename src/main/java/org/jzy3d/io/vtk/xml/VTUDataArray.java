@@ -0,0 +1,386 @@
+package org.jzy3d.io.vtk.xml;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * A <code>DataArray</code> read from a VTK XML file by {@link VTUReader}.
+ *
+ * Values are kept in their declared type inside a {@link ByteBuffer} using the byte order of the
+ * file. They can be converted to Java arrays with a single bulk copy when the declared type matches
+ * the requested one (e.g. {@link #toFloatArray()} on a <code>Float32</code> array).
+ *
+ * @author Martin Pernollet
+ */
+public class VTUDataArray {
+  public enum Type {
+    Int8(1), UInt8(1), Int16(2), UInt16(2), Int32(4), UInt32(4), Int64(8), UInt64(8), //
+    Float32(4), Float64(8);
+
+    protected int size;
+
+    Type(int size) {
+      this.size = size;
+    }
+
+    /** Number of bytes of a single value. */
+    public int size() {
+      return size;
+    }
+
+    public boolean isFloatingPoint() {
+      return this == Float32 || this == Float64;
+    }
+
+    public static Type parse(String name) {
+      if (name == null)
+        throw new IllegalArgumentException("Missing DataArray type");
+
+      for (Type type : values()) {
+        if (type.name().equals(name))
+          return type;
+      }
+
+      // Legacy names used by VTK XML files version 0.1
+      switch (name) {
+        case "Char":
+          return Int8;
+        case "UnsignedChar":
+          return UInt8;
+        case "Short":
+          return Int16;
+        case "UnsignedShort":
+          return UInt16;
+        case "Int":
+          return Int32;
+        case "UnsignedInt":
+          return UInt32;
+        case "Long":
+        case "IdType":
+          return Int64;
+        case "UnsignedLong":
+          return UInt64;
+        case "Float":
+          return Float32;
+        case "Double":
+          return Float64;
+        default:
+          throw new IllegalArgumentException("Unsupported DataArray type : " + name);
+      }
+    }
+  }
+
+  public enum Format {
+    ASCII, BINARY, APPENDED;
+
+    public static Format parse(String name) {
+      if ("ascii".equals(name))
+        return ASCII;
+      else if ("binary".equals(name))
+        return BINARY;
+      else if ("appended".equals(name))
+        return APPENDED;
+      else
+        throw new IllegalArgumentException("Unsupported DataArray format : " + name);
+    }
+  }
+
+  protected String name;
+  protected Type type;
+  protected int numberOfComponents = 1;
+  protected Format format;
+  protected long offset = -1;
+  protected ByteBuffer data;
+
+  public VTUDataArray(String name, Type type, int numberOfComponents, Format format) {
+    this.name = name;
+    this.type = type;
+    this.numberOfComponents = numberOfComponents;
+    this.format = format;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public int getNumberOfComponents() {
+    return numberOfComponents;
+  }
+
+  public Format getFormat() {
+    return format;
+  }
+
+  /** Offset of the array in the appended data section, or -1 if the array is not appended. */
+  public long getOffset() {
+    return offset;
+  }
+
+  public void setOffset(long offset) {
+    this.offset = offset;
+  }
+
+  /** Return true once the values of this array have been decoded. */
+  public boolean isLoaded() {
+    return data != null;
+  }
+
+  /**
+   * Return the decoded values, in their declared type and in the byte order of the file. The buffer
+   * may be direct if the reader was configured to do so, or a read only view on a memory mapped
+   * file.
+   */
+  public ByteBuffer getData() {
+    return data;
+  }
+
+  public void setData(ByteBuffer data) {
+    this.data = data;
+  }
+
+  public ByteOrder getByteOrder() {
+    return data.order();
+  }
+
+  public int getNumberOfValues() {
+    return data.limit() / type.size;
+  }
+
+  public int getNumberOfTuples() {
+    return getNumberOfValues() / numberOfComponents;
+  }
+
+  /** Return the value at the given index, whatever the declared type. */
+  public double getValue(int i) {
+    switch (type) {
+      case Int8:
+        return data.get(i);
+      case UInt8:
+        return data.get(i) & 0xFF;
+      case Int16:
+        return data.getShort(i * 2);
+      case UInt16:
+        return data.getShort(i * 2) & 0xFFFF;
+      case Int32:
+        return data.getInt(i * 4);
+      case UInt32:
+        return data.getInt(i * 4) & 0xFFFFFFFFL;
+      case Int64:
+      case UInt64:
+        return data.getLong(i * 8);
+      case Float32:
+        return data.getFloat(i * 4);
+      case Float64:
+        return data.getDouble(i * 8);
+      default:
+        throw new IllegalArgumentException("Unsupported type " + type);
+    }
+  }
+
+  /** Return the value at the given index as a long, whatever the declared type. */
+  public long getLong(int i) {
+    switch (type) {
+      case Int8:
+        return data.get(i);
+      case UInt8:
+        return data.get(i) & 0xFF;
+      case Int16:
+        return data.getShort(i * 2);
+      case UInt16:
+        return data.getShort(i * 2) & 0xFFFF;
+      case Int32:
+        return data.getInt(i * 4);
+      case UInt32:
+        return data.getInt(i * 4) & 0xFFFFFFFFL;
+      case Int64:
+      case UInt64:
+        return data.getLong(i * 8);
+      default:
+        return (long) getValue(i);
+    }
+  }
+
+  /** Set the value at the given index, converting it to the declared type. */
+  public void setValue(int i, double value) {
+    switch (type) {
+      case Float32:
+        data.putFloat(i * 4, (float) value);
+        break;
+      case Float64:
+        data.putDouble(i * 8, value);
+        break;
+      default:
+        setLong(i, (long) value);
+    }
+  }
+
+  /** Set the value at the given index, converting it to the declared type. */
+  public void setLong(int i, long value) {
+    switch (type) {
+      case Int8:
+      case UInt8:
+        data.put(i, (byte) value);
+        break;
+      case Int16:
+      case UInt16:
+        data.putShort(i * 2, (short) value);
+        break;
+      case Int32:
+      case UInt32:
+        data.putInt(i * 4, (int) value);
+        break;
+      case Int64:
+      case UInt64:
+        data.putLong(i * 8, value);
+        break;
+      default:
+        setValue(i, value);
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // CONVERSIONS
+  //
+  ///////////////////////////////////////////////
+
+  public float[] toFloatArray() {
+    float[] values = new float[getNumberOfValues()];
+
+    if (Type.Float32.equals(type)) {
+      data.duplicate().order(data.order()).asFloatBuffer().get(values);
+    } else if (Type.Float64.equals(type)) {
+      DoubleBuffer doubles = data.duplicate().order(data.order()).asDoubleBuffer();
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (float) doubles.get(i);
+      }
+    } else {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (float) getValue(i);
+      }
+    }
+    return values;
+  }
+
+  public double[] toDoubleArray() {
+    double[] values = new double[getNumberOfValues()];
+
+    if (Type.Float64.equals(type)) {
+      data.duplicate().order(data.order()).asDoubleBuffer().get(values);
+    } else {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = getValue(i);
+      }
+    }
+    return values;
+  }
+
+  public int[] toIntArray() {
+    int[] values = new int[getNumberOfValues()];
+
+    if (Type.Int32.equals(type) || Type.UInt32.equals(type)) {
+      data.duplicate().order(data.order()).asIntBuffer().get(values);
+    } else {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (int) getLong(i);
+      }
+    }
+    return values;
+  }
+
+  public long[] toLongArray() {
+    long[] values = new long[getNumberOfValues()];
+
+    if (Type.Int64.equals(type) || Type.UInt64.equals(type)) {
+      data.duplicate().order(data.order()).asLongBuffer().get(values);
+    } else {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = getLong(i);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Return the values as a {@link FloatBuffer}. This is a view on the decoded data without copy if
+   * the array is made of <code>Float32</code>, otherwise values are converted to a new buffer that
+   * is direct if the decoded data is direct.
+   */
+  public FloatBuffer toFloatBuffer() {
+    if (Type.Float32.equals(type)) {
+      return data.duplicate().order(data.order()).asFloatBuffer();
+    } else {
+      int n = getNumberOfValues();
+      FloatBuffer values;
+
+      if (data.isDirect())
+        values = ByteBuffer.allocateDirect(n * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+      else
+        values = FloatBuffer.allocate(n);
+
+      for (int i = 0; i < n; i++) {
+        values.put(i, (float) getValue(i));
+      }
+      return values;
+    }
+  }
+
+  /**
+   * Return the values as an {@link IntBuffer}. This is a view on the decoded data without copy if
+   * the array is made of 32 bit integers, otherwise values are converted to a new buffer.
+   */
+  public IntBuffer toIntBuffer() {
+    if (Type.Int32.equals(type) || Type.UInt32.equals(type)) {
+      return data.duplicate().order(data.order()).asIntBuffer();
+    } else {
+      return IntBuffer.wrap(toIntArray());
+    }
+  }
+
+  /**
+   * Return the values as a {@link LongBuffer}. This is a view on the decoded data without copy if
+   * the array is made of 64 bit integers, otherwise values are converted to a new buffer.
+   */
+  public LongBuffer toLongBuffer() {
+    if (Type.Int64.equals(type) || Type.UInt64.equals(type)) {
+      return data.duplicate().order(data.order()).asLongBuffer();
+    } else {
+      return LongBuffer.wrap(toLongArray());
+    }
+  }
+
+  /**
+   * Return the minimum and maximum finite values of the array, considering all components, as
+   * <code>vtkDataArray.GetFiniteRange()</code> does for single component arrays.
+   */
+  public double[] getFiniteRange() {
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+
+    int n = getNumberOfValues();
+
+    for (int i = 0; i < n; i++) {
+      double v = getValue(i);
+      if (Double.isFinite(v)) {
+        if (v < min)
+          min = v;
+        if (v > max)
+          max = v;
+      }
+    }
+    return new double[] {min, max};
+  }
+
+  @Override
+  public String toString() {
+    return "DataArray " + name + " " + type + " x" + numberOfComponents + " (" + format + ")";
+  }
+}
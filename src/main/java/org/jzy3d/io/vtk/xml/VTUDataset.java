@@ -0,0 +1,136 @@
+package org.jzy3d.io.vtk.xml;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An unstructured grid piece read from a <code>.vtu</code> file by {@link VTUReader}, without any
+ * dependency to VTK natives.
+ *
+ * Cell arrays follow the VTK XML convention : <code>offsets</code> holds the end of each cell in
+ * <code>connectivity</code>. {@link #getOffsets()} converts them to the <code>vtkCellArray</code>
+ * convention, where offsets start with 0 and have one more element than cells.
+ *
+ * @author Martin Pernollet
+ */
+public class VTUDataset {
+  protected int numberOfPoints;
+  protected int numberOfCells;
+
+  protected VTUDataArray points;
+  protected VTUDataArray connectivity;
+  protected VTUDataArray offsets;
+  protected VTUDataArray types;
+
+  protected Map<String, VTUDataArray> pointData = new LinkedHashMap<>();
+  protected Map<String, VTUDataArray> cellData = new LinkedHashMap<>();
+
+  public VTUDataset(int numberOfPoints, int numberOfCells) {
+    this.numberOfPoints = numberOfPoints;
+    this.numberOfCells = numberOfCells;
+  }
+
+  public int getNumberOfPoints() {
+    return numberOfPoints;
+  }
+
+  public int getNumberOfCells() {
+    return numberOfCells;
+  }
+
+  /** Return point coordinates as x,y,z triplets. */
+  public float[] getCoordinates() {
+    return points.toFloatArray();
+  }
+
+  public int[] getConnectivity() {
+    return connectivity.toIntArray();
+  }
+
+  /** Return cell offsets in the <code>vtkCellArray</code> convention (n+1 values starting at 0). */
+  public int[] getOffsets() {
+    int[] offsets = new int[numberOfCells + 1];
+    for (int i = 0; i < numberOfCells; i++) {
+      offsets[i + 1] = (int) this.offsets.getLong(i);
+    }
+    return offsets;
+  }
+
+  /** Return the {@link vtk.VTKGeometry} type of each cell. */
+  public int[] getCellTypes() {
+    return types.toIntArray();
+  }
+
+  /** Return the values of a point property converted to float. */
+  public float[] getPointDataAsFloat(String property) {
+    return getPointDataArray(property).toFloatArray();
+  }
+
+  /**
+   * Return a point property array.
+   *
+   * @throws IllegalArgumentException if the property does not exist.
+   */
+  public VTUDataArray getPointDataArray(String property) {
+    VTUDataArray array = pointData.get(property);
+    if (array == null) {
+      throw new IllegalArgumentException("Property '" + property + "' not found. Use one of : "
+          + String.join(" ", getPointDataNames()));
+    }
+    return array;
+  }
+
+  public String[] getPointDataNames() {
+    return pointData.keySet().toArray(new String[0]);
+  }
+
+  public String[] getCellDataNames() {
+    return cellData.keySet().toArray(new String[0]);
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // RAW ARRAYS
+  //
+  ///////////////////////////////////////////////
+
+  public VTUDataArray getPoints() {
+    return points;
+  }
+
+  public void setPoints(VTUDataArray points) {
+    this.points = points;
+  }
+
+  public VTUDataArray getConnectivityArray() {
+    return connectivity;
+  }
+
+  public void setConnectivityArray(VTUDataArray connectivity) {
+    this.connectivity = connectivity;
+  }
+
+  public VTUDataArray getOffsetsArray() {
+    return offsets;
+  }
+
+  public void setOffsetsArray(VTUDataArray offsets) {
+    this.offsets = offsets;
+  }
+
+  public VTUDataArray getTypesArray() {
+    return types;
+  }
+
+  public void setTypesArray(VTUDataArray types) {
+    this.types = types;
+  }
+
+  public Map<String, VTUDataArray> getPointData() {
+    return pointData;
+  }
+
+  public Map<String, VTUDataArray> getCellData() {
+    return cellData;
+  }
+}
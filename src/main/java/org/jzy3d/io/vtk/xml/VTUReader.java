@@ -0,0 +1,807 @@
+package org.jzy3d.io.vtk.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jzy3d.io.vtk.LoadPlan;
+import org.jzy3d.io.vtk.xml.VTUDataArray.Format;
+import org.jzy3d.io.vtk.xml.VTUDataArray.Type;
+
+/**
+ * A pure Java reader for VTK XML unstructured grid files (<code>.vtu</code>), that does not
+ * require VTK natives.
+ *
+ * The reader supports the <code>ascii</code>, <code>binary</code> and <code>appended</code> (raw or
+ * base64) data formats, uncompressed or compressed with <code>vtkZLibDataCompressor</code>, with
+ * <code>UInt32</code> or <code>UInt64</code> headers.
+ *
+ * The file is scanned once without building any DOM : each <code>DataArray</code> is decoded
+ * directly from the file content into a {@link ByteBuffer} holding values in their declared type,
+ * which can then be copied in bulk to primitive arrays. Decoded buffers can be direct by calling
+ * {@link #setDirectBuffers(boolean)}, which make them ready to be sent to the GPU.
+ *
+ * Point and cell data arrays that are not in the {@link LoadPlan} given to
+ * {@link #setLoadPlan(LoadPlan)} are skipped without being decoded nor allocated.
+ *
+ * File format is described here : https://kitware.github.io/vtk-examples/site/VTKFileFormats/
+ *
+ * @author Martin Pernollet
+ */
+public class VTUReader {
+  protected static Logger log = LogManager.getLogger(VTUReader.class);
+
+  protected static final String ZLIB_COMPRESSOR = "vtkZLibDataCompressor";
+
+  protected boolean directBuffers = false;
+  protected boolean memoryMapped = false;
+  protected LoadPlan loadPlan = LoadPlan.ALL;
+
+  /** Read the first piece of a <code>.vtu</code> file. */
+  public VTUDataset read(String file) throws IOException {
+    return read(new File(file));
+  }
+
+  /** Read the first piece of a <code>.vtu</code> file. */
+  public VTUDataset read(File file) throws IOException {
+    List<VTUDataset> pieces = readPieces(file);
+
+    if (pieces.isEmpty()) {
+      throw new IOException("No piece found in " + file);
+    } else if (pieces.size() > 1) {
+      log.warn(file + " has " + pieces.size() + " pieces, only reading the first one");
+    }
+    return pieces.get(0);
+  }
+
+  /** Read all pieces of a <code>.vtu</code> file. */
+  public List<VTUDataset> readPieces(File file) throws IOException {
+    if (memoryMapped) {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        return parse(channel);
+      }
+    } else {
+      return parse(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+  }
+
+  /** Parse the content of a <code>.vtu</code> file and return all its pieces. */
+  public List<VTUDataset> parse(ByteBuffer content) throws IOException {
+    return parse(content, null);
+  }
+
+  /**
+   * Parse a memory mapped <code>.vtu</code> file and return all its pieces.
+   *
+   * Uncompressed arrays of the raw appended data section are not copied : their data is a view on
+   * the mapped file, which the OS loads lazily. Other arrays are decoded from the mapped file
+   * without loading the whole file on the Java heap.
+   */
+  public List<VTUDataset> parse(FileChannel channel) throws IOException {
+    // The XML part is at the beginning of the file, appended data is mapped separately
+    long size = Math.min(channel.size(), Integer.MAX_VALUE);
+    return parse(channel.map(MapMode.READ_ONLY, 0, size), channel);
+  }
+
+  /**
+   * @param channel the channel of the parsed file if appended data should be memory mapped, null
+   *        otherwise.
+   */
+  protected List<VTUDataset> parse(ByteBuffer content, FileChannel channel) throws IOException {
+    List<VTUDataset> pieces = new ArrayList<>();
+    List<VTUDataArray> appendedArrays = new ArrayList<>();
+    List<VTUDataArray> sectionArrays = new ArrayList<>();
+
+    Header header = null;
+    VTUDataset piece = null;
+    String section = null;
+
+    // array currently being read and start of its inline content
+    VTUDataArray current = null;
+    int currentStart = -1;
+
+    // depth of the elements nested in the current DataArray (e.g. InformationKey written by VTK
+    // 8.2+), or -1 outside of any DataArray
+    int arrayDepth = -1;
+
+    int pos = 0;
+
+    while ((pos = indexOf(content, '<', pos)) >= 0) {
+      byte next = content.get(pos + 1);
+
+      // ----------------------------------
+      // Processing instructions and comments
+
+      if (next == '?') {
+        pos = expect(indexOf(content, "?>", pos), "?>") + 2;
+      } else if (next == '!') {
+        if (startsWith(content, pos, "<!--"))
+          pos = expect(indexOf(content, "-->", pos), "-->") + 3;
+        else
+          pos = expect(indexOf(content, '>', pos), ">") + 1;
+      }
+
+      // ----------------------------------
+      // Closing tags
+
+      else if (next == '/') {
+        int close = expect(indexOf(content, '>', pos), ">");
+        String name = toString(content, pos + 2, close).trim();
+
+        if (arrayDepth > 0) {
+          // inline content starts after the last child of the array
+          if (--arrayDepth == 0)
+            currentStart = close + 1;
+        } else if ("DataArray".equals(name)) {
+          if (current != null)
+            decodeInline(current, content, currentStart, pos, header);
+          current = null;
+          arrayDepth = -1;
+        } else if ("Piece".equals(name)) {
+          piece = null;
+        } else if (name.equals(section)) {
+          section = null;
+        }
+        pos = close + 1;
+      }
+
+      // ----------------------------------
+      // Opening tags
+
+      else {
+        Tag tag = readTag(content, pos);
+        pos = tag.end;
+
+        if (arrayDepth >= 0) {
+          // children of a DataArray are ignored
+          if (!tag.selfClosing)
+            arrayDepth++;
+          else if (arrayDepth == 0)
+            currentStart = tag.end;
+        } else if ("VTKFile".equals(tag.name)) {
+          header = new Header(tag);
+        } else if ("Piece".equals(tag.name)) {
+          piece = new VTUDataset(Integer.parseInt(tag.get("NumberOfPoints", "0")),
+              Integer.parseInt(tag.get("NumberOfCells", "0")));
+          pieces.add(piece);
+        } else if ("DataArray".equals(tag.name)) {
+          VTUDataArray array = newDataArray(tag);
+          boolean needed = isNeeded(section, array);
+
+          if (!tag.selfClosing)
+            arrayDepth = 0;
+
+          if (Format.APPENDED.equals(array.getFormat())) {
+            // skipped arrays still bound the base64 arrays that precede them
+            sectionArrays.add(array);
+          }
+
+          if (!needed) {
+            log.debug("Skip array " + array.getName() + " not in " + loadPlan);
+          } else {
+            register(piece, section, array);
+
+            if (Format.APPENDED.equals(array.getFormat())) {
+              appendedArrays.add(array);
+            } else if (!tag.selfClosing) {
+              current = array;
+              currentStart = pos;
+            }
+          }
+        } else if ("AppendedData".equals(tag.name)) {
+          // Appended data starts after an underscore and may contain any byte including '<', so
+          // parsing stops here
+          int start = expect(indexOf(content, '_', pos), "_") + 1;
+          boolean raw = "raw".equals(tag.get("encoding", "raw"));
+
+          if (channel != null)
+            decodeAppended(appendedArrays, sectionArrays, channel, start, raw, header);
+          else
+            decodeAppended(appendedArrays, sectionArrays, content, start, raw, header);
+          return pieces;
+        } else if (isSection(tag.name) && !tag.selfClosing) {
+          section = tag.name;
+        }
+      }
+    }
+
+    if (!appendedArrays.isEmpty()) {
+      throw new IOException(
+          "Missing AppendedData section for " + appendedArrays.size() + " arrays");
+    }
+    return pieces;
+  }
+
+  /** Return true for the elements of a piece that hold data arrays. */
+  protected boolean isSection(String name) {
+    return "Points".equals(name) || "Cells".equals(name) || "PointData".equals(name)
+        || "CellData".equals(name);
+  }
+
+  /**
+   * Return true if the array should be decoded : points and cells are always decoded, point and
+   * cell data arrays only if they are in the load plan.
+   */
+  protected boolean isNeeded(String section, VTUDataArray array) {
+    if ("PointData".equals(section) || "CellData".equals(section))
+      return loadPlan.isNeeded(array.getName());
+    return true;
+  }
+
+  protected VTUDataArray newDataArray(Tag tag) {
+    VTUDataArray array = new VTUDataArray(tag.get("Name", ""), Type.parse(tag.get("type", null)),
+        Integer.parseInt(tag.get("NumberOfComponents", "1")),
+        Format.parse(tag.get("format", "ascii")));
+
+    if (Format.APPENDED.equals(array.getFormat())) {
+      array.setOffset(Long.parseLong(tag.get("offset", "0")));
+    }
+    return array;
+  }
+
+  /** Attach an array to the piece according to the section it was declared in. */
+  protected void register(VTUDataset piece, String section, VTUDataArray array) {
+    if (piece == null || section == null)
+      return;
+
+    if ("Points".equals(section)) {
+      piece.setPoints(array);
+    } else if ("PointData".equals(section)) {
+      piece.getPointData().put(array.getName(), array);
+    } else if ("CellData".equals(section)) {
+      piece.getCellData().put(array.getName(), array);
+    } else if ("Cells".equals(section)) {
+      if ("connectivity".equals(array.getName()))
+        piece.setConnectivityArray(array);
+      else if ("offsets".equals(array.getName()))
+        piece.setOffsetsArray(array);
+      else if ("types".equals(array.getName()))
+        piece.setTypesArray(array);
+      else
+        log.warn("Ignore unsupported cell array " + array.getName());
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // DECODING
+  //
+  ///////////////////////////////////////////////
+
+  protected void decodeInline(VTUDataArray array, ByteBuffer content, int start, int end,
+      Header header) throws IOException {
+    if (Format.ASCII.equals(array.getFormat())) {
+      array.setData(decodeAscii(array.getType(), content, start, end, header));
+    } else {
+      ByteBuffer bytes = decodeBase64(content, start, end).order(header.byteOrder);
+      array.setData(decodeBinary(bytes, header));
+    }
+  }
+
+  /**
+   * @param arrays the arrays to decode
+   * @param sectionArrays all arrays of the appended section, including the skipped ones
+   */
+  protected void decodeAppended(List<VTUDataArray> arrays, List<VTUDataArray> sectionArrays,
+      ByteBuffer content, int start, boolean raw, Header header) throws IOException {
+    for (VTUDataArray array : arrays) {
+      int arrayStart = (int) (start + array.getOffset());
+
+      if (raw) {
+        ByteBuffer bytes = content.duplicate();
+        bytes.position(arrayStart);
+        array.setData(decodeBinary(bytes.slice().order(header.byteOrder), header));
+      } else {
+        // base64 arrays end where the next one starts, or where the section ends
+        int arrayEnd = indexOf(content, '<', arrayStart);
+        for (VTUDataArray other : sectionArrays) {
+          int otherStart = (int) (start + other.getOffset());
+          if (otherStart > arrayStart && otherStart < arrayEnd)
+            arrayEnd = otherStart;
+        }
+        if (arrayEnd < 0)
+          arrayEnd = content.limit();
+
+        ByteBuffer bytes = decodeBase64(content, arrayStart, arrayEnd).order(header.byteOrder);
+        array.setData(decodeBinary(bytes, header));
+      }
+    }
+  }
+
+  protected void decodeAppended(List<VTUDataArray> arrays, List<VTUDataArray> sectionArrays,
+      FileChannel channel, long start, boolean raw, Header header) throws IOException {
+    int headerSize = header.headerType.size();
+
+    for (VTUDataArray array : arrays) {
+      long arrayStart = start + array.getOffset();
+
+      if (raw && !header.compressed) {
+        long size = readHeader(map(channel, arrayStart, headerSize, header), 0, header);
+        array.setData(map(channel, arrayStart + headerSize, size, header));
+      } else if (raw) {
+        long blocks = readHeader(map(channel, arrayStart, headerSize, header), 0, header);
+        long headerBytes = (3 + blocks) * headerSize;
+
+        ByteBuffer blockHeader = map(channel, arrayStart, headerBytes, header);
+        long compressedSize = 0;
+        for (int b = 0; b < blocks; b++) {
+          compressedSize += readHeader(blockHeader, 3 + b, header);
+        }
+
+        ByteBuffer bytes = map(channel, arrayStart, headerBytes + compressedSize, header);
+        array.setData(decodeBinary(bytes, header));
+      } else {
+        // base64 arrays end where the next one starts, or where the section ends
+        long arrayEnd = channel.size();
+        for (VTUDataArray other : sectionArrays) {
+          long otherStart = start + other.getOffset();
+          if (otherStart > arrayStart && otherStart < arrayEnd)
+            arrayEnd = otherStart;
+        }
+
+        ByteBuffer text = map(channel, arrayStart, arrayEnd - arrayStart, header);
+        int end = indexOf(text, '<', 0);
+        if (end < 0)
+          end = text.limit();
+
+        ByteBuffer bytes = decodeBase64(text, 0, end).order(header.byteOrder);
+        array.setData(decodeBinary(bytes, header));
+      }
+    }
+  }
+
+  protected static ByteBuffer map(FileChannel channel, long position, long size, Header header)
+      throws IOException {
+    return channel.map(MapMode.READ_ONLY, position, toInt(size)).order(header.byteOrder);
+  }
+
+  /**
+   * Decode binary data starting with a header, possibly compressed.
+   *
+   * Uncompressed data is made of a header giving the number of bytes, followed by the data.
+   * Compressed data is made of a header giving the number of blocks, the uncompressed size of a
+   * block, the uncompressed size of the last block (0 if it is a full block) and the compressed
+   * size of each block, followed by the compressed blocks.
+   *
+   * @param bytes the data to decode, starting with the header at position 0.
+   */
+  protected ByteBuffer decodeBinary(ByteBuffer bytes, Header header) throws IOException {
+    int headerSize = header.headerType.size();
+
+    if (!header.compressed) {
+      long size = readHeader(bytes, 0, header);
+
+      ByteBuffer data = bytes.duplicate();
+      data.position(headerSize);
+      data.limit(headerSize + toInt(size));
+
+      ByteBuffer output = allocate(toInt(size), header.byteOrder);
+      output.put(data);
+      output.flip();
+      return output;
+    } else {
+      long blocks = readHeader(bytes, 0, header);
+      long blockSize = readHeader(bytes, 1, header);
+      long lastBlockSize = readHeader(bytes, 2, header);
+
+      long size = 0;
+      if (blocks > 0)
+        size = (blocks - 1) * blockSize + (lastBlockSize == 0 ? blockSize : lastBlockSize);
+
+      ByteBuffer output = allocate(toInt(size), header.byteOrder);
+
+      int cursor = toInt((3 + blocks) * headerSize);
+      Inflater inflater = new Inflater();
+
+      try {
+        for (int b = 0; b < blocks; b++) {
+          int compressedSize = toInt(readHeader(bytes, 3 + b, header));
+
+          ByteBuffer block = bytes.duplicate();
+          block.position(cursor);
+          block.limit(cursor + compressedSize);
+
+          inflater.reset();
+          inflater.setInput(block);
+
+          while (!inflater.finished()) {
+            int inflated = inflater.inflate(output);
+
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+              throw new IOException("Truncated compressed block " + b);
+
+            // a full output only leaves room for the end of the stream, any other byte means that
+            // the block is larger than the declared size
+            if (!output.hasRemaining() && !inflater.finished()
+                && (inflater.inflate(new byte[1]) > 0 || !inflater.finished()))
+              throw new IOException("Compressed block " + b + " exceeds the declared size of "
+                  + size + " bytes");
+          }
+          cursor += compressedSize;
+        }
+      } catch (DataFormatException e) {
+        throw new IOException("Invalid compressed data", e);
+      } finally {
+        inflater.end();
+      }
+
+      if (output.position() != size) {
+        throw new IOException("Expected " + size + " bytes but decompressed " + output.position());
+      }
+
+      output.flip();
+      return output;
+    }
+  }
+
+  protected long readHeader(ByteBuffer bytes, int index, Header header) {
+    if (Type.UInt64.equals(header.headerType))
+      return bytes.getLong(index * 8);
+    else
+      return bytes.getInt(index * 4) & 0xFFFFFFFFL;
+  }
+
+  /** Parse whitespace separated values into a buffer of the given type. */
+  protected ByteBuffer decodeAscii(Type type, ByteBuffer content, int start, int end, Header header)
+      throws IOException {
+    // count values first to allocate the output at once
+    int count = 0;
+    boolean inToken = false;
+
+    for (int i = start; i < end; i++) {
+      boolean blank = isBlank(content.get(i));
+      if (!blank && !inToken)
+        count++;
+      inToken = !blank;
+    }
+
+    ByteBuffer output = allocate(count * type.size(), header.byteOrder);
+    byte[] token = new byte[64];
+
+    int i = start;
+
+    while (i < end) {
+      while (i < end && isBlank(content.get(i)))
+        i++;
+      if (i >= end)
+        break;
+
+      int length = 0;
+      while (i < end && !isBlank(content.get(i))) {
+        if (length == token.length)
+          token = Arrays.copyOf(token, length * 2);
+        token[length++] = content.get(i++);
+      }
+
+      if (type.isFloatingPoint()) {
+        double value = parseDouble(token, length);
+
+        if (Type.Float32.equals(type))
+          output.putFloat((float) value);
+        else
+          output.putDouble(value);
+      } else {
+        long value = parseLong(token, length);
+
+        switch (type.size()) {
+          case 1:
+            output.put((byte) value);
+            break;
+          case 2:
+            output.putShort((short) value);
+            break;
+          case 4:
+            output.putInt((int) value);
+            break;
+          default:
+            output.putLong(value);
+        }
+      }
+    }
+
+    output.flip();
+    return output;
+  }
+
+  protected static double parseDouble(byte[] token, int length) {
+    String value = new String(token, 0, length, StandardCharsets.ISO_8859_1);
+
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      String lower = value.toLowerCase();
+      if (lower.contains("nan"))
+        return Double.NaN;
+      else if (lower.contains("inf"))
+        return lower.startsWith("-") ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+      else
+        throw e;
+    }
+  }
+
+  protected static long parseLong(byte[] token, int length) {
+    long value = 0;
+    int i = 0;
+    boolean negative = false;
+
+    if (token[0] == '-' || token[0] == '+') {
+      negative = token[0] == '-';
+      i++;
+    }
+
+    for (; i < length; i++) {
+      int digit = token[i] - '0';
+
+      // not a plain integer, e.g. written as 1.0 or 1e3
+      if (digit < 0 || digit > 9)
+        return (long) parseDouble(token, length);
+
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  protected static final int[] BASE64 = new int[256];
+
+  static {
+    Arrays.fill(BASE64, -1);
+    String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    for (int i = 0; i < alphabet.length(); i++) {
+      BASE64[alphabet.charAt(i)] = i;
+    }
+  }
+
+  /**
+   * Decode base64 content, ignoring whitespaces.
+   *
+   * Content is decoded by groups of 4 characters, which allows decoding several base64 strings that
+   * were encoded separately and then concatenated, as VTK does for the header and the data of
+   * compressed arrays.
+   */
+  protected static ByteBuffer decodeBase64(ByteBuffer content, int start, int end)
+      throws IOException {
+    byte[] output = new byte[(end - start) / 4 * 3 + 3];
+    int length = 0;
+
+    int[] quartet = new int[4];
+    int n = 0;
+    int padding = 0;
+
+    for (int i = start; i < end; i++) {
+      int c = content.get(i) & 0xFF;
+
+      if (c == '=') {
+        quartet[n++] = 0;
+        padding++;
+      } else if (BASE64[c] >= 0) {
+        quartet[n++] = BASE64[c];
+      } else if (isBlank((byte) c)) {
+        continue;
+      } else {
+        throw new IOException("Invalid base64 character '" + (char) c + "' at " + i);
+      }
+
+      if (n == 4) {
+        int bits = (quartet[0] << 18) | (quartet[1] << 12) | (quartet[2] << 6) | quartet[3];
+
+        output[length++] = (byte) (bits >> 16);
+        if (padding < 2)
+          output[length++] = (byte) (bits >> 8);
+        if (padding < 1)
+          output[length++] = (byte) bits;
+
+        n = 0;
+        padding = 0;
+      }
+    }
+
+    return ByteBuffer.wrap(output, 0, length);
+  }
+
+  protected static int expect(int index, String token) throws IOException {
+    if (index < 0)
+      throw new IOException("Unexpected end of file, expected '" + token + "'");
+    return index;
+  }
+
+  protected ByteBuffer allocate(int size, ByteOrder order) {
+    if (directBuffers)
+      return ByteBuffer.allocateDirect(size).order(order);
+    else
+      return ByteBuffer.allocate(size).order(order);
+  }
+
+  protected static int toInt(long size) throws IOException {
+    if (size > Integer.MAX_VALUE || size < 0)
+      throw new IOException("Unsupported array size " + size);
+    return (int) size;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // XML SCANNING
+  //
+  ///////////////////////////////////////////////
+
+  /** Encoding settings declared by the <code>VTKFile</code> element. */
+  protected static class Header {
+    ByteOrder byteOrder;
+    Type headerType;
+    boolean compressed;
+
+    public Header(Tag tag) {
+      String type = tag.get("type", null);
+      if (!"UnstructuredGrid".equals(type)) {
+        throw new IllegalArgumentException(
+            "Only UnstructuredGrid files are supported, not " + type);
+      }
+
+      byteOrder = "BigEndian".equals(tag.get("byte_order", "LittleEndian")) ? ByteOrder.BIG_ENDIAN
+          : ByteOrder.LITTLE_ENDIAN;
+
+      headerType = Type.parse(tag.get("header_type", "UInt32"));
+      if (!Type.UInt32.equals(headerType) && !Type.UInt64.equals(headerType)) {
+        throw new IllegalArgumentException("Unsupported header type " + headerType);
+      }
+
+      String compressor = tag.get("compressor", null);
+      if (compressor == null || compressor.isEmpty()) {
+        compressed = false;
+      } else if (ZLIB_COMPRESSOR.equals(compressor)) {
+        compressed = true;
+      } else {
+        throw new IllegalArgumentException("Unsupported compressor " + compressor);
+      }
+    }
+  }
+
+  /** An opening XML tag with its attributes. */
+  protected static class Tag {
+    String name;
+    Map<String, String> attributes = new HashMap<>();
+    boolean selfClosing = false;
+    int end; // position after the closing '>'
+
+    String get(String attribute, String defaultValue) {
+      return attributes.getOrDefault(attribute, defaultValue);
+    }
+  }
+
+  protected static Tag readTag(ByteBuffer content, int pos) throws IOException {
+    Tag tag = new Tag();
+
+    int i = pos + 1;
+    int nameStart = i;
+    while (!isBlank(content.get(i)) && content.get(i) != '>' && content.get(i) != '/')
+      i++;
+    tag.name = toString(content, nameStart, i);
+
+    while (true) {
+      while (isBlank(content.get(i)))
+        i++;
+
+      byte c = content.get(i);
+
+      if (c == '>') {
+        tag.end = i + 1;
+        return tag;
+      } else if (c == '/') {
+        tag.selfClosing = true;
+        tag.end = expect(indexOf(content, '>', i), ">") + 1;
+        return tag;
+      }
+
+      // attribute name
+      int attributeStart = i;
+      while (content.get(i) != '=' && !isBlank(content.get(i)))
+        i++;
+      String attribute = toString(content, attributeStart, i);
+
+      while (content.get(i) != '"' && content.get(i) != '\'')
+        i++;
+
+      // attribute value
+      byte quote = content.get(i++);
+      int valueStart = i;
+      while (content.get(i) != quote)
+        i++;
+      tag.attributes.put(attribute, toString(content, valueStart, i));
+      i++;
+    }
+  }
+
+  protected static boolean isBlank(byte c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+  }
+
+  protected static int indexOf(ByteBuffer content, char c, int from) {
+    int limit = content.limit();
+    for (int i = from; i < limit; i++) {
+      if (content.get(i) == c)
+        return i;
+    }
+    return -1;
+  }
+
+  protected static int indexOf(ByteBuffer content, String s, int from) {
+    int limit = content.limit() - s.length();
+    for (int i = from; i <= limit; i++) {
+      if (startsWith(content, i, s))
+        return i;
+    }
+    return -1;
+  }
+
+  protected static boolean startsWith(ByteBuffer content, int pos, String s) {
+    if (pos + s.length() > content.limit())
+      return false;
+    for (int j = 0; j < s.length(); j++) {
+      if (content.get(pos + j) != s.charAt(j))
+        return false;
+    }
+    return true;
+  }
+
+  protected static String toString(ByteBuffer content, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = content.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // SETTINGS
+  //
+  ///////////////////////////////////////////////
+
+  public boolean isDirectBuffers() {
+    return directBuffers;
+  }
+
+  /** If true, decoded arrays are stored in direct buffers. Default is false. */
+  public void setDirectBuffers(boolean directBuffers) {
+    this.directBuffers = directBuffers;
+  }
+
+  public boolean isMemoryMapped() {
+    return memoryMapped;
+  }
+
+  /**
+   * If true, files are memory mapped instead of being loaded on the Java heap, and uncompressed raw
+   * appended arrays are exposed as views on the mapped file. Default is false.
+   */
+  public void setMemoryMapped(boolean memoryMapped) {
+    this.memoryMapped = memoryMapped;
+  }
+
+  public LoadPlan getLoadPlan() {
+    return loadPlan;
+  }
+
+  /**
+   * Set the point and cell data arrays to decode. Points and cells are always decoded. Default is
+   * {@link LoadPlan#ALL}.
+   */
+  public void setLoadPlan(LoadPlan loadPlan) {
+    if (loadPlan == null)
+      throw new IllegalArgumentException("Load plan should not be null, use LoadPlan.ALL");
+    this.loadPlan = loadPlan;
+  }
+}
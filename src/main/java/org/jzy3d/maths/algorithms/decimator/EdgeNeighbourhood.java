@@ -0,0 +1,466 @@
+package org.jzy3d.maths.algorithms.decimator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jzy3d.maths.Coord3d;
+import org.jzy3d.plot3d.primitives.Point;
+import org.jzy3d.plot3d.primitives.Polygon;
+
+/**
+ * Neighbourhood of quads around their edges, stored with primitive arrays only.
+ *
+ * Each distinct coordinate is given an int vertex id, and each edge is identified by a long key
+ * packing the smallest vertex id in the high 32 bits and the largest one in the low 32 bits, so
+ * that an edge key does not depend on the direction of the side. Polygons are given an int id in
+ * the order they are registered.
+ *
+ * Polygons of an edge are stored in a linked list of int nodes, in insertion order, so that
+ * {@link #get(long, int)} behaves like the <code>ArrayListMultimap&lt;Set&lt;Coord3d&gt;,
+ * Polygon&gt;</code> previously used by {@link HexahedronDecimator}, without allocating a set of
+ * coordinates per side query nor boxing polygons in lists.
+ *
+ * @author Martin Pernollet
+ */
+public class EdgeNeighbourhood {
+  /** Value returned when querying a polygon or an edge that does not exist. */
+  public static final int NONE = -1;
+
+  /** Edge key that can not be built from two vertex ids. */
+  public static final long NO_EDGE = -1L;
+
+  protected static final int QUAD_POINTS = 4;
+
+  // vertices : open addressing table from coordinate bits to vertex id
+  protected float[] vertexCoords;
+  protected int numberOfVertices;
+  protected int[] vertexTable;
+
+  // polygons : 4 vertex ids per polygon
+  protected List<Polygon> polygons;
+  protected int[] polygonVertices;
+
+  // edges : open addressing table from edge key to a list of polygon ids
+  protected long[] edgeKeys;
+  protected int[] edgeHead;
+  protected int[] edgeTail;
+  protected int[] edgeSize; // -1 for a free slot
+  protected int numberOfEdges;
+
+  // linked list nodes
+  protected int[] nodeValue;
+  protected int[] nodeNext;
+  protected int numberOfNodes;
+
+  /**
+   * Register the input quads and the polygons on each of their sides.
+   */
+  public EdgeNeighbourhood(List<Polygon> input) {
+    int n = Math.max(input.size(), 1);
+
+    vertexCoords = new float[n * 3];
+    vertexTable = newTable(tableSize(n));
+
+    polygons = new ArrayList<>(input.size() * 2);
+    polygonVertices = new int[n * 2 * QUAD_POINTS];
+
+    edgeKeys = new long[tableSize(n * QUAD_POINTS)];
+    edgeHead = new int[edgeKeys.length];
+    edgeTail = new int[edgeKeys.length];
+    edgeSize = newTable(edgeKeys.length);
+
+    nodeValue = new int[n * QUAD_POINTS * 2];
+    nodeNext = new int[nodeValue.length];
+
+    for (Polygon p : input) {
+      int id = addPolygon(p);
+
+      for (int i = 0; i < QUAD_POINTS; i++) {
+        add(getSide(id, i), id);
+      }
+    }
+  }
+
+  /** Return true if all polygons have 4 points, which is the only case supported by this class. */
+  public static boolean isQuads(List<Polygon> polygons) {
+    for (Polygon p : polygons) {
+      if (p.size() != QUAD_POINTS)
+        return false;
+    }
+    return true;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // EDGE KEYS
+  //
+  ///////////////////////////////////////////////
+
+  /** Return the key of the edge between two vertices, whatever their order. */
+  public static long edge(int vertex1, int vertex2) {
+    int min = Math.min(vertex1, vertex2);
+    int max = Math.max(vertex1, vertex2);
+    return ((long) min << 32) | (max & 0xFFFFFFFFL);
+  }
+
+  /** Return the smallest vertex id of an edge. */
+  public static int first(long edge) {
+    return (int) (edge >>> 32);
+  }
+
+  /** Return the largest vertex id of an edge. */
+  public static int second(long edge) {
+    return (int) edge;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // VERTICES
+  //
+  ///////////////////////////////////////////////
+
+  /** Return the id of the vertex at this coordinate, creating it if it does not exist yet. */
+  public int getOrCreateVertex(Coord3d c) {
+    int slot = findVertexSlot(c.x, c.y, c.z);
+
+    if (vertexTable[slot] != NONE)
+      return vertexTable[slot];
+
+    if (numberOfVertices * 3 == vertexCoords.length) {
+      vertexCoords = Arrays.copyOf(vertexCoords, vertexCoords.length * 2);
+    }
+    int id = numberOfVertices++;
+    vertexCoords[id * 3] = c.x;
+    vertexCoords[id * 3 + 1] = c.y;
+    vertexCoords[id * 3 + 2] = c.z;
+    vertexTable[slot] = id;
+
+    if (numberOfVertices * 2 > vertexTable.length)
+      rehashVertices();
+    return id;
+  }
+
+  /** Return the id of the vertex at this coordinate, or {@link #NONE}. */
+  public int getVertex(Coord3d c) {
+    return vertexTable[findVertexSlot(c.x, c.y, c.z)];
+  }
+
+  public int getNumberOfVertices() {
+    return numberOfVertices;
+  }
+
+  /**
+   * Return the slot of the vertex having these coordinates, or the free slot where it should be
+   * stored. Coordinates are compared on their bits, as {@link Coord3d#equals(Object)} does.
+   */
+  protected int findVertexSlot(float x, float y, float z) {
+    int bx = Float.floatToIntBits(x);
+    int by = Float.floatToIntBits(y);
+    int bz = Float.floatToIntBits(z);
+
+    int mask = vertexTable.length - 1;
+    int slot = mix(((long) bx * 31 + by) * 31 + bz) & mask;
+
+    while (vertexTable[slot] != NONE) {
+      int id = vertexTable[slot] * 3;
+      if (Float.floatToIntBits(vertexCoords[id]) == bx
+          && Float.floatToIntBits(vertexCoords[id + 1]) == by
+          && Float.floatToIntBits(vertexCoords[id + 2]) == bz) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  protected void rehashVertices() {
+    vertexTable = newTable(vertexTable.length * 2);
+
+    for (int id = 0; id < numberOfVertices; id++) {
+      vertexTable[findVertexSlot(vertexCoords[id * 3], vertexCoords[id * 3 + 1],
+          vertexCoords[id * 3 + 2])] = id;
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // POLYGONS
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Register a quad and return its id. The polygon is not added to the neighbourhood of its sides,
+   * which is left to the caller with {@link #add(long, int)}.
+   */
+  public int addPolygon(Polygon p) {
+    if (p.size() != QUAD_POINTS)
+      throw new IllegalArgumentException("Expect quads, not polygons with " + p.size() + " points");
+
+    int id = polygons.size();
+    polygons.add(p);
+
+    if ((id + 1) * QUAD_POINTS > polygonVertices.length) {
+      polygonVertices = Arrays.copyOf(polygonVertices, polygonVertices.length * 2);
+    }
+    for (int i = 0; i < QUAD_POINTS; i++) {
+      polygonVertices[id * QUAD_POINTS + i] = getOrCreateVertex(p.get(i).xyz);
+    }
+    return id;
+  }
+
+  public Polygon getPolygon(int polygon) {
+    return polygons.get(polygon);
+  }
+
+  public int getNumberOfPolygons() {
+    return polygons.size();
+  }
+
+  /** Return the vertex id of the i-th point of a polygon. */
+  public int getVertex(int polygon, int i) {
+    return polygonVertices[polygon * QUAD_POINTS + i];
+  }
+
+  /** Return the index of a vertex in a polygon, or {@link #NONE}. */
+  public int indexOf(int polygon, int vertex) {
+    for (int i = 0; i < QUAD_POINTS; i++) {
+      if (polygonVertices[polygon * QUAD_POINTS + i] == vertex)
+        return i;
+    }
+    return NONE;
+  }
+
+  /** Return the i-th side of a polygon, going from point i to point i+1. */
+  public long getSide(int polygon, int i) {
+    return edge(getVertex(polygon, i), getVertex(polygon, (i + 1) % QUAD_POINTS));
+  }
+
+  /** Return true if the i-th point of a polygon is one of the two vertices of the edge. */
+  public boolean isOnSide(int polygon, int i, long side) {
+    int vertex = getVertex(polygon, i);
+    return vertex == first(side) || vertex == second(side);
+  }
+
+  /** Return the edge made of the two points of a polygon that are not on the given side. */
+  public long getOppositeSide(int polygon, long side) {
+    int v1 = NONE;
+    int v2 = NONE;
+
+    for (int i = 0; i < QUAD_POINTS; i++) {
+      if (!isOnSide(polygon, i, side)) {
+        if (v1 == NONE)
+          v1 = getVertex(polygon, i);
+        else
+          v2 = getVertex(polygon, i);
+      }
+    }
+    if (v2 == NONE)
+      throw new IllegalArgumentException(
+          "Polygon " + polygon + " does not have two points out of side " + toString(side));
+    return edge(v1, v2);
+  }
+
+  /**
+   * Write the points of a polygon that are not on the given side in the output array, starting at
+   * the given offset, and return the offset following the last written point.
+   *
+   * @throws IllegalArgumentException if the output array is too small.
+   */
+  public int pointsNotOnSide(int polygon, long side, Point[] out, int offset) {
+    Polygon p = getPolygon(polygon);
+    for (int i = 0; i < QUAD_POINTS; i++) {
+      if (!isOnSide(polygon, i, side)) {
+        if (offset == out.length)
+          throw new IllegalArgumentException("Polygon " + polygon + " has more than "
+              + out.length + " points out of side " + toString(side));
+        out[offset++] = p.get(i);
+      }
+    }
+    return offset;
+  }
+
+  /**
+   * Return the neighbour of a polygon on the given side, or {@link #NONE} if the polygon is alone
+   * on this side.
+   *
+   * @throws IllegalArgumentException if the side does not have one or two polygons.
+   */
+  public int getNeighbour(int polygon, long side) {
+    int n = size(side);
+
+    if (n == 2) {
+      int first = get(side, 0);
+      return first == polygon ? get(side, 1) : first;
+    } else if (n == 1) {
+      return NONE;
+    } else {
+      throw new IllegalArgumentException("Can't have more than one neighbour for a pair of "
+          + "coordinates." + n + " around neighbourhood " + toString(side));
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // EDGE TO POLYGONS MAP
+  //
+  ///////////////////////////////////////////////
+
+  /** Append a polygon to the list of an edge. */
+  public void add(long edge, int polygon) {
+    int slot = findEdgeSlot(edge);
+
+    if (edgeSize[slot] == NONE) {
+      edgeKeys[slot] = edge;
+      edgeHead[slot] = NONE;
+      edgeTail[slot] = NONE;
+      edgeSize[slot] = 0;
+      numberOfEdges++;
+    }
+
+    if (numberOfNodes == nodeValue.length) {
+      nodeValue = Arrays.copyOf(nodeValue, nodeValue.length * 2);
+      nodeNext = Arrays.copyOf(nodeNext, nodeNext.length * 2);
+    }
+    int node = numberOfNodes++;
+    nodeValue[node] = polygon;
+    nodeNext[node] = NONE;
+
+    if (edgeTail[slot] == NONE)
+      edgeHead[slot] = node;
+    else
+      nodeNext[edgeTail[slot]] = node;
+    edgeTail[slot] = node;
+    edgeSize[slot]++;
+
+    if (numberOfEdges * 2 > edgeKeys.length)
+      rehashEdges();
+  }
+
+  /** Remove the first occurrence of a polygon from the list of an edge. */
+  public boolean remove(long edge, int polygon) {
+    int slot = findEdgeSlot(edge);
+
+    if (edgeSize[slot] <= 0)
+      return false;
+
+    int previous = NONE;
+    for (int node = edgeHead[slot]; node != NONE; node = nodeNext[node]) {
+      if (nodeValue[node] == polygon) {
+        if (previous == NONE)
+          edgeHead[slot] = nodeNext[node];
+        else
+          nodeNext[previous] = nodeNext[node];
+
+        if (edgeTail[slot] == node)
+          edgeTail[slot] = previous;
+
+        edgeSize[slot]--;
+        return true;
+      }
+      previous = node;
+    }
+    return false;
+  }
+
+  /**
+   * Remove all polygons of an edge. The edge keeps its slot to avoid breaking the probing sequence
+   * of other edges.
+   */
+  public void removeAll(long edge) {
+    int slot = findEdgeSlot(edge);
+
+    if (edgeSize[slot] > 0) {
+      edgeHead[slot] = NONE;
+      edgeTail[slot] = NONE;
+      edgeSize[slot] = 0;
+    }
+  }
+
+  /** Return the number of polygons of an edge. */
+  public int size(long edge) {
+    return Math.max(edgeSize[findEdgeSlot(edge)], 0);
+  }
+
+  /** Return the i-th polygon of an edge, in insertion order, or {@link #NONE}. */
+  public int get(long edge, int i) {
+    int slot = findEdgeSlot(edge);
+
+    if (edgeSize[slot] <= i)
+      return NONE;
+
+    int node = edgeHead[slot];
+    for (int k = 0; k < i; k++) {
+      node = nodeNext[node];
+    }
+    return nodeValue[node];
+  }
+
+  protected int findEdgeSlot(long edge) {
+    int mask = edgeKeys.length - 1;
+    int slot = mix(edge) & mask;
+
+    while (edgeSize[slot] != NONE && edgeKeys[slot] != edge) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  protected void rehashEdges() {
+    long[] keys = edgeKeys;
+    int[] head = edgeHead;
+    int[] tail = edgeTail;
+    int[] size = edgeSize;
+
+    edgeKeys = new long[keys.length * 2];
+    edgeHead = new int[edgeKeys.length];
+    edgeTail = new int[edgeKeys.length];
+    edgeSize = newTable(edgeKeys.length);
+
+    for (int s = 0; s < keys.length; s++) {
+      if (size[s] != NONE) {
+        int slot = findEdgeSlot(keys[s]);
+        edgeKeys[slot] = keys[s];
+        edgeHead[slot] = head[s];
+        edgeTail[slot] = tail[s];
+        edgeSize[slot] = size[s];
+      }
+    }
+  }
+
+  /** Return the coordinates of the two vertices of an edge, for logging. */
+  public String toString(long edge) {
+    return "[" + vertexToString(first(edge)) + ", " + vertexToString(second(edge)) + "]";
+  }
+
+  protected String vertexToString(int vertex) {
+    if (vertex < 0 || vertex >= numberOfVertices)
+      return String.valueOf(vertex);
+    return new Coord3d(vertexCoords[vertex * 3], vertexCoords[vertex * 3 + 1],
+        vertexCoords[vertex * 3 + 2]).toString();
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // HASH TABLE UTILS
+  //
+  ///////////////////////////////////////////////
+
+  /** Return a power of two table able to hold the given number of entries below half load. */
+  protected static int tableSize(int entries) {
+    return Integer.highestOneBit(Math.max(entries, 1) * 2 + 1) * 2;
+  }
+
+  /** Return a table of the given length filled with {@link #NONE}. */
+  protected static int[] newTable(int length) {
+    int[] table = new int[length];
+    Arrays.fill(table, NONE);
+    return table;
+  }
+
+  protected static int mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xFF51AFD7ED558CCDL;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+}
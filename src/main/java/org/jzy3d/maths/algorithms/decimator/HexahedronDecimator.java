@@ -1,12 +1,13 @@
 package org.jzy3d.maths.algorithms.decimator;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jzy3d.colors.Color;
@@ -32,6 +33,19 @@ import com.google.common.collect.ArrayListMultimap;
 public class HexahedronDecimator {
   protected static Logger log = LogManager.getLogger(HexahedronDecimator.class);
 
+  /**
+   * How {@link HexahedronDecimator#mergeNeighbours(List)} indexes the polygons around their sides.
+   */
+  public enum NeighbourhoodMode {
+    /** Sides are sets of two coordinates in a multimap of polygons. */
+    COORD_SET,
+    /**
+     * Sides are long keys made of two int vertex ids in an {@link EdgeNeighbourhood}. Only used
+     * with quads and a {@link NextCellFinderByPointID}, otherwise falls back to {@link #COORD_SET}.
+     */
+    EDGE_ID
+  }
+
   
   /**
    * A value between 0 and 3 to fix the acceptable distance for merging polygons. A h
@@ -63,6 +77,14 @@ public class HexahedronDecimator {
    */
   protected ArrayListMultimap<Set<Coord3d>, Polygon> neighbourhood;
 
+  protected NeighbourhoodMode neighbourhoodMode = NeighbourhoodMode.EDGE_ID;
+
+  /**
+   * Internal representation of neighbourhood around an edge when using
+   * {@link NeighbourhoodMode#EDGE_ID}.
+   */
+  protected EdgeNeighbourhood edgeNeighbourhood;
+
   /**
    * Allows having the same normal size for two planar polygons of different sizes.
    */
@@ -107,14 +129,17 @@ public class HexahedronDecimator {
    * @return
    */
   public List<Polygon> mergeNeighbours(List<Polygon> input) {
+    if (NeighbourhoodMode.EDGE_ID.equals(neighbourhoodMode)
+        && nextCellFinder instanceof NextCellFinderByPointID && EdgeNeighbourhood.isQuads(input)) {
+      return mergeNeighboursOnEdgeIds(input);
+    }
 
     // (Re-)build a neighbourhood map
     initNeighbourhoodInternal(input);
 
     // Output and input
     List<Polygon> keep = new ArrayList<>();
-    Queue<Polygon> candidates = new LinkedBlockingQueue<>();
-    candidates.addAll(input);
+    Candidates candidates = new Candidates(input);
 
 
     Polygon startCell = candidates.poll();
@@ -180,7 +205,7 @@ public class HexahedronDecimator {
           /**
            * Remove the two merged rectangles from candidate queue ("current" and "next").
            */
-          candidates.remove(next);
+          candidates.consume(next);
           // current already removed by poll()
 
           /**
@@ -331,6 +356,154 @@ public class HexahedronDecimator {
 
 
 
+  /**
+   * Same algorithm than {@link #mergeNeighbours(List)}, on polygons and sides identified by
+   * integers in an {@link EdgeNeighbourhood}. The merge loop only handles int polygon ids and long
+   * edge keys, hence does not allocate sets of coordinates to query the neighbourhood.
+   *
+   * Assume the input polygons are quads and the {@link #nextCellFinder} is a
+   * {@link NextCellFinderByPointID}.
+   */
+  protected List<Polygon> mergeNeighboursOnEdgeIds(List<Polygon> input) {
+    EdgeNeighbourhood edges = new EdgeNeighbourhood(input);
+    edgeNeighbourhood = edges;
+
+    NextCellFinderByPointID finder = (NextCellFinderByPointID) nextCellFinder;
+
+    List<Polygon> keep = new ArrayList<>();
+    Candidates candidates = new Candidates(input);
+
+    int current = candidates.pollId();
+
+    numberOfInvalidNeighbours = 0;
+
+    while (current != EdgeNeighbourhood.NONE) {
+      int next = finder.getNextCell(edges, current);
+      long side = finder.getNextSide();
+
+      if (next == NextCellFinderByPointID.INVALID) {
+        log.warn("Hexahedron : skip neighbourhood of " + edges.size(side) + " quads on side "
+            + edges.toString(side) + ". May have a non working or inappropriate surface filter if "
+            + "more than 2 neighbour for a given side.");
+        numberOfInvalidNeighbours++;
+
+        keep.add(edges.getPolygon(current));
+        current = candidates.pollId();
+        continue;
+      }
+
+      // see mergeNeighbours(List) for a description of each step
+      while (next != EdgeNeighbourhood.NONE) {
+        if (matchColor(edges, current, next, side)
+            && matchNormals(edges.getPolygon(current), edges.getPolygon(next))) {
+
+          Polygon mergedPolygon = mergeNeighbourRectangles(edges, current, side, next);
+
+          candidates.consume(next);
+
+          edges.removeAll(side);
+
+          long opposideSideCurr = edges.getOppositeSide(current, side);
+
+          if (!edges.remove(opposideSideCurr, current)) {
+            throw new RuntimeException("Decimator : can not remove " + edges.getPolygon(current)
+                + " from opposite CURR side");
+          }
+
+          long opposideSideNext = edges.getOppositeSide(next, side);
+
+          if (!edges.remove(opposideSideNext, next)) {
+            throw new RuntimeException("Decimator : can not remove " + edges.getPolygon(next)
+                + " from opposite NEXT side");
+          }
+
+          int nextNext = edges.get(opposideSideNext, 0);
+
+          int merged = edges.addPolygon(mergedPolygon);
+          edges.add(opposideSideNext, merged);
+          edges.add(opposideSideCurr, merged);
+
+          removeTopAndBottomSideNeighbourhood(edges, current, side, opposideSideCurr);
+          removeTopAndBottomSideNeighbourhood(edges, next, side, opposideSideNext);
+
+          // go on with the next cell
+          current = merged;
+          side = opposideSideNext;
+          next = nextNext;
+        } else {
+          next = EdgeNeighbourhood.NONE;
+        }
+      }
+
+      keep.add(edges.getPolygon(current));
+
+      current = candidates.pollId();
+    }
+
+    return keep;
+  }
+
+  /**
+   * The polygons that remain to be processed by {@link HexahedronDecimator#mergeNeighbours(List)}.
+   *
+   * Candidates are identified by their index in the input list and a bitset flags those that were
+   * already processed or merged, so that polling and removing a candidate are done in constant
+   * time, whereas removing an element from a queue requires scanning it.
+   */
+  protected static class Candidates {
+    protected List<Polygon> polygons;
+    protected Map<Polygon, Integer> ids;
+    protected BitSet consumed;
+    protected int cursor = 0;
+
+    public Candidates(List<Polygon> polygons) {
+      this.polygons = polygons;
+      this.consumed = new BitSet(polygons.size());
+    }
+
+    /** Return the next candidate in input order and flag it as consumed, or null if none remain. */
+    public Polygon poll() {
+      int id = pollId();
+      return id == -1 ? null : polygons.get(id);
+    }
+
+    /** Same as {@link #poll()} but return the index of the candidate in input, or -1. */
+    public int pollId() {
+      int id = consumed.nextClearBit(cursor);
+
+      if (id >= polygons.size())
+        return -1;
+
+      consumed.set(id);
+      cursor = id + 1;
+      return id;
+    }
+
+    /**
+     * Flag a polygon so that it is not polled later. Polygons that are not candidates, such as
+     * polygons built by a merge, are ignored.
+     */
+    public void consume(Polygon polygon) {
+      if (ids == null) {
+        ids = new IdentityHashMap<>(polygons.size());
+
+        for (int i = 0; i < polygons.size(); i++) {
+          ids.put(polygons.get(i), i);
+        }
+      }
+
+      Integer id = ids.get(polygon);
+      if (id != null)
+        consumed.set(id);
+    }
+
+    /** Flag the candidate at this index in input. Indices out of input are ignored. */
+    public void consume(int id) {
+      if (id >= 0 && id < polygons.size())
+        consumed.set(id);
+    }
+  }
+
   protected Coord3d[] toArray(Set<Coord3d> coordSet) {
     Coord3d[] coordArray = new Coord3d[coordSet.size()];
     coordSet.toArray(coordArray);
@@ -387,7 +560,37 @@ public class HexahedronDecimator {
     Set<Point> keptPoints = excludeFromSet(current.getPoints(), side);
     keptPoints.addAll(excludeFromSet(next.getPoints(), side));
 
+    return mergeKeptPoints(current, keptPoints);
+  }
+
+  /**
+   * Same as {@link #mergeNeighbourRectangles(Polygon, Set, Polygon)} with polygon ids. The two
+   * points of each rectangle that are out of the side are distinct, so they are given to the
+   * {@link PolygonBuilder} as an array rather than a set.
+   */
+  protected Polygon mergeNeighbourRectangles(EdgeNeighbourhood edges, int current, long side,
+      int next) {
+    Point[] keptPoints = new Point[EdgeNeighbourhood.QUAD_POINTS];
+    int n = edges.pointsNotOnSide(current, side, keptPoints, 0);
+    n = edges.pointsNotOnSide(next, side, keptPoints, n);
+
+    if (n != keptPoints.length)
+      throw new IllegalArgumentException("Expecting 4 points out of side, not " + n);
+
     Polygon merged = polygonBuilder.buildPolygonEnvelope(keptPoints);
+    return mergeKeptPoints(edges.getPolygon(current), merged);
+  }
+
+  /**
+   * Build the envelope of the points kept from two merged rectangles, with the display settings of
+   * the current polygon.
+   */
+  protected Polygon mergeKeptPoints(Polygon current, Set<Point> keptPoints) {
+    return mergeKeptPoints(current, polygonBuilder.buildPolygonEnvelope(keptPoints));
+  }
+
+  /** Apply the display settings of the current polygon to the envelope of two merged ones. */
+  protected Polygon mergeKeptPoints(Polygon current, Polygon merged) {
     
     // trying to rebuild the original order of points to check if normals are modified
     /*int id0 = getPointIdInCurrentOrNext(merged.get(0), current, next);
@@ -537,6 +740,30 @@ public class HexahedronDecimator {
     getNeighboursAt(bottomSide).remove(current);
   }
 
+  /**
+   * Same as {@link #removeTopAndBottomSideNeighbourhood(Polygon, Coord3d[], Coord3d[])} with
+   * polygon ids and edge keys.
+   */
+  protected void removeTopAndBottomSideNeighbourhood(EdgeNeighbourhood edges, int current,
+      long side, long opposideSide) {
+    int side0 = EdgeNeighbourhood.first(side);
+    int side1 = EdgeNeighbourhood.second(side);
+    int opposite0 = EdgeNeighbourhood.first(opposideSide);
+    int opposite1 = EdgeNeighbourhood.second(opposideSide);
+
+    int sideCurrId0 = edges.indexOf(current, side0);
+    int sideCurrId1 = edges.indexOf(current, side1);
+    int oppositeCurrId1 = edges.indexOf(current, opposite1);
+
+    if (isPointIdSequence(oppositeCurrId1, sideCurrId1)) {
+      edges.remove(EdgeNeighbourhood.edge(opposite1, side1), current);
+      edges.remove(EdgeNeighbourhood.edge(opposite0, side0), current);
+    } else if (isPointIdSequence(oppositeCurrId1, sideCurrId0)) {
+      edges.remove(EdgeNeighbourhood.edge(opposite1, side0), current);
+      edges.remove(EdgeNeighbourhood.edge(opposite0, side1), current);
+    }
+  }
+
 
 
   /////////////////////////////////////////////////////////////////////////////
@@ -690,6 +917,82 @@ public class HexahedronDecimator {
     return c1;
   }
 
+  /**
+   * Same as {@link #matchColor(Polygon, Polygon, Collection)} with polygon ids and an edge key,
+   * without building sets of colors.
+   */
+  protected boolean matchColor(EdgeNeighbourhood edges, int p1, int p2, long side) {
+    if (neighbourColorDistanceThreshold < 0) {
+      return containsColorsNotIn(edges, p1, p2, side) && containsColorsNotIn(edges, p2, p1, side);
+    } else if (neighbourColorDistanceThreshold > 0) {
+      Polygon poly1 = edges.getPolygon(p1);
+      Polygon poly2 = edges.getPolygon(p2);
+
+      double cumSquareDist = 0;
+      int colors1 = 0;
+      int colors2 = 0;
+
+      for (int i = 0; i < poly1.size(); i++) {
+        if (isDistinctColorNotIn(edges, p1, i, side)) {
+          colors1++;
+
+          for (int j = 0; j < poly2.size(); j++) {
+            if (isDistinctColorNotIn(edges, p2, j, side)) {
+              cumSquareDist += poly1.get(i).rgb.distanceSq(poly2.get(j).rgb);
+            }
+          }
+        }
+      }
+      for (int j = 0; j < poly2.size(); j++) {
+        if (isDistinctColorNotIn(edges, p2, j, side)) {
+          colors2++;
+        }
+      }
+      double meanDist = cumSquareDist / (colors1 * colors2);
+      return meanDist <= neighbourColorDistanceThreshold;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Return true if the i-th point of the polygon is not on the side and if its color was not
+   * already given by a previous point not on the side.
+   */
+  protected boolean isDistinctColorNotIn(EdgeNeighbourhood edges, int polygon, int i, long side) {
+    if (edges.isOnSide(polygon, i, side))
+      return false;
+
+    Polygon p = edges.getPolygon(polygon);
+    for (int k = 0; k < i; k++) {
+      if (!edges.isOnSide(polygon, k, side) && p.get(k).rgb.equals(p.get(i).rgb))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Return true if all colors of p1 points not on the side are colors of p2 points not on the
+   * side.
+   */
+  protected boolean containsColorsNotIn(EdgeNeighbourhood edges, int p1, int p2, long side) {
+    Polygon poly1 = edges.getPolygon(p1);
+    Polygon poly2 = edges.getPolygon(p2);
+
+    for (int i = 0; i < poly1.size(); i++) {
+      if (edges.isOnSide(p1, i, side))
+        continue;
+
+      boolean found = false;
+      for (int j = 0; j < poly2.size() && !found; j++) {
+        found = !edges.isOnSide(p2, j, side) && poly1.get(i).rgb.equals(poly2.get(j).rgb);
+      }
+      if (!found)
+        return false;
+    }
+    return true;
+  }
+
   protected boolean matchNormals(Polygon p1, Polygon p2) {
     Coord3d n1 = normal(p1);
     Coord3d n2 = normal(p2);
@@ -751,5 +1054,17 @@ public class HexahedronDecimator {
     return numberOfInvalidNeighbours;
   }
 
+  public NeighbourhoodMode getNeighbourhoodMode() {
+    return neighbourhoodMode;
+  }
+
+  public void setNeighbourhoodMode(NeighbourhoodMode neighbourhoodMode) {
+    this.neighbourhoodMode = neighbourhoodMode;
+  }
+
+  public EdgeNeighbourhood getEdgeNeighbourhood() {
+    return edgeNeighbourhood;
+  }
+
   
 }
@@ -5,6 +5,12 @@ import org.jzy3d.maths.Coord3d;
 import org.jzy3d.plot3d.primitives.Polygon;
 
 public class NextCellFinderByPointID implements NextCellFinder {
+  /**
+   * Returned by {@link #getNextCell(EdgeNeighbourhood, int)} if the side of the current cell has
+   * more than two neighbours.
+   */
+  public static final int INVALID = -2;
+
   // Parent decimator
   protected HexahedronDecimator decimator;
 
@@ -19,6 +25,9 @@ public class NextCellFinderByPointID implements NextCellFinder {
   // ordered.
   protected int lineBrowseSideId = 0;
 
+  // side of the last cell returned by getNextCell(EdgeNeighbourhood, int)
+  protected long nextSide = EdgeNeighbourhood.NO_EDGE;
+
 
   public NextCellFinderByPointID(HexahedronDecimator decimator) {
     super();
@@ -60,4 +69,39 @@ public class NextCellFinderByPointID implements NextCellFinder {
     return new NextCellResult(next, side);
   }
 
+  /**
+   * Same as {@link #getNextCell(Polygon)} for polygons and sides identified by integers in an
+   * {@link EdgeNeighbourhood}, to avoid allocating sets of coordinates and results.
+   *
+   * @return the id of the next cell, {@link EdgeNeighbourhood#NONE} if there is no neighbour, or
+   *         {@link #INVALID}. The side shared with the current cell is given by
+   *         {@link #getNextSide()}.
+   */
+  public int getNextCell(EdgeNeighbourhood edges, int current) {
+    nextSide = edges.getSide(current, lineBrowseSideId);
+
+    // check inappropriate neighbourhood.
+    if (edges.size(nextSide) > 2) {
+      return INVALID;
+    }
+
+    int next = edges.getNeighbour(current, nextSide);
+
+    if (allowMergeDirectionChange) {
+      while (next == EdgeNeighbourhood.NONE && lineBrowseSideId < 3) {
+        lineBrowseSideId++;
+
+        nextSide = edges.getSide(current, lineBrowseSideId);
+        next = edges.getNeighbour(current, nextSide);
+        if (lineBrowseSideId == 3) {
+          break; // stop after trying the four sides without success
+        }
+      }
+    }
+    return next;
+  }
+
+  public long getNextSide() {
+    return nextSide;
+  }
 }
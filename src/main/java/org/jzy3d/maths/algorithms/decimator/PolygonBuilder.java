@@ -1,9 +1,19 @@
 package org.jzy3d.maths.algorithms.decimator;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import org.jzy3d.plot3d.primitives.Point;
 import org.jzy3d.plot3d.primitives.Polygon;
 
 public interface PolygonBuilder {
   public Polygon buildPolygonEnvelope(Set<Point> vertices);
+
+  /**
+   * Same as {@link #buildPolygonEnvelope(Set)} with distinct vertices given in an array, which
+   * builders can override to avoid wrapping them in a set.
+   */
+  public default Polygon buildPolygonEnvelope(Point[] vertices) {
+    return buildPolygonEnvelope(new LinkedHashSet<>(Arrays.asList(vertices)));
+  }
 }
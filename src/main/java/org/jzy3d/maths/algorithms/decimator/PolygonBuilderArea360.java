@@ -1,6 +1,7 @@
 package org.jzy3d.maths.algorithms.decimator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import org.jzy3d.maths.Angle3d;
@@ -26,12 +27,16 @@ import org.jzy3d.plot3d.primitives.Polygon;
  */
 public class PolygonBuilderArea360 implements PolygonBuilder {
   public Polygon buildPolygonEnvelope(Set<Point> points) {
-    if (points.size() != 4) {
+    return buildPolygonEnvelope(points.toArray(new Point[points.size()]));
+  }
+
+  @Override
+  public Polygon buildPolygonEnvelope(Point[] points) {
+    if (points.length != 4) {
       throw new IllegalArgumentException("Expecting 4 points");
     }
 
-    List<Point> candidates = new ArrayList<>();
-    candidates.addAll(points);
+    List<Point> candidates = new ArrayList<>(Arrays.asList(points));
 
     List<List<Point>> combinations = Permutations.of(candidates);
 
@@ -50,6 +55,6 @@ public class PolygonBuilderArea360 implements PolygonBuilder {
     }
     throw new RuntimeException(
         "Did not find any valid combination for which a sum of 4 points yields to 360°.\n"
-            + "Are input points coplanar? " + points);
+            + "Are input points coplanar? " + Arrays.toString(points));
   }
 }
@@ -53,12 +53,16 @@ public class PolygonBuilderShortestPath implements PolygonBuilder {
    * Note that this merely find a good order for the point but it won't set any Polygon property.
    */
   public Polygon buildPolygonEnvelope(Set<Point> points) {
-    if (points.size() != 4) {
+    return buildPolygonEnvelope(toPointArray(points));
+  }
+
+  /** Same as {@link #buildPolygonEnvelope(Set)}, without copying the points. */
+  @Override
+  public Polygon buildPolygonEnvelope(Point[] a) {
+    if (a.length != 4) {
       throw new IllegalArgumentException("Expecting 4 points");
     }
 
-    Point[] a = toPointArray(points);
-
     double[] distances = new double[orders.length];
     double minDist = Double.MAX_VALUE;
     int minDistId = -1;
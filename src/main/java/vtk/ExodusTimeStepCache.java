@@ -0,0 +1,209 @@
+package vtk;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Play the timesteps of an exodus file without reading the file again for each displayed step.
+ *
+ * The values of the property of each step are copied to Java arrays and kept in a
+ * {@link TimeStepCache} with a memory budget, which reads the next steps in the play direction
+ * in the background.
+ *
+ * When the mesh is static, the geometry of the grids is read once and shared by all steps : only
+ * the property arrays are cached, and {@link #getGrids(int)} sets the property array of the
+ * requested step on the shared grids. Otherwise each step caches a copy of its grids.
+ *
+ * {@link vtkExodusIIReader} can not read result arrays alone, so reading a step always runs a full
+ * <code>Update()</code> of the reader that outputs the geometry again. With a static mesh, the
+ * reader cache is enlarged to hold the points and connectivity of the first step, so that the
+ * following updates take them from memory rather than from the file. Only the property array of
+ * each output is then copied.
+ *
+ * @author Martin Pernollet
+ */
+public class ExodusTimeStepCache {
+  protected static Logger log = LogManager.getLogger(ExodusTimeStepCache.class);
+
+  protected vtkExodusIIReader reader;
+  protected int[] blocks;
+  protected String propertyName;
+  protected boolean staticMesh;
+
+  protected vtkUnstructuredGrid[] geometry;
+  protected TimeStepCache<Step> cache;
+
+  /**
+   * @param reader an exodus reader
+   * @param blocks the status of each element block, or null to read all blocks
+   * @param propertyName a point, element or global result array
+   * @param memoryBudget the max size in bytes of the cached steps
+   * @param staticMesh true if the points and cells of the grids do not change over time, e.g. if
+   *        displacements are not applied
+   */
+  public ExodusTimeStepCache(vtkExodusIIReader reader, int[] blocks, String propertyName,
+      long memoryBudget, boolean staticMesh) {
+    this.reader = reader;
+    this.blocks = blocks;
+    this.propertyName = propertyName;
+    this.staticMesh = staticMesh;
+
+    reader.UpdateInformation();
+    int[] range = reader.GetTimeStepRange();
+
+    if (staticMesh) {
+      vtkUnstructuredGrid[] grids =
+          VTKReader.read_exodusii_grids(reader, blocks, range[0], propertyName);
+
+      geometry = new vtkUnstructuredGrid[grids.length];
+      long geometrySize = 0;
+
+      for (int b = 0; b < grids.length; b++) {
+        geometry[b] = new vtkUnstructuredGrid();
+        geometry[b].DeepCopy(grids[b]);
+        geometrySize += geometry[b].GetActualMemorySize();
+      }
+
+      cacheGeometry(geometrySize);
+    }
+
+    cache = new TimeStepCache<>(this::read, Step::getSize, range[0], range[1], memoryBudget);
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // STEPS
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Return the grids of a step. If the mesh is static, these are the shared grids, holding the
+   * property array of the last requested step.
+   */
+  public vtkUnstructuredGrid[] getGrids(int timestep) {
+    Step step = cache.get(timestep);
+
+    if (!staticMesh)
+      return step.grids;
+
+    for (int b = 0; b < geometry.length; b++) {
+      if (step.values[b] == null)
+        continue;
+
+      vtkFloatArray array = new vtkFloatArray();
+      array.SetName(propertyName);
+      array.SetNumberOfComponents(step.components[b]);
+      array.SetJavaArray(step.values[b]);
+
+      vtkDataSetAttributes data =
+          step.pointData[b] ? geometry[b].GetPointData() : geometry[b].GetCellData();
+      data.RemoveArray(propertyName);
+      data.AddArray(array);
+      data.SetActiveScalars(propertyName);
+
+      geometry[b].Modified();
+    }
+    return geometry;
+  }
+
+  /** Return the property values of each grid at a step, null for grids without the property. */
+  public float[][] getValues(int timestep) {
+    return cache.get(timestep).values;
+  }
+
+  /**
+   * Make the reader cache large enough to keep the geometry, plus as much for the arrays of a step.
+   *
+   * @param geometrySize size of the grids in KiB
+   */
+  protected void cacheGeometry(long geometrySize) {
+    double cacheSize = 2 * geometrySize / 1024.0;
+
+    if (reader.GetCacheSize() < cacheSize) {
+      reader.SetCacheSize(cacheSize);
+      log.debug("Reader cache set to " + cacheSize + " MiB to keep the static geometry");
+    }
+  }
+
+  /**
+   * Read a step and copy what must be cached. This runs a full update of the reader, see the
+   * class documentation.
+   */
+  protected Step read(int timestep) {
+    vtkUnstructuredGrid[] grids =
+        VTKReader.read_exodusii_grids(reader, blocks, timestep, propertyName);
+
+    Step step = new Step(grids.length, !staticMesh);
+
+    for (int b = 0; b < grids.length; b++) {
+      vtkDataArray array = grids[b].GetPointData().GetArray(propertyName);
+      step.pointData[b] = array != null;
+
+      if (array == null)
+        array = grids[b].GetCellData().GetArray(propertyName);
+
+      if (array != null) {
+        step.values[b] = VTKUtils.toFloatArray(array);
+        step.components[b] = array.GetNumberOfComponents();
+        step.size += step.values[b].length * (long) Float.BYTES;
+      }
+
+      if (!staticMesh) {
+        step.grids[b] = new vtkUnstructuredGrid();
+        step.grids[b].DeepCopy(grids[b]);
+        step.size += step.grids[b].GetActualMemorySize() * 1024;
+      }
+    }
+
+    log.debug("Read step " + timestep + " : " + step.size + " bytes");
+    return step;
+  }
+
+  /** The cached data of a step. */
+  public static class Step {
+    protected float[][] values;
+    protected int[] components;
+    protected boolean[] pointData;
+    protected vtkUnstructuredGrid[] grids;
+    protected long size;
+
+    public Step(int numberOfGrids, boolean withGrids) {
+      values = new float[numberOfGrids][];
+      components = new int[numberOfGrids];
+      pointData = new boolean[numberOfGrids];
+      grids = withGrids ? new vtkUnstructuredGrid[numberOfGrids] : null;
+    }
+
+    public long getSize() {
+      return size;
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // GET
+  //
+  ///////////////////////////////////////////////
+
+  /** Return the cache, e.g. to configure the prefetch depth or read statistics. */
+  public TimeStepCache<Step> getCache() {
+    return cache;
+  }
+
+  public boolean isStaticMesh() {
+    return staticMesh;
+  }
+
+  public String getPropertyName() {
+    return propertyName;
+  }
+
+  public vtkExodusIIReader getReader() {
+    return reader;
+  }
+
+  /** Stop prefetching steps. */
+  public void close() {
+    cache.close();
+  }
+}
@@ -0,0 +1,312 @@
+package vtk;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A cache of the data of the timesteps of a time series, evicting the least recently used steps
+ * when the size of cached steps exceeds a memory budget.
+ *
+ * Each time a step is requested, the next steps in the current play direction are read ahead by a
+ * background thread, so that playing the series forward or backward does not wait for the
+ * reader. The play direction is given by the last two requested steps.
+ *
+ * Steps are loaded one at a time, either by the prefetcher or by the thread requesting a step
+ * that is not cached yet, since readers such as <code>vtkExodusIIReader</code> are not thread
+ * safe.
+ *
+ * @param <T> the data of a step
+ * @author Martin Pernollet
+ */
+public class TimeStepCache<T> {
+  protected static Logger log = LogManager.getLogger(TimeStepCache.class);
+
+  public static final int DEFAULT_PREFETCH_DEPTH = 2;
+
+  protected IntFunction<T> loader;
+  protected ToLongFunction<T> sizer;
+  protected int firstStep;
+  protected int lastStep;
+  protected long memoryBudget;
+  protected int prefetchDepth = DEFAULT_PREFETCH_DEPTH;
+
+  /** Cached steps in access order, the eldest being the least recently used. */
+  protected LinkedHashMap<Integer, T> steps = new LinkedHashMap<>(16, 0.75f, true);
+  protected Map<Integer, CompletableFuture<T>> pending = new HashMap<>();
+  protected long size;
+
+  protected int currentStep = -1;
+  protected int direction = 1;
+
+  protected Object loadLock = new Object();
+  protected ExecutorService prefetcher;
+
+  protected int hits;
+  protected int misses;
+  protected int prefetched;
+
+  /**
+   * @param loader read the data of a step
+   * @param sizer return the size in bytes of the data of a step
+   * @param firstStep the first step of the series
+   * @param lastStep the last step of the series
+   * @param memoryBudget the max size in bytes of the cached steps, the last requested step being
+   *        kept even if it exceeds the budget alone
+   */
+  public TimeStepCache(IntFunction<T> loader, ToLongFunction<T> sizer, int firstStep,
+      int lastStep, long memoryBudget) {
+    if (lastStep < firstStep)
+      throw new IllegalArgumentException(
+          "Invalid step range : " + firstStep + " to " + lastStep);
+    if (memoryBudget < 0)
+      throw new IllegalArgumentException("Memory budget should be positive, not " + memoryBudget);
+
+    this.loader = loader;
+    this.sizer = sizer;
+    this.firstStep = firstStep;
+    this.lastStep = lastStep;
+    this.memoryBudget = memoryBudget;
+
+    this.prefetcher = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "TimeStepCache prefetcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // GET
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Return the data of a step, reading it if it is neither cached nor being prefetched, then
+   * prefetch the next steps in the play direction.
+   */
+  public T get(int step) {
+    if (step < firstStep || step > lastStep)
+      throw new IllegalArgumentException(
+          "Step " + step + " out of range " + firstStep + " to " + lastStep);
+
+    CompletableFuture<T> future;
+
+    synchronized (this) {
+      if (currentStep != -1 && step != currentStep)
+        direction = step > currentStep ? 1 : -1;
+      currentStep = step;
+
+      T data = steps.get(step);
+      if (data != null) {
+        hits++;
+        prefetch(step);
+        return data;
+      }
+
+      misses++;
+      future = pending.get(step);
+    }
+
+    // A step skipped by the prefetcher completes with null
+    T data = future != null ? await(future) : null;
+    if (data == null)
+      data = load(step);
+
+    synchronized (this) {
+      prefetch(step);
+    }
+    return data;
+  }
+
+  /** Return the data of a step if it is cached, without reading it nor prefetching. */
+  public synchronized T getIfCached(int step) {
+    return steps.get(step);
+  }
+
+  public synchronized boolean isCached(int step) {
+    return steps.containsKey(step);
+  }
+
+  /** Read a step, unless it was cached while waiting for another load to finish. */
+  protected T load(int step) {
+    synchronized (loadLock) {
+      synchronized (this) {
+        T data = steps.get(step);
+        if (data != null)
+          return data;
+      }
+
+      T data = loader.apply(step);
+      put(step, data);
+      return data;
+    }
+  }
+
+  protected T await(CompletableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  protected synchronized void put(int step, T data) {
+    T previous = steps.put(step, data);
+    if (previous != null)
+      size -= sizer.applyAsLong(previous);
+    size += sizer.applyAsLong(data);
+
+    evict();
+  }
+
+  /** Evict least recently used steps, except the current one, until the budget is respected. */
+  protected synchronized void evict() {
+    Iterator<Map.Entry<Integer, T>> eldest = steps.entrySet().iterator();
+
+    while (size > memoryBudget && eldest.hasNext()) {
+      Map.Entry<Integer, T> entry = eldest.next();
+
+      if (entry.getKey() != currentStep) {
+        size -= sizer.applyAsLong(entry.getValue());
+        eldest.remove();
+      }
+    }
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // PREFETCH
+  //
+  ///////////////////////////////////////////////
+
+  /** Submit the read of the steps following the given one in the play direction. */
+  protected synchronized void prefetch(int step) {
+    if (prefetcher.isShutdown())
+      return;
+
+    for (int k = 1; k <= prefetchDepth; k++) {
+      int next = step + k * direction;
+
+      if (next < firstStep || next > lastStep || steps.containsKey(next)
+          || pending.containsKey(next))
+        continue;
+
+      CompletableFuture<T> future = new CompletableFuture<>();
+      pending.put(next, future);
+
+      prefetcher.execute(() -> {
+        try {
+          T data = null;
+
+          // Skip steps that are no longer ahead after a seek or a change of direction
+          if (isAhead(next)) {
+            data = load(next);
+            synchronized (this) {
+              prefetched++;
+            }
+          }
+          future.complete(data);
+        } catch (Throwable t) {
+          log.error("Failed prefetching step " + next, t);
+          future.completeExceptionally(t);
+        } finally {
+          synchronized (this) {
+            pending.remove(next);
+          }
+        }
+      });
+    }
+  }
+
+  /** Return true if the step is within the prefetch depth in the play direction. */
+  protected synchronized boolean isAhead(int step) {
+    int distance = (step - currentStep) * direction;
+    return distance > 0 && distance <= prefetchDepth;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // SETTINGS AND STATISTICS
+  //
+  ///////////////////////////////////////////////
+
+  /** Return the number of steps read ahead in the play direction. */
+  public int getPrefetchDepth() {
+    return prefetchDepth;
+  }
+
+  /** Set the number of steps read ahead in the play direction, 0 disabling prefetch. */
+  public synchronized void setPrefetchDepth(int prefetchDepth) {
+    this.prefetchDepth = prefetchDepth;
+  }
+
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  public synchronized void setMemoryBudget(long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+    evict();
+  }
+
+  /** Return the size in bytes of the cached steps. */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public synchronized int getNumberOfCachedSteps() {
+    return steps.size();
+  }
+
+  /** Return 1 if the last requested steps are played forward, -1 if they are played backward. */
+  public synchronized int getDirection() {
+    return direction;
+  }
+
+  /** Return the number of requested steps that were already cached. */
+  public synchronized int getHits() {
+    return hits;
+  }
+
+  /** Return the number of requested steps that were read or waited for. */
+  public synchronized int getMisses() {
+    return misses;
+  }
+
+  /** Return the number of steps read by the prefetcher. */
+  public synchronized int getPrefetched() {
+    return prefetched;
+  }
+
+  public int getFirstStep() {
+    return firstStep;
+  }
+
+  public int getLastStep() {
+    return lastStep;
+  }
+
+  /** Forget all cached steps. */
+  public synchronized void clear() {
+    steps.clear();
+    size = 0;
+  }
+
+  /** Stop the prefetcher thread. Steps requested afterward are read synchronously. */
+  public synchronized void close() {
+    prefetcher.shutdown();
+  }
+}
@@ -1,15 +1,27 @@
 package vtk;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jzy3d.io.vtk.LoadPlan;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import org.jzy3d.io.vtk.xml.VTUReader;
 import org.jzy3d.maths.Array;
 import org.jzy3d.maths.Coord3d;
 import org.jzy3d.maths.TicToc;
 
-/** A helper class that will select the appropriate reader according to the VTK file extension. */
+/**
+ * A helper class that will select the appropriate reader according to the VTK file extension.
+ *
+ * Readers may be given a {@link LoadPlan} to only read the point, cell or result arrays that will
+ * be displayed, along with points and cells.
+ */
 public class VTKReader {
   static Logger log = LogManager.getLogger(VTKReader.class);
 
@@ -35,6 +47,31 @@ public class VTKReader {
     }
   }
 
+  /** Return a reader for the file, configured to only read the arrays of the load plan. */
+  public static vtkAlgorithm getReader(String filename, LoadPlan plan) {
+    vtkAlgorithm reader = getReader(filename);
+    configure(reader, plan);
+    return reader;
+  }
+
+  /**
+   * Read the file with the pure Java readers, which do not require VTK natives, decoding only the
+   * arrays of the load plan.
+   */
+  public static VTUDataset readDataset(String filename, LoadPlan plan) throws IOException {
+    if (filename.endsWith(".vtu")) {
+      VTUReader reader = new VTUReader();
+      reader.setLoadPlan(plan);
+      return reader.read(filename);
+    } else if (filename.endsWith(".pvtu")) {
+      PVTUReader reader = new PVTUReader();
+      reader.setLoadPlan(plan);
+      return reader.read(filename);
+    } else {
+      throw new IllegalArgumentException("Only support VTU and PVTU extensions");
+    }
+  }
+
   public static vtkUnstructuredGrid getReaderOutput(String filename, int timestep) {
     if (!new File(filename).exists())
       throw new RuntimeException(filename + " does not exists");
@@ -53,7 +90,21 @@ public class VTKReader {
     return getOutput(reader);
   }
 
+  /** Read the file, only decoding the arrays of the load plan along with points and cells. */
+  public static vtkUnstructuredGrid getReaderOutput(String filename, LoadPlan plan) {
+    return getOutput(getReader(filename), plan);
+  }
+
+  /**
+   * Update the reader and return its output. Exodus readers read all their arrays, XML readers
+   * read the arrays enabled by their current configuration, which is all arrays by default.
+   */
   public static vtkUnstructuredGrid getOutput(vtkAlgorithm reader) {
+    // Exodus reader is updated once its arrays are selected
+    if (reader instanceof vtkExodusIIReader) {
+      return read_exodusii_grid((vtkExodusIIReader) reader, 0, LoadPlan.ALL);
+    }
+
     TicToc clock = new TicToc();
     clock.tic();
     reader.Update();
@@ -63,11 +114,79 @@ public class VTKReader {
       return ((vtkXMLUnstructuredGridReader) reader).GetOutput();
     } else if (reader instanceof vtkXMLPUnstructuredGridReader) {
       return ((vtkXMLPUnstructuredGridReader) reader).GetOutput();
+    } else {
+      throw new IllegalArgumentException("Unsupported reader");
+    }
+  }
+
+  /** Update the reader with only the arrays of the load plan enabled, and return its output. */
+  public static vtkUnstructuredGrid getOutput(vtkAlgorithm reader, LoadPlan plan) {
+    if (reader instanceof vtkExodusIIReader) {
+      return read_exodusii_grid((vtkExodusIIReader) reader, 0, plan);
+    }
+
+    configure(reader, plan);
+    return getOutput(reader);
+  }
+
+  /////////////////////////////////////////////////////
+  //
+  // LOAD PLAN
+  //
+  /////////////////////////////////////////////////////
+
+  /**
+   * Enable the arrays of the load plan and disable all others, so that the next
+   * <code>Update()</code> of the reader only reads points, cells and the needed arrays.
+   *
+   * XML readers apply the plan to their point and cell arrays, exodus readers to their point,
+   * element and global result arrays.
+   *
+   * @return the number of enabled arrays
+   */
+  public static int configure(vtkAlgorithm reader, LoadPlan plan) {
+    if (plan == null)
+      throw new IllegalArgumentException("Load plan should not be null, use LoadPlan.ALL");
+
+    // Array names are only known once the file meta data has been read
+    reader.UpdateInformation();
+
+    int enabled = 0;
+
+    if (reader instanceof vtkXMLReader) {
+      vtkXMLReader xml = (vtkXMLReader) reader;
+      enabled += configure(plan, xml.GetNumberOfPointArrays(), xml::GetPointArrayName,
+          xml::SetPointArrayStatus);
+      enabled += configure(plan, xml.GetNumberOfCellArrays(), xml::GetCellArrayName,
+          xml::SetCellArrayStatus);
     } else if (reader instanceof vtkExodusIIReader) {
-      return read_exodusii_grid((vtkExodusIIReader) reader, 0);
+      vtkExodusIIReader exodus = (vtkExodusIIReader) reader;
+      enabled += configure(plan, exodus.GetNumberOfPointResultArrays(),
+          exodus::GetPointResultArrayName, exodus::SetPointResultArrayStatus);
+      enabled += configure(plan, exodus.GetNumberOfElementResultArrays(),
+          exodus::GetElementResultArrayName, exodus::SetElementResultArrayStatus);
+      enabled += configure(plan, exodus.GetNumberOfGlobalResultArrays(),
+          exodus::GetGlobalResultArrayName, exodus::SetGlobalResultArrayStatus);
     } else {
       throw new IllegalArgumentException("Unsupported reader");
     }
+
+    log.debug(plan + " enabled " + enabled + " arrays");
+    return enabled;
+  }
+
+  /** Set the status of each array according to the plan and return the number of enabled ones. */
+  protected static int configure(LoadPlan plan, int numberOfArrays, IntFunction<String> getName,
+      ObjIntConsumer<String> setStatus) {
+    int enabled = 0;
+
+    for (int k = 0; k < numberOfArrays; k++) {
+      String name = getName.apply(k);
+      int status = plan.isNeeded(name) ? 1 : 0;
+      setStatus.accept(name, status);
+      enabled += status;
+    }
+    return enabled;
   }
 
   /**
@@ -75,33 +194,18 @@ public class VTKReader {
    *
    * @param reader
    * @param timestep
+   * @param plan the result arrays to read
    * @return
    */
-  private static vtkUnstructuredGrid read_exodusii_grid(vtkExodusIIReader reader, int timestep) {
-    // Fetch metadata.
-    reader.UpdateInformation();
+  private static vtkUnstructuredGrid read_exodusii_grid(vtkExodusIIReader reader, int timestep,
+      LoadPlan plan) {
+    // Fetch metadata and make sure the point, element and global fields of the plan, and only
+    // them, are read during Update().
+    configure(reader, plan);
 
     // Set time step to read.
     reader.SetTimeStep(timestep);
 
-    // Make sure the point fields are read during Update().
-    for (int k = 0; k < reader.GetNumberOfPointResultArrays(); k++) {
-      String arr_name = reader.GetPointResultArrayName(k);
-      reader.SetPointResultArrayStatus(arr_name, 1);
-    }
-
-    // Make sure the element fields are read during Update().
-    for (int k = 0; k < reader.GetNumberOfElementResultArrays(); k++) {
-      String arr_name = reader.GetElementResultArrayName(k);
-      reader.SetElementResultArrayStatus(arr_name, 1);
-    }
-
-    // Make sure all global field data is read.
-    for (int k = 0; k < reader.GetNumberOfGlobalResultArrays(); k++) {
-      String arr_name = reader.GetGlobalResultArrayName(k);
-      reader.SetGlobalResultArrayStatus(arr_name, 1);
-    }
-
     // Read the file.
     reader.Update();
     vtkMultiBlockDataSet out = reader.GetOutput();
@@ -163,45 +267,22 @@ public class VTKReader {
     // Set time step to read.
     reader.SetTimeStep(timestep);
 
-    // Read the file.
-    reader.Update();
-
     // read in the element blocks, make a surface filter for each, push_back into vector:
     for (int z = 0; z < reader.GetNumberOfElementBlockArrays(); z++) {
       String bname = reader.GetElementBlockArrayName(z);
       int status = blocks == null ? 1 : blocks[z];
       reader.SetElementBlockArrayStatus(bname, status);
-      System.out.println("Element block " + z + "; Name = '" + bname + "'; status=" + status);
-    }
-
-    boolean found = false;
-    for (int i = 0; i < reader.GetNumberOfPointResultArrays(); i++) {
-      if (propertyName.equals(reader.GetPointResultArrayName(i))) {
-        reader.SetPointResultArrayStatus(propertyName, 1);
-        found = true;
-        System.out.println("Selected POINT array " + propertyName);
-      }
+      log.debug("Element block " + z + "; Name = '" + bname + "'; status=" + status);
     }
-    if (!found)
-      for (int i = 0; i < reader.GetNumberOfElementResultArrays(); i++) {
-        if (propertyName.equals(reader.GetElementResultArrayName(i))) {
-          reader.SetElementResultArrayStatus(propertyName, 1);
-          found = true;
-          System.out.println("Selected ELEMENT array " + propertyName);
-        }
-      }
-    if (!found)
-      for (int i = 0; i < reader.GetNumberOfGlobalResultArrays(); i++) {
-        if (propertyName.equals(reader.GetGlobalResultArrayName(i))) {
-          reader.SetGlobalResultArrayStatus(propertyName, 1);
-          found = true;
-          System.out.println("Selected GLOBAL array " + propertyName);
-        }
-      }
 
-    if (!found) {
+    // Only read the selected property, whether it is a point, element or global array
+    if (configure(reader, new LoadPlan(propertyName)) == 0) {
       throw new IllegalArgumentException("Can not load property: '" + propertyName + "'");
     }
+    log.debug("Selected array " + propertyName);
+
+    // Read the file.
+    reader.Update();
 
     vtkMultiBlockDataSet out = reader.GetOutput();
 
@@ -1,6 +1,7 @@
 package vtk;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Map;
 import org.jzy3d.os.OperatingSystem;
 import vtk.rendering.jogl.Environment;
@@ -222,6 +223,124 @@ public class VTKUtils {
     return outputArray;
   }
 
+  /**
+   * Copy a VTK array to an int array with a single JNI transfer, instead of one
+   * {@link vtkDataArray#GetTuple1(long)} call per value.
+   * 
+   * 64 bit arrays such as the cell array offsets and connectivity do not provide a
+   * <code>GetJavaArray()</code> method, so they are first converted natively to a
+   * {@link vtkIntArray}.
+   */
+  public static int[] toIntArray(vtkDataArray array) {
+    int size = (int) array.GetNumberOfValues();
+    int[] values;
+
+    if (array instanceof vtkIntArray) {
+      values = ((vtkIntArray) array).GetJavaArray();
+    } else {
+      vtkIntArray copy = new vtkIntArray();
+      copy.DeepCopy(array);
+      values = copy.GetJavaArray();
+      copy.Delete();
+    }
+
+    // Java array copy may return more values than expected, see VTKReader.useVTKArrayCopy
+    if (values.length == size) {
+      return values;
+    } else if (values.length > size) {
+      return Arrays.copyOf(values, size);
+    } else {
+      return toIntArray(array, size);
+    }
+  }
+
+  /**
+   * Copy all values of a VTK array, components included, to a float array with a single JNI
+   * transfer. Arrays of other types are first converted natively to a {@link vtkFloatArray}.
+   */
+  public static float[] toFloatArray(vtkDataArray array) {
+    int size = (int) array.GetNumberOfValues();
+    float[] values;
+
+    if (array instanceof vtkFloatArray) {
+      values = ((vtkFloatArray) array).GetJavaArray();
+    } else {
+      vtkFloatArray copy = new vtkFloatArray();
+      copy.DeepCopy(array);
+      values = copy.GetJavaArray();
+      copy.Delete();
+    }
+
+    if (values.length == size) {
+      return values;
+    } else if (values.length > size) {
+      return Arrays.copyOf(values, size);
+    } else {
+      int components = array.GetNumberOfComponents();
+      float[] out = new float[size];
+      for (int i = 0; i < size; i++) {
+        out[i] = (float) array.GetComponent(i / components, i % components);
+      }
+      return out;
+    }
+  }
+
+  /**
+   * Copy all values of a VTK array, components included, to a double array with a single JNI
+   * transfer. Arrays of other types are first converted natively to a {@link vtkDoubleArray}.
+   */
+  public static double[] toDoubleArray(vtkDataArray array) {
+    int size = (int) array.GetNumberOfValues();
+    double[] values;
+
+    if (array instanceof vtkDoubleArray) {
+      values = ((vtkDoubleArray) array).GetJavaArray();
+    } else {
+      vtkDoubleArray copy = new vtkDoubleArray();
+      copy.DeepCopy(array);
+      values = copy.GetJavaArray();
+      copy.Delete();
+    }
+
+    if (values.length == size) {
+      return values;
+    } else if (values.length > size) {
+      return Arrays.copyOf(values, size);
+    } else {
+      int components = array.GetNumberOfComponents();
+      double[] out = new double[size];
+      for (int i = 0; i < size; i++) {
+        out[i] = array.GetComponent(i / components, i % components);
+      }
+      return out;
+    }
+  }
+
+  /**
+   * Return the type of each cell of the dataset. Unstructured grids have their cell types copied
+   * with a single JNI transfer, other datasets are queried cell by cell.
+   */
+  public static int[] getCellTypes(vtkDataSet dataset) {
+    int size = (int) dataset.GetNumberOfCells();
+    int[] types = new int[size];
+
+    if (dataset instanceof vtkUnstructuredGrid) {
+      byte[] bytes = ((vtkUnstructuredGrid) dataset).GetCellTypesArray().GetJavaArray();
+
+      if (bytes.length >= size) {
+        for (int i = 0; i < size; i++) {
+          types[i] = bytes[i] & 0xFF;
+        }
+        return types;
+      }
+    }
+
+    for (int i = 0; i < size; i++) {
+      types[i] = dataset.GetCellType(i);
+    }
+    return types;
+  }
+
   public static double[][] toDoubleMatrix3(vtkPoints points) {
     double[][] coordinates = new double[(int) points.GetNumberOfPoints()][];
 
@@ -6,6 +6,7 @@ import org.jzy3d.chart.Chart;
 import org.jzy3d.chart.factories.AWTChartFactory;
 import org.jzy3d.chart.factories.ChartFactory;
 import org.jzy3d.colors.Color;
+import org.jzy3d.io.vtk.LoadPlan;
 import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder;
 import org.jzy3d.plot3d.primitives.CoplanarityManager;
 import org.jzy3d.plot3d.primitives.Drawable;
@@ -46,7 +47,8 @@ public class PVTU {
   }
 
   public static void readAndShow(String file, String propertyName) {
-    vtkAlgorithm reader = VTKReader.getReader(file);
+    // only read the displayed property
+    vtkAlgorithm reader = VTKReader.getReader(file, new LoadPlan(propertyName));
     vtkUnstructuredGrid ugrid = VTKReader.getOutput(reader);
 
     // select the property on which contour should be processed
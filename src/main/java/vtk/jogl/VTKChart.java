@@ -624,11 +624,21 @@ public class VTKChart {
 
   
   public vtkExodusIIReader getExodusIIReader(String file, String propertyName) {
+    return getExodusIIReader(file, propertyName, -1);
+  }
+
+  /**
+   * Return a reader of the given timestep, or of the last timestep if the timestep is negative.
+   * 
+   * @see vtk.ExodusTimeStepCache to play the timesteps without reading them again
+   */
+  public vtkExodusIIReader getExodusIIReader(String file, String propertyName, int timestep) {
     vtkExodusIIReader reader = (vtkExodusIIReader) VTKReader.getReader(file);
     int[] timerange = reader.GetTimeStepRange();
 
     // Despite not retrieving the grids, this is useful to make the slab colored
-    VTKReader.read_exodusii_grids(reader, new int[] {1, 0}, timerange[1], propertyName);
+    VTKReader.read_exodusii_grids(reader, new int[] {1, 0}, timestep < 0 ? timerange[1] : timestep,
+        propertyName);
 
     // Fetch metadata.
     reader.UpdateInformation();
@@ -0,0 +1,188 @@
+package vtk.processing;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jzy3d.colors.Color;
+import org.jzy3d.maths.Coord3d;
+import org.jzy3d.plot3d.primitives.LineStrip;
+import org.jzy3d.plot3d.text.drawable.DrawableText;
+import org.jzy3d.plot3d.text.drawable.DrawableTextWrapper;
+import vtk.VTKUtils;
+import vtk.vtkCellArray;
+import vtk.vtkDataArray;
+import vtk.vtkPoints;
+import vtk.vtkPolyData;
+
+/**
+ * The lines of a contour, as output by a <code>vtkStripper</code>, copied once to Java arrays :
+ * point coordinates, point scalars, and line offsets and connectivity in the
+ * <code>vtkCellArray</code> convention.
+ *
+ * Reading these arrays rather than querying VTK for each point avoids one JNI call and one
+ * <code>double[]</code> allocation per contour point, which dominates the refresh of dense
+ * contours.
+ *
+ * Lines can be turned into {@link LineStrip}s, or into a single vertex array where each line is a
+ * range given by {@link #getLineStarts()} and {@link #getLineLengths()}, which is the input of a
+ * single <code>glMultiDrawArrays(GL_LINE_STRIP, ...)</code> call.
+ *
+ * @author Martin Pernollet
+ */
+public class IsoLineArrays {
+  protected static final int DIMENSIONS = 3;
+
+  protected float[] coordinates;
+  protected double[] scalars;
+  protected int[] offsets;
+  protected int[] connectivity;
+
+  /**
+   * @param coordinates x,y,z coordinates of each point
+   * @param scalars contour value of each point, may be null if labels are not needed
+   * @param offsets start of each line in the connectivity array, plus the end of the last line
+   * @param connectivity point ids of the lines
+   */
+  public IsoLineArrays(float[] coordinates, double[] scalars, int[] offsets, int[] connectivity) {
+    this.coordinates = coordinates;
+    this.scalars = scalars;
+    this.offsets = offsets;
+    this.connectivity = connectivity;
+  }
+
+  /** Copy the points, scalars and lines of a contour output in bulk. */
+  public static IsoLineArrays read(vtkPolyData contour) {
+    return read(contour.GetPoints(), contour.GetLines(), contour.GetPointData().GetScalars());
+  }
+
+  /**
+   * Copy the points, scalars and lines of a contour in bulk.
+   *
+   * @param points the contour points, may be null or empty if the contour has no line
+   * @param lines the contour lines
+   * @param scalars the contour value of each point, may be null if labels are not needed
+   */
+  public static IsoLineArrays read(vtkPoints points, vtkCellArray lines, vtkDataArray scalars) {
+    float[] coordinates = points != null && points.GetNumberOfPoints() > 0
+        ? VTKUtils.toFloatArray(points.GetData())
+        : new float[0];
+
+    return new IsoLineArrays(coordinates, scalars != null ? VTKUtils.toDoubleArray(scalars) : null,
+        VTKUtils.toIntArray(lines.GetOffsetsArray()),
+        VTKUtils.toIntArray(lines.GetConnectivityArray()));
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // DRAWABLES
+  //
+  ///////////////////////////////////////////////
+
+  /** Return one line strip per line having at least the given number of points. */
+  public List<LineStrip> toLineStrips(Color color, float width, int minPoints) {
+    List<LineStrip> strips = new ArrayList<>(getNumberOfLines());
+
+    for (int line = 0; line < getNumberOfLines(); line++) {
+      if (getNumberOfPoints(line) < minPoints)
+        continue;
+
+      LineStrip strip = new LineStrip(color);
+      strip.setWidth(width);
+
+      for (int i = offsets[line]; i < offsets[line + 1]; i++) {
+        strip.add(getCoord(connectivity[i]));
+      }
+      strips.add(strip);
+    }
+    return strips;
+  }
+
+  /**
+   * Return a text showing the contour value at the mid point of each line having at least the
+   * given number of points.
+   */
+  public List<DrawableTextWrapper> toLabels(Color color, int minPoints) {
+    if (scalars == null)
+      throw new IllegalArgumentException("Contour has no scalars to label lines");
+
+    List<DrawableTextWrapper> labels = new ArrayList<>(getNumberOfLines());
+
+    for (int line = 0; line < getNumberOfLines(); line++) {
+      if (getNumberOfPoints(line) < minPoints)
+        continue;
+
+      int midPointId = getMidPoint(line);
+      labels.add(new DrawableText("" + scalars[midPointId], getCoord(midPointId), color));
+    }
+    return labels;
+  }
+
+  /**
+   * Return the coordinates of the points of all lines, in line order, so that line
+   * <code>i</code> is made of {@link #getLineLengths()}[i] vertices starting at vertex
+   * {@link #getLineStarts()}[i].
+   */
+  public float[] toVertexArray() {
+    float[] vertices = new float[connectivity.length * DIMENSIONS];
+    for (int i = 0; i < connectivity.length; i++) {
+      System.arraycopy(coordinates, connectivity[i] * DIMENSIONS, vertices, i * DIMENSIONS,
+          DIMENSIONS);
+    }
+    return vertices;
+  }
+
+  /** Return the first vertex of each line in {@link #toVertexArray()}. */
+  public int[] getLineStarts() {
+    int[] starts = new int[getNumberOfLines()];
+    System.arraycopy(offsets, 0, starts, 0, starts.length);
+    return starts;
+  }
+
+  /** Return the number of vertices of each line in {@link #toVertexArray()}. */
+  public int[] getLineLengths() {
+    int[] lengths = new int[getNumberOfLines()];
+    for (int line = 0; line < lengths.length; line++) {
+      lengths[line] = getNumberOfPoints(line);
+    }
+    return lengths;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // QUERIES
+  //
+  ///////////////////////////////////////////////
+
+  public int getNumberOfLines() {
+    return Math.max(offsets.length - 1, 0);
+  }
+
+  public int getNumberOfPoints(int line) {
+    return offsets[line + 1] - offsets[line];
+  }
+
+  /** Return the point in the middle of the line, used to hold its label. */
+  public int getMidPoint(int line) {
+    return connectivity[offsets[line] + getNumberOfPoints(line) / 2];
+  }
+
+  public Coord3d getCoord(int pointId) {
+    int i = pointId * DIMENSIONS;
+    return new Coord3d(coordinates[i], coordinates[i + 1], coordinates[i + 2]);
+  }
+
+  public float[] getCoordinates() {
+    return coordinates;
+  }
+
+  public double[] getScalars() {
+    return scalars;
+  }
+
+  public int[] getOffsets() {
+    return offsets;
+  }
+
+  public int[] getConnectivity() {
+    return connectivity;
+  }
+}
@@ -0,0 +1,102 @@
+package vtk.processing;
+
+import java.util.Arrays;
+
+/**
+ * The cells of a single level of a multi-level isosurface. The view does not copy geometry : all
+ * levels share the coordinates, offsets and connectivity arrays of the multi-level output, and
+ * each view is the range of cells between {@link #getFromCell()} (included) and
+ * {@link #getToCell()} (excluded).
+ *
+ * Point ids of the cells refer to the shared coordinates, so that a level can be drawn by binding
+ * the shared coordinates once and only drawing the elements of the level.
+ *
+ * @see VTKIsoSurfaceProcessor#getLevelViews(vtk.vtkProbeFilter, double[])
+ * @author Martin Pernollet
+ */
+public class IsoSurfaceView {
+  protected double level;
+  protected float[] coordinates;
+  protected float[] normals;
+  protected int[] offsets;
+  protected int[] connectivity;
+  protected int fromCell;
+  protected int toCell;
+
+  public IsoSurfaceView(double level, float[] coordinates, float[] normals, int[] offsets,
+      int[] connectivity, int fromCell, int toCell) {
+    this.level = level;
+    this.coordinates = coordinates;
+    this.normals = normals;
+    this.offsets = offsets;
+    this.connectivity = connectivity;
+    this.fromCell = fromCell;
+    this.toCell = toCell;
+  }
+
+  /** Return the point ids of the cells of this level, copied from the shared connectivity. */
+  public int[] getElements() {
+    return Arrays.copyOfRange(connectivity, getElementsStart(), getElementsEnd());
+  }
+
+  /** Return the first index of this level in the shared connectivity array. */
+  public int getElementsStart() {
+    return offsets[fromCell];
+  }
+
+  /** Return the index following the last index of this level in the shared connectivity array. */
+  public int getElementsEnd() {
+    return offsets[toCell];
+  }
+
+  /** Return the point ids of a cell of this level, 0 being the first cell of the level. */
+  public int[] getCell(int cell) {
+    int c = fromCell + cell;
+    return Arrays.copyOfRange(connectivity, offsets[c], offsets[c + 1]);
+  }
+
+  public double getLevel() {
+    return level;
+  }
+
+  public int getNumberOfCells() {
+    return toCell - fromCell;
+  }
+
+  public boolean isEmpty() {
+    return toCell == fromCell;
+  }
+
+  public int getFromCell() {
+    return fromCell;
+  }
+
+  public int getToCell() {
+    return toCell;
+  }
+
+  /** Return the coordinates shared by all levels. */
+  public float[] getCoordinates() {
+    return coordinates;
+  }
+
+  /** Return the normals shared by all levels, or null if they were not computed. */
+  public float[] getNormals() {
+    return normals;
+  }
+
+  /** Return the offsets shared by all levels. */
+  public int[] getOffsets() {
+    return offsets;
+  }
+
+  /** Return the connectivity shared by all levels. */
+  public int[] getConnectivity() {
+    return connectivity;
+  }
+
+  @Override
+  public String toString() {
+    return "IsoSurfaceView(level:" + level + ", cells:" + getNumberOfCells() + ")";
+  }
+}
@@ -0,0 +1,572 @@
+package vtk.processing;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import com.jogamp.common.nio.Buffers;
+import vtk.VTKGeometry;
+
+/**
+ * Resample a point property of an unstructured grid on a regular grid of voxels without VTK
+ * natives, as {@link VTKRegularMatrixProcessor#getProbeFilter(vtk.vtkUnstructuredGrid, String,
+ * int[], double)} does with a single threaded <code>vtkProbeFilter</code>.
+ *
+ * The regular grid follows the probe filter settings : its origin is the min of the (grown) bounds
+ * of the points, and its spacing is the (grown) bounds range divided by the number of voxels of
+ * each dimension.
+ *
+ * Cells are registered in a uniform grid of bins covering the bounds. Each voxel is then evaluated
+ * in the first candidate cell of its bin that contains it :
+ * <ul>
+ * <li>hexahedra and voxels with trilinear interpolation, after inverting the trilinear mapping by
+ * Newton iterations, as <code>vtkHexahedron</code> does,
+ * <li>tetrahedra with barycentric interpolation.
+ * </ul>
+ * Other cell types are ignored. Voxels out of all cells get the {@link #getNullValue()}, as the
+ * probe filter does.
+ *
+ * Z slabs of the regular grid are evaluated in parallel and written to a direct
+ * {@link FloatBuffer} in the VTK point order, X varying first, then Y, then Z.
+ *
+ * @author Martin Pernollet
+ */
+public class RegularGridResampler {
+  protected static Logger log = LogManager.getLogger(RegularGridResampler.class);
+
+  protected static final int DIMENSIONS = 3;
+
+  /** Tolerance on parametric coordinates to consider a point inside a cell, as VTK does. */
+  protected static final double PARAMETRIC_TOLERANCE = 0.001;
+  protected static final double CONVERGENCE = 1e-6;
+  protected static final int MAX_ITERATIONS = 10;
+
+  /** Hexahedron points in the order of a voxel, to process both with the same shape functions. */
+  protected static final int[] VOXEL_TO_HEXAHEDRON = {0, 1, 3, 2, 4, 5, 7, 6};
+
+  protected float nullValue = 0;
+
+  // input
+  protected float[] coordinates;
+  protected float[] values;
+  protected int[] offsets;
+  protected int[] connectivity;
+  protected int[] types;
+
+  // cell locator
+  protected float[] cellBounds;
+  protected double[] binOrigin = new double[DIMENSIONS];
+  protected double[] binSize = new double[DIMENSIONS];
+  protected int[] bins = new int[DIMENSIONS];
+  protected int[] binStart;
+  protected int[] binCells;
+
+  // output
+  protected int[] dims;
+  protected double[] bounds;
+  protected double[] origin;
+  protected double[] spacing;
+  protected FloatBuffer buffer;
+  protected int numberOfOutsideVoxels;
+
+  ///////////////////////////////////////////////
+  //
+  // RESAMPLE
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Resample a point property on a regular grid covering the bounds of the points.
+   *
+   * @param dataset the input data
+   * @param property the point property to resample
+   * @param dims the number of voxel for each dimensions
+   * @param growRatio the input bounds growth applied to ensure all points lead to a voxel
+   * @return the voxel values, X varying first
+   */
+  public FloatBuffer resample(VTUDataset dataset, String property, int[] dims, double growRatio) {
+    return resample(dataset.getCoordinates(), dataset.getPointDataAsFloat(property),
+        dataset.getOffsets(), dataset.getConnectivity(), dataset.getCellTypes(), dims, growRatio);
+  }
+
+  /**
+   * Resample point values on a regular grid covering the bounds of the points.
+   *
+   * @param coordinates x,y,z coordinates of each point
+   * @param values the value of each point
+   * @param offsets start of each cell in the connectivity array, plus the end of the last cell
+   * @param connectivity point ids of the cells
+   * @param types the {@link VTKGeometry} type of each cell
+   * @param dims the number of voxel for each dimensions
+   * @param growRatio the input bounds growth applied to ensure all points lead to a voxel
+   * @return the voxel values, X varying first
+   */
+  public FloatBuffer resample(float[] coordinates, float[] values, int[] offsets,
+      int[] connectivity, int[] types, int[] dims, double growRatio) {
+    if (dims.length != DIMENSIONS || dims[0] < 1 || dims[1] < 1 || dims[2] < 1)
+      throw new IllegalArgumentException("Expect 3 positive dimensions, not "
+          + Arrays.toString(dims));
+    if (values.length * DIMENSIONS != coordinates.length)
+      throw new IllegalArgumentException(
+          "Expect one value per point, got " + values.length + " values for "
+              + coordinates.length / DIMENSIONS + " points");
+
+    this.coordinates = coordinates;
+    this.values = values;
+    this.offsets = offsets;
+    this.connectivity = connectivity;
+    this.types = types;
+    this.dims = dims.clone();
+
+    // Regular grid, as defined by the probe filter
+    bounds = getBounds(coordinates);
+
+    if (growRatio > 0)
+      VTKRegularMatrixProcessor.growBounds(bounds, growRatio);
+
+    origin = new double[] {bounds[0], bounds[2], bounds[4]};
+    spacing = new double[] {(bounds[1] - bounds[0]) / dims[0], (bounds[3] - bounds[2]) / dims[1],
+        (bounds[5] - bounds[4]) / dims[2]};
+
+    buildLocator();
+
+    // Evaluate voxels of each Z slab in parallel
+    buffer = Buffers.newDirectFloatBuffer(dims[0] * dims[1] * dims[2]);
+    AtomicInteger outside = new AtomicInteger();
+
+    IntStream.range(0, dims[2]).parallel().forEach(z -> {
+      Workspace w = new Workspace();
+      double[] point = w.point;
+      int slabOutside = 0;
+
+      point[2] = origin[2] + z * spacing[2];
+
+      for (int y = 0; y < dims[1]; y++) {
+        point[1] = origin[1] + y * spacing[1];
+
+        for (int x = 0; x < dims[0]; x++) {
+          point[0] = origin[0] + x * spacing[0];
+
+          int cell = locate(w);
+          if (cell == -1)
+            slabOutside++;
+
+          buffer.put(x + dims[0] * (y + dims[1] * z),
+              cell != -1 ? interpolate(cell, w.weights) : nullValue);
+        }
+      }
+      outside.addAndGet(slabOutside);
+    });
+
+    numberOfOutsideVoxels = outside.get();
+
+    log.info("Resampled " + (offsets.length - 1) + " cells on " + dims[0] + "x" + dims[1] + "x"
+        + dims[2] + " voxels, " + numberOfOutsideVoxels + " voxels out of cells");
+
+    return buffer;
+  }
+
+  /** Return the bounds of the points as xmin, xmax, ymin, ymax, zmin, zmax. */
+  protected static double[] getBounds(float[] coordinates) {
+    double[] bounds = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY};
+
+    for (int i = 0; i < coordinates.length; i++) {
+      int d = i % DIMENSIONS;
+      bounds[d * 2] = Math.min(bounds[d * 2], coordinates[i]);
+      bounds[d * 2 + 1] = Math.max(bounds[d * 2 + 1], coordinates[i]);
+    }
+    return bounds;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // CELL LOCATOR
+  //
+  ///////////////////////////////////////////////
+
+  /**
+   * Register each supported cell in the bins overlapped by its bounds, with about one bin per
+   * cell.
+   */
+  protected void buildLocator() {
+    int numberOfCells = offsets.length - 1;
+
+    // Bounds of cells
+    cellBounds = new float[numberOfCells * 6];
+
+    for (int c = 0; c < numberOfCells; c++) {
+      float[] b = {Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY,
+          Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY};
+
+      for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+        int p = connectivity[i] * DIMENSIONS;
+        for (int d = 0; d < DIMENSIONS; d++) {
+          b[d * 2] = Math.min(b[d * 2], coordinates[p + d]);
+          b[d * 2 + 1] = Math.max(b[d * 2 + 1], coordinates[p + d]);
+        }
+      }
+      System.arraycopy(b, 0, cellBounds, c * 6, 6);
+    }
+
+    // Bins having about the volume of a cell
+    double[] extent = new double[DIMENSIONS];
+    double maxExtent = 0;
+    for (int d = 0; d < DIMENSIONS; d++) {
+      extent[d] = bounds[d * 2 + 1] - bounds[d * 2];
+      maxExtent = Math.max(maxExtent, extent[d]);
+    }
+
+    double volume = extent[0] * extent[1] * extent[2];
+    double size = volume > 0 ? Math.cbrt(volume / Math.max(numberOfCells, 1))
+        : maxExtent / Math.cbrt(Math.max(numberOfCells, 1));
+
+    for (int d = 0; d < DIMENSIONS; d++) {
+      binOrigin[d] = bounds[d * 2];
+      bins[d] = size > 0 ? (int) Math.max(1, Math.min(Math.ceil(extent[d] / size), 1024)) : 1;
+      binSize[d] = extent[d] > 0 ? extent[d] / bins[d] : 1;
+    }
+
+    // Cells of each bin in CSR layout, in ascending order
+    binStart = new int[bins[0] * bins[1] * bins[2] + 1];
+
+    for (int pass = 0; pass < 2; pass++) {
+      int[] cursor = pass == 0 ? null : Arrays.copyOf(binStart, binStart.length - 1);
+
+      for (int c = 0; c < numberOfCells; c++) {
+        if (!isSupported(types[c]))
+          continue;
+
+        int x0 = bin(cellBounds[c * 6], 0), x1 = bin(cellBounds[c * 6 + 1], 0);
+        int y0 = bin(cellBounds[c * 6 + 2], 1), y1 = bin(cellBounds[c * 6 + 3], 1);
+        int z0 = bin(cellBounds[c * 6 + 4], 2), z1 = bin(cellBounds[c * 6 + 5], 2);
+
+        for (int z = z0; z <= z1; z++) {
+          for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+              int bin = x + bins[0] * (y + bins[1] * z);
+              if (pass == 0)
+                binStart[bin + 1]++;
+              else
+                binCells[cursor[bin]++] = c;
+            }
+          }
+        }
+      }
+
+      if (pass == 0) {
+        for (int b = 1; b < binStart.length; b++) {
+          binStart[b] += binStart[b - 1];
+        }
+        binCells = new int[binStart[binStart.length - 1]];
+      }
+    }
+  }
+
+  protected int bin(double value, int dimension) {
+    int bin = (int) ((value - binOrigin[dimension]) / binSize[dimension]);
+    return Math.max(0, Math.min(bin, bins[dimension] - 1));
+  }
+
+  protected static boolean isSupported(int type) {
+    return type == VTKGeometry.VTK_HEXAHEDRON || type == VTKGeometry.VTK_VOXEL
+        || type == VTKGeometry.VTK_TETRA;
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // INTERPOLATION
+  //
+  ///////////////////////////////////////////////
+
+  /** Arrays used to evaluate voxels, allocated once per Z slab. */
+  protected static class Workspace {
+    double[] point = new double[DIMENSIONS];
+    double[] weights = new double[8];
+    double[] pcoords = new double[DIMENSIONS];
+    double[][] x = new double[8][DIMENSIONS];
+    double[][] derivatives = new double[DIMENSIONS][8];
+    double[][] matrix = new double[DIMENSIONS][DIMENSIONS];
+    double[] rhs = new double[DIMENSIONS];
+    double[] solution = new double[DIMENSIONS];
+  }
+
+  /**
+   * Return the first cell containing the workspace point, after having written the interpolation
+   * weights of its points in the workspace, or -1 if no cell contains the point.
+   */
+  protected int locate(Workspace w) {
+    double[] point = w.point;
+    int bin = bin(point[0], 0) + bins[0] * (bin(point[1], 1) + bins[1] * bin(point[2], 2));
+
+    for (int k = binStart[bin]; k < binStart[bin + 1]; k++) {
+      int c = binCells[k];
+
+      if (!isInBounds(c, point))
+        continue;
+
+      boolean inside;
+      if (types[c] == VTKGeometry.VTK_TETRA)
+        inside = tetrahedronWeights(offsets[c], w);
+      else
+        inside = hexahedronWeights(offsets[c], types[c] == VTKGeometry.VTK_VOXEL, w);
+
+      if (inside)
+        return c;
+    }
+    return -1;
+  }
+
+  /** Return the sum of the point values of the cell multiplied by their weight. */
+  protected float interpolate(int cell, double[] weights) {
+    int start = offsets[cell];
+    int n = offsets[cell + 1] - start;
+    boolean voxel = types[cell] == VTKGeometry.VTK_VOXEL;
+
+    double value = 0;
+    for (int i = 0; i < n; i++) {
+      value += weights[i] * values[connectivity[start + (voxel ? VOXEL_TO_HEXAHEDRON[i] : i)]];
+    }
+    return (float) value;
+  }
+
+  protected boolean isInBounds(int cell, double[] point) {
+    int b = cell * 6;
+    for (int d = 0; d < DIMENSIONS; d++) {
+      double min = cellBounds[b + d * 2];
+      double max = cellBounds[b + d * 2 + 1];
+      double margin = PARAMETRIC_TOLERANCE * (max - min);
+
+      if (point[d] < min - margin || point[d] > max + margin)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Compute the barycentric weights of the point in the tetrahedron.
+   *
+   * @return true if the point is inside the tetrahedron
+   */
+  protected boolean tetrahedronWeights(int start, Workspace w) {
+    int p0 = connectivity[start] * DIMENSIONS;
+
+    double[] point = w.point;
+    double[] weights = w.weights;
+    double[][] m = w.matrix;
+    double[] rhs = w.rhs;
+    double[] b = w.solution;
+
+    for (int d = 0; d < DIMENSIONS; d++) {
+      for (int i = 0; i < DIMENSIONS; i++) {
+        m[d][i] = coordinates[connectivity[start + i + 1] * DIMENSIONS + d] - coordinates[p0 + d];
+      }
+      rhs[d] = point[d] - coordinates[p0 + d];
+    }
+
+    if (!solve(m, rhs, b))
+      return false;
+
+    weights[0] = 1 - b[0] - b[1] - b[2];
+    weights[1] = b[0];
+    weights[2] = b[1];
+    weights[3] = b[2];
+
+    for (int i = 0; i < 4; i++) {
+      if (weights[i] < -PARAMETRIC_TOLERANCE)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Compute the trilinear weights of the point in the hexahedron, by finding its parametric
+   * coordinates with Newton iterations.
+   *
+   * @return true if the point is inside the hexahedron
+   */
+  protected boolean hexahedronWeights(int start, boolean voxel, Workspace w) {
+    double[] point = w.point;
+    double[] weights = w.weights;
+    double[][] x = w.x;
+
+    for (int i = 0; i < 8; i++) {
+      int p = connectivity[start + (voxel ? VOXEL_TO_HEXAHEDRON[i] : i)] * DIMENSIONS;
+      for (int d = 0; d < DIMENSIONS; d++) {
+        x[i][d] = coordinates[p + d];
+      }
+    }
+
+    double[] pcoords = w.pcoords;
+    Arrays.fill(pcoords, 0.5);
+
+    double[][] derivatives = w.derivatives;
+    double[][] jacobian = w.matrix;
+    double[] residual = w.rhs;
+    double[] delta = w.solution;
+    boolean converged = false;
+
+    for (int iteration = 0; iteration < MAX_ITERATIONS && !converged; iteration++) {
+      hexahedronShape(pcoords, weights, derivatives);
+
+      for (int d = 0; d < DIMENSIONS; d++) {
+        residual[d] = -point[d];
+        for (int j = 0; j < DIMENSIONS; j++) {
+          jacobian[d][j] = 0;
+        }
+        for (int i = 0; i < 8; i++) {
+          residual[d] += weights[i] * x[i][d];
+          for (int j = 0; j < DIMENSIONS; j++) {
+            jacobian[d][j] += derivatives[j][i] * x[i][d];
+          }
+        }
+      }
+
+      if (!solve(jacobian, residual, delta))
+        return false;
+
+      converged = true;
+      for (int j = 0; j < DIMENSIONS; j++) {
+        pcoords[j] -= delta[j];
+        if (Math.abs(delta[j]) > CONVERGENCE)
+          converged = false;
+      }
+    }
+
+    if (!converged)
+      return false;
+
+    for (int j = 0; j < DIMENSIONS; j++) {
+      if (pcoords[j] < -PARAMETRIC_TOLERANCE || pcoords[j] > 1 + PARAMETRIC_TOLERANCE)
+        return false;
+      pcoords[j] = Math.max(0, Math.min(pcoords[j], 1));
+    }
+
+    hexahedronShape(pcoords, weights, null);
+    return true;
+  }
+
+  /**
+   * Compute the trilinear shape functions of a hexahedron and optionally their derivatives with
+   * respect to r, s and t.
+   */
+  protected static void hexahedronShape(double[] pcoords, double[] weights,
+      double[][] derivatives) {
+    double r = pcoords[0], s = pcoords[1], t = pcoords[2];
+    double rm = 1 - r, sm = 1 - s, tm = 1 - t;
+
+    weights[0] = rm * sm * tm;
+    weights[1] = r * sm * tm;
+    weights[2] = r * s * tm;
+    weights[3] = rm * s * tm;
+    weights[4] = rm * sm * t;
+    weights[5] = r * sm * t;
+    weights[6] = r * s * t;
+    weights[7] = rm * s * t;
+
+    if (derivatives == null)
+      return;
+
+    double[] dr = derivatives[0];
+    dr[0] = -sm * tm;
+    dr[1] = sm * tm;
+    dr[2] = s * tm;
+    dr[3] = -s * tm;
+    dr[4] = -sm * t;
+    dr[5] = sm * t;
+    dr[6] = s * t;
+    dr[7] = -s * t;
+
+    double[] ds = derivatives[1];
+    ds[0] = -rm * tm;
+    ds[1] = -r * tm;
+    ds[2] = r * tm;
+    ds[3] = rm * tm;
+    ds[4] = -rm * t;
+    ds[5] = -r * t;
+    ds[6] = r * t;
+    ds[7] = rm * t;
+
+    double[] dt = derivatives[2];
+    dt[0] = -rm * sm;
+    dt[1] = -r * sm;
+    dt[2] = -r * s;
+    dt[3] = -rm * s;
+    dt[4] = rm * sm;
+    dt[5] = r * sm;
+    dt[6] = r * s;
+    dt[7] = rm * s;
+  }
+
+  /** Solve a 3x3 linear system with Cramer's rule, or return false if it is singular. */
+  protected static boolean solve(double[][] m, double[] rhs, double[] x) {
+    double det = determinant(m[0][0], m[0][1], m[0][2], m[1][0], m[1][1], m[1][2], m[2][0],
+        m[2][1], m[2][2]);
+
+    if (det == 0 || Double.isNaN(det))
+      return false;
+
+    x[0] = determinant(rhs[0], m[0][1], m[0][2], rhs[1], m[1][1], m[1][2], rhs[2], m[2][1],
+        m[2][2]) / det;
+    x[1] = determinant(m[0][0], rhs[0], m[0][2], m[1][0], rhs[1], m[1][2], m[2][0], rhs[2],
+        m[2][2]) / det;
+    x[2] = determinant(m[0][0], m[0][1], rhs[0], m[1][0], m[1][1], rhs[1], m[2][0], m[2][1],
+        rhs[2]) / det;
+    return true;
+  }
+
+  protected static double determinant(double a, double b, double c, double d, double e, double f,
+      double g, double h, double i) {
+    return a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // SETTINGS AND RESULTS
+  //
+  ///////////////////////////////////////////////
+
+  /** Return the value given to voxels out of all cells, 0 by default as the probe filter. */
+  public float getNullValue() {
+    return nullValue;
+  }
+
+  public void setNullValue(float nullValue) {
+    this.nullValue = nullValue;
+  }
+
+  /** Return the voxel values of the last resampling, X varying first. */
+  public FloatBuffer getBuffer() {
+    return buffer;
+  }
+
+  /** Return the value of a voxel of the last resampling. */
+  public float getValue(int x, int y, int z) {
+    return buffer.get(x + dims[0] * (y + dims[1] * z));
+  }
+
+  public int[] getDimensions() {
+    return dims;
+  }
+
+  /** Return the bounds of the regular grid, grown if required. */
+  public double[] getBounds() {
+    return bounds;
+  }
+
+  public double[] getOrigin() {
+    return origin;
+  }
+
+  public double[] getSpacing() {
+    return spacing;
+  }
+
+  public int getNumberOfOutsideVoxels() {
+    return numberOfOutsideVoxels;
+  }
+}
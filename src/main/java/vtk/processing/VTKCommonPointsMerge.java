@@ -17,6 +17,8 @@ import vtk.vtkPolyData;
  * </ul>
  * 
  * @see https://discourse.vtk.org/t/vtkgeometryfilter-and-its-evil-spawn-vtkdatasetsurfacefilter/4083/5
+ * @see org.jzy3d.io.vtk.drawable.VertexWelder to merge points in Java without converting cells to
+ *      polygons.
  */
 public class VTKCommonPointsMerge {
   protected vtkGeometryFilter convertToPoly;
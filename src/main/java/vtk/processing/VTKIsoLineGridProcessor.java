@@ -3,18 +3,12 @@ package vtk.processing;
 import java.util.ArrayList;
 import java.util.List;
 import org.jzy3d.colors.Color;
-import org.jzy3d.maths.Coord3d;
 import org.jzy3d.plot3d.primitives.LineStrip;
-import org.jzy3d.plot3d.text.drawable.DrawableText;
 import org.jzy3d.plot3d.text.drawable.DrawableTextWrapper;
-import vtk.VTKGeometry;
 import vtk.vtkAlgorithmOutput;
 import vtk.vtkCellArray;
-import vtk.vtkCellArrayIterator;
 import vtk.vtkContour3DLinearGrid;
 import vtk.vtkDataArray;
-import vtk.vtkDataSet;
-import vtk.vtkIdList;
 import vtk.vtkPoints;
 import vtk.vtkStripper;
 
@@ -32,6 +26,7 @@ public class VTKIsoLineGridProcessor {
 
   protected List<DrawableTextWrapper> drawableContourLabels = new ArrayList<>();
   protected List<LineStrip> drawableContourLines = new ArrayList<>();
+  protected IsoLineArrays isoLines;
 
   protected boolean debug = false;
 
@@ -73,64 +68,22 @@ public class VTKIsoLineGridProcessor {
 
     int pointThreshold = 0;
 
-    vtkDataSet dataset = contourStripper.GetOutput();
-    vtkCellArrayIterator cellIter = cells.NewIterator();
+    // copy stripper output in bulk rather than querying each point through JNI
+    isoLines = IsoLineArrays.read(points, cells, scalars);
 
-    for (cellIter.GoToFirstCell(); !cellIter.IsDoneWithTraversal(); cellIter.GoToNextCell()) {
+    if (debug)
+      System.out.println("Read " + isoLines.getNumberOfLines() + " iso lines made of "
+          + isoLines.getConnectivity().length + " points");
 
-      vtkIdList cell = cellIter.GetCurrentCell();
-      if (cell.GetNumberOfIds() < pointThreshold) {
-        continue;
-      }
+    drawableContourLines.addAll(isoLines.toLineStrips(Color.BLACK, 3, pointThreshold));
 
-      // --------------------------------------
-      // START : MY CODE
-      int cellId = (int) cellIter.GetCurrentCellId();
-      int cellType = dataset.GetCellType(cellId);
-      int cellStartPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId);
-      int cellStopPointId = (int) cells.GetOffsetsArray().GetTuple1(cellId + 1);
-
-      if (debug)
-        System.out.println(VTKGeometry.name(cellType) + " " + cellId);
-
-
-      LineStrip line = new LineStrip(Color.BLACK);
-      line.setWidth(3);
-
-      for (int i = cellStartPointId; i < cellStopPointId; i++) {
-        int datasetPointId = (int) cells.GetConnectivityArray().GetTuple1(i);
-
-        Coord3d c = new Coord3d(points.GetData().GetTuple3(datasetPointId));
-
-        line.add(c);
-      }
-
-      drawableContourLines.add(line);
-
-      if (debug) {
-        System.out.println();
-      }
-
-      // END : MY CODE
-      // -------------------------------------
-
-      // Compute the point id to hold the label (Mid point)
-      int samplePtIdx = (int) (cell.GetNumberOfIds() / 2);
-      int midPointId = (int) cell.GetId(samplePtIdx);
-      double[] midPoint = new double[3];
-      points.GetPoint(midPointId, midPoint);
-
-      if (debug) {
-        System.out
-            .println("\tmidPoint is " + midPointId + " with coordinate " + ", " + midPoint[0] + ", "
-                + midPoint[1] + ", " + midPoint[2] + " and value " + scalars.GetTuple1(midPointId));
-      }
-
-      DrawableText text = new DrawableText("" + scalars.GetTuple1(midPointId),
-          new Coord3d(midPoint), Color.WHITE);
+    if (scalars != null)
+      drawableContourLabels.addAll(isoLines.toLabels(Color.WHITE, pointThreshold));
+  }
 
-      drawableContourLabels.add(text);
-    }
+  /** Return the contour lines as Java arrays. */
+  public IsoLineArrays getIsoLines() {
+    return isoLines;
   }
 
   public int getNumberOfContourLines() {
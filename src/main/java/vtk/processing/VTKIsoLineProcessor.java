@@ -3,9 +3,7 @@ package vtk.processing;
 import java.util.ArrayList;
 import java.util.List;
 import org.jzy3d.colors.Color;
-import org.jzy3d.maths.Coord3d;
 import org.jzy3d.plot3d.primitives.LineStrip;
-import org.jzy3d.plot3d.text.drawable.DrawableText;
 import org.jzy3d.plot3d.text.drawable.DrawableTextWrapper;
 import vtk.VTKGeometry;
 import vtk.vtkAlgorithmOutput;
@@ -16,6 +14,7 @@ import vtk.vtkDataArray;
 import vtk.vtkDataSet;
 import vtk.vtkIdList;
 import vtk.vtkPoints;
+import vtk.vtkPolyData;
 import vtk.vtkStripper;
 
 /**
@@ -32,6 +31,7 @@ public class VTKIsoLineProcessor {
 
   protected List<DrawableTextWrapper> drawableContourLabels = new ArrayList<>();
   protected List<LineStrip> drawableContourLines = new ArrayList<>();
+  protected IsoLineArrays isoLines;
 
   protected boolean debug = false;
 
@@ -95,7 +95,7 @@ public class VTKIsoLineProcessor {
     drawableContourLabels = new ArrayList<>();
     drawableContourLines = new ArrayList<>();
 
-    vtkDataSet dataset = contourStripper.GetOutput();
+    vtkPolyData dataset = contourStripper.GetOutput();
     vtkPoints points = contourStripper.GetOutput().GetPoints();
     vtkDataArray scalars = contourStripper.GetOutput().GetPointData().GetScalars();
 
@@ -152,66 +152,28 @@ public class VTKIsoLineProcessor {
     }
   }
 
-  protected vtkCellArray readIsoLines(vtkDataSet dataset, vtkPoints points, vtkDataArray scalars) {
-    vtkCellArray lineCells = contourStripper.GetOutput().GetLines();
-    vtkCellArrayIterator lineCellIter = lineCells.NewIterator();
+  protected vtkCellArray readIsoLines(vtkPolyData dataset, vtkPoints points,
+      vtkDataArray scalars) {
+    vtkCellArray lines = dataset.GetLines();
 
-    
-    for (lineCellIter.GoToFirstCell(); !lineCellIter.IsDoneWithTraversal(); lineCellIter.GoToNextCell()) {
+    // copy stripper output in bulk rather than querying each point through JNI
+    isoLines = IsoLineArrays.read(points, lines, scalars);
 
-      vtkIdList cell = lineCellIter.GetCurrentCell();
-      
-      // --------------------------------------
-      // Prepare cell iteration
-      
-      int cellId = (int) lineCellIter.GetCurrentCellId();
-      int cellType = dataset.GetCellType(cellId);
-      int cellStartPointId = (int) lineCells.GetOffsetsArray().GetTuple1(cellId);
-      int cellStopPointId = (int) lineCells.GetOffsetsArray().GetTuple1(cellId + 1);
+    if (debug)
+      System.out.println("Read " + isoLines.getNumberOfLines() + " iso lines made of "
+          + isoLines.getConnectivity().length + " points");
 
-      if (debug)
-        System.out.println(VTKGeometry.name(cellType) + " " + cellId);
+    drawableContourLines.addAll(isoLines.toLineStrips(Color.BLACK, 3, 0));
 
+    if (scalars != null)
+      drawableContourLabels.addAll(isoLines.toLabels(Color.WHITE, 0));
 
-      // -------------------------------------
-      // Build a contour line
-      
-      LineStrip line = new LineStrip(Color.BLACK);
-      line.setWidth(3);
-
-      for (int i = cellStartPointId; i < cellStopPointId; i++) {
-        int datasetPointId = (int) lineCells.GetConnectivityArray().GetTuple1(i);
-
-        Coord3d c = new Coord3d(points.GetData().GetTuple3(datasetPointId));
-
-        line.add(c);
-      }
-
-      drawableContourLines.add(line);
-
-      if (debug) {
-        System.out.println();
-      }
+    return lines;
+  }
 
-      // -------------------------------------
-      // Compute the point id to hold the label (Mid point)
-      int samplePtIdx = (int) (cell.GetNumberOfIds() / 2);
-      int midPointId = (int) cell.GetId(samplePtIdx);
-      double[] midPoint = new double[3];
-      points.GetPoint(midPointId, midPoint);
-
-      if (debug) {
-        System.out
-            .println("\tmidPoint is " + midPointId + " with coordinate " + ", " + midPoint[0] + ", "
-                + midPoint[1] + ", " + midPoint[2] + " and value " + scalars.GetTuple1(midPointId));
-      }
-
-      DrawableText text = new DrawableText("" + scalars.GetTuple1(midPointId),
-          new Coord3d(midPoint), Color.WHITE);
-
-      drawableContourLabels.add(text);
-    }
-    return lineCells;
+  /** Return the contour lines as Java arrays, or null if iso lines were not built. */
+  public IsoLineArrays getIsoLines() {
+    return isoLines;
   }
 
   public int getNumberOfContourLines() {
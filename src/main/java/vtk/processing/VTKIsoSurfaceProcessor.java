@@ -1,8 +1,13 @@
 package vtk.processing;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.jzy3d.maths.Array;
+import vtk.VTKUtils;
+import vtk.vtkCellArray;
+import vtk.vtkDataArray;
 import vtk.vtkFlyingEdges3D;
 import vtk.vtkImageData;
 import vtk.vtkPolyData;
@@ -31,7 +36,7 @@ public class VTKIsoSurfaceProcessor {
   public static Map<Double,vtkPolyData> getSingleLevelContours(vtkProbeFilter source, double[] levels) {
     vtkFlyingEdges3D isoSurface = new vtkFlyingEdges3D();
     isoSurface.SetInputData(source.GetOutput());
-    isoSurface.SetNumberOfContours(levels.length);
+    isoSurface.SetNumberOfContours(1);
 
     
     Map<Double, vtkPolyData> splittedContour = new HashMap<>();
@@ -49,4 +54,121 @@ public class VTKIsoSurfaceProcessor {
     
     return splittedContour;
   }
+
+  /**
+   * Extract all levels with a single pass of <code>vtkFlyingEdges3D</code> and split its output
+   * into one view per level, without copying the output once per level as
+   * {@link #getSingleLevelContours(vtkProbeFilter, double[])} does.
+   *
+   * The output is read with one bulk copy per array. The level of each cell is the contour value
+   * computed for its first point.
+   *
+   * @return a view per level, in the order of the given levels, possibly empty if the level does
+   *         not cross the data.
+   */
+  public static Map<Double, IsoSurfaceView> getLevelViews(vtkProbeFilter source,
+      double[] levels) {
+    vtkFlyingEdges3D isoSurface = new vtkFlyingEdges3D();
+    isoSurface.SetInputData(source.GetOutput());
+    isoSurface.SetNumberOfContours(levels.length);
+    isoSurface.ComputeScalarsOn();
+
+    for (int i = 0; i < levels.length; i++) {
+      isoSurface.SetValue(i, levels[i]);
+    }
+    isoSurface.Update();
+
+    vtkPolyData output = isoSurface.GetOutput();
+    vtkCellArray polys = output.GetPolys();
+    vtkDataArray scalars = output.GetPointData().GetScalars();
+    vtkDataArray normals = output.GetPointData().GetNormals();
+
+    if (output.GetNumberOfPoints() == 0)
+      return split(levels, new float[0], null, new float[0], new int[] {0}, new int[0]);
+
+    return split(levels, VTKUtils.toFloatArray(output.GetPoints().GetData()),
+        normals != null ? VTKUtils.toFloatArray(normals) : null, VTKUtils.toFloatArray(scalars),
+        VTKUtils.toIntArray(polys.GetOffsetsArray()),
+        VTKUtils.toIntArray(polys.GetConnectivityArray()));
+  }
+
+  /**
+   * Group the cells of a multi-level isosurface by level and return a view per level.
+   *
+   * Cells of a same level are usually contiguous, in which case the offsets and connectivity are
+   * shared as is by the views. Otherwise they are reordered once, by level, keeping the order of
+   * cells of a same level.
+   *
+   * @param levels the contour values
+   * @param coordinates x,y,z coordinates of each point
+   * @param normals normals of each point, may be null
+   * @param scalars contour value of each point
+   * @param offsets start of each cell in the connectivity array, plus the end of the last cell
+   * @param connectivity point ids of the cells
+   * @return a view per level, in the order of the given levels
+   */
+  public static Map<Double, IsoSurfaceView> split(double[] levels, float[] coordinates,
+      float[] normals, float[] scalars, int[] offsets, int[] connectivity) {
+    int numberOfCells = offsets.length - 1;
+
+    // Level of each cell, and number of cells per level
+    int[] cellLevel = new int[numberOfCells];
+    int[] count = new int[levels.length + 1];
+    boolean grouped = true;
+
+    for (int c = 0; c < numberOfCells; c++) {
+      cellLevel[c] = offsets[c + 1] > offsets[c]
+          ? nearest(levels, scalars[connectivity[offsets[c]]])
+          : 0;
+      count[cellLevel[c] + 1]++;
+
+      if (c > 0 && cellLevel[c] < cellLevel[c - 1])
+        grouped = false;
+    }
+
+    int[] start = Arrays.copyOf(count, count.length);
+    for (int l = 1; l < start.length; l++) {
+      start[l] += start[l - 1];
+    }
+
+    // Reorder cells by level if they are not already
+    if (!grouped) {
+      int[] cursor = Arrays.copyOf(start, levels.length);
+      int[] cellOrder = new int[numberOfCells];
+      for (int c = 0; c < numberOfCells; c++) {
+        cellOrder[cursor[cellLevel[c]]++] = c;
+      }
+
+      int[] sortedOffsets = new int[offsets.length];
+      int[] sortedConnectivity = new int[offsets[numberOfCells] - offsets[0]];
+
+      for (int c = 0; c < numberOfCells; c++) {
+        int cell = cellOrder[c];
+        int length = offsets[cell + 1] - offsets[cell];
+        System.arraycopy(connectivity, offsets[cell], sortedConnectivity, sortedOffsets[c],
+            length);
+        sortedOffsets[c + 1] = sortedOffsets[c] + length;
+      }
+
+      offsets = sortedOffsets;
+      connectivity = sortedConnectivity;
+    }
+
+    Map<Double, IsoSurfaceView> views = new LinkedHashMap<>();
+    for (int l = 0; l < levels.length; l++) {
+      views.put(levels[l], new IsoSurfaceView(levels[l], coordinates, normals, offsets,
+          connectivity, start[l], start[l + 1]));
+    }
+    return views;
+  }
+
+  /** Return the index of the level closest to the value. */
+  protected static int nearest(double[] levels, double value) {
+    int nearest = 0;
+    for (int l = 1; l < levels.length; l++) {
+      if (Math.abs(levels[l] - value) < Math.abs(levels[nearest] - value))
+        nearest = l;
+    }
+    return nearest;
+  }
 }
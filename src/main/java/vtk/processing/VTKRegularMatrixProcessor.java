@@ -1,5 +1,6 @@
 package vtk.processing;
 
+import org.jzy3d.io.vtk.xml.VTUDataset;
 import org.jzy3d.maths.Array;
 import vtk.vtkImageData;
 import vtk.vtkProbeFilter;
@@ -66,7 +67,26 @@ public class VTKRegularMatrixProcessor {
     return probe;
   }
 
-  private static void growBounds(double[] bounds, double ratio) {
+  /**
+   * Resample a property of a dataset read without VTK natives on the regular grid that
+   * {@link #getProbeFilter(vtkUnstructuredGrid, String, int[], double)} would use with the same
+   * dims and growRatio. Voxels are evaluated in parallel by a {@link RegularGridResampler}.
+   * 
+   * @param dataset the input data
+   * @param property the property on which voxels should have their value based
+   * @param dims the number of voxel for each dimensions (dims[0] for X, dims[1] for Y, dims[2] for
+   *        Z)
+   * @param growRatio the input bounds growth applied to ensure all points lead to a voxel
+   * @return the resampler holding voxel values, bounds and spacing
+   */
+  public static RegularGridResampler getResampler(VTUDataset dataset, String property, int[] dims,
+      double growRatio) {
+    RegularGridResampler resampler = new RegularGridResampler();
+    resampler.resample(dataset, property, dims, growRatio);
+    return resampler;
+  }
+
+  protected static void growBounds(double[] bounds, double ratio) {
     for (int i = 0; i < 6; i += 2) {
       double range = bounds[i + 1] - bounds[i];
       bounds[i] = bounds[i] - ratio * range;
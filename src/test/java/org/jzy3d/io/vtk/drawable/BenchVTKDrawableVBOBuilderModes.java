@@ -0,0 +1,63 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.util.concurrent.TimeUnit;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.GeometryMode;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.VerticeMode;
+import org.jzy3d.io.vtk.xml.SyntheticGrids;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import org.jzy3d.plot3d.primitives.vbo.drawable.DrawableVBO2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vtk.VTKGeometry;
+
+/**
+ * Measure {@link VTKDrawableVBOBuilder#makePolygons(String)} for each combination of
+ * {@link GeometryMode} and {@link VerticeMode}, with or without hidden faces removal.
+ *
+ * The dataset is a synthetic cube of <code>cells^3</code> hexahedrons built by
+ * {@link SyntheticGrids}, so this does not require VTK natives. Run with
+ * <code>mvn -Pbench test</code>, see the <code>bench</code> profile of the pom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchVTKDrawableVBOBuilderModes {
+  @Param({"20", "50"})
+  public int cells;
+
+  @Param({"SINGLE_GEOMETRY", "MULTI_GEOMETRY"})
+  public GeometryMode geometryMode;
+
+  @Param({"REPEATED", "SHARED"})
+  public VerticeMode verticeMode;
+
+  @Param({"false", "true"})
+  public boolean hiddenFacesRemoved;
+
+  protected VTUDataset grid;
+
+  @Setup
+  public void setup() {
+    grid = SyntheticGrids.hexahedrons(cells);
+  }
+
+  @Benchmark
+  public DrawableVBO2 makePolygons() {
+    VTKDrawableVBOBuilder builder =
+        new VTKDrawableVBOBuilder(grid, geometryMode, verticeMode, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setHiddenFacesRemoved(hiddenFacesRemoved);
+    return builder.makePolygons(SyntheticGrids.PROPERTY);
+  }
+}
@@ -0,0 +1,56 @@
+package org.jzy3d.io.vtk.drawable;
+
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.GeometryMode;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.TraversalMode;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.VerticeMode;
+import org.jzy3d.maths.TicToc;
+import vtk.VTKGeometry;
+import vtk.VTKReader;
+import vtk.VTKUtils;
+import vtk.vtkUnstructuredGrid;
+
+/**
+ * Compare the time spent in {@link VTKDrawableVBOBuilder#makePolygons(String)} when traversing
+ * cells with a VTK iterator, with bulk copies of the cell arrays, or in parallel chunks.
+ *
+ * Run with <code>-Djava.library.path=./lib/vtk-Darwin-x86_64</code> or any folder holding the VTK
+ * natives.
+ */
+public class BenchVTKDrawableVBOBuilderTraversal {
+  static int WARMUP = 10;
+  static int RUNS = 50;
+
+  public static void main(String[] args) {
+    VTKUtils.loadVtkNativeLibraries();
+
+    String file =
+        args.length > 0 ? args[0] : "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0.vtu";
+
+    vtkUnstructuredGrid grid = VTKReader.getReaderOutput(file);
+
+    System.out.println(file + " : " + grid.GetNumberOfCells() + " cells, "
+        + grid.GetNumberOfPoints() + " points");
+
+    for (TraversalMode mode : TraversalMode.values()) {
+      for (int i = 0; i < WARMUP; i++) {
+        build(grid, mode);
+      }
+
+      TicToc t = new TicToc();
+      t.tic();
+      for (int i = 0; i < RUNS; i++) {
+        build(grid, mode);
+      }
+      t.toc();
+
+      System.out.println(mode + " : " + (t.elapsedMilisecond() / RUNS) + " ms per build");
+    }
+  }
+
+  protected static void build(vtkUnstructuredGrid grid, TraversalMode mode) {
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_QUAD);
+    builder.setTraversalMode(mode);
+    builder.makePolygons("enthalpy");
+  }
+}
@@ -0,0 +1,84 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.GeometryMode;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.VerticeMode;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import org.jzy3d.plot3d.primitives.vbo.drawable.DrawableVBO2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vtk.VTKGeometry;
+
+/**
+ * Compare the time spent in {@link VTKDrawableVBOBuilder#makePolygons(String)} when emitting
+ * hexahedron faces as quads, with or without primitive restart, or as triangles.
+ *
+ * The number of indices, the index width and the size of the element buffer of each mode are
+ * printed at setup, as uploaded by the drawable.
+ *
+ * Does not require VTK natives since the dataset is read with {@link PVTUReader}. Run with
+ * <code>mvn -Pbench test</code>, see the <code>bench</code> profile of the pom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchVTKDrawableVBOBuilderTriangles {
+  public enum Emission {
+    QUADS, QUADS_RESTART, TRIANGLES
+  }
+
+  @Param({"./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu"})
+  public String file;
+
+  @Param({"QUADS", "QUADS_RESTART", "TRIANGLES"})
+  public Emission emission;
+
+  @Param({"false", "true"})
+  public boolean hiddenFacesRemoved;
+
+  @Param({"false", "true"})
+  public boolean shortIndices;
+
+  protected VTUDataset grid;
+
+  @Setup
+  public void setup() throws IOException {
+    grid = new PVTUReader().read(file);
+
+    RecolorableDrawableVBO2 drawable =
+        (RecolorableDrawableVBO2) newBuilder().makePolygons("enthalpy");
+
+    System.out.println();
+    System.out.println(emission + " : " + drawable.getElementCount() + " indices of "
+        + drawable.getElementBytes() + " bytes, " + drawable.getElementBufferSize() + " bytes");
+  }
+
+  @Benchmark
+  public DrawableVBO2 makePolygons() {
+    return newBuilder().makePolygons("enthalpy");
+  }
+
+  protected VTKDrawableVBOBuilder newBuilder() {
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setHiddenFacesRemoved(hiddenFacesRemoved);
+    builder.setQuadsTriangulated(Emission.TRIANGLES.equals(emission));
+    builder.setPrimitiveRestart(Emission.QUADS_RESTART.equals(emission));
+    builder.setShortIndices(shortIndices);
+    return builder;
+  }
+}
@@ -0,0 +1,133 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import org.jzy3d.colors.Color;
+import org.jzy3d.colors.colormaps.ColorMapRainbow;
+import org.jzy3d.colors.colormaps.IColorMap;
+import org.jzy3d.maths.Range;
+import junit.framework.Assert;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestColorLookupTable {
+  static final float DELTA = 1e-6f;
+
+  @Test
+  public void givenValuesAtSamples_thenColorsAreThoseOfColormap() {
+    IColorMap colormap = new ColorMapRainbow();
+    Range range = new Range(-10, 30);
+
+    ColorLookupTable lookup = new ColorLookupTable(colormap, range, 5);
+
+    float[] values = {-10, 0, 10, 20, 30};
+    float[] colors = lookup.colorize(values, new float[values.length * 4], 4);
+
+    for (int i = 0; i < values.length; i++) {
+      Color expected = colormap.getColor(0, 0, values[i], range.getMin(), range.getMax());
+      Assert.assertEquals(expected.r, colors[i * 4], DELTA);
+      Assert.assertEquals(expected.g, colors[i * 4 + 1], DELTA);
+      Assert.assertEquals(expected.b, colors[i * 4 + 2], DELTA);
+      Assert.assertEquals(expected.a, colors[i * 4 + 3], DELTA);
+    }
+  }
+
+  @Test
+  public void givenValuesOutOfRange_thenClampedToFirstOrLastColor() {
+    ColorLookupTable lookup = new ColorLookupTable(new ColorMapRainbow(), new Range(0, 1), 256);
+
+    Assert.assertEquals(0, lookup.index(-5));
+    Assert.assertEquals(0, lookup.index(Float.NaN));
+    Assert.assertEquals(0, lookup.index(Float.NEGATIVE_INFINITY));
+    Assert.assertEquals(255, lookup.index(1));
+    Assert.assertEquals(255, lookup.index(7));
+    Assert.assertEquals(255, lookup.index(Float.POSITIVE_INFINITY));
+
+    // closest sample
+    Assert.assertEquals(128, lookup.index(0.5f));
+  }
+
+  @Test
+  public void givenRGB_thenAlphaIsNotWritten() {
+    ColorLookupTable lookup = new ColorLookupTable(Color.RED);
+    lookup.setAlpha(0.5f);
+
+    float[] rgb = lookup.colorize(new float[] {1, 2}, new float[6], 3);
+    Assert.assertTrue(Arrays.equals(new float[] {1, 0, 0, 1, 0, 0}, rgb));
+
+    float[] rgba = lookup.colorize(new float[] {1}, new float[4], 4);
+    Assert.assertTrue(Arrays.equals(new float[] {1, 0, 0, 0.5f}, rgba));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenTooSmallColorArray_thenThrowsIllegalArgument() {
+    new ColorLookupTable(Color.RED).colorize(new float[3], new float[8], 3);
+  }
+
+  @Test
+  public void givenLargeProperty_thenParallelColorsAreSameThanSequential() {
+    ColorLookupTable lookup =
+        new ColorLookupTable(new ColorMapRainbow(), new Range(0, 100), 4096);
+
+    Random r = new Random(0);
+    float[] values = new float[ColorLookupTable.PARALLEL_THRESHOLD * 3 + 17];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = r.nextFloat() * 120 - 10;
+    }
+
+    float[] parallel = lookup.colorize(values, new float[values.length * 3], 3);
+
+    float[] sequential = new float[values.length * 3];
+    lookup.colorize(values, sequential, 3, 0, values.length);
+
+    Assert.assertTrue(Arrays.equals(sequential, parallel));
+  }
+
+  @Test
+  public void givenAlphaRamp_thenAlphaIsInterpolatedBetweenPositions() {
+    ColorLookupTable lookup = new ColorLookupTable(new ColorMapRainbow(), new Range(0, 100), 101);
+
+    lookup.setAlphaRamp(0, 1);
+    Assert.assertEquals(0, lookup.getColor(0).a, DELTA);
+    Assert.assertEquals(0.5f, lookup.getColor(50).a, DELTA);
+    Assert.assertEquals(1, lookup.getColor(100).a, DELTA);
+
+    // Transparent below 20, opaque ramp from 20 to 40, then constant
+    lookup.setAlphaRamp(new float[] {0.2f, 0.4f}, new float[] {0, 0.8f});
+    Assert.assertEquals(0, lookup.getColor(10).a, DELTA);
+    Assert.assertEquals(0, lookup.getColor(20).a, DELTA);
+    Assert.assertEquals(0.4f, lookup.getColor(30).a, DELTA);
+    Assert.assertEquals(0.8f, lookup.getColor(40).a, DELTA);
+    Assert.assertEquals(0.8f, lookup.getColor(90).a, DELTA);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenDescendingAlphaRampPositions_thenThrowsIllegalArgument() {
+    new ColorLookupTable(Color.RED).setAlphaRamp(new float[] {0.5f, 0.1f}, new float[] {0, 1});
+  }
+
+  @Test
+  public void givenBuffer_thenColorsAreSameThanArray() {
+    ColorLookupTable lookup = new ColorLookupTable(new ColorMapRainbow(), new Range(0, 100), 256);
+    lookup.setAlphaRamp(0.2f, 0.9f);
+
+    Random r = new Random(0);
+    float[] values = new float[ColorLookupTable.PARALLEL_THRESHOLD + 17];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = r.nextFloat() * 120 - 10;
+    }
+
+    float[] expected = lookup.colorize(values, new float[values.length * 4], 4);
+
+    FloatBuffer floats = lookup.colorize(values, FloatBuffer.allocate(values.length * 4));
+
+    Assert.assertEquals(0, floats.position());
+
+    for (int i = 0; i < expected.length; i++) {
+      Assert.assertEquals(expected[i], floats.get(i));
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+import junit.framework.Assert;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestParallelChunks {
+
+  @Test
+  public void givenValues_whenPrefixSum_thenEachValueIsSumOfPreviousOnes() {
+    int[] values = {0, 2, 1, 3};
+
+    ParallelChunks.prefixSum(values);
+
+    Assert.assertEquals(0, values[0]);
+    Assert.assertEquals(2, values[1]);
+    Assert.assertEquals(3, values[2]);
+    Assert.assertEquals(6, values[3]);
+  }
+
+  @Test
+  public void givenSize_whenForEachChunk_thenEachIndexIsProcessedOnce() {
+    for (int size : new int[] {0, 1, 7, 100_003}) {
+      AtomicIntegerArray visits = new AtomicIntegerArray(size);
+
+      ParallelChunks.forEachChunk(size, (from, to) -> {
+        for (int i = from; i < to; i++) {
+          visits.incrementAndGet(i);
+        }
+      });
+
+      for (int i = 0; i < size; i++) {
+        Assert.assertEquals(1, visits.get(i));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenFailingChunk_whenForEachChunk_thenExceptionIsThrownInCaller() {
+    ParallelChunks.forEachChunk(10, (from, to) -> {
+      throw new IllegalArgumentException("Failed on " + from);
+    });
+  }
+}
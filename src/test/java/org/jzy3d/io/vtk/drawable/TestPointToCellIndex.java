@@ -0,0 +1,83 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import junit.framework.Assert;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestPointToCellIndex {
+
+  @Test
+  public void givenTwoQuadsSharingAnEdge_thenSharedPointsHaveTwoCells() {
+    // 0 - 1 - 2
+    // | A | B |
+    // 3 - 4 - 5
+    int[] offsets = {0, 4, 8};
+    int[] connectivity = {0, 1, 4, 3, 1, 2, 5, 4};
+
+    PointToCellIndex index = PointToCellIndex.buildSequential(6, offsets, connectivity, 2);
+
+    Assert.assertEquals(6, index.getNumberOfPoints());
+    Assert.assertEquals(1, index.getValence(0));
+    Assert.assertEquals(2, index.getValence(1));
+    Assert.assertEquals(1, index.getValence(2));
+    Assert.assertEquals(2, index.getValence(4));
+
+    Assert.assertTrue(Arrays.equals(new int[] {0, 1}, index.getCells(1)));
+    Assert.assertTrue(Arrays.equals(new int[] {1}, index.getCells(5)));
+    Assert.assertEquals(1, index.getCell(4, 1));
+
+    Assert.assertEquals(2, index.getNumberOfSharedPoints());
+
+    // Limiting the number of cells only index the first one
+    PointToCellIndex first = PointToCellIndex.buildSequential(6, offsets, connectivity, 1);
+    Assert.assertEquals(0, first.getValence(2));
+    Assert.assertEquals(0, first.getNumberOfSharedPoints());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenPointOutOfDataset_thenThrowsIllegalArgument() {
+    PointToCellIndex.buildSequential(3, new int[] {0, 4}, new int[] {0, 1, 2, 3}, 1);
+  }
+
+  @Test
+  public void givenHexahedronFile_whenBuildParallel_thenIndexIsSameThanSequential()
+      throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    int[] offsets = grid.getOffsets();
+    int[] connectivity = grid.getConnectivity();
+    int points = grid.getNumberOfPoints();
+    int cells = grid.getNumberOfCells();
+
+    PointToCellIndex sequential =
+        PointToCellIndex.buildSequential(points, offsets, connectivity, cells);
+    PointToCellIndex parallel =
+        PointToCellIndex.buildParallel(points, offsets, connectivity, cells);
+
+    Assert.assertEquals(cells * 8, sequential.getCellIds().length);
+    Assert.assertTrue(Arrays.equals(sequential.getCellIds(), parallel.getCellIds()));
+
+    for (int p = 0; p < points; p++) {
+      Assert.assertEquals(sequential.getStart(p), parallel.getStart(p));
+      Assert.assertEquals(sequential.getStop(p), parallel.getStop(p));
+    }
+
+    // Each cell of a point really uses this point
+    for (int p = 0; p < points; p++) {
+      for (int cell : parallel.getCells(p)) {
+        boolean found = false;
+        for (int i = offsets[cell]; i < offsets[cell + 1]; i++) {
+          found |= connectivity[i] == p;
+        }
+        Assert.assertTrue(found);
+      }
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import org.junit.Test;
+import org.jzy3d.maths.Normal.NormalMode;
+import org.jzy3d.plot3d.primitives.vbo.drawable.DrawableVBO2;
+import com.jogamp.opengl.GL;
+import junit.framework.Assert;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestShortIndexDrawableVBO2 {
+  float[] QUAD = {0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0};
+  float[] COLORS = new float[4 * 3];
+
+  @Test
+  public void givenShortIndices_thenElementBufferHoldsShorts() {
+    ShortIndexDrawableVBO2 drawable =
+        new ShortIndexDrawableVBO2(QUAD, new int[] {0, 1, 2, 0, 2, 3}, 3, COLORS);
+
+    Assert.assertEquals(GL.GL_UNSIGNED_SHORT, drawable.getElementType());
+    Assert.assertEquals(2, drawable.getElementBytes());
+    Assert.assertEquals(6 * 2, drawable.getElementBufferSize());
+
+    ShortBuffer elements = (ShortBuffer) drawable.newElementBuffer();
+
+    Assert.assertEquals(6, elements.capacity());
+    Assert.assertEquals(3, elements.get(5));
+  }
+
+  @Test
+  public void givenIntIndices_thenElementBufferHoldsInts() {
+    RecolorableDrawableVBO2 drawable =
+        new RecolorableDrawableVBO2(QUAD, new int[] {0, 1, 2, 0, 2, 3}, 3, COLORS);
+
+    Assert.assertEquals(GL.GL_UNSIGNED_INT, drawable.getElementType());
+    Assert.assertEquals(6 * 4, drawable.getElementBufferSize());
+    Assert.assertEquals(6, ((IntBuffer) drawable.newElementBuffer()).capacity());
+  }
+
+  @Test
+  public void givenGeometries_thenElementsAreContiguousWithOffsetPerGeometry() {
+    int[][] geometries = {{0, 1, 2}, {0, 2, 3}, {0, 1, 2, 3}};
+
+    ShortIndexDrawableVBO2 drawable =
+        new ShortIndexDrawableVBO2(QUAD, geometries, COLORS, NormalMode.SHARED);
+
+    ShortBuffer elements = (ShortBuffer) drawable.newElementBuffer();
+
+    Assert.assertEquals(10, elements.capacity());
+    Assert.assertEquals(3, drawable.geometryCounts.get(1));
+    Assert.assertEquals(4, drawable.geometryCounts.get(2));
+    Assert.assertEquals(0, drawable.geometryOffsets.get(0));
+    Assert.assertEquals(3 * 2, drawable.geometryOffsets.get(1));
+    Assert.assertEquals(6 * 2, drawable.geometryOffsets.get(2));
+    Assert.assertEquals(3, elements.get(9));
+  }
+
+  @Test
+  public void givenPrimitiveRestart_whenShortIndices_thenRestartValueIsLargestShort() {
+    int R = DrawableVBO2.PRIMITIVE_RESTART_VALUE;
+    int[] elements = {0, 1, 2, R, 0, 2, 3, R};
+
+    PrimitiveRestartDrawableVBO2 ints =
+        new PrimitiveRestartDrawableVBO2(QUAD, elements, 4, COLORS, false);
+
+    Assert.assertEquals(R, ints.getRestartIndex());
+    Assert.assertEquals(R, ((IntBuffer) ints.newElementBuffer()).get(3));
+
+    PrimitiveRestartDrawableVBO2 shorts =
+        new PrimitiveRestartDrawableVBO2(QUAD, elements, 4, COLORS, true);
+
+    Assert.assertEquals(0xFFFF, shorts.getRestartIndex());
+    Assert.assertEquals(0xFFFF, ((ShortBuffer) shorts.newElementBuffer()).get(3) & 0xFFFF);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenTooManyVertices_whenShortIndices_thenThrowsIllegalArgument() {
+    int vertices = RecolorableDrawableVBO2.MAX_SHORT_INDEXED_VERTICES + 1;
+
+    new ShortIndexDrawableVBO2(new float[vertices * 3], new int[] {0, 1, 2}, 3,
+        new float[vertices * 3]);
+  }
+}
@@ -0,0 +1,179 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.GeometryMode;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.VerticeMode;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import org.jzy3d.io.vtk.xml.VTUReader;
+import org.jzy3d.maths.Normal.NormalMode;
+import org.jzy3d.maths.Range;
+import junit.framework.Assert;
+import vtk.VTKGeometry;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestVBOCache {
+  static String PVTU = "./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu";
+  static String QUADS = "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_appended_raw.vtu";
+
+  File newTempFile() throws IOException {
+    File file = File.createTempFile("TestVBOCache", ".jzvc");
+    file.deleteOnExit();
+    return file;
+  }
+
+  @Test
+  public void givenSections_whenWriteAndRead_thenSectionsAreAlignedLittleEndianViews()
+      throws IOException {
+    VBOCache cache = new VBOCache(42);
+    cache.geometryMode = GeometryMode.SINGLE_GEOMETRY;
+    cache.verticeMode = VerticeMode.SHARED;
+    cache.normalMode = null;
+    cache.pointsPerGeometry = 3;
+    cache.setFlag(VBOCache.HIDDEN_FACES_REMOVED, true);
+
+    cache.put(VBOCache.COORDINATES, new float[] {0, 1, 2, 3, 4, 5}, 3);
+    cache.put(VBOCache.ELEMENTS, new int[] {0, 1, 0}, 3);
+    cache.putProperty("temp", new float[] {10, 20}, new Range(10, 20));
+
+    File file = newTempFile();
+    cache.write(file);
+
+    VBOCache read = VBOCache.read(file);
+
+    Assert.assertEquals(42, read.getSourceHash());
+    Assert.assertEquals(GeometryMode.SINGLE_GEOMETRY, read.getGeometryMode());
+    Assert.assertEquals(VerticeMode.SHARED, read.getVerticeMode());
+    Assert.assertNull(read.getNormalMode());
+    Assert.assertEquals(3, read.getPointsPerGeometry());
+    Assert.assertTrue(read.isHiddenFacesRemoved());
+    Assert.assertFalse(read.isPrimitiveRestart());
+
+    Assert.assertTrue(Arrays.equals(new float[] {0, 1, 2, 3, 4, 5},
+        read.getSection(VBOCache.COORDINATES).toFloatArray()));
+    Assert.assertTrue(
+        Arrays.equals(new int[] {0, 1, 0}, read.getSection(VBOCache.ELEMENTS).toIntArray()));
+    Assert.assertTrue(Arrays.equals(new String[] {"temp"}, read.getPropertyNames()));
+    Assert.assertEquals(20.0, read.getProperty("temp").getMax());
+
+    // Sections are aligned views on the file, stored in little endian
+    byte[] bytes = Files.readAllBytes(file.toPath());
+
+    for (VBOCache.Section section : read.getSections().values()) {
+      Assert.assertEquals(0, section.getOffset() % VBOCache.ALIGNMENT);
+      Assert.assertTrue(section.getData().isDirect());
+    }
+
+    int offset = (int) read.getSection(VBOCache.ELEMENTS).getOffset();
+    Assert.assertEquals(1,
+        ByteBuffer.wrap(bytes, offset + 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt());
+  }
+
+  @Test
+  public void givenOtherSourceOrCorruptedFile_whenReadIfValid_thenReturnsNull()
+      throws IOException {
+    VBOCache cache = new VBOCache(42);
+    cache.put(VBOCache.COORDINATES, new float[] {0, 1, 2}, 3);
+
+    File file = newTempFile();
+    cache.write(file);
+
+    Assert.assertNotNull(VBOCache.readIfValid(file, 42));
+    Assert.assertNull(VBOCache.readIfValid(file, 43));
+    Assert.assertNull(VBOCache.readIfValid(new File(file.getPath() + ".missing"), 42));
+
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.write(0);
+    }
+    Assert.assertNull(VBOCache.readIfValid(file, 42));
+  }
+
+  @Test
+  public void givenModifiedSource_whenHashSources_thenHashDiffers() throws IOException {
+    File source = newTempFile();
+    byte[] content = new byte[10000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    Files.write(source.toPath(), content);
+    List<File> sources = Collections.singletonList(source);
+
+    long whole = VBOCache.hashSources(sources, 0);
+    long sampled = VBOCache.hashSources(sources, 100);
+
+    Assert.assertEquals(whole, VBOCache.hashSources(sources, 0));
+    Assert.assertEquals(sampled, VBOCache.hashSources(sources, 100));
+
+    // Change the middle of the file, which is in the middle sample
+    content[5000]++;
+    Files.write(source.toPath(), content);
+    source.setLastModified(0);
+
+    Assert.assertTrue(whole != VBOCache.hashSources(sources, 0));
+    Assert.assertTrue(sampled != VBOCache.hashSources(sources, 100));
+  }
+
+  @Test
+  public void givenPVTU_whenGetSources_thenPiecesAreIncluded() throws IOException {
+    List<File> sources = VBOCache.getSources(new File(PVTU));
+
+    Assert.assertEquals(11, sources.size());
+    Assert.assertEquals(new File(PVTU), sources.get(0));
+  }
+
+  @Test
+  public void givenCachedBuilder_whenMakePolygons_thenArraysAreSameAsConverted()
+      throws IOException {
+    VTUDataset hexahedrons = new PVTUReader().read(PVTU);
+    VTUDataset quads = new VTUReader().read(QUADS);
+
+    assertCacheGivesSameArrays(hexahedrons, VTKGeometry.VTK_HEXAHEDRON,
+        GeometryMode.SINGLE_GEOMETRY, VerticeMode.REPEATED, true, "enthalpy");
+    assertCacheGivesSameArrays(hexahedrons, VTKGeometry.VTK_HEXAHEDRON,
+        GeometryMode.MULTI_GEOMETRY, VerticeMode.SHARED, false, "temp");
+    assertCacheGivesSameArrays(quads, VTKGeometry.VTK_QUAD, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.REPEATED, false, "temp");
+  }
+
+  void assertCacheGivesSameArrays(VTUDataset grid, int geometry, GeometryMode geometryMode,
+      VerticeMode verticeMode, boolean hiddenFacesRemoved, String property) throws IOException {
+    VTKDrawableVBOBuilder converted =
+        new VTKDrawableVBOBuilder(grid, geometryMode, verticeMode, NormalMode.SHARED, geometry);
+    converted.setHiddenFacesRemoved(hiddenFacesRemoved);
+    converted.makePolygons(property);
+
+    File file = newTempFile();
+    converted.writeCache(file, 7);
+
+    VTKDrawableVBOBuilder cached = new VTKDrawableVBOBuilder(VBOCache.readIfValid(file, 7));
+    cached.makePolygons(property);
+
+    Assert.assertTrue(Arrays.equals(converted.getCoordinates(), cached.getCoordinates()));
+    Assert.assertTrue(Arrays.equals(converted.elements, cached.elements));
+    Assert.assertTrue(Arrays.equals(converted.elementsStarts, cached.elementsStarts));
+    Assert.assertTrue(Arrays.equals(converted.elementsLength, cached.elementsLength));
+    Assert.assertTrue(Arrays.deepEquals(converted.elementsIndices, cached.elementsIndices));
+    Assert.assertTrue(Arrays.equals(converted.colors, cached.colors));
+    Assert.assertEquals(converted.getPropertyRange().getMax(),
+        cached.getPropertyRange().getMax());
+    Assert.assertTrue(Arrays.equals(converted.getPropertyNames(), cached.getPropertyNames()));
+    Assert.assertEquals(grid.getNumberOfCells(), cached.getNumberOfCells());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void givenNoPolygons_whenToCache_thenThrowsIllegalState() throws IOException {
+    new VTKDrawableVBOBuilder(new VTUReader().read(QUADS), GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_QUAD).toCache(0);
+  }
+}
@@ -1,14 +1,29 @@
 package org.jzy3d.io.vtk.drawable;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.jzy3d.chart.Chart;
 import org.jzy3d.chart.factories.AWTChartFactory;
 import org.jzy3d.chart.factories.ChartFactory;
 import org.jzy3d.colors.Color;
+import org.jzy3d.colors.colormaps.ColorMapGrayscale;
 import org.jzy3d.colors.colormaps.ColorMapRainbow;
 import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.GeometryMode;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.TraversalMode;
 import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.VerticeMode;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataArray;
+import org.jzy3d.io.vtk.xml.VTUDataArray.Format;
+import org.jzy3d.io.vtk.xml.VTUDataArray.Type;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import org.jzy3d.io.vtk.xml.VTUReader;
 import org.jzy3d.maths.Array;
 import org.jzy3d.plot3d.primitives.vbo.drawable.DrawableVBO2;
 import org.jzy3d.plot3d.rendering.canvas.Quality;
@@ -50,6 +65,153 @@ public class TestVTKDrawableVBOBuilder {
     is_VTK_9_1 = "9.1.0".equals(new vtkVersion().GetVTKVersion());
   }
 
+  ///////////////////////////////////////////////////////////////////
+  //
+  // TRAVERSAL
+  //
+  ///////////////////////////////////////////////////////////////////
+
+  @Test
+  public void givenBulkTraversal_Hexahedron_thenBuffersAreSameAsIteratorTraversal() {
+    vtkUnstructuredGrid grid = VTKReader
+        .getReaderOutput("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder iterator = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    iterator.setTraversalMode(TraversalMode.ITERATOR);
+    iterator.makePolygons("enthalpy");
+
+    VTKDrawableVBOBuilder bulk = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    bulk.setTraversalMode(TraversalMode.BULK);
+    bulk.makePolygons("enthalpy");
+
+    Assert.assertTrue(Arrays.deepEquals(iterator.elementsIndices, bulk.elementsIndices));
+    Assert.assertTrue(Arrays.equals(iterator.colors, bulk.colors));
+
+    Assert.assertTrue(
+        Arrays.equals(iterator.getPropertyColor("marker1"), bulk.getPropertyColor("marker1")));
+  }
+
+  @Test
+  public void givenBulkTraversal_Quads_thenBuffersAreSameAsIteratorTraversal() {
+    vtkUnstructuredGrid grid =
+        VTKReader.getReaderOutput("./src/test/resources/Enthalpy_HS_wCon_wRad_010_0.vtu");
+
+    VTKDrawableVBOBuilder iterator = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_QUAD);
+    iterator.setTraversalMode(TraversalMode.ITERATOR);
+    iterator.makePolygons("enthalpy");
+
+    VTKDrawableVBOBuilder bulk = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_QUAD);
+    bulk.setTraversalMode(TraversalMode.BULK);
+    bulk.makePolygons("enthalpy");
+
+    Assert.assertTrue(Arrays.equals(iterator.elements, bulk.elements));
+    Assert.assertTrue(Arrays.equals(iterator.colors, bulk.colors));
+  }
+
+  @Test
+  public void givenParallelTraversal_thenBuffersAreSameAsBulkTraversal() throws IOException {
+    VTUDataset hexahedrons = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+    VTUDataset quads =
+        new VTUReader().read("./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_appended_raw.vtu");
+
+    // small chunks to have several tasks
+    int chunkCells = VTKDrawableVBOBuilder.PARALLEL_CHUNK_CELLS;
+    VTKDrawableVBOBuilder.PARALLEL_CHUNK_CELLS = 100;
+
+    try {
+      for (GeometryMode geometryMode : GeometryMode.values()) {
+        for (VerticeMode verticeMode : VerticeMode.values()) {
+          for (boolean primitiveRestart : new boolean[] {false, true}) {
+            for (boolean hiddenFacesRemoved : new boolean[] {false, true}) {
+              assertParallelTraversalSameAsBulk(hexahedrons, VTKGeometry.VTK_HEXAHEDRON,
+                  geometryMode, verticeMode, hiddenFacesRemoved, primitiveRestart);
+            }
+            assertParallelTraversalSameAsBulk(quads, VTKGeometry.VTK_QUAD, geometryMode,
+                verticeMode, false, primitiveRestart);
+          }
+        }
+      }
+    } finally {
+      VTKDrawableVBOBuilder.PARALLEL_CHUNK_CELLS = chunkCells;
+    }
+  }
+
+  protected void assertParallelTraversalSameAsBulk(VTUDataset grid, int geometry,
+      GeometryMode geometryMode, VerticeMode verticeMode, boolean hiddenFacesRemoved,
+      boolean primitiveRestart) {
+    VTKDrawableVBOBuilder bulk =
+        new VTKDrawableVBOBuilder(grid, geometryMode, verticeMode, geometry);
+    bulk.setTraversalMode(TraversalMode.BULK);
+    bulk.setHiddenFacesRemoved(hiddenFacesRemoved);
+    bulk.setPrimitiveRestart(primitiveRestart);
+    bulk.makePolygons("enthalpy");
+
+    VTKDrawableVBOBuilder parallel =
+        new VTKDrawableVBOBuilder(grid, geometryMode, verticeMode, geometry);
+    parallel.setTraversalMode(TraversalMode.PARALLEL);
+    parallel.setHiddenFacesRemoved(hiddenFacesRemoved);
+    parallel.setPrimitiveRestart(primitiveRestart);
+    parallel.makePolygons("enthalpy");
+
+    String info = VTKGeometry.name(geometry) + " " + geometryMode + " " + verticeMode
+        + (primitiveRestart ? " restart" : "");
+
+    Assert.assertTrue(info, Arrays.equals(bulk.elements, parallel.elements));
+    Assert.assertTrue(info, Arrays.deepEquals(bulk.elementsIndices, parallel.elementsIndices));
+    Assert.assertTrue(info, Arrays.equals(bulk.elementsStarts, parallel.elementsStarts));
+    Assert.assertTrue(info, Arrays.equals(bulk.elementsLength, parallel.elementsLength));
+    Assert.assertTrue(info, Arrays.equals(bulk.colors, parallel.colors));
+    Assert.assertEquals(info, bulk.singleElementCursor, parallel.singleElementCursor);
+    Assert.assertEquals(info, bulk.multiElementCursor, parallel.multiElementCursor);
+  }
+
+  @Test
+  public void givenVTUDataset_Hexahedron_thenBuffersAreSameAsVTKInput() throws IOException {
+    String file = "./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu";
+
+    VTKDrawableVBOBuilder vtk = new VTKDrawableVBOBuilder(VTKReader.getReaderOutput(file),
+        GeometryMode.MULTI_GEOMETRY, VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    vtk.makePolygons("enthalpy");
+
+    VTUDataset grid = new PVTUReader().read(file);
+
+    VTKDrawableVBOBuilder java = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    java.makePolygons("enthalpy");
+
+    Assert.assertTrue(Arrays.equals(vtk.getCoordinates(), java.getCoordinates()));
+    Assert.assertTrue(Arrays.deepEquals(vtk.elementsIndices, java.elementsIndices));
+    Assert.assertTrue(Arrays.equals(vtk.colors, java.colors));
+  }
+
+  @Test
+  public void givenMemoryMappedVTUDataset_Quads_thenBuffersAreSameAsVTKInput()
+      throws IOException {
+    vtkUnstructuredGrid ugrid =
+        VTKReader.getReaderOutput("./src/test/resources/Enthalpy_HS_wCon_wRad_010_0.vtu");
+
+    VTKDrawableVBOBuilder vtk = new VTKDrawableVBOBuilder(ugrid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_QUAD);
+    vtk.makePolygons("enthalpy");
+
+    VTUReader reader = new VTUReader();
+    reader.setMemoryMapped(true);
+    VTUDataset grid = reader.read("./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_appended.vtu");
+
+    VTKDrawableVBOBuilder java = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_QUAD);
+    java.makePolygons("enthalpy");
+
+    Assert.assertTrue(Arrays.equals(vtk.elements, java.elements));
+    Assert.assertTrue(Arrays.equals(vtk.colors, java.colors));
+    Assert.assertTrue(Arrays.equals(vtk.getPropertyNames(), java.getPropertyNames()));
+  }
+
   ///////////////////////////////////////////////////////////////////
   //
   // SHARED
@@ -183,6 +345,383 @@ public class TestVTKDrawableVBOBuilder {
   }
 
 
+  @Test
+  public void givenHiddenFacesRemoved_Hexahedron_thenOnlyBoundaryFacesAreInBuffer() {
+    vtkUnstructuredGrid grid = VTKReader
+        .getReaderOutput("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    int EXPECT_CELLS = 5778;
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setHiddenFacesRemoved(true);
+    builder.makePolygons("enthalpy");
+
+    int boundaryFaces = builder.surface.getNumberOfBoundaryFaces();
+
+    Assert.assertTrue(boundaryFaces < EXPECT_CELLS * HEXAHEDRON_FACES);
+    Assert.assertEquals(boundaryFaces, builder.elementsIndices.length);
+    Assert.assertEquals(boundaryFaces, builder.multiElementCursor);
+  }
+
+  @Test
+  public void givenBuiltDrawable_whenGetPointToCell_thenIndexIsBuiltOnDemand() throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+
+    Assert.assertNull(builder.getPointToCell());
+
+    builder.makePolygons("enthalpy");
+
+    // Then the index is only built when asked for
+    Assert.assertNull(builder.pointToCell);
+    Assert.assertEquals(grid.getNumberOfPoints(), builder.getPointToCell().getNumberOfPoints());
+    Assert.assertTrue(builder.checkNumberOfSharedPoints() > 0);
+  }
+
+  @Test
+  public void givenBuiltDrawable_whenRecolor_thenColorBufferIsUpdatedInPlace() throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    DrawableVBO2 vbo = builder.makePolygons("enthalpy");
+
+    FloatBuffer colorBuffer = vbo.getColors();
+    float[] colors = builder.colors;
+
+    Assert.assertTrue(vbo instanceof RecolorableDrawableVBO2);
+    Assert.assertFalse(((RecolorableDrawableVBO2) vbo).isColorsDirty());
+
+    // When recolor with another property
+    builder.recolor(vbo, "temp");
+
+    // Then buffer and array are reused and hold the colors of the new property
+    VTKDrawableVBOBuilder expected = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    float[] expectedColors = expected.getPropertyColor("temp");
+
+    Assert.assertSame(colorBuffer, vbo.getColors());
+    Assert.assertSame(colors, builder.colors);
+    Assert.assertEquals("temp", builder.getColoringPropertyName());
+
+    for (int i = 0; i < expectedColors.length; i++) {
+      Assert.assertEquals(expectedColors[i], colorBuffer.get(i));
+    }
+
+    // Then the updated buffer will be uploaded to the GPU at next display
+    Assert.assertTrue(((RecolorableDrawableVBO2) vbo).isColorsDirty());
+
+    // When recolor with another colormap
+    builder.setColormap(new ColorMapGrayscale());
+    builder.recolor(vbo);
+
+    expected.setColormap(new ColorMapGrayscale());
+    expectedColors = expected.getPropertyColor("temp");
+
+    for (int i = 0; i < expectedColors.length; i++) {
+      Assert.assertEquals(expectedColors[i], colorBuffer.get(i));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenAlphaChangedAfterBuild_whenRecolor_thenThrowsIllegalArgument()
+      throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    DrawableVBO2 vbo = builder.makePolygons("enthalpy");
+
+    builder.setAlpha(0.5f);
+    builder.recolor(vbo, "temp");
+  }
+
+  @Test
+  public void givenChunkSize_whenMakePolygonChunks_thenChunksAreBoundedAndHoldAllFaces()
+      throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    int MAX_CHUNK_SIZE = 1000;
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setHiddenFacesRemoved(true);
+
+    List<DrawableVBO2> notified = new ArrayList<>();
+    List<DrawableVBO2> chunks =
+        builder.makePolygonChunks("enthalpy", MAX_CHUNK_SIZE, notified::add);
+
+    Assert.assertTrue(chunks.size() > 1);
+    Assert.assertEquals(chunks, notified);
+
+    int indices = 0;
+
+    for (DrawableVBO2 chunk : chunks) {
+      int vertices = chunk.getVertices().capacity() / 3;
+
+      Assert.assertTrue(vertices <= MAX_CHUNK_SIZE);
+      Assert.assertTrue(chunk.getElements().capacity() <= MAX_CHUNK_SIZE);
+      Assert.assertEquals(vertices * 3, chunk.getColors().capacity());
+
+      for (int i = 0; i < chunk.getElements().capacity(); i++) {
+        Assert.assertTrue(chunk.getElements().get(i) < vertices);
+      }
+      indices += chunk.getElements().capacity();
+    }
+
+    Assert.assertEquals(builder.surface.getNumberOfBoundaryFaces() * QUAD_POINTS, indices);
+  }
+
+  @Test
+  public void givenChunks_whenRecolor_thenEachChunkHoldsTheColorsOfItsPoints()
+      throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setHiddenFacesRemoved(true);
+
+    List<DrawableVBO2> chunks = builder.makePolygonChunks("enthalpy", 1000);
+    List<FloatBuffer> colorBuffers = new ArrayList<>();
+    for (DrawableVBO2 chunk : chunks) {
+      colorBuffers.add(chunk.getColors());
+    }
+
+    // When recolor with another property
+    builder.recolor(chunks, "temp");
+
+    // Then each chunk buffer is reused and holds the colors of its points
+    VTKDrawableVBOBuilder expected = new VTKDrawableVBOBuilder(grid,
+        GeometryMode.SINGLE_GEOMETRY, VerticeMode.REPEATED, VTKGeometry.VTK_HEXAHEDRON);
+    float[] expectedColors = expected.getPropertyColor("temp");
+
+    for (int c = 0; c < chunks.size(); c++) {
+      RecolorableDrawableVBO2 chunk = (RecolorableDrawableVBO2) chunks.get(c);
+      int[] pointIds = chunk.getPointIds();
+
+      Assert.assertSame(colorBuffers.get(c), chunk.getColors());
+      Assert.assertEquals(chunk.getVertices().capacity() / 3, pointIds.length);
+      Assert.assertTrue(chunk.isColorsDirty());
+
+      for (int i = 0; i < pointIds.length; i++) {
+        for (int k = 0; k < 3; k++) {
+          Assert.assertEquals(expectedColors[pointIds[i] * 3 + k],
+              chunk.getColors().get(i * 3 + k));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void givenShortIndices_thenDrawablesOfFewVerticesHaveShortElementBuffer()
+      throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setHiddenFacesRemoved(true);
+
+    boolean fits = grid.getNumberOfPoints() <= RecolorableDrawableVBO2.MAX_SHORT_INDEXED_VERTICES;
+
+    Assert.assertTrue(builder.isShortIndices());
+    Assert.assertEquals(fits, builder.makePolygons("enthalpy") instanceof ShortIndexDrawableVBO2);
+
+    for (DrawableVBO2 chunk : builder.makePolygonChunks("enthalpy", 1000)) {
+      Assert.assertTrue(chunk instanceof ShortIndexDrawableVBO2);
+      Assert.assertEquals(2, ((RecolorableDrawableVBO2) chunk).getElementBytes());
+    }
+
+    // When disabled, indices are int whatever the number of vertices
+    builder.setShortIndices(false);
+
+    Assert.assertFalse(builder.makePolygons("enthalpy") instanceof ShortIndexDrawableVBO2);
+
+    for (DrawableVBO2 chunk : builder.makePolygonChunks("enthalpy", 1000)) {
+      Assert.assertEquals(4, ((RecolorableDrawableVBO2) chunk).getElementBytes());
+    }
+  }
+
+  @Test
+  public void givenQuadsTriangulated_Hexahedron_thenElementsAreTwoTrianglesPerFace()
+      throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder quads = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_HEXAHEDRON);
+    quads.setHiddenFacesRemoved(true);
+    quads.makePolygons("enthalpy");
+
+    VTKDrawableVBOBuilder triangles = new VTKDrawableVBOBuilder(grid,
+        GeometryMode.SINGLE_GEOMETRY, VerticeMode.REPEATED, VTKGeometry.VTK_HEXAHEDRON);
+    triangles.setHiddenFacesRemoved(true);
+    triangles.setQuadsTriangulated(true);
+    DrawableVBO2 vbo = triangles.makePolygons("enthalpy");
+
+    int faces = quads.surface.getNumberOfBoundaryFaces();
+
+    Assert.assertEquals(faces * 6, triangles.elements.length);
+    Assert.assertEquals(faces * 6, vbo.getElements().capacity());
+
+    for (int face = 0; face < faces; face++) {
+      for (int k = 0; k < 6; k++) {
+        int quadPoint = VTKDrawableVBOBuilder.QUAD_TRIANGLES[k];
+        Assert.assertEquals(quads.elements[face * QUAD_POINTS + quadPoint],
+            triangles.elements[face * 6 + k]);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenTooSmallChunkSize_whenMakePolygonChunks_thenThrowsIllegalArgument()
+      throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.makePolygonChunks("enthalpy", VTKDrawableVBOBuilder.MIN_CHUNK_SIZE - 1);
+  }
+
+  @Test
+  public void givenPrimitiveRestart_thenElementArrayIsFilledWithRestartAfterEachGeometry()
+      throws IOException {
+    int R = DrawableVBO2.PRIMITIVE_RESTART_VALUE;
+
+    // Quads
+    VTUDataset quads =
+        new VTUReader().read("./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_appended_raw.vtu");
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(quads,
+        GeometryMode.SINGLE_GEOMETRY, VerticeMode.REPEATED, VTKGeometry.VTK_QUAD);
+    builder.setPrimitiveRestart(true);
+    DrawableVBO2 vbo = builder.makePolygons("enthalpy");
+
+    Assert.assertTrue(vbo instanceof PrimitiveRestartDrawableVBO2);
+    Assert.assertEquals(quads.getNumberOfCells() * (QUAD_POINTS + 1), builder.elements.length);
+    Assert.assertEquals(builder.elements.length, builder.singleElementCursor);
+
+    for (int i = 0; i < builder.elements.length; i++) {
+      Assert.assertEquals(i % (QUAD_POINTS + 1) == QUAD_POINTS, builder.elements[i] == R);
+    }
+
+    // Hexahedrons as multiple geometries
+    VTUDataset hexahedrons = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    builder = new VTKDrawableVBOBuilder(hexahedrons, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setPrimitiveRestart(true);
+    builder.setHiddenFacesRemoved(true);
+    vbo = builder.makePolygons("enthalpy");
+
+    int faces = builder.surface.getNumberOfBoundaryFaces();
+
+    Assert.assertTrue(vbo instanceof PrimitiveRestartDrawableVBO2);
+    Assert.assertNull(builder.elementsIndices);
+    Assert.assertEquals(faces * (QUAD_POINTS + 1), builder.elements.length);
+    Assert.assertEquals(builder.elements.length, builder.singleElementCursor);
+    Assert.assertEquals(faces, Arrays.stream(builder.elements).filter(e -> e == R).count());
+  }
+
+  @Test
+  public void givenPrimitiveRestart_whenMakePolygonChunks_thenChunksAreDrawnWithRestart()
+      throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.REPEATED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setPrimitiveRestart(true);
+    builder.setHiddenFacesRemoved(true);
+
+    for (DrawableVBO2 chunk : builder.makePolygonChunks("enthalpy", 1000)) {
+      Assert.assertTrue(chunk instanceof PrimitiveRestartDrawableVBO2);
+      Assert.assertEquals(DrawableVBO2.PRIMITIVE_RESTART_VALUE,
+          ((PrimitiveRestartDrawableVBO2) chunk).elementArray[QUAD_POINTS]);
+    }
+
+    // Triangulated quads do not need restart values
+    builder = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY, VerticeMode.REPEATED,
+        VTKGeometry.VTK_HEXAHEDRON);
+    builder.setPrimitiveRestart(true);
+    builder.setQuadsTriangulated(true);
+
+    for (DrawableVBO2 chunk : builder.makePolygonChunks("enthalpy", 1000)) {
+      Assert.assertFalse(chunk instanceof PrimitiveRestartDrawableVBO2);
+    }
+  }
+
+  @Test
+  public void givenPrimitiveRestart_MixedPolygons_thenSingleElementArrayForMultiGeometry() {
+    int R = DrawableVBO2.PRIMITIVE_RESTART_VALUE;
+
+    // A quad and a triangle sharing an edge
+    VTUDataset grid = new VTUDataset(5, 2);
+    grid.setPoints(array(Type.Float32, 3, 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0, 2, 0, 0));
+    grid.setConnectivityArray(array(Type.Int64, 1, 0, 1, 2, 3, 1, 4, 2));
+    grid.setOffsetsArray(array(Type.Int64, 1, 4, 7));
+    grid.setTypesArray(array(Type.UInt8, 1, VTKGeometry.VTK_QUAD, VTKGeometry.VTK_TRIANGLE));
+    grid.getPointData().put("value", array(Type.Float32, 1, 0, 1, 2, 3, 4));
+
+    for (VerticeMode verticeMode : VerticeMode.values()) {
+      VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid,
+          GeometryMode.MULTI_GEOMETRY, verticeMode, VTKGeometry.VTK_QUAD);
+      builder.setPrimitiveRestart(true);
+      builder.makePolygons("value");
+
+      Assert.assertTrue(Arrays.equals(new int[] {0, 1, 2, 3, R, 1, 4, 2, R}, builder.elements));
+      Assert.assertNull(builder.elementsIndices);
+      Assert.assertNull(builder.elementsStarts);
+      Assert.assertNull(builder.elementsLength);
+    }
+  }
+
+  protected static VTUDataArray array(Type type, int components, double... values) {
+    VTUDataArray array = new VTUDataArray(null, type, components, Format.ASCII);
+    array.setData(ByteBuffer.allocate(values.length * type.size()).order(ByteOrder.nativeOrder()));
+    for (int i = 0; i < values.length; i++) {
+      array.setValue(i, values[i]);
+    }
+    return array;
+  }
+
+  @Test
+  public void givenColorLookupTable_thenColorsAreCloseToColormap() throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.MULTI_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setColormap(new ColorMapRainbow());
+
+    // When
+    float[] colors = builder.getPropertyColor("enthalpy");
+
+    // Then each color is the colormap color up to the resolution of the lookup table
+    float[] values = grid.getPointDataArray("enthalpy").toFloatArray();
+    double min = builder.getPropertyRange().getMin();
+    double max = builder.getPropertyRange().getMax();
+
+    Assert.assertEquals(values.length * 3, colors.length);
+
+    for (int i = 0; i < values.length; i++) {
+      Color expected = builder.getColormap().getColor(0, 0, values[i], min, max);
+      Assert.assertEquals(expected.r, colors[i * 3], 1e-2);
+      Assert.assertEquals(expected.g, colors[i * 3 + 1], 1e-2);
+      Assert.assertEquals(expected.b, colors[i * 3 + 2], 1e-2);
+    }
+  }
+
   ///////////////////////////////////////////////////////////////////
   //
   // REPEATED
@@ -0,0 +1,128 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.nio.FloatBuffer;
+import org.junit.Test;
+import org.jzy3d.colors.Color;
+import org.jzy3d.colors.colormaps.ColorMapRainbow;
+import org.jzy3d.io.vtk.drawable.VTKVolumeBuilder.AxisOrder;
+import org.jzy3d.maths.Range;
+import junit.framework.Assert;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestVTKVolumeBuilder {
+  // 2x3x4 points with value x + 10 * y + 100 * z, in VTK order
+  int[] dims = {2, 3, 4};
+
+  float[] values(int components) {
+    float[] values = new float[dims[0] * dims[1] * dims[2] * components];
+    for (int z = 0; z < dims[2]; z++) {
+      for (int y = 0; y < dims[1]; y++) {
+        for (int x = 0; x < dims[0]; x++) {
+          int id = x + dims[0] * (y + dims[1] * z);
+          values[id * components] = x + 10 * y + 100 * z;
+          for (int c = 1; c < components; c++) {
+            values[id * components + c] = -1;
+          }
+        }
+      }
+    }
+    return values;
+  }
+
+  @Test
+  public void givenXFastest_whenCopyScalars_thenValuesAreInVTKOrder() {
+    for (boolean checkDuplicates : new boolean[] {false, true}) {
+      float[] values = values(1);
+      FloatBuffer out = FloatBuffer.allocate(values.length);
+
+      float[] range = VTKVolumeBuilder.copyScalars(values, 1, dims, AxisOrder.X_FASTEST, out,
+          checkDuplicates);
+
+      Assert.assertEquals(values.length, out.position());
+      for (int i = 0; i < values.length; i++) {
+        Assert.assertEquals(values[i], out.get(i));
+      }
+      Assert.assertEquals(0f, range[0]);
+      Assert.assertEquals(321f, range[1]);
+    }
+  }
+
+  @Test
+  public void givenZFastest_whenCopyScalars_thenZVariesFirst() {
+    for (boolean checkDuplicates : new boolean[] {false, true}) {
+      FloatBuffer out = FloatBuffer.allocate(24);
+
+      VTKVolumeBuilder.copyScalars(values(1), 1, dims, AxisOrder.Z_FASTEST, out,
+          checkDuplicates);
+
+      for (int x = 0; x < dims[0]; x++) {
+        for (int y = 0; y < dims[1]; y++) {
+          for (int z = 0; z < dims[2]; z++) {
+            Assert.assertEquals((float) (x + 10 * y + 100 * z),
+                out.get(z + dims[2] * (y + dims[1] * x)));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void givenSeveralComponents_whenCopyScalars_thenFirstComponentIsCopied() {
+    FloatBuffer out = FloatBuffer.allocate(24);
+
+    float[] range =
+        VTKVolumeBuilder.copyScalars(values(3), 3, dims, AxisOrder.X_FASTEST, out, false);
+
+    float[] expected = values(1);
+    for (int i = 0; i < expected.length; i++) {
+      Assert.assertEquals(expected[i], out.get(i));
+    }
+    Assert.assertEquals(0f, range[0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenTooSmallBuffer_whenCopyScalars_thenThrowsIllegalArgument() {
+    VTKVolumeBuilder.copyScalars(values(1), 1, dims, AxisOrder.X_FASTEST, FloatBuffer.allocate(23),
+        false);
+  }
+
+  @Test
+  public void givenCachedScalars_whenBake_thenEachBakeHasItsOwnBuffer() {
+    VTKVolumeBuilder builder = new VTKVolumeBuilder(null);
+    builder.scalars = new float[] {0, 50, 100};
+
+    ColorLookupTable colors = new ColorLookupTable(new ColorMapRainbow(), new Range(0, 100), 256);
+    colors.setAlphaRamp(0, 1);
+
+    FloatBuffer first = builder.bake(colors);
+    Assert.assertTrue(first.isDirect());
+    Assert.assertEquals(12, first.capacity());
+    Assert.assertEquals(0f, first.get(3));
+    Assert.assertEquals(1f, first.get(11));
+
+    // Baking again after a colormap change does not modify the colors of a previous volume
+    colors.setAlpha(0.5f);
+    FloatBuffer second = builder.bake(colors);
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals(0f, first.get(3));
+    Assert.assertEquals(0.5f, second.get(3));
+
+    // Unless the caller asks to bake in place
+    Assert.assertSame(first, builder.bake(colors, first));
+    Assert.assertEquals(0.5f, first.get(3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenBufferOfOtherSize_whenBake_thenThrowsIllegalArgument() {
+    VTKVolumeBuilder builder = new VTKVolumeBuilder(null);
+    builder.scalars = new float[] {0, 50, 100};
+    builder.bake(new ColorLookupTable(Color.RED), FloatBuffer.allocate(8));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void givenNoScalars_whenBake_thenThrowsIllegalState() {
+    new VTKVolumeBuilder(null).bake(new ColorLookupTable(Color.RED));
+  }
+}
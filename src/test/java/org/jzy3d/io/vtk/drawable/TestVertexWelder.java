@@ -0,0 +1,101 @@
+package org.jzy3d.io.vtk.drawable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import junit.framework.Assert;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestVertexWelder {
+  @Test
+  public void givenPVTU_whenWeld_thenPointsAtPieceBordersAreMerged() throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    float[] coordinates = grid.getCoordinates();
+
+    // Count distinct points naively
+    Set<List<Float>> distinct = new HashSet<>();
+    for (int p = 0; p < grid.getNumberOfPoints(); p++) {
+      int i = p * 3;
+      distinct.add(Arrays.asList(coordinates[i], coordinates[i + 1], coordinates[i + 2]));
+    }
+
+    // When
+    VertexWelder welder = new VertexWelder();
+    VTUDataset welded = welder.weld(grid);
+
+    // Then each distinct point remains once
+    Assert.assertEquals(9114, grid.getNumberOfPoints());
+    Assert.assertEquals(distinct.size(), welded.getNumberOfPoints());
+    Assert.assertTrue(welded.getNumberOfPoints() < grid.getNumberOfPoints());
+    Assert.assertEquals(welded.getNumberOfPoints() * 3, welded.getCoordinates().length);
+
+    // Then cells have the same corners and the point data of the first point of each group
+    int[] connectivity = grid.getConnectivity();
+    int[] weldedConnectivity = welded.getConnectivity();
+    float[] weldedCoordinates = welded.getCoordinates();
+    float[] temp = grid.getPointDataAsFloat("temp");
+    float[] weldedTemp = welded.getPointDataAsFloat("temp");
+
+    Assert.assertEquals(grid.getNumberOfCells(), welded.getNumberOfCells());
+    Assert.assertEquals(connectivity.length, weldedConnectivity.length);
+
+    for (int i = 0; i < connectivity.length; i++) {
+      int point = connectivity[i];
+      int weldedPoint = weldedConnectivity[i];
+
+      Assert.assertEquals(welder.getRemap()[point], weldedPoint);
+
+      for (int d = 0; d < 3; d++) {
+        Assert.assertEquals(coordinates[point * 3 + d], weldedCoordinates[weldedPoint * 3 + d]);
+      }
+      Assert.assertEquals(temp[welder.getRepresentatives()[weldedPoint]], weldedTemp[weldedPoint]);
+    }
+  }
+
+  @Test
+  public void givenTolerance_thenPointsCloserThanToleranceAreMergedWithFirstPoint() {
+    float[] coordinates = {0, 0, 0, //
+        1, 0, 0, //
+        0.05f, 0, 0, // close to 0
+        1, 0.05f, 0.05f, // close to 1
+        -0f, 0, 0, // equal to 0
+        3, 0, 0};
+
+    int[] remap = new VertexWelder(0.1f).weld(coordinates);
+    Assert.assertTrue(Arrays.equals(new int[] {0, 1, 0, 1, 0, 2}, remap));
+
+    VertexWelder exact = new VertexWelder();
+    remap = exact.weld(coordinates);
+    Assert.assertTrue(Arrays.equals(new int[] {0, 1, 2, 3, 0, 4}, remap));
+    Assert.assertTrue(Arrays.equals(new int[] {0, 1, 2, 3, 5}, exact.getRepresentatives()));
+    Assert.assertTrue(Arrays.equals(new int[] {1, 0, 4, 3}, exact.remap(new int[] {1, 4, 5, 3})));
+  }
+
+  @Test
+  public void givenChainOfClosePoints_thenMergeIsTransitive() {
+    float[] coordinates = {0, 0, 0, //
+        0.08f, 0, 0, //
+        0.16f, 0, 0, // close to 1 but not to 0
+        0.5f, 0, 0};
+
+    VertexWelder welder = new VertexWelder(0.1f);
+    int[] remap = welder.weld(coordinates);
+
+    Assert.assertTrue(Arrays.equals(new int[] {0, 0, 0, 1}, remap));
+    Assert.assertTrue(Arrays.equals(new float[] {0, 0, 0, 0.5f, 0, 0}, welder.getCoordinates()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenNegativeTolerance_thenThrowsIllegalArgument() {
+    new VertexWelder(-1);
+  }
+}
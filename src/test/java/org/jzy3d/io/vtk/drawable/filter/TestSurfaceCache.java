@@ -0,0 +1,165 @@
+package org.jzy3d.io.vtk.drawable.filter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.GeometryMode;
+import org.jzy3d.io.vtk.drawable.VTKDrawableVBOBuilder.VerticeMode;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import junit.framework.Assert;
+import vtk.VTKGeometry;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestSurfaceCache {
+  static String PVTU = "./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu";
+
+  // Two hexahedrons sharing the face made of points 1, 2, 5, 6 (1, 4, 5, 8 in second cell ids)
+  int[] offsets = {0, 8, 16};
+  int[] connectivity = {0, 1, 2, 3, 4, 5, 6, 7, 1, 8, 9, 2, 5, 10, 11, 6};
+  int[] types = {VTKGeometry.VTK_HEXAHEDRON, VTKGeometry.VTK_HEXAHEDRON};
+
+  @Test
+  public void givenSameTopology_whenGet_thenSurfaceIsReused() throws IOException {
+    SurfaceCache cache = new SurfaceCache();
+
+    BoundarySurface first = cache.get(12, offsets, connectivity, types, 2);
+    BoundarySurface second = cache.get(12, offsets.clone(), connectivity.clone(), types.clone(), 2);
+
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+
+    // The shared face is hidden
+    Assert.assertEquals(10, first.getNumberOfBoundaryFaces());
+
+    SurfaceFilterOnPointId filter =
+        new SurfaceFilterOnPointId(12, offsets, connectivity, types, 2);
+    Assert.assertTrue(Arrays.equals(filter.getBoundaryFaces(), first.getBoundaryFaces()));
+    Assert.assertTrue(Arrays.equals(filter.getBoundaryFaceCells(), first.getBoundaryFaceCells()));
+  }
+
+  @Test
+  public void givenOtherTopology_whenGet_thenSurfaceIsExtracted() {
+    SurfaceCache cache = new SurfaceCache(1);
+
+    BoundarySurface first = cache.get(12, offsets, connectivity, types, 2);
+
+    // Same points, but the second cell does not share a face anymore
+    int[] other = connectivity.clone();
+    other[8] = 3;
+    BoundarySurface second = cache.get(12, offsets, other, types, 2);
+
+    Assert.assertNotSame(first, second);
+    Assert.assertTrue(first.getTopologyHash() != second.getTopologyHash());
+    Assert.assertEquals(2, cache.getMisses());
+    Assert.assertEquals(1, cache.getNumberOfSurfaces());
+
+    // Processing less cells is another topology
+    Assert.assertEquals(6, cache.get(12, offsets, connectivity, types, 1)
+        .getNumberOfBoundaryFaces());
+  }
+
+  @Test
+  public void givenSurface_whenGather_thenValuesOfSurfacePointsAreRemapped() {
+    BoundarySurface surface = new SurfaceCache().get(12, offsets, connectivity, types, 2);
+
+    int[] points = surface.getPoints();
+    int[] faces = surface.getBoundaryFaces();
+    int[] localFaces = surface.getLocalFaces();
+
+    // All points are on the surface of two cells
+    Assert.assertEquals(12, surface.getNumberOfSurfacePoints());
+
+    for (int i = 0; i < faces.length; i++) {
+      Assert.assertEquals(faces[i], points[localFaces[i]]);
+      Assert.assertEquals(localFaces[i], surface.getRemap()[faces[i]]);
+    }
+
+    float[] values = new float[12 * 2];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i;
+    }
+
+    float[] gathered = surface.gather(values, 2);
+    for (int i = 0; i < points.length; i++) {
+      Assert.assertEquals((float) points[i] * 2, gathered[i * 2]);
+      Assert.assertEquals((float) points[i] * 2 + 1, gathered[i * 2 + 1]);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenValuesOfOtherSize_whenGather_thenThrowsIllegalArgument() {
+    new SurfaceCache().get(12, offsets, connectivity, types, 2).gather(new float[11], 1);
+  }
+
+  @Test
+  public void givenBuildersSharingCache_whenMakePolygons_thenSurfaceIsExtractedOnce()
+      throws IOException {
+    SurfaceCache cache = new SurfaceCache();
+    int[] elements = null;
+
+    // Each timestep of a static mesh is a new dataset with the same topology
+    for (int step = 0; step < 3; step++) {
+      VTUDataset grid = new PVTUReader().read(PVTU);
+
+      VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid,
+          GeometryMode.SINGLE_GEOMETRY, VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+      builder.setHiddenFacesRemoved(true);
+      builder.setSurfaceCache(cache);
+      builder.makePolygons("enthalpy");
+
+      int[] stepElements = builder.getElements();
+      if (elements != null)
+        Assert.assertTrue(Arrays.equals(elements, stepElements));
+      elements = stepElements;
+    }
+
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(2, cache.getHits());
+  }
+
+  @Test
+  public void givenSurfaceCache_whenMakePolygons_thenElementsAreSameThanWhenWalkingCells()
+      throws IOException {
+    VTUDataset grid = new PVTUReader().read(PVTU);
+    SurfaceCache cache = new SurfaceCache();
+
+    for (boolean primitiveRestart : new boolean[] {false, true}) {
+      VTKDrawableVBOBuilder walked = newBuilder(grid, null, primitiveRestart);
+      VTKDrawableVBOBuilder extracted = newBuilder(grid, cache, primitiveRestart);
+      VTKDrawableVBOBuilder hit = newBuilder(grid, cache, primitiveRestart);
+
+      Assert.assertTrue(Arrays.equals(walked.getElements(), extracted.getElements()));
+      Assert.assertTrue(Arrays.equals(walked.getElements(), hit.getElements()));
+    }
+    Assert.assertEquals(3, cache.getHits());
+  }
+
+  @Test
+  public void givenUncachedSurface_whenBuilt_thenFacesAreCopiedOnFirstUse() {
+    SurfaceFilterOnPointId filter =
+        new SurfaceFilterOnPointId(12, offsets, connectivity, types, 2);
+    BoundarySurface surface = new BoundarySurface(filter, 12, 0);
+
+    Assert.assertNull(surface.faces);
+    Assert.assertTrue(surface.isBoundaryFace(0, 0));
+    Assert.assertFalse(surface.isBoundaryFace(0, 5));
+
+    Assert.assertTrue(Arrays.equals(filter.getBoundaryFaces(), surface.getBoundaryFaces()));
+    Assert.assertNull(surface.filter);
+  }
+
+  VTKDrawableVBOBuilder newBuilder(VTUDataset grid, SurfaceCache cache, boolean primitiveRestart) {
+    VTKDrawableVBOBuilder builder = new VTKDrawableVBOBuilder(grid, GeometryMode.SINGLE_GEOMETRY,
+        VerticeMode.SHARED, VTKGeometry.VTK_HEXAHEDRON);
+    builder.setHiddenFacesRemoved(true);
+    builder.setPrimitiveRestart(primitiveRestart);
+    builder.setSurfaceCache(cache);
+    builder.makePolygons("enthalpy");
+    return builder;
+  }
+}
@@ -1,9 +1,16 @@
 package org.jzy3d.io.vtk.drawable.filter;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataset;
 import org.jzy3d.maths.TicToc;
 import junit.framework.Assert;
+import vtk.VTKGeometry;
 import vtk.VTKReader;
 import vtk.VTKUtils;
 import vtk.vtkUnstructuredGrid;
@@ -35,8 +42,8 @@ public class TestSurfaceFilterOnPointId {
     
     
     SurfaceFilterOnPointId filter = new SurfaceFilterOnPointId(grid, grid.GetCells());
-    System.out.println(filter.keep.size());
-    System.out.println(filter.drop.size());
+    System.out.println(filter.getKeptPoints().size());
+    System.out.println(filter.getDroppedPoints().size());
     
     
     
@@ -57,4 +64,78 @@ public class TestSurfaceFilterOnPointId {
     Assert.assertEquals(EXPECT_POLYGONS_AFTER_FILTER, out.size());*/
   }
 
+
+  @Test
+  public void givenTwoHexahedronsSharingAFace_thenSharedFaceIsHidden() {
+    // two unit cubes along X sharing the face made of points 1, 2, 5, 6
+    int[] connectivity = {0, 1, 2, 3, 4, 5, 6, 7, 1, 8, 9, 2, 5, 10, 11, 6};
+    int[] offsets = {0, 8, 16};
+    int[] types = {VTKGeometry.VTK_HEXAHEDRON, VTKGeometry.VTK_HEXAHEDRON};
+
+    SurfaceFilterOnPointId filter =
+        new SurfaceFilterOnPointId(12, offsets, connectivity, types, 2);
+
+    Assert.assertEquals(10, filter.getNumberOfBoundaryFaces());
+    Assert.assertEquals(40, filter.getBoundaryFaces().length);
+
+    // far face of the first cube (1, 2, 6, 5) is hidden ...
+    Assert.assertFalse(filter.isBoundaryFace(0, 5));
+    Assert.assertTrue(filter.isBoundaryFace(0, 4));
+
+    // ... the second cube sees the shared face as its near face
+    Assert.assertFalse(filter.isBoundaryFace(1, 4));
+
+    int[] cells = filter.getBoundaryFaceCells();
+    Assert.assertEquals(5, Arrays.stream(cells).filter(c -> c == 0).count());
+    Assert.assertEquals(5, Arrays.stream(cells).filter(c -> c == 1).count());
+
+    // Winding of the input cell is kept : first boundary face is north face of first cube
+    Assert.assertTrue(
+        Arrays.equals(new int[] {2, 3, 7, 6}, Arrays.copyOf(filter.getBoundaryFaces(), 4)));
+  }
+
+  @Test
+  public void givenTwoHexahedrons_whenGetKeptPoints_thenPointsAreClassifiedOnFirstUse() {
+    int[] connectivity = {0, 1, 2, 3, 4, 5, 6, 7, 1, 8, 9, 2, 5, 10, 11, 6};
+    int[] offsets = {0, 8, 16};
+    int[] types = {VTKGeometry.VTK_HEXAHEDRON, VTKGeometry.VTK_HEXAHEDRON};
+
+    SurfaceFilterOnPointId filter =
+        new SurfaceFilterOnPointId(12, offsets, connectivity, types, 2);
+
+    Assert.assertNull(filter.pointToCell);
+
+    // All points are used by one or two cells
+    Assert.assertEquals(12, filter.getKeptPoints().size());
+    Assert.assertEquals(0, filter.getDroppedPoints().size());
+    Assert.assertEquals(2, filter.getPointToCell().getValence(1));
+  }
+
+  @Test
+  public void givenHexahedronFile_thenBoundaryFacesAreFacesSeenOnce() throws IOException {
+    VTUDataset grid = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    SurfaceFilterOnPointId filter = new SurfaceFilterOnPointId(grid);
+
+    // Count faces with a naive map of sorted ids
+    int[] offsets = grid.getOffsets();
+    int[] connectivity = grid.getConnectivity();
+    Map<String, Integer> count = new HashMap<>();
+
+    for (int cell = 0; cell < grid.getNumberOfCells(); cell++) {
+      for (int[] face : SurfaceFilterOnPointId.HEXAHEDRON_FACE_POINTS) {
+        int[] ids = new int[4];
+        for (int p = 0; p < 4; p++) {
+          ids[p] = connectivity[offsets[cell] + face[p]];
+        }
+        Arrays.sort(ids);
+        count.merge(Arrays.toString(ids), 1, Integer::sum);
+      }
+    }
+    int expected = (int) count.values().stream().filter(c -> c == 1).count();
+
+    Assert.assertEquals(expected, filter.getNumberOfBoundaryFaces());
+    Assert.assertTrue(expected < grid.getNumberOfCells() * 6);
+  }
 }
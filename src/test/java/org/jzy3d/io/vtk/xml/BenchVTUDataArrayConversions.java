@@ -0,0 +1,74 @@
+package org.jzy3d.io.vtk.xml;
+
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.jzy3d.io.vtk.xml.VTUDataArray.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure the conversions of decoded arrays to the java arrays consumed by the drawable builders,
+ * i.e. the pure java counterpart of the <code>vtk.VTKReader</code> helpers converting
+ * <code>vtkDataArray</code>s, which require VTK natives.
+ *
+ * Arrays are synthetic and their size is set with <code>-p values=...</code>. Run with
+ * <code>mvn -Pbench test</code>, see the <code>bench</code> profile of the pom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchVTUDataArrayConversions {
+  @Param({"100000", "1000000"})
+  public int values;
+
+  @Param({"Float32", "Float64", "Int32", "Int64"})
+  public Type type;
+
+  @Param({"LITTLE_ENDIAN", "BIG_ENDIAN"})
+  public String order;
+
+  protected VTUDataArray array;
+
+  @Setup
+  public void setup() {
+    array = SyntheticGrids.newArray("bench", type, 1, values);
+    array.getData().order(
+        "BIG_ENDIAN".equals(order) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+
+    for (int i = 0; i < values; i++) {
+      array.setValue(i, i % 1000);
+    }
+  }
+
+  @Benchmark
+  public float[] toFloatArray() {
+    return array.toFloatArray();
+  }
+
+  @Benchmark
+  public double[] toDoubleArray() {
+    return array.toDoubleArray();
+  }
+
+  @Benchmark
+  public int[] toIntArray() {
+    return array.toIntArray();
+  }
+
+  @Benchmark
+  public double[] getFiniteRange() {
+    return array.getFiniteRange();
+  }
+}
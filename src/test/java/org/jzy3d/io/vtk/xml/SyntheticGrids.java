@@ -0,0 +1,94 @@
+package org.jzy3d.io.vtk.xml;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.jzy3d.io.vtk.xml.VTUDataArray.Format;
+import org.jzy3d.io.vtk.xml.VTUDataArray.Type;
+import vtk.VTKGeometry;
+
+/**
+ * Build {@link VTUDataset}s of configurable size in memory, so that benchmarks and tests can run
+ * the conversion pipeline without VTK natives nor large files.
+ *
+ * @author Martin Pernollet
+ */
+public class SyntheticGrids {
+  public static final String PROPERTY = "temp";
+
+  /**
+   * Build a block of <code>nx * ny * nz</code> unit hexahedrons sharing their points, with a point
+   * property named {@link #PROPERTY} varying smoothly with the distance to the origin.
+   */
+  public static VTUDataset hexahedrons(int nx, int ny, int nz) {
+    if (nx < 1 || ny < 1 || nz < 1)
+      throw new IllegalArgumentException(
+          "Expect at least one cell per axis, not " + nx + "x" + ny + "x" + nz);
+
+    int px = nx + 1;
+    int py = ny + 1;
+    int pz = nz + 1;
+    int numberOfPoints = px * py * pz;
+    int numberOfCells = nx * ny * nz;
+
+    VTUDataArray points = newArray("Points", Type.Float32, 3, numberOfPoints * 3);
+    VTUDataArray property = newArray(PROPERTY, Type.Float32, 1, numberOfPoints);
+
+    for (int z = 0; z < pz; z++) {
+      for (int y = 0; y < py; y++) {
+        for (int x = 0; x < px; x++) {
+          int id = x + px * (y + py * z);
+          points.setValue(id * 3, x);
+          points.setValue(id * 3 + 1, y);
+          points.setValue(id * 3 + 2, z);
+          property.setValue(id, Math.sqrt(x * x + y * y + z * z));
+        }
+      }
+    }
+
+    VTUDataArray connectivity = newArray("connectivity", Type.Int32, 1, numberOfCells * 8);
+    VTUDataArray offsets = newArray("offsets", Type.Int32, 1, numberOfCells);
+    VTUDataArray types = newArray("types", Type.UInt8, 1, numberOfCells);
+
+    int cell = 0;
+    for (int z = 0; z < nz; z++) {
+      for (int y = 0; y < ny; y++) {
+        for (int x = 0; x < nx; x++) {
+          int p0 = x + px * (y + py * z);
+          int up = px * py;
+
+          // VTK hexahedron ordering : bottom quad then top quad, counter clockwise
+          int[] corners = {p0, p0 + 1, p0 + 1 + px, p0 + px};
+          for (int i = 0; i < 4; i++) {
+            connectivity.setLong(cell * 8 + i, corners[i]);
+            connectivity.setLong(cell * 8 + 4 + i, corners[i] + up);
+          }
+
+          offsets.setLong(cell, (cell + 1) * 8);
+          types.setLong(cell, VTKGeometry.VTK_HEXAHEDRON);
+          cell++;
+        }
+      }
+    }
+
+    VTUDataset grid = new VTUDataset(numberOfPoints, numberOfCells);
+    grid.setPoints(points);
+    grid.setConnectivityArray(connectivity);
+    grid.setOffsetsArray(offsets);
+    grid.setTypesArray(types);
+    grid.getPointData().put(PROPERTY, property);
+    return grid;
+  }
+
+  /** Build a cube of <code>n * n * n</code> hexahedrons. */
+  public static VTUDataset hexahedrons(int n) {
+    return hexahedrons(n, n, n);
+  }
+
+  /** Build an array of the given number of values, initialized to 0 and in little endian order. */
+  public static VTUDataArray newArray(String name, Type type, int numberOfComponents,
+      int numberOfValues) {
+    VTUDataArray array = new VTUDataArray(name, type, numberOfComponents, Format.APPENDED);
+    array.setData(ByteBuffer.allocate(numberOfValues * type.size()).order(ByteOrder.LITTLE_ENDIAN));
+    return array;
+  }
+}
@@ -0,0 +1,119 @@
+package org.jzy3d.io.vtk.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import org.jzy3d.io.vtk.LoadPlan;
+import junit.framework.Assert;
+import vtk.VTKGeometry;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestPVTUReader {
+  static String PVTU = "./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu";
+
+  @Test
+  public void givenPVTU_whenRead_thenPiecesAreMerged() throws IOException {
+    int EXPECT_CELLS = 5778;
+    int EXPECT_POINTS = 9114;
+    int EXPECT_PIECES = 10;
+
+    PVTUReader reader = new PVTUReader();
+
+    List<File> sources = reader.readSources(new File(PVTU));
+    Assert.assertEquals(EXPECT_PIECES, sources.size());
+    Assert.assertEquals("Enthalpy_HS_cylinder_080_0.vtu", sources.get(0).getName());
+
+    VTUDataset grid = reader.read(PVTU);
+
+    Assert.assertEquals(EXPECT_POINTS, grid.getNumberOfPoints());
+    Assert.assertEquals(EXPECT_CELLS, grid.getNumberOfCells());
+    Assert.assertEquals(EXPECT_POINTS * 3, grid.getCoordinates().length);
+    Assert.assertEquals(EXPECT_POINTS, grid.getPointDataAsFloat("enthalpy").length);
+    Assert.assertEquals(EXPECT_CELLS, grid.getCellData().get("processor_id").getNumberOfValues());
+
+    // Cells are all hexahedrons referencing valid points
+    int[] connectivity = grid.getConnectivity();
+    int[] offsets = grid.getOffsets();
+
+    Assert.assertEquals(EXPECT_CELLS * 8, connectivity.length);
+    Assert.assertEquals(connectivity.length, offsets[EXPECT_CELLS]);
+
+    for (int type : grid.getCellTypes()) {
+      Assert.assertEquals(VTKGeometry.VTK_HEXAHEDRON, type);
+    }
+    for (int id : connectivity) {
+      Assert.assertTrue(id >= 0 && id < EXPECT_POINTS);
+    }
+  }
+
+  @Test
+  public void givenPVTU_whenMerged_thenPointIdsAreRebasedPerPiece() throws IOException {
+    PVTUReader reader = new PVTUReader();
+    List<VTUDataset> pieces = reader.readPieces(reader.readSources(new File(PVTU)));
+    VTUDataset grid = reader.merge(pieces);
+
+    int[] connectivity = grid.getConnectivity();
+    float[] coordinates = grid.getCoordinates();
+
+    int pointStart = 0;
+    int connectivityStart = 0;
+
+    for (VTUDataset piece : pieces) {
+      int[] pieceConnectivity = piece.getConnectivity();
+      float[] pieceCoordinates = piece.getCoordinates();
+
+      for (int i = 0; i < pieceConnectivity.length; i++) {
+        Assert.assertEquals(pieceConnectivity[i] + pointStart, connectivity[connectivityStart + i]);
+      }
+      for (int i = 0; i < pieceCoordinates.length; i++) {
+        Assert.assertEquals(pieceCoordinates[i], coordinates[pointStart * 3 + i]);
+      }
+
+      pointStart += piece.getNumberOfPoints();
+      connectivityStart += pieceConnectivity.length;
+    }
+  }
+
+  @Test
+  public void givenAnyExecutor_whenRead_thenResultIsTheSame() throws IOException {
+    ExecutorService single = Executors.newSingleThreadExecutor();
+    ExecutorService multi = Executors.newFixedThreadPool(4);
+
+    try {
+      VTUDataset a = new PVTUReader(single).read(PVTU);
+      VTUDataset b = new PVTUReader(multi).read(PVTU);
+
+      Assert.assertTrue(Arrays.equals(a.getCoordinates(), b.getCoordinates()));
+      Assert.assertTrue(Arrays.equals(a.getConnectivity(), b.getConnectivity()));
+      Assert.assertTrue(Arrays.equals(a.getOffsets(), b.getOffsets()));
+      Assert.assertTrue(
+          Arrays.equals(a.getPointDataAsFloat("temp"), b.getPointDataAsFloat("temp")));
+    } finally {
+      single.shutdown();
+      multi.shutdown();
+    }
+  }
+
+  @Test
+  public void givenLoadPlan_whenRead_thenOnlyPlannedArraysAreMerged() throws IOException {
+    VTUDataset all = new PVTUReader().read(PVTU);
+
+    PVTUReader reader = new PVTUReader();
+    reader.setLoadPlan(new LoadPlan("enthalpy"));
+    VTUDataset grid = reader.read(PVTU);
+
+    Assert.assertTrue(Arrays.equals(new String[] {"enthalpy"}, grid.getPointDataNames()));
+    Assert.assertEquals(0, grid.getCellDataNames().length);
+
+    Assert.assertTrue(Arrays.equals(all.getCoordinates(), grid.getCoordinates()));
+    Assert.assertTrue(Arrays.equals(all.getConnectivity(), grid.getConnectivity()));
+    Assert.assertTrue(
+        Arrays.equals(all.getPointDataAsFloat("enthalpy"), grid.getPointDataAsFloat("enthalpy")));
+  }
+}
@@ -0,0 +1,38 @@
+package org.jzy3d.io.vtk.xml;
+
+import org.junit.Test;
+import org.jzy3d.io.vtk.drawable.filter.SurfaceFilterOnPointId;
+import junit.framework.Assert;
+import vtk.VTKGeometry;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestSyntheticGrids {
+  @Test
+  public void givenCubeOfHexahedrons_whenFilterSurface_thenOnlySidesRemain() {
+    VTUDataset grid = SyntheticGrids.hexahedrons(3);
+
+    Assert.assertEquals(64, grid.getNumberOfPoints());
+    Assert.assertEquals(27, grid.getNumberOfCells());
+    Assert.assertEquals(27 * 8, grid.getOffsets()[27]);
+    Assert.assertEquals(VTKGeometry.VTK_HEXAHEDRON, grid.getCellTypes()[26]);
+    Assert.assertEquals(64, grid.getPointDataAsFloat(SyntheticGrids.PROPERTY).length);
+
+    // Last point is at the opposite corner of the cube
+    float[] coordinates = grid.getCoordinates();
+    Assert.assertEquals(3f, coordinates[63 * 3]);
+    Assert.assertEquals(3f, coordinates[63 * 3 + 1]);
+    Assert.assertEquals(3f, coordinates[63 * 3 + 2]);
+
+    SurfaceFilterOnPointId filter = new SurfaceFilterOnPointId(grid.getNumberOfPoints(),
+        grid.getOffsets(), grid.getConnectivity(), grid.getCellTypes(), grid.getNumberOfCells());
+
+    Assert.assertEquals(6 * 3 * 3, filter.getNumberOfBoundaryFaces());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenEmptyAxis_whenBuildHexahedrons_thenThrowsIllegalArgument() {
+    SyntheticGrids.hexahedrons(2, 0, 2);
+  }
+}
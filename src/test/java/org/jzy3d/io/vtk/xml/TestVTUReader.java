@@ -0,0 +1,329 @@
+package org.jzy3d.io.vtk.xml;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import org.junit.Test;
+import org.jzy3d.io.vtk.LoadPlan;
+import junit.framework.Assert;
+import vtk.VTKGeometry;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestVTUReader {
+  static String ASCII = "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0.vtu";
+  static String BINARY = "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_binary.vtu";
+  static String APPENDED_RAW = "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_appended.vtu";
+  static String APPENDED_BASE64 =
+      "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_appended_base64.vtu";
+  static String APPENDED_RAW_UNCOMPRESSED =
+      "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_appended_raw.vtu";
+  static String BINARY_ZLIB = "./src/test/resources/out0006.000.vtu";
+
+  // Same content with InformationKey elements nested in data arrays, as written by VTK 8.2+
+  static String ASCII_INFORMATION_KEYS =
+      "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_information_keys.vtu";
+  static String BINARY_INFORMATION_KEYS =
+      "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_binary_information_keys.vtu";
+  static String APPENDED_INFORMATION_KEYS =
+      "./src/test/resources/Enthalpy_HS_wCon_wRad_010_0_appended_information_keys.vtu";
+
+  @Test
+  public void givenAsciiFile_whenRead_thenArraysHaveExpectedContent() throws IOException {
+    VTUDataset grid = new VTUReader().read(ASCII);
+
+    int EXPECT_POINTS = 501;
+    int EXPECT_CELLS = 436;
+
+    Assert.assertEquals(EXPECT_POINTS, grid.getNumberOfPoints());
+    Assert.assertEquals(EXPECT_CELLS, grid.getNumberOfCells());
+
+    Assert.assertEquals(EXPECT_POINTS * 3, grid.getCoordinates().length);
+    Assert.assertEquals(EXPECT_CELLS * 4, grid.getConnectivity().length);
+
+    // offsets follow vtkCellArray convention
+    int[] offsets = grid.getOffsets();
+    Assert.assertEquals(EXPECT_CELLS + 1, offsets.length);
+    Assert.assertEquals(0, offsets[0]);
+    Assert.assertEquals(4, offsets[1]);
+    Assert.assertEquals(EXPECT_CELLS * 4, offsets[EXPECT_CELLS]);
+
+    for (int type : grid.getCellTypes()) {
+      Assert.assertEquals(VTKGeometry.VTK_QUAD, type);
+    }
+
+    Assert.assertTrue(
+        Arrays.equals(new String[] {"temp", "err_bnds", "enthalpy"}, grid.getPointDataNames()));
+    Assert.assertTrue(Arrays.equals(
+        new String[] {"libmesh_elem_id", "subdomain_id", "processor_id"}, grid.getCellDataNames()));
+
+    float[] temp = grid.getPointDataAsFloat("temp");
+    Assert.assertEquals(EXPECT_POINTS, temp.length);
+    Assert.assertEquals(545.73553216f, temp[0], 0.0001);
+
+    // range is the one declared in the file
+    double[] range = grid.getPointDataArray("temp").getFiniteRange();
+    Assert.assertEquals(300, range[0], 0.0001);
+    Assert.assertEquals(1739.62, range[1], 0.0001);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenMissingProperty_whenRead_thenThrowsIllegalArgument() throws IOException {
+    new VTUReader().read(ASCII).getPointDataAsFloat("notAProperty");
+  }
+
+  @Test
+  public void givenBinaryAndAppendedFiles_whenRead_thenContentIsSameThanAscii()
+      throws IOException {
+    VTUDataset ascii = new VTUReader().read(ASCII);
+
+    for (String file : new String[] {BINARY, APPENDED_RAW, APPENDED_BASE64}) {
+      assertSameContent(file, ascii, new VTUReader().read(file));
+    }
+  }
+
+  @Test
+  public void givenInformationKeysInDataArrays_whenRead_thenContentIsSameThanWithout()
+      throws IOException {
+    VTUDataset ascii = new VTUReader().read(ASCII);
+
+    for (boolean memoryMapped : new boolean[] {false, true}) {
+      VTUReader reader = new VTUReader();
+      reader.setMemoryMapped(memoryMapped);
+
+      for (String file : new String[] {ASCII_INFORMATION_KEYS, BINARY_INFORMATION_KEYS,
+          APPENDED_INFORMATION_KEYS}) {
+        VTUDataset grid = reader.read(file);
+
+        Assert.assertTrue(file,
+            Arrays.equals(ascii.getPointDataNames(), grid.getPointDataNames()));
+        Assert.assertTrue(file, Arrays.equals(ascii.getCellDataNames(), grid.getCellDataNames()));
+        assertSameContent(file, ascii, grid);
+      }
+    }
+  }
+
+  @Test(expected = IOException.class, timeout = 10000)
+  public void givenBlockLargerThanDeclared_whenRead_thenThrowsIOException() throws IOException {
+    float[] coordinates = {0, 1, 2, 3, 4, 5};
+
+    ByteBuffer raw = ByteBuffer.allocate(coordinates.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+    raw.asFloatBuffer().put(coordinates);
+
+    Deflater deflater = new Deflater();
+    deflater.setInput(raw.array());
+    deflater.finish();
+    byte[] compressed = new byte[256];
+    int compressedSize = deflater.deflate(compressed);
+    deflater.end();
+
+    // a single block declared to hold the first point only
+    ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(1).putInt(12).putInt(12).putInt(compressedSize);
+
+    String xml = "<?xml version=\"1.0\"?>\n"
+        + "<VTKFile type=\"UnstructuredGrid\" version=\"1.0\" byte_order=\"LittleEndian\" "
+        + "header_type=\"UInt32\" compressor=\"vtkZLibDataCompressor\">\n"
+        + "<UnstructuredGrid><Piece NumberOfPoints=\"2\" NumberOfCells=\"0\"><Points>\n"
+        + "<DataArray type=\"Float32\" Name=\"Points\" NumberOfComponents=\"3\" "
+        + "format=\"appended\" offset=\"0\"/>\n"
+        + "</Points></Piece></UnstructuredGrid>\n<AppendedData encoding=\"raw\">_";
+
+    File file = File.createTempFile("TestVTUReader", ".vtu");
+    file.deleteOnExit();
+
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(xml.getBytes(StandardCharsets.US_ASCII));
+      out.write(header.array());
+      out.write(compressed, 0, compressedSize);
+      out.write("\n</AppendedData>\n</VTKFile>\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    new VTUReader().read(file);
+  }
+
+  void assertSameContent(String file, VTUDataset expected, VTUDataset grid) {
+    Assert.assertEquals(file, expected.getNumberOfPoints(), grid.getNumberOfPoints());
+    Assert.assertEquals(file, expected.getNumberOfCells(), grid.getNumberOfCells());
+    Assert.assertTrue(file, Arrays.equals(expected.getCoordinates(), grid.getCoordinates()));
+    Assert.assertTrue(file, Arrays.equals(expected.getConnectivity(), grid.getConnectivity()));
+    Assert.assertTrue(file, Arrays.equals(expected.getOffsets(), grid.getOffsets()));
+    Assert.assertTrue(file, Arrays.equals(expected.getCellTypes(), grid.getCellTypes()));
+
+    for (String property : expected.getPointDataNames()) {
+      Assert.assertTrue(file + " " + property,
+          Arrays.equals(expected.getPointDataArray(property).toDoubleArray(),
+              grid.getPointDataArray(property).toDoubleArray()));
+    }
+    for (String property : expected.getCellDataNames()) {
+      Assert.assertTrue(file + " " + property,
+          Arrays.equals(expected.getCellData().get(property).toIntArray(),
+              grid.getCellData().get(property).toIntArray()));
+    }
+  }
+
+  @Test
+  public void givenZlibCompressedFile_whenRead_thenArraysHaveExpectedSize() throws IOException {
+    VTUDataset grid = new VTUReader().read(BINARY_ZLIB);
+
+    int EXPECT_POINTS = 110136;
+    int EXPECT_CELLS = 13767;
+
+    Assert.assertEquals(EXPECT_POINTS, grid.getNumberOfPoints());
+    Assert.assertEquals(EXPECT_CELLS, grid.getNumberOfCells());
+
+    Assert.assertEquals(EXPECT_POINTS * 3, grid.getCoordinates().length);
+    Assert.assertEquals(EXPECT_CELLS * 8, grid.getConnectivity().length);
+    Assert.assertEquals(EXPECT_CELLS * 8, grid.getOffsets()[EXPECT_CELLS]);
+
+    for (int type : grid.getCellTypes()) {
+      Assert.assertEquals(VTKGeometry.VTK_HEXAHEDRON, type);
+    }
+
+    VTUDataArray velocity = grid.getPointDataArray("vel");
+    Assert.assertEquals(3, velocity.getNumberOfComponents());
+    Assert.assertEquals(EXPECT_POINTS, velocity.getNumberOfTuples());
+  }
+
+  @Test
+  public void givenDirectBufferSetting_whenRead_thenDataIsDirect() throws IOException {
+    VTUReader reader = new VTUReader();
+    reader.setDirectBuffers(true);
+
+    VTUDataset grid = reader.read(APPENDED_RAW);
+
+    Assert.assertTrue(grid.getPoints().getData().isDirect());
+    Assert.assertTrue(grid.getPointDataArray("temp").getData().isDirect());
+    Assert.assertEquals(grid.getNumberOfPoints() * 3, grid.getPoints().toFloatBuffer().capacity());
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // MEMORY MAPPING
+  //
+  ///////////////////////////////////////////////
+
+  @Test
+  public void givenMemoryMappedSetting_whenReadAppendedFiles_thenContentIsSameThanAscii()
+      throws IOException {
+    VTUDataset ascii = new VTUReader().read(ASCII);
+
+    VTUReader reader = new VTUReader();
+    reader.setMemoryMapped(true);
+
+    for (String file : new String[] {APPENDED_RAW_UNCOMPRESSED, APPENDED_RAW, APPENDED_BASE64,
+        BINARY}) {
+      VTUDataset grid = reader.read(file);
+
+      Assert.assertEquals(file, ascii.getNumberOfPoints(), grid.getNumberOfPoints());
+      Assert.assertTrue(file, Arrays.equals(ascii.getCoordinates(), grid.getCoordinates()));
+      Assert.assertTrue(file, Arrays.equals(ascii.getConnectivity(), grid.getConnectivity()));
+      Assert.assertTrue(file, Arrays.equals(ascii.getOffsets(), grid.getOffsets()));
+      Assert.assertTrue(file, Arrays.equals(ascii.getCellTypes(), grid.getCellTypes()));
+      Assert.assertTrue(file, Arrays.equals(ascii.getPointDataAsFloat("temp"),
+          grid.getPointDataAsFloat("temp")));
+    }
+  }
+
+  @Test
+  public void givenMemoryMappedSetting_whenReadUncompressedAppendedFile_thenArraysAreViews()
+      throws IOException {
+    VTUReader reader = new VTUReader();
+    reader.setMemoryMapped(true);
+
+    VTUDataset grid = reader.read(APPENDED_RAW_UNCOMPRESSED);
+
+    // Then arrays are read only views on the file
+    Assert.assertTrue(grid.getPoints().getData() instanceof MappedByteBuffer);
+    Assert.assertTrue(grid.getPoints().getData().isReadOnly());
+    Assert.assertTrue(grid.getPointDataArray("temp").getData() instanceof MappedByteBuffer);
+
+    // Then typed buffers are views as well
+    Assert.assertTrue(grid.getPoints().toFloatBuffer().isDirect());
+    Assert.assertEquals(grid.getNumberOfPoints() * 3, grid.getPoints().toFloatBuffer().capacity());
+
+    IntBuffer connectivity = grid.getConnectivityArray().toIntBuffer();
+    Assert.assertTrue(connectivity.isDirect());
+    Assert.assertEquals(grid.getConnectivity()[5], connectivity.get(5));
+  }
+
+  @Test
+  public void given64BitIds_whenGetLongBuffer_thenValuesAreSameThanArray() throws IOException {
+    VTUReader reader = new VTUReader();
+    reader.setMemoryMapped(true);
+
+    // This file stores Int64 connectivity
+    VTUDataset grid = reader.read(APPENDED_RAW);
+    VTUDataArray connectivity = grid.getConnectivityArray();
+
+    Assert.assertEquals(VTUDataArray.Type.Int64, connectivity.getType());
+
+    LongBuffer ids = connectivity.toLongBuffer();
+    Assert.assertEquals(connectivity.getNumberOfValues(), ids.capacity());
+    Assert.assertEquals(connectivity.getLong(7), ids.get(7));
+
+    // Narrowing 64 bit ids to an IntBuffer requires a copy
+    Assert.assertEquals(grid.getConnectivity()[7], connectivity.toIntBuffer().get(7));
+  }
+
+  ///////////////////////////////////////////////
+  //
+  // LOAD PLAN
+  //
+  ///////////////////////////////////////////////
+
+  @Test
+  public void givenLoadPlan_whenRead_thenOnlyPlannedArraysAndGeometryAreDecoded()
+      throws IOException {
+    VTUDataset ascii = new VTUReader().read(ASCII);
+
+    for (boolean memoryMapped : new boolean[] {false, true}) {
+      VTUReader reader = new VTUReader();
+      reader.setMemoryMapped(memoryMapped);
+      reader.setLoadPlan(new LoadPlan("enthalpy", "subdomain_id"));
+
+      for (String file : new String[] {ASCII, BINARY, APPENDED_RAW, APPENDED_BASE64,
+          APPENDED_RAW_UNCOMPRESSED}) {
+        VTUDataset grid = reader.read(file);
+
+        Assert.assertTrue(file,
+            Arrays.equals(new String[] {"enthalpy"}, grid.getPointDataNames()));
+        Assert.assertTrue(file,
+            Arrays.equals(new String[] {"subdomain_id"}, grid.getCellDataNames()));
+
+        Assert.assertTrue(file, Arrays.equals(ascii.getCoordinates(), grid.getCoordinates()));
+        Assert.assertTrue(file, Arrays.equals(ascii.getConnectivity(), grid.getConnectivity()));
+        Assert.assertTrue(file, Arrays.equals(ascii.getOffsets(), grid.getOffsets()));
+        Assert.assertTrue(file, Arrays.equals(ascii.getCellTypes(), grid.getCellTypes()));
+
+        // Arrays following skipped ones are decoded from the right place
+        Assert.assertTrue(file, Arrays.equals(ascii.getPointDataAsFloat("enthalpy"),
+            grid.getPointDataAsFloat("enthalpy")));
+        Assert.assertTrue(file, Arrays.equals(ascii.getCellData().get("subdomain_id").toIntArray(),
+            grid.getCellData().get("subdomain_id").toIntArray()));
+      }
+    }
+  }
+
+  @Test
+  public void givenGeometryLoadPlan_whenRead_thenNoDataArrayIsDecoded() throws IOException {
+    VTUReader reader = new VTUReader();
+    reader.setLoadPlan(LoadPlan.GEOMETRY);
+
+    VTUDataset grid = reader.read(BINARY_ZLIB);
+
+    Assert.assertEquals(0, grid.getPointDataNames().length);
+    Assert.assertEquals(0, grid.getCellDataNames().length);
+    Assert.assertEquals(110136 * 3, grid.getCoordinates().length);
+    Assert.assertEquals(13767 * 8, grid.getConnectivity().length);
+  }
+}
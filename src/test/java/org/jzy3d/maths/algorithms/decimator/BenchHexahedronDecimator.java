@@ -0,0 +1,90 @@
+package org.jzy3d.maths.algorithms.decimator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.jzy3d.io.vtk.xml.SyntheticGrids;
+import org.jzy3d.maths.algorithms.decimator.HexahedronDecimator.NeighbourhoodMode;
+import org.jzy3d.plot3d.primitives.Point;
+import org.jzy3d.plot3d.primitives.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure {@link HexahedronDecimator#mergeNeighbours(List)} and the {@link PolygonBuilder}s on the
+ * surface of a synthetic cube of <code>cells^3</code> hexahedrons, made of color stripes.
+ *
+ * The surface is computed once at setup with {@link SurfaceFilter}, as the decimator expects
+ * hidden faces to be pruned. Run with <code>mvn -Pbench test</code>, see the <code>bench</code>
+ * profile of the pom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchHexahedronDecimator {
+  public enum Builder {
+    SHORTEST_PATH, AREA_360;
+
+    public PolygonBuilder newPolygonBuilder() {
+      return SHORTEST_PATH.equals(this) ? new PolygonBuilderShortestPath()
+          : new PolygonBuilderArea360();
+    }
+  }
+
+  @Param({"10", "20"})
+  public int cells;
+
+  @Param({"COORD_SET", "EDGE_ID"})
+  public NeighbourhoodMode neighbourhoodMode;
+
+  @Param({"SHORTEST_PATH", "AREA_360"})
+  public Builder builder;
+
+  protected List<Polygon> surface;
+  protected List<Set<Point>> quads;
+
+  @Setup
+  public void setup() {
+    List<Polygon> faces = BenchSurfaceFilter.hexahedronFaces(SyntheticGrids.hexahedrons(cells));
+    surface = new SurfaceFilter().filterHiddenPolygons(faces);
+
+    // Unordered points of each quad, as given to polygon builders after a merge
+    quads = new ArrayList<>(surface.size());
+    for (Polygon p : surface) {
+      quads.add(new HashSet<>(p.getPoints()));
+    }
+  }
+
+  @Benchmark
+  public List<Polygon> mergeNeighbours() {
+    HexahedronDecimator decimator = new HexahedronDecimator();
+    decimator.setNeighbourhoodMode(neighbourhoodMode);
+    decimator.setPolygonBuilder(builder.newPolygonBuilder());
+    return decimator.mergeNeighbours(surface);
+  }
+
+  @Benchmark
+  public List<Polygon> buildPolygonEnvelopes() {
+    PolygonBuilder polygonBuilder = builder.newPolygonBuilder();
+
+    List<Polygon> polygons = new ArrayList<>(quads.size());
+    for (Set<Point> quad : quads) {
+      polygons.add(polygonBuilder.buildPolygonEnvelope(quad));
+    }
+    return polygons;
+  }
+}
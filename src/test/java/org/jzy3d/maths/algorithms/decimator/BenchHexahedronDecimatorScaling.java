@@ -0,0 +1,51 @@
+package org.jzy3d.maths.algorithms.decimator;
+
+import java.util.List;
+import org.jzy3d.maths.TicToc;
+import org.jzy3d.maths.algorithms.decimator.HexahedronDecimator.NeighbourhoodMode;
+import org.jzy3d.plot3d.primitives.Polygon;
+
+/**
+ * Measure how {@link HexahedronDecimator#mergeNeighbours(List)} scales with the number of input
+ * quads, on the synthetic planar grids of {@link SyntheticQuads} made of color stripes.
+ *
+ * The time per quad should remain roughly constant when the grid grows, showing a near linear
+ * complexity. Run with a large heap (e.g. <code>-Xmx8g</code>) to reach 1M quads.
+ */
+public class BenchHexahedronDecimatorScaling {
+  static int[] QUADS = {10000, 40000, 160000, 640000, 1000000};
+  static int WARMUP = 3;
+
+  public static void main(String[] args) {
+    for (int i = 0; i < WARMUP; i++) {
+      for (NeighbourhoodMode mode : NeighbourhoodMode.values()) {
+        run(10000, mode, false);
+      }
+    }
+
+    for (int quads : QUADS) {
+      for (NeighbourhoodMode mode : NeighbourhoodMode.values()) {
+        run(quads, mode, true);
+      }
+    }
+  }
+
+  protected static void run(int quads, NeighbourhoodMode mode, boolean print) {
+    int width = (int) Math.sqrt(quads);
+    List<Polygon> grid = SyntheticQuads.grid(width, width);
+
+    HexahedronDecimator decimator = new HexahedronDecimator();
+    decimator.setNeighbourhoodMode(mode);
+
+    TicToc t = new TicToc();
+    t.tic();
+    List<Polygon> merged = decimator.mergeNeighbours(grid);
+    t.toc();
+
+    if (print) {
+      System.out.println(mode + " : " + grid.size() + " quads -> " + merged.size() + " polygons in "
+          + t.elapsedMilisecond() + " ms (" + (t.elapsedMilisecond() * 1000.0 / grid.size())
+          + " us per quad)");
+    }
+  }
+}
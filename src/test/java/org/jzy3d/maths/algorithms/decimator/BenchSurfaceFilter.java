@@ -0,0 +1,92 @@
+package org.jzy3d.maths.algorithms.decimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jzy3d.colors.Color;
+import org.jzy3d.io.vtk.xml.SyntheticGrids;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import org.jzy3d.maths.Coord3d;
+import org.jzy3d.plot3d.primitives.Point;
+import org.jzy3d.plot3d.primitives.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure {@link SurfaceFilter#filterHiddenPolygons(List)} on the faces of a synthetic cube of
+ * <code>cells^3</code> hexahedrons, where all faces but those of the cube sides are hidden.
+ *
+ * Run with <code>mvn -Pbench test</code>, see the <code>bench</code> profile of the pom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchSurfaceFilter {
+  static int STRIPE_WIDTH = 4;
+
+  // Faces of a VTK hexahedron, as indices of its 8 points
+  static int[][] HEXAHEDRON_FACES =
+      {{0, 1, 2, 3}, {4, 5, 6, 7}, {0, 1, 5, 4}, {1, 2, 6, 5}, {2, 3, 7, 6}, {3, 0, 4, 7}};
+
+  @Param({"10", "20"})
+  public int cells;
+
+  @Param({"false", "true"})
+  public boolean filterAdditiveNeighbourhood;
+
+  protected List<Polygon> faces;
+
+  @Setup
+  public void setup() {
+    faces = hexahedronFaces(SyntheticGrids.hexahedrons(cells));
+  }
+
+  @Benchmark
+  public List<Polygon> filterHiddenPolygons() {
+    return new SurfaceFilter().filterHiddenPolygons(faces, filterAdditiveNeighbourhood);
+  }
+
+  /**
+   * Return the 6 faces of each hexahedron of a grid as quads, with a color changing every few
+   * columns of cells. Points with the same id share the same {@link Coord3d}.
+   */
+  protected static List<Polygon> hexahedronFaces(VTUDataset grid) {
+    float[] coordinates = grid.getCoordinates();
+    int[] offsets = grid.getOffsets();
+    int[] connectivity = grid.getConnectivity();
+
+    Coord3d[] coords = new Coord3d[grid.getNumberOfPoints()];
+    for (int i = 0; i < coords.length; i++) {
+      coords[i] = new Coord3d(coordinates[i * 3], coordinates[i * 3 + 1], coordinates[i * 3 + 2]);
+    }
+
+    List<Polygon> polygons = new ArrayList<>(grid.getNumberOfCells() * HEXAHEDRON_FACES.length);
+
+    for (int c = 0; c < grid.getNumberOfCells(); c++) {
+      int start = offsets[c];
+      int column = (int) coords[connectivity[start]].x / STRIPE_WIDTH;
+      Color color = column % 2 == 0 ? Color.BLUE : Color.RED;
+
+      for (int[] face : HEXAHEDRON_FACES) {
+        Polygon p = new Polygon();
+        for (int point : face) {
+          p.add(new Point(coords[connectivity[start + point]], color));
+        }
+        polygons.add(p);
+      }
+    }
+    return polygons;
+  }
+}
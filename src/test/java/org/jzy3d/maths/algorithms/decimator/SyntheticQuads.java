@@ -0,0 +1,56 @@
+package org.jzy3d.maths.algorithms.decimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jzy3d.colors.Color;
+import org.jzy3d.maths.Coord3d;
+import org.jzy3d.plot3d.primitives.Point;
+import org.jzy3d.plot3d.primitives.Polygon;
+
+/**
+ * Build planar quads in memory for the decimator tests and benchmarks.
+ *
+ * @author Martin Pernollet
+ */
+public class SyntheticQuads {
+  public static final int STRIPE_WIDTH = 8;
+
+  /**
+   * Build a grid of unit quads in the XY plane sharing their points, with a color changing every
+   * {@link #STRIPE_WIDTH} columns.
+   */
+  public static List<Polygon> grid(int width, int height) {
+    Coord3d[][] coords = new Coord3d[width + 1][height + 1];
+    for (int x = 0; x <= width; x++) {
+      for (int y = 0; y <= height; y++) {
+        coords[x][y] = new Coord3d(x, y, 0);
+      }
+    }
+
+    List<Polygon> polygons = new ArrayList<>(width * height);
+
+    for (int x = 0; x < width; x++) {
+      Color color = (x / STRIPE_WIDTH) % 2 == 0 ? Color.BLUE : Color.RED;
+
+      for (int y = 0; y < height; y++) {
+        Polygon p = new Polygon();
+        p.add(new Point(coords[x][y], color));
+        p.add(new Point(coords[x + 1][y], color));
+        p.add(new Point(coords[x + 1][y + 1], color));
+        p.add(new Point(coords[x][y + 1], color));
+        polygons.add(p);
+      }
+    }
+    return polygons;
+  }
+
+  /** Build a unit quad in the XY plane starting at the given corner. */
+  public static Polygon quad(float x, float y, Color color) {
+    Polygon p = new Polygon();
+    p.add(new Point(new Coord3d(x, y, 0), color));
+    p.add(new Point(new Coord3d(x + 1, y, 0), color));
+    p.add(new Point(new Coord3d(x + 1, y + 1, 0), color));
+    p.add(new Point(new Coord3d(x, y + 1, 0), color));
+    return p;
+  }
+}
@@ -0,0 +1,127 @@
+package org.jzy3d.maths.algorithms.decimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.jzy3d.colors.Color;
+import org.jzy3d.maths.Coord3d;
+import org.jzy3d.plot3d.primitives.Point;
+import org.jzy3d.plot3d.primitives.Polygon;
+import junit.framework.Assert;
+
+public class TestEdgeNeighbourhood {
+
+  @Test
+  public void edgeKeyDoesNotDependOnDirection() {
+    long e = EdgeNeighbourhood.edge(7, 3);
+
+    Assert.assertEquals(e, EdgeNeighbourhood.edge(3, 7));
+    Assert.assertEquals(3, EdgeNeighbourhood.first(e));
+    Assert.assertEquals(7, EdgeNeighbourhood.second(e));
+    Assert.assertFalse(e == EdgeNeighbourhood.edge(3, 8));
+  }
+
+  @Test
+  public void givenTwoNeighbourQuads_thenSharedSideHasTwoPolygons() {
+    List<Polygon> polys = new ArrayList<>();
+    polys.add(SyntheticQuads.quad(0, 0, Color.BLUE));
+    polys.add(SyntheticQuads.quad(1, 0, Color.BLUE));
+
+    EdgeNeighbourhood edges = new EdgeNeighbourhood(polys);
+
+    // 6 distinct coordinates, the 2 shared ones having the same id in both quads
+    Assert.assertEquals(6, edges.getNumberOfVertices());
+    Assert.assertEquals(edges.getVertex(0, 1), edges.getVertex(1, 0));
+    Assert.assertEquals(edges.getVertex(new Coord3d(1, 0, 0)), edges.getVertex(1, 0));
+    Assert.assertEquals(EdgeNeighbourhood.NONE, edges.getVertex(new Coord3d(5, 5, 5)));
+
+    // When/Then : right side of first quad is left side of second quad
+    long shared = edges.getSide(0, 1);
+    Assert.assertEquals(shared, edges.getSide(1, 3));
+    Assert.assertEquals(2, edges.size(shared));
+    Assert.assertEquals(0, edges.get(shared, 0));
+    Assert.assertEquals(1, edges.get(shared, 1));
+    Assert.assertEquals(1, edges.getNeighbour(0, shared));
+    Assert.assertEquals(0, edges.getNeighbour(1, shared));
+
+    // When/Then : other sides have a single polygon
+    Assert.assertEquals(EdgeNeighbourhood.NONE, edges.getNeighbour(0, edges.getSide(0, 0)));
+
+    // When/Then : opposite side is made of the two points out of the side
+    long opposite = edges.getOppositeSide(0, shared);
+    Assert.assertEquals(edges.getSide(0, 3), opposite);
+
+    // When/Then : remove keeps insertion order of remaining polygons
+    edges.add(shared, 5);
+    Assert.assertTrue(edges.remove(shared, 0));
+    Assert.assertFalse(edges.remove(shared, 0));
+    Assert.assertEquals(1, edges.get(shared, 0));
+    Assert.assertEquals(5, edges.get(shared, 1));
+
+    edges.removeAll(shared);
+    Assert.assertEquals(0, edges.size(shared));
+    Assert.assertEquals(EdgeNeighbourhood.NONE, edges.get(shared, 0));
+  }
+
+  @Test
+  public void givenTwoNeighbourQuads_whenPointsNotOnSide_thenFourDistinctPointsRemain() {
+    List<Polygon> polys = new ArrayList<>();
+    polys.add(SyntheticQuads.quad(0, 0, Color.BLUE));
+    polys.add(SyntheticQuads.quad(1, 0, Color.BLUE));
+
+    EdgeNeighbourhood edges = new EdgeNeighbourhood(polys);
+    long shared = edges.getSide(0, 1);
+
+    Point[] kept = new Point[4];
+    int n = edges.pointsNotOnSide(0, shared, kept, 0);
+    Assert.assertEquals(2, n);
+    Assert.assertEquals(4, edges.pointsNotOnSide(1, shared, kept, n));
+
+    // Left side of first quad and right side of second quad
+    Assert.assertEquals(new Coord3d(0, 0, 0), kept[0].xyz);
+    Assert.assertEquals(new Coord3d(0, 1, 0), kept[1].xyz);
+    Assert.assertEquals(new Coord3d(2, 0, 0), kept[2].xyz);
+    Assert.assertEquals(new Coord3d(2, 1, 0), kept[3].xyz);
+
+    // Then the merged polygon covers both quads
+    Polygon merged = new PolygonBuilderShortestPath().buildPolygonEnvelope(kept);
+    Assert.assertEquals(4, merged.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenTooSmallArray_whenPointsNotOnSide_thenThrowsIllegalArgument() {
+    List<Polygon> polys = new ArrayList<>();
+    polys.add(SyntheticQuads.quad(0, 0, Color.BLUE));
+    polys.add(SyntheticQuads.quad(1, 0, Color.BLUE));
+
+    EdgeNeighbourhood edges = new EdgeNeighbourhood(polys);
+    edges.pointsNotOnSide(0, edges.getSide(0, 1), new Point[1], 0);
+  }
+
+  @Test
+  public void tablesGrowBeyondInitialCapacity() {
+    List<Polygon> polys = new ArrayList<>();
+    polys.add(SyntheticQuads.quad(0, 0, Color.BLUE));
+
+    EdgeNeighbourhood edges = new EdgeNeighbourhood(polys);
+
+    for (int x = 1; x < 100; x++) {
+      Polygon p = SyntheticQuads.quad(x * 2, 0, Color.RED);
+      int id = edges.addPolygon(p);
+
+      for (int i = 0; i < 4; i++) {
+        edges.add(edges.getSide(id, i), id);
+      }
+    }
+
+    Assert.assertEquals(100, edges.getNumberOfPolygons());
+    Assert.assertEquals(400, edges.getNumberOfVertices());
+
+    for (int id = 0; id < 100; id++) {
+      for (int i = 0; i < 4; i++) {
+        Assert.assertEquals(1, edges.size(edges.getSide(id, i)));
+        Assert.assertEquals(id, edges.get(edges.getSide(id, i), 0));
+      }
+    }
+  }
+}
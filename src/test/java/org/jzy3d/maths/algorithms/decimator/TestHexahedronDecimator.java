@@ -870,6 +870,59 @@ public class TestHexahedronDecimator {
 
   }
 
+  @Test
+  public void candidates() {
+    List<Polygon> polys = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      polys.add(geom.poly(i, 0, 0, true, Color.BLUE));
+    }
+
+    HexahedronDecimator.Candidates candidates = new HexahedronDecimator.Candidates(polys);
+
+    // When/Then : polled in input order
+    Assert.assertSame(polys.get(0), candidates.poll());
+
+    // When/Then : consumed candidates are skipped
+    candidates.consume(polys.get(1));
+    candidates.consume(polys.get(3));
+    Assert.assertSame(polys.get(2), candidates.poll());
+
+    // When/Then : polygons that are not candidates are ignored
+    candidates.consume(geom.poly(9, 0, 0, true, Color.BLUE));
+    Assert.assertSame(polys.get(4), candidates.poll());
+    Assert.assertNull(candidates.poll());
+  }
+
+  @Test
+  public void whenNeighbourhoodOnEdgeIds_thenSameMergeThanOnCoordSets() {
+    List<Polygon> grid = SyntheticQuads.grid(40, 30);
+
+    HexahedronDecimator coordSet = new HexahedronDecimator();
+    coordSet.setNeighbourhoodMode(HexahedronDecimator.NeighbourhoodMode.COORD_SET);
+
+    HexahedronDecimator edgeId = new HexahedronDecimator();
+    edgeId.setNeighbourhoodMode(HexahedronDecimator.NeighbourhoodMode.EDGE_ID);
+
+    // When
+    List<Polygon> out1 = coordSet.mergeNeighbours(grid);
+    List<Polygon> out2 = edgeId.mergeNeighbours(grid);
+
+    // Then : same polygons, whatever the order of their points
+    Assert.assertNotNull(edgeId.getEdgeNeighbourhood());
+    Assert.assertTrue(out1.size() < grid.size());
+    Assert.assertEquals(out1.size(), out2.size());
+
+    for (int i = 0; i < out1.size(); i++) {
+      Set<Coord3d> coords1 = new HashSet<>();
+      Set<Coord3d> coords2 = new HashSet<>();
+      for (Point p : out1.get(i).getPoints())
+        coords1.add(p.xyz);
+      for (Point p : out2.get(i).getPoints())
+        coords2.add(p.xyz);
+      Assert.assertEquals(coords1, coords2);
+    }
+  }
+
   ////////////////////////////////////////////////////////////
   //
   // UTILS
@@ -0,0 +1,112 @@
+package vtk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import junit.framework.Assert;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestTimeStepCache {
+  /** Steps of 100 bytes, recording the order of reads. */
+  List<Integer> reads = Collections.synchronizedList(new ArrayList<>());
+
+  float[] read(int step) {
+    reads.add(step);
+    return new float[] {step};
+  }
+
+  static long size(float[] data) {
+    return 100;
+  }
+
+  @Test
+  public void givenBudget_whenGetSteps_thenLeastRecentlyUsedAreEvicted() {
+    TimeStepCache<float[]> cache =
+        new TimeStepCache<>(this::read, TestTimeStepCache::size, 0, 9, 300);
+    cache.setPrefetchDepth(0);
+
+    Assert.assertEquals(0f, cache.get(0)[0]);
+    Assert.assertEquals(1f, cache.get(1)[0]);
+    Assert.assertEquals(2f, cache.get(2)[0]);
+    Assert.assertEquals(300, cache.getSize());
+
+    // Using 0 again makes 1 the least recently used
+    cache.get(0);
+    cache.get(3);
+
+    Assert.assertTrue(cache.isCached(0));
+    Assert.assertFalse(cache.isCached(1));
+    Assert.assertTrue(cache.isCached(2));
+    Assert.assertTrue(cache.isCached(3));
+    Assert.assertEquals(300, cache.getSize());
+
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(4, cache.getMisses());
+    Assert.assertEquals(4, reads.size());
+
+    // Shrinking the budget keeps the current step
+    cache.setMemoryBudget(0);
+    Assert.assertEquals(1, cache.getNumberOfCachedSteps());
+    Assert.assertTrue(cache.isCached(3));
+
+    cache.close();
+  }
+
+  @Test
+  public void givenPlayForward_whenGetSteps_thenNextStepsArePrefetched() throws Exception {
+    TimeStepCache<float[]> cache =
+        new TimeStepCache<>(this::read, TestTimeStepCache::size, 0, 9, 10000);
+    cache.setPrefetchDepth(2);
+
+    cache.get(0);
+    awaitCached(cache, 1, 2);
+    Assert.assertEquals(1, cache.getDirection());
+
+    // Next steps are hits
+    cache.get(1);
+    cache.get(2);
+    Assert.assertEquals(2, cache.getHits());
+
+    awaitCached(cache, 3, 4);
+    Assert.assertTrue(cache.getPrefetched() >= 4);
+
+    cache.close();
+  }
+
+  @Test
+  public void givenPlayBackward_whenGetSteps_thenPreviousStepsArePrefetched() throws Exception {
+    TimeStepCache<float[]> cache =
+        new TimeStepCache<>(this::read, TestTimeStepCache::size, 0, 9, 10000);
+    cache.setPrefetchDepth(2);
+
+    // Nothing to prefetch after the last step, then moving backward gives the direction
+    cache.get(9);
+    cache.get(8);
+    Assert.assertEquals(-1, cache.getDirection());
+
+    awaitCached(cache, 7, 6);
+    Assert.assertFalse(cache.isCached(0));
+
+    // Each step is read once
+    Assert.assertEquals(reads.size(), reads.stream().distinct().count());
+
+    cache.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenStepOutOfRange_whenGet_thenThrowsIllegalArgument() {
+    new TimeStepCache<>(this::read, TestTimeStepCache::size, 0, 9, 300).get(10);
+  }
+
+  void awaitCached(TimeStepCache<float[]> cache, int... steps) throws InterruptedException {
+    for (int step : steps) {
+      for (int i = 0; i < 200 && !cache.isCached(step); i++) {
+        Thread.sleep(10);
+      }
+      Assert.assertTrue("Step " + step + " not prefetched", cache.isCached(step));
+    }
+  }
+}
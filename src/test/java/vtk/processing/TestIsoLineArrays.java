@@ -0,0 +1,80 @@
+package vtk.processing;
+
+import java.util.List;
+import org.junit.Test;
+import org.jzy3d.colors.Color;
+import org.jzy3d.maths.Coord3d;
+import org.jzy3d.plot3d.primitives.LineStrip;
+import org.jzy3d.plot3d.text.drawable.DrawableTextWrapper;
+import junit.framework.Assert;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestIsoLineArrays {
+  // Two lines : 0-1-2 and 3-4, the second one sharing no point with the first one
+  float[] coordinates = {0, 0, 0, 1, 0, 0, 2, 0, 0, 0, 1, 1, 0, 2, 1};
+  double[] scalars = {10, 10, 10, 20, 20};
+  int[] offsets = {0, 3, 5};
+  int[] connectivity = {0, 1, 2, 4, 3};
+
+  @Test
+  public void whenToLineStrips_thenOneStripPerLineInConnectivityOrder() {
+    IsoLineArrays lines = new IsoLineArrays(coordinates, scalars, offsets, connectivity);
+
+    Assert.assertEquals(2, lines.getNumberOfLines());
+
+    List<LineStrip> strips = lines.toLineStrips(Color.BLACK, 3, 0);
+
+    Assert.assertEquals(2, strips.size());
+    Assert.assertEquals(3, strips.get(0).getPoints().size());
+    Assert.assertEquals(2, strips.get(1).getPoints().size());
+    Assert.assertEquals(new Coord3d(0, 2, 1), strips.get(1).getPoints().get(0).xyz);
+    Assert.assertEquals(new Coord3d(0, 1, 1), strips.get(1).getPoints().get(1).xyz);
+
+    // Minimal number of points skips the short line
+    Assert.assertEquals(1, lines.toLineStrips(Color.BLACK, 3, 3).size());
+  }
+
+  @Test
+  public void whenToLabels_thenLabelIsAtMidPointWithItsValue() {
+    IsoLineArrays lines = new IsoLineArrays(coordinates, scalars, offsets, connectivity);
+
+    List<DrawableTextWrapper> labels = lines.toLabels(Color.WHITE, 0);
+
+    Assert.assertEquals(2, labels.size());
+    Assert.assertEquals(1, lines.getMidPoint(0));
+    Assert.assertEquals(3, lines.getMidPoint(1));
+    Assert.assertEquals("10.0", labels.get(0).getText());
+    Assert.assertEquals("20.0", labels.get(1).getText());
+  }
+
+  @Test
+  public void whenToVertexArray_thenLinesAreRangesOfVertices() {
+    IsoLineArrays lines = new IsoLineArrays(coordinates, scalars, offsets, connectivity);
+
+    float[] vertices = lines.toVertexArray();
+    int[] starts = lines.getLineStarts();
+    int[] lengths = lines.getLineLengths();
+
+    Assert.assertEquals(connectivity.length * 3, vertices.length);
+    Assert.assertEquals(0, starts[0]);
+    Assert.assertEquals(3, lengths[0]);
+    Assert.assertEquals(3, starts[1]);
+    Assert.assertEquals(2, lengths[1]);
+
+    // Second line starts with point 4
+    Assert.assertEquals(0f, vertices[starts[1] * 3]);
+    Assert.assertEquals(2f, vertices[starts[1] * 3 + 1]);
+    Assert.assertEquals(1f, vertices[starts[1] * 3 + 2]);
+  }
+
+  @Test
+  public void givenNoLine_thenNothingIsBuilt() {
+    IsoLineArrays lines = new IsoLineArrays(new float[0], new double[0], new int[0], new int[0]);
+
+    Assert.assertEquals(0, lines.getNumberOfLines());
+    Assert.assertEquals(0, lines.toLineStrips(Color.BLACK, 3, 0).size());
+    Assert.assertEquals(0, lines.toVertexArray().length);
+  }
+}
@@ -0,0 +1,228 @@
+package vtk.processing;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import org.junit.Test;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import junit.framework.Assert;
+import vtk.VTKGeometry;
+
+/**
+ * These tests do not require VTK natives.
+ *
+ * Cells interpolate a linear field exactly, whatever their shape, so that resampled values can be
+ * compared to the field evaluated at the voxel position.
+ */
+public class TestRegularGridResampler {
+  static final int N = 4;
+
+  static final int[][] CUBE_TO_TETRAHEDRA =
+      {{0, 1, 2, 6}, {0, 2, 3, 6}, {0, 3, 7, 6}, {0, 7, 4, 6}, {0, 4, 5, 6}, {0, 5, 1, 6}};
+
+  static double field(double x, double y, double z) {
+    return 1 + 2 * x + 3 * y - z;
+  }
+
+  @Test
+  public void givenDistortedHexahedra_whenResample_thenLinearFieldIsInterpolatedExactly() {
+    Block block = new Block(true, false);
+
+    RegularGridResampler resampler = new RegularGridResampler();
+    int[] dims = {10, 11, 12};
+    FloatBuffer buffer = resampler.resample(block.coordinates, block.values, block.offsets,
+        block.connectivity, block.types, dims, 0);
+
+    Assert.assertEquals(10 * 11 * 12, buffer.capacity());
+    Assert.assertEquals(0, resampler.getNumberOfOutsideVoxels());
+
+    // Same grid as the probe filter : origin at min bound, spacing is range / dims
+    Assert.assertEquals(0.0, resampler.getOrigin()[0], 1e-6);
+    Assert.assertEquals(N / 10.0, resampler.getSpacing()[0], 1e-6);
+    Assert.assertEquals(N / 12.0, resampler.getSpacing()[2], 1e-6);
+
+    assertLinearField(resampler, Float.NaN);
+  }
+
+  @Test
+  public void givenTetrahedra_whenResample_thenLinearFieldIsInterpolatedExactly() {
+    Block block = new Block(false, false);
+
+    RegularGridResampler resampler = new RegularGridResampler();
+    resampler.resample(block.coordinates, block.values, block.offsets, block.connectivity,
+        block.types, new int[] {9, 9, 9}, 0);
+
+    Assert.assertEquals(0, resampler.getNumberOfOutsideVoxels());
+    assertLinearField(resampler, Float.NaN);
+  }
+
+  @Test
+  public void givenVoxels_whenResample_thenLinearFieldIsInterpolatedExactly() {
+    Block block = new Block(true, true);
+
+    RegularGridResampler resampler = new RegularGridResampler();
+    resampler.resample(block.coordinates, block.values, block.offsets, block.connectivity,
+        block.types, new int[] {8, 8, 8}, 0);
+
+    Assert.assertEquals(0, resampler.getNumberOfOutsideVoxels());
+    assertLinearField(resampler, Float.NaN);
+  }
+
+  @Test
+  public void givenGrowRatio_whenResample_thenVoxelsOutOfCellsHaveNullValue() {
+    Block block = new Block(true, false);
+
+    RegularGridResampler resampler = new RegularGridResampler();
+    resampler.setNullValue(-1);
+    resampler.resample(block.coordinates, block.values, block.offsets, block.connectivity,
+        block.types, new int[] {10, 10, 10}, 0.5);
+
+    // Bounds grow by half their range on each side
+    Assert.assertEquals(-N / 2.0, resampler.getBounds()[0], 1e-6);
+    Assert.assertEquals(N + N / 2.0, resampler.getBounds()[1], 1e-6);
+
+    // Voxels 0..2 are before the block, 3..7 are in, 8..9 are after
+    Assert.assertEquals(1000 - 5 * 5 * 5, resampler.getNumberOfOutsideVoxels());
+    Assert.assertEquals(-1f, resampler.getValue(0, 5, 5));
+    Assert.assertEquals(-1f, resampler.getValue(9, 5, 5));
+
+    assertLinearField(resampler, -1);
+  }
+
+  @Test
+  public void givenPVTU_whenResample_thenVoxelsHaveValuesInPropertyRange() throws IOException {
+    VTUDataset dataset = new PVTUReader()
+        .read("./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu");
+
+    float[] values = dataset.getPointDataAsFloat("enthalpy");
+    float min = Float.MAX_VALUE;
+    float max = -Float.MAX_VALUE;
+    for (float value : values) {
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+
+    RegularGridResampler resampler =
+        VTKRegularMatrixProcessor.getResampler(dataset, "enthalpy", new int[] {20, 20, 20}, 0);
+    FloatBuffer buffer = resampler.getBuffer();
+
+    Assert.assertTrue(resampler.getNumberOfOutsideVoxels() < buffer.capacity());
+
+    for (int i = 0; i < buffer.capacity(); i++) {
+      float value = buffer.get(i);
+      if (value != resampler.getNullValue()) {
+        Assert.assertTrue(value >= min - 1e-3 * Math.abs(min));
+        Assert.assertTrue(value <= max + 1e-3 * Math.abs(max));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenInvalidDims_whenResample_thenThrowsIllegalArgument() {
+    Block block = new Block(true, false);
+
+    new RegularGridResampler().resample(block.coordinates, block.values, block.offsets,
+        block.connectivity, block.types, new int[] {10, 0, 10}, 0);
+  }
+
+  /** Check voxels having a value that is not the null value hold the linear field. */
+  protected void assertLinearField(RegularGridResampler resampler, float nullValue) {
+    int[] dims = resampler.getDimensions();
+    double[] origin = resampler.getOrigin();
+    double[] spacing = resampler.getSpacing();
+
+    for (int z = 0; z < dims[2]; z++) {
+      for (int y = 0; y < dims[1]; y++) {
+        for (int x = 0; x < dims[0]; x++) {
+          float value = resampler.getValue(x, y, z);
+
+          if (value == nullValue)
+            continue;
+
+          double expected = field(origin[0] + x * spacing[0], origin[1] + y * spacing[1],
+              origin[2] + z * spacing[2]);
+          Assert.assertEquals(expected, value, 1e-4);
+        }
+      }
+    }
+  }
+
+  /**
+   * A cube of NxNxN unit cubes, made of hexahedra, voxels or tetrahedra. Inner points of hexahedra
+   * are moved to distort cells.
+   */
+  static class Block {
+    float[] coordinates;
+    float[] values;
+    int[] offsets;
+    int[] connectivity;
+    int[] types;
+
+    Block(boolean hexahedra, boolean voxels) {
+      int n = N + 1;
+      coordinates = new float[n * n * n * 3];
+      values = new float[n * n * n];
+
+      for (int z = 0; z < n; z++) {
+        for (int y = 0; y < n; y++) {
+          for (int x = 0; x < n; x++) {
+            int p = id(x, y, z);
+            boolean inner = x > 0 && x < N && y > 0 && y < N && z > 0 && z < N;
+            float shift = hexahedra && !voxels && inner ? 0.2f * ((x + 2 * y + 3 * z) % 3 - 1) : 0;
+
+            coordinates[p * 3] = x + shift;
+            coordinates[p * 3 + 1] = y - shift;
+            coordinates[p * 3 + 2] = z + shift / 2;
+            values[p] = (float) field(coordinates[p * 3], coordinates[p * 3 + 1],
+                coordinates[p * 3 + 2]);
+          }
+        }
+      }
+
+      int cubes = N * N * N;
+      int cells = hexahedra ? cubes : cubes * CUBE_TO_TETRAHEDRA.length;
+      int size = hexahedra ? 8 : 4;
+
+      offsets = new int[cells + 1];
+      connectivity = new int[cells * size];
+      types = new int[cells];
+
+      int cell = 0;
+      for (int z = 0; z < N; z++) {
+        for (int y = 0; y < N; y++) {
+          for (int x = 0; x < N; x++) {
+            int[] cube = {id(x, y, z), id(x + 1, y, z), id(x + 1, y + 1, z), id(x, y + 1, z),
+                id(x, y, z + 1), id(x + 1, y, z + 1), id(x + 1, y + 1, z + 1),
+                id(x, y + 1, z + 1)};
+
+            if (voxels) {
+              int[] voxel = {cube[0], cube[1], cube[3], cube[2], cube[4], cube[5], cube[7],
+                  cube[6]};
+              add(cell++, voxel, VTKGeometry.VTK_VOXEL);
+            } else if (hexahedra) {
+              add(cell++, cube, VTKGeometry.VTK_HEXAHEDRON);
+            } else {
+              for (int[] tetrahedron : CUBE_TO_TETRAHEDRA) {
+                int[] ids = new int[4];
+                for (int i = 0; i < 4; i++) {
+                  ids[i] = cube[tetrahedron[i]];
+                }
+                add(cell++, ids, VTKGeometry.VTK_TETRA);
+              }
+            }
+          }
+        }
+      }
+    }
+
+    void add(int cell, int[] ids, int type) {
+      System.arraycopy(ids, 0, connectivity, offsets[cell], ids.length);
+      offsets[cell + 1] = offsets[cell] + ids.length;
+      types[cell] = type;
+    }
+
+    static int id(int x, int y, int z) {
+      return x + (N + 1) * (y + (N + 1) * z);
+    }
+  }
+}
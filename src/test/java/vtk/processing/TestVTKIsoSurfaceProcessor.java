@@ -0,0 +1,85 @@
+package vtk.processing;
+
+import java.util.Map;
+import org.junit.Test;
+import junit.framework.Assert;
+
+/**
+ * These tests do not require VTK natives.
+ */
+public class TestVTKIsoSurfaceProcessor {
+  // 4 points : 0 and 1 at level 1, 2 and 3 at level 2
+  float[] coordinates = {0, 0, 0, 1, 0, 0, 0, 1, 0, 1, 1, 0};
+  float[] scalars = {1, 1, 2, 2};
+  double[] levels = {1, 2, 3};
+
+  @Test
+  public void givenCellsGroupedByLevel_whenSplit_thenViewsShareArrays() {
+    int[] offsets = {0, 3, 6, 9};
+    int[] connectivity = {0, 1, 0, 1, 0, 1, 2, 3, 2};
+
+    Map<Double, IsoSurfaceView> views =
+        VTKIsoSurfaceProcessor.split(levels, coordinates, null, scalars, offsets, connectivity);
+
+    Assert.assertEquals(3, views.size());
+
+    IsoSurfaceView level1 = views.get(1.0);
+    IsoSurfaceView level2 = views.get(2.0);
+    IsoSurfaceView level3 = views.get(3.0);
+
+    Assert.assertEquals(2, level1.getNumberOfCells());
+    Assert.assertEquals(1, level2.getNumberOfCells());
+    Assert.assertTrue(level3.isEmpty());
+
+    Assert.assertSame(connectivity, level1.getConnectivity());
+    Assert.assertSame(offsets, level2.getOffsets());
+    Assert.assertSame(coordinates, level2.getCoordinates());
+
+    assertArrayEquals(new int[] {2, 3, 2}, level2.getElements());
+    Assert.assertEquals(6, level2.getElementsStart());
+    Assert.assertEquals(9, level2.getElementsEnd());
+  }
+
+  @Test
+  public void givenCellsNotGroupedByLevel_whenSplit_thenCellsAreReorderedKeepingTheirOrder() {
+    int[] offsets = {0, 3, 6, 9, 13};
+    int[] connectivity = {2, 3, 2, 0, 1, 0, 3, 2, 3, 1, 0, 1, 0};
+
+    Map<Double, IsoSurfaceView> views =
+        VTKIsoSurfaceProcessor.split(levels, coordinates, null, scalars, offsets, connectivity);
+
+    IsoSurfaceView level1 = views.get(1.0);
+    IsoSurfaceView level2 = views.get(2.0);
+
+    Assert.assertEquals(2, level1.getNumberOfCells());
+    Assert.assertEquals(2, level2.getNumberOfCells());
+
+    assertArrayEquals(new int[] {0, 1, 0}, level1.getCell(0));
+    assertArrayEquals(new int[] {1, 0, 1, 0}, level1.getCell(1));
+    assertArrayEquals(new int[] {2, 3, 2}, level2.getCell(0));
+    assertArrayEquals(new int[] {3, 2, 3}, level2.getCell(1));
+
+    // Both levels share the reordered arrays
+    Assert.assertSame(level1.getConnectivity(), level2.getConnectivity());
+    Assert.assertEquals(13, level1.getConnectivity().length);
+  }
+
+  @Test
+  public void givenNoCell_whenSplit_thenAllViewsAreEmpty() {
+    Map<Double, IsoSurfaceView> views = VTKIsoSurfaceProcessor.split(levels, new float[0], null,
+        new float[0], new int[] {0}, new int[0]);
+
+    Assert.assertEquals(3, views.size());
+    for (IsoSurfaceView view : views.values()) {
+      Assert.assertTrue(view.isEmpty());
+      Assert.assertEquals(0, view.getElements().length);
+    }
+  }
+
+  protected void assertArrayEquals(int[] expected, int[] actual) {
+    Assert.assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      Assert.assertEquals(expected[i], actual[i]);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package vtk.processing;
+
+import java.io.IOException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.jzy3d.io.vtk.xml.PVTUReader;
+import org.jzy3d.io.vtk.xml.VTUDataset;
+import junit.framework.Assert;
+import vtk.VTKReader;
+import vtk.VTKUtils;
+import vtk.vtkDataArray;
+import vtk.vtkDataSet;
+import vtk.vtkProbeFilter;
+import vtk.vtkUnstructuredGrid;
+
+public class TestVTKRegularMatrixProcessor {
+  static final String FILE = "./src/test/resources/Enthalpy_Cylinder/Enthalpy_HS_cylinder_080.pvtu";
+  static final String PROPERTY = "enthalpy";
+
+  @BeforeClass
+  public static void load() {
+    VTKUtils.loadVtkNativeLibraries();
+  }
+
+  @Test
+  public void givenSameDimsAndGrowRatio_whenResample_thenVoxelsEqualProbeFilter()
+      throws IOException {
+    int[] dims = {24, 20, 16};
+    double growRatio = 0.1;
+
+    // Probe filter
+    vtkUnstructuredGrid ugrid = VTKReader.getReaderOutput(FILE);
+    vtkProbeFilter probe = VTKRegularMatrixProcessor.getProbeFilter(ugrid, PROPERTY, dims,
+        growRatio);
+
+    vtkDataSet probed = probe.GetOutput();
+    vtkDataArray probedValues = probed.GetPointData().GetArray(PROPERTY);
+    vtkDataArray validMask = probed.GetPointData().GetArray(probe.GetValidPointMaskArrayName());
+
+    // Java resampler
+    VTUDataset dataset = new PVTUReader().read(FILE);
+    RegularGridResampler resampler =
+        VTKRegularMatrixProcessor.getResampler(dataset, PROPERTY, dims, growRatio);
+
+    double[] bounds = probed.GetBounds();
+    Assert.assertEquals(bounds[0], resampler.getOrigin()[0], 1e-6);
+    Assert.assertEquals(bounds[2], resampler.getOrigin()[1], 1e-6);
+    Assert.assertEquals(bounds[4], resampler.getOrigin()[2], 1e-6);
+
+    double[] range = ugrid.GetPointData().GetArray(PROPERTY).GetRange();
+    double tolerance = 1e-3 * (range[1] - range[0]);
+
+    int voxels = dims[0] * dims[1] * dims[2];
+    int compared = 0;
+
+    Assert.assertEquals(voxels, probed.GetNumberOfPoints());
+
+    for (int i = 0; i < voxels; i++) {
+      boolean probedValid = validMask.GetTuple1(i) != 0;
+      float value = resampler.getBuffer().get(i);
+
+      // Both agree on inner voxels, and may only differ at the boundary of the grid
+      if (probedValid && value != resampler.getNullValue()) {
+        Assert.assertEquals("Voxel " + i, probedValues.GetTuple1(i), value, tolerance);
+        compared++;
+      }
+    }
+
+    Assert.assertTrue(compared > voxels / 2);
+  }
+}